@@ -1,34 +1,145 @@
 package kleyman;
 
+import kleyman.distributed.Agent;
+import kleyman.distributed.Coordinator;
+import kleyman.distributed.DistributedRole;
+import kleyman.control.RunController;
+import kleyman.metrics.ConsoleDashboard;
+import kleyman.metrics.CouchbaseMetrics;
+import kleyman.metrics.MetricManager;
 import kleyman.metrics.MetricsSetup;
 import kleyman.report.PPTXReportGenerator;
+import kleyman.results.RunComparison;
+import kleyman.results.RunResult;
+import kleyman.results.ResultExporter;
+import kleyman.results.RunResultFile;
+import kleyman.slo.SloGate;
+import kleyman.slo.SloVerdict;
 import kleyman.testrunner.CouchbaseTestRunner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Main class that manages the lifecycle of metrics reporting using the MetricsSetup class,
  * runs the Couchbase tests using the CouchbaseTestRunner class,
- * and generates a report in PowerPoint format.
+ * and generates a report in PowerPoint format. The results are also saved to a run result file and exported
+ * as JSON and CSV; started with {@code compare <baseline> <candidate>...}, it compares such files instead of running tests.
+ * With {@code load.test.distributed.role} set, the process is the coordinator or an agent of a distributed run:
+ * agents only generate load, and the coordinator reports the merged results of all agents.
+ * The process exits with {@value #EXIT_SLO_FAILED} when the SLO gate fails and with {@value #EXIT_ERROR}
+ * when the run itself fails, including when some scenarios could not run because the connection to the backend failed.
  */
 public class Main {
     private static final Logger logger = LoggerFactory.getLogger(Main.class);
+    private static final String COMPARE_COMMAND = "compare";
+    static final int EXIT_SLO_FAILED = 1;
+    static final int EXIT_ERROR = 2;
 
     public static void main(String[] args) {
+        if (args.length > 0 && COMPARE_COMMAND.equals(args[0])) {
+            if (!compareRuns(args)) {
+                System.exit(EXIT_ERROR);
+            }
+            return;
+        }
 
+        int exitCode = 0;
         try {
             MetricsSetup.setupMetrics();
             logger.info("Metrics reporting started.");
-            CouchbaseTestRunner testRunner = new CouchbaseTestRunner();
-            testRunner.runTests();
-            PPTXReportGenerator report = new PPTXReportGenerator();
-            report.createReport();
+            LoadOutcome load = runLoad();
+            if (load.failed()) {
+                logger.error("Some scenarios could not run, see the errors above");
+                exitCode = EXIT_ERROR;
+            }
+            if (load.reportsResults()) {
+                if (MetricManager.metricsMap.isEmpty()) {
+                    throw new IllegalStateException("No scenario completed");
+                }
+                // The gate is evaluated before the report, so a report that fails to render cannot hide the verdict
+                Optional<SloVerdict> verdict = SloGate.evaluateConfigured(allTrials());
+                if (verdict.isPresent() && !verdict.get().passed()) {
+                    exitCode = Math.max(exitCode, EXIT_SLO_FAILED);
+                }
+                saveRunResults();
+                ResultExporter.exportAll(MetricManager.trialsMap);
+                PPTXReportGenerator report = new PPTXReportGenerator();
+                report.createReport();
+            }
         } catch (Exception e) {
             logger.error("Error during test execution: {}", e.getMessage(), e);
+            exitCode = EXIT_ERROR;
         } finally {
             MetricsSetup.stopMetricsServer();
             logger.info("Metrics reporting stopped.");
         }
+        if (exitCode != 0) {
+            System.exit(exitCode);
+        }
+    }
+
+    /**
+     * Runs the load of this process and stores the results in the {@link MetricManager}.
+     */
+    private static LoadOutcome runLoad() throws Exception {
+        Optional<DistributedRole> role = DistributedRole.configured();
+        if (role.isEmpty()) {
+            CouchbaseTestRunner testRunner = new CouchbaseTestRunner();
+            try (ConsoleDashboard ignored = ConsoleDashboard.startIfEnabled(RunController.get()::getActiveWorkers)) {
+                testRunner.runTests();
+            }
+            return new LoadOutcome(true, testRunner.hasFailed());
+        }
+        if (role.get() == DistributedRole.AGENT) {
+            boolean failed;
+            try (ConsoleDashboard ignored = ConsoleDashboard.startIfEnabled(RunController.get()::getActiveWorkers)) {
+                failed = Agent.runConfigured();
+            }
+            return new LoadOutcome(false, failed);
+        }
+        try (Coordinator coordinator = Coordinator.fromProperties()) {
+            coordinator.start();
+            coordinator.awaitResults().forEach(MetricManager::store);
+        }
+        return new LoadOutcome(true, false);
+    }
+
+    /**
+     * @param reportsResults whether this process reports the results, which agents of a distributed run leave to the coordinator
+     * @param failed         whether scenarios could not run because the backend failed
+     */
+    private record LoadOutcome(boolean reportsResults, boolean failed) {
+    }
+
+    private static List<CouchbaseMetrics> allTrials() {
+        return MetricManager.trialsMap.values().stream().flatMap(List::stream).toList();
+    }
+
+    private static void saveRunResults() {
+        try {
+            RunResultFile.save(RunResult.from(allTrials()));
+        } catch (IOException e) {
+            logger.error("Failed to write run result file", e);
+        }
+    }
+
+    /**
+     * Compares result files written by earlier runs: {@code compare <baseline> <candidate> [<candidate>...]}.
+     */
+    private static boolean compareRuns(String[] args) {
+        List<Path> files = Arrays.stream(args).skip(1).map(Path::of).toList();
+        try {
+            System.out.print(RunComparison.compareFiles(files));
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("Failed to compare run results: {}", e.getMessage(), e);
+            return false;
+        }
     }
 }
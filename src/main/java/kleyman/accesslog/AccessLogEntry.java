@@ -0,0 +1,13 @@
+package kleyman.accesslog;
+
+/**
+ * One replayable line of a KV access log.
+ *
+ * @param timestampMicros when the operation was logged, in epoch microseconds
+ * @param operation       the logged operation
+ * @param key             document key
+ * @param valueBytes      size of the written value, 0 when not logged
+ * @param delta           amount a counter operation changes its counter by, 1 when not logged and 0 for other operations
+ */
+public record AccessLogEntry(long timestampMicros, AccessLogOperation operation, String key, int valueBytes, long delta) {
+}
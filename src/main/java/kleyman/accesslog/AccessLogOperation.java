@@ -0,0 +1,56 @@
+package kleyman.accesslog;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Operations of a KV access log that can be replayed, with the names they are logged under.
+ * Names are matched case-insensitively.
+ */
+public enum AccessLogOperation {
+    GET("get"),
+    UPSERT("upsert", "set", "put", "insert", "replace"),
+    GET_REPLICA("get_replica", "get_any_replica"),
+    INCREMENT("incr", "increment"),
+    DECREMENT("decr", "decrement"),
+    APPEND("append"),
+    PREPEND("prepend");
+
+    private static final AccessLogOperation[] OPERATIONS = values();
+    private final byte[][] names;
+
+    AccessLogOperation(String... names) {
+        this.names = new byte[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            this.names[i] = names[i].getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * Returns the operation logged under the name in the given bytes, or {@code null} for operations that cannot be replayed.
+     */
+    static AccessLogOperation match(byte[] line, int start, int length) {
+        for (AccessLogOperation operation : OPERATIONS) {
+            for (byte[] name : operation.names) {
+                if (name.length == length && equalsIgnoreCase(name, line, start)) {
+                    return operation;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean equalsIgnoreCase(byte[] name, byte[] line, int start) {
+        for (int i = 0; i < name.length; i++) {
+            if (name[i] != Character.toLowerCase(line[start + i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
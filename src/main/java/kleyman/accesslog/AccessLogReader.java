@@ -0,0 +1,284 @@
+package kleyman.accesslog;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+/**
+ * Streams the entries of a KV access log from disk. The file is memory-mapped one chunk at a time, so only the chunk
+ * being parsed is mapped however large the log is, and lines are parsed in place without decoding them as a whole.
+ * <p>
+ * Every line holds a timestamp, an operation and a key, optionally followed by the size of the written value,
+ * or by the delta of a counter operation, separated by spaces, tabs or commas; further fields are ignored, e.g.
+ * <pre>
+ * 2024-05-01T12:00:00.000125Z upsert user::1042 2048
+ * 1714564800.000310 get user::1042
+ * 1714564800.000450 incr views::1042 5
+ * </pre>
+ * The timestamp is an ISO-8601 instant, epoch seconds with a fraction of up to microseconds, or epoch milliseconds.
+ * Blank lines and lines starting with {@code #} are ignored; lines that cannot be parsed or hold an operation that
+ * cannot be replayed are skipped and counted.
+ */
+public class AccessLogReader implements AutoCloseable {
+    static final int DEFAULT_CHUNK_BYTES = 64 << 20;
+    // Longer lines are skipped instead of growing the line buffer without bound
+    private static final int MAX_LINE_BYTES = 64 << 10;
+    // Part of the end of the log searched for its last entry
+    private static final int TAIL_BYTES = 1 << 20;
+    private static final int MAX_DECIMAL_DIGITS = 18;
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int chunkBytes;
+    private MappedByteBuffer chunk;
+    private long nextChunkStart;
+    private byte[] line = new byte[256];
+    private long skippedLines;
+    private long unsupportedOperations;
+
+    private AccessLogReader(FileChannel channel, int chunkBytes) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        this.chunkBytes = chunkBytes;
+    }
+
+    public static AccessLogReader open(Path file) throws IOException {
+        return open(file, DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     * Opens the log for reading, mapping at most the given number of bytes at a time.
+     */
+    public static AccessLogReader open(Path file, int chunkBytes) throws IOException {
+        if (chunkBytes < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive, was " + chunkBytes);
+        }
+        return new AccessLogReader(FileChannel.open(file, StandardOpenOption.READ), chunkBytes);
+    }
+
+    /**
+     * Returns the time between the first and the last entry of the log, reading only its first and last lines.
+     */
+    public static Duration timeSpan(Path file) throws IOException {
+        try (AccessLogReader reader = open(file)) {
+            AccessLogEntry first = reader.next();
+            if (first == null) {
+                return Duration.ZERO;
+            }
+            long tailStart = Math.max(0, reader.fileSize - TAIL_BYTES);
+            MappedByteBuffer tail = reader.channel.map(FileChannel.MapMode.READ_ONLY, tailStart, reader.fileSize - tailStart);
+            byte[] bytes = new byte[tail.remaining()];
+            tail.get(bytes);
+            // Parses lines from the end until one is an entry; a line cut off at the start of the tail fails to parse
+            int end = bytes.length;
+            while (end > 0) {
+                int start = end - 1;
+                while (start > 0 && bytes[start - 1] != '\n') {
+                    start--;
+                }
+                AccessLogEntry last = reader.parse(Arrays.copyOfRange(bytes, start, end), trimLineEnd(bytes, start, end) - start);
+                if (last != null) {
+                    return Duration.ofNanos(Math.max(0, last.timestampMicros() - first.timestampMicros()) * 1000);
+                }
+                end = start;
+            }
+            return Duration.ZERO;
+        }
+    }
+
+    /**
+     * Returns the next entry of the log, or {@code null} at its end.
+     */
+    public AccessLogEntry next() throws IOException {
+        int length;
+        while ((length = readLine()) >= 0) {
+            if (length == 0 || line[0] == '#' || isBlank(length)) {
+                continue;
+            }
+            AccessLogEntry entry = parse(line, length);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of lines skipped because they could not be parsed.
+     */
+    public long getSkippedLines() {
+        return skippedLines;
+    }
+
+    /**
+     * Returns the number of lines skipped because their operation cannot be replayed.
+     */
+    public long getUnsupportedOperations() {
+        return unsupportedOperations;
+    }
+
+    /**
+     * Copies the next line without its line break into the line buffer, mapping the next chunk when the line
+     * continues past the current one.
+     *
+     * @return the length of the line, -1 at the end of the log, or 0 for a line too long to replay
+     */
+    private int readLine() throws IOException {
+        int length = 0;
+        boolean tooLong = false;
+        while (true) {
+            if (chunk == null || !chunk.hasRemaining()) {
+                if (nextChunkStart >= fileSize) {
+                    if (length == 0 && !tooLong) {
+                        return -1;
+                    }
+                    break;
+                }
+                long size = Math.min(chunkBytes, fileSize - nextChunkStart);
+                chunk = channel.map(FileChannel.MapMode.READ_ONLY, nextChunkStart, size);
+                nextChunkStart += size;
+            }
+            byte b = chunk.get();
+            if (b == '\n') {
+                break;
+            }
+            if (length == MAX_LINE_BYTES) {
+                tooLong = true;
+            } else if (!tooLong) {
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, Math.min(MAX_LINE_BYTES, line.length * 2));
+                }
+                line[length++] = b;
+            }
+        }
+        if (tooLong) {
+            skippedLines++;
+            return 0;
+        }
+        return trimLineEnd(line, 0, length);
+    }
+
+    private static int trimLineEnd(byte[] bytes, int start, int end) {
+        while (end > start && (bytes[end - 1] == '\r' || bytes[end - 1] == '\n')) {
+            end--;
+        }
+        return end;
+    }
+
+    private boolean isBlank(int length) {
+        for (int i = 0; i < length; i++) {
+            if (!isSeparator(line[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses the first fields of the line, or counts it as skipped and returns {@code null}.
+     */
+    private AccessLogEntry parse(byte[] bytes, int length) {
+        int[] fields = new int[8];
+        int fieldCount = 0;
+        int i = 0;
+        while (i < length && fieldCount < fields.length) {
+            while (i < length && isSeparator(bytes[i])) {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+            int start = i;
+            while (i < length && !isSeparator(bytes[i])) {
+                i++;
+            }
+            fields[fieldCount++] = start;
+            fields[fieldCount++] = i;
+        }
+        if (fieldCount < 6) {
+            skippedLines++;
+            return null;
+        }
+        long timestampMicros = parseTimestampMicros(bytes, fields[0], fields[1]);
+        AccessLogOperation operation = AccessLogOperation.match(bytes, fields[2], fields[3] - fields[2]);
+        boolean counter = operation == AccessLogOperation.INCREMENT || operation == AccessLogOperation.DECREMENT;
+        // The fourth field is the delta of a counter operation and the size of the written value of any other
+        long value = fieldCount == 8 ? parseDecimal(bytes, fields[6], fields[7]) : counter ? 1 : 0;
+        if (timestampMicros < 0 || value < 0 || !counter && value > Integer.MAX_VALUE) {
+            skippedLines++;
+            return null;
+        }
+        if (operation == null) {
+            unsupportedOperations++;
+            return null;
+        }
+        String key = new String(bytes, fields[4], fields[5] - fields[4], StandardCharsets.UTF_8);
+        return counter
+                ? new AccessLogEntry(timestampMicros, operation, key, 0, value)
+                : new AccessLogEntry(timestampMicros, operation, key, (int) value, 0);
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ' ' || b == '\t' || b == ',';
+    }
+
+    /**
+     * Parses the timestamp in epoch microseconds, or returns -1 if it has none of the supported formats.
+     */
+    private static long parseTimestampMicros(byte[] bytes, int start, int end) {
+        int dot = start;
+        while (dot < end && bytes[dot] != '.') {
+            dot++;
+        }
+        long whole = parseDecimal(bytes, start, dot);
+        if (whole >= 0 && dot == end) {
+            return whole <= Long.MAX_VALUE / 1000 ? whole * 1000 : -1;
+        }
+        if (whole >= 0 && end - dot > 1 && end - dot <= 7 && whole <= Long.MAX_VALUE / 1_000_000 - 1) {
+            long fraction = parseDecimal(bytes, dot + 1, end);
+            if (fraction < 0) {
+                return -1;
+            }
+            for (int digits = end - dot - 1; digits < 6; digits++) {
+                fraction *= 10;
+            }
+            return whole * 1_000_000 + fraction;
+        }
+        try {
+            Instant instant = Instant.parse(new String(bytes, start, end - start, StandardCharsets.US_ASCII));
+            return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000), instant.getNano() / 1000);
+        } catch (DateTimeParseException | ArithmeticException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Parses a non-negative decimal number, or returns -1 if the bytes are not one.
+     */
+    private static long parseDecimal(byte[] bytes, int start, int end) {
+        if (start == end || end - start > MAX_DECIMAL_DIGITS) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        chunk = null;
+        channel.close();
+    }
+}
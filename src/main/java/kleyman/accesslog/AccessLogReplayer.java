@@ -0,0 +1,228 @@
+package kleyman.accesslog;
+
+import com.couchbase.client.java.json.JsonObject;
+import kleyman.loadtest.ReplaySource;
+import kleyman.metrics.CouchbaseMetrics;
+import kleyman.service.DataBaseService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
+
+/**
+ * Re-issues the entries of a KV access log against a service. A single ingestion thread streams the log and hands
+ * every entry to the worker owning its key through a bounded lock-free queue per worker, so the operations on a key
+ * keep their logged order and ingestion never waits on a lock held by a worker. Ingestion runs ahead of the replay
+ * by up to a queue of entries per worker and only waits while the queue of the next entry's worker is full.
+ * <p>
+ * Workers issue their entries at the logged pace divided by the speed, relative to the first entry of the log;
+ * at infinite speed every worker issues its next entry as soon as the previous one returns. Written values are
+ * generated with the logged size, as the log does not hold the values themselves.
+ */
+public class AccessLogReplayer implements ReplaySource, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(AccessLogReplayer.class);
+    public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+    // How long a worker or the ingestion thread parks before looking at its queue again
+    private static final long IDLE_PARK_NANOS = 50_000;
+    // Generated payloads each worker keeps, by size
+    private static final int CACHED_PAYLOADS = 256;
+    private static final int EMPTY_DOCUMENT_BYTES = JsonObject.create().put("payload", "").toBytes().length;
+    private final AccessLogReader log;
+    private final DataBaseService<JsonObject, CouchbaseMetrics> service;
+    private final CouchbaseMetrics metrics;
+    private final double speed;
+    private final List<BoundedSpscQueue<AccessLogEntry>> queues;
+    private final LongAdder starvedPolls = new LongAdder();
+    private Thread ingestionThread;
+    private long ingestedEntries;
+    private long fullQueueWaits;
+    private volatile boolean ingestionDone;
+    private volatile boolean closed;
+    // Timestamp of the first entry of the log, which is replayed at the replay start
+    private volatile long originMicros;
+    private volatile long replayStartNanos;
+
+    /**
+     * @param workers       number of workers replaying the log, with ids from 1
+     * @param queueCapacity number of entries queued ahead for each worker
+     * @param speed         how much faster than logged to replay, {@link Double#POSITIVE_INFINITY} for maximum speed
+     */
+    public AccessLogReplayer(AccessLogReader log, DataBaseService<JsonObject, CouchbaseMetrics> service, CouchbaseMetrics metrics,
+                             int workers, int queueCapacity, double speed) {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Replay speed must be positive, was " + speed);
+        }
+        if (workers < 1) {
+            throw new IllegalArgumentException("Workers must be at least 1, was " + workers);
+        }
+        this.log = log;
+        this.service = service;
+        this.metrics = metrics;
+        this.speed = speed;
+        List<BoundedSpscQueue<AccessLogEntry>> workerQueues = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            workerQueues.add(new BoundedSpscQueue<>(queueCapacity));
+        }
+        this.queues = List.copyOf(workerQueues);
+    }
+
+    /**
+     * Starts streaming the log into the worker queues.
+     */
+    public void start() {
+        ingestionThread = new Thread(this::ingest, "access-log-ingestion");
+        ingestionThread.setDaemon(true);
+        ingestionThread.start();
+    }
+
+    private void ingest() {
+        try {
+            AccessLogEntry entry;
+            while (!closed && (entry = log.next()) != null) {
+                if (ingestedEntries++ == 0) {
+                    originMicros = entry.timestampMicros();
+                    replayStartNanos = System.nanoTime();
+                }
+                BoundedSpscQueue<AccessLogEntry> queue = queues.get(Math.floorMod(entry.key().hashCode(), queues.size()));
+                while (!queue.offer(entry)) {
+                    if (closed) {
+                        return;
+                    }
+                    fullQueueWaits++;
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to read the access log, replaying the {} entries read so far", ingestedEntries, e);
+        } finally {
+            ingestionDone = true;
+            logger.info("Ingested {} access log entries, skipped {} malformed lines and {} unsupported operations; "
+                            + "ingestion waited {} times for a full queue",
+                    ingestedEntries, log.getSkippedLines(), log.getUnsupportedOperations(), fullQueueWaits);
+        }
+    }
+
+    /**
+     * Replays the entries queued for the given worker while it stays active, until the whole log is ingested
+     * and its queue is empty.
+     *
+     * @return the number of entries replayed
+     */
+    @Override
+    public int replayWorker(int workerId, BooleanSupplier active) {
+        if (workerId < 1 || workerId > queues.size()) {
+            return 0;
+        }
+        BoundedSpscQueue<AccessLogEntry> queue = queues.get(workerId - 1);
+        Payloads payloads = new Payloads();
+        int replayed = 0;
+        while (active.getAsBoolean()) {
+            AccessLogEntry entry = queue.poll();
+            if (entry == null) {
+                // Entries queued before ingestion was marked done are still polled once more
+                if (ingestionDone && (entry = queue.poll()) == null) {
+                    break;
+                }
+                if (entry == null) {
+                    starvedPolls.increment();
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+            }
+            awaitLoggedTime(entry);
+            try {
+                issue(entry, payloads);
+            } catch (RuntimeException e) {
+                logger.debug("Worker {}: replayed {} of key {} failed", workerId, entry.operation(), entry.key(), e);
+            }
+            replayed++;
+        }
+        return replayed;
+    }
+
+    /**
+     * Returns how often a worker found its queue empty while the log was still being ingested,
+     * which shows whether ingestion kept up with the replay.
+     */
+    public long getStarvedPolls() {
+        return starvedPolls.sum();
+    }
+
+    private void awaitLoggedTime(AccessLogEntry entry) {
+        if (Double.isInfinite(speed)) {
+            return;
+        }
+        long target = replayStartNanos + (long) ((entry.timestampMicros() - originMicros) * 1000 / speed);
+        long delay;
+        while ((delay = target - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(delay);
+        }
+    }
+
+    private void issue(AccessLogEntry entry, Payloads payloads) {
+        String key = entry.key();
+        switch (entry.operation()) {
+            case GET -> service.retrieve(key, metrics);
+            case UPSERT -> {
+                JsonObject document = payloads.documents.apply(entry.valueBytes());
+                service.upload(key, document, metrics);
+                metrics.recordPutPayloadBytes(Math.max(entry.valueBytes(), EMPTY_DOCUMENT_BYTES));
+            }
+            case GET_REPLICA -> service.retrieveFromAnyReplica(key, metrics);
+            case INCREMENT -> service.incrementCounter(key, entry.delta(), metrics);
+            case DECREMENT -> service.decrementCounter(key, entry.delta(), metrics);
+            case APPEND -> service.appendBinary(key, payloads.binary.apply(entry.valueBytes()), metrics);
+            case PREPEND -> service.prependBinary(key, payloads.binary.apply(entry.valueBytes()), metrics);
+        }
+    }
+
+    /**
+     * Stops ingestion if the replay ended before the whole log was read, and closes the log.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (ingestionThread != null) {
+            try {
+                ingestionThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.close();
+        logger.info("Workers found their queue empty {} times while the access log was being ingested", getStarvedPolls());
+    }
+
+    /**
+     * Values one worker writes, generated once per size: documents with a padding field of the logged size
+     * and random bytes for binary appends.
+     */
+    private static final class Payloads {
+        private final IntFunction<JsonObject> documents = cached(size ->
+                JsonObject.create().put("payload", "x".repeat(Math.max(0, size - EMPTY_DOCUMENT_BYTES))));
+        private final IntFunction<byte[]> binary = cached(size -> {
+            byte[] payload = new byte[Math.max(1, size)];
+            ThreadLocalRandom.current().nextBytes(payload);
+            return payload;
+        });
+
+        private static <T> IntFunction<T> cached(IntFunction<T> generator) {
+            Map<Integer, T> cache = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, T> eldest) {
+                    return size() > CACHED_PAYLOADS;
+                }
+            };
+            return size -> cache.computeIfAbsent(size, generator::apply);
+        }
+    }
+}
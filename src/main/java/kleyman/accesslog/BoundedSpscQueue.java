@@ -0,0 +1,63 @@
+package kleyman.accesslog;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded queue for exactly one producer thread and one consumer thread, without locks: each side only advances
+ * its own counter with an ordered write, and the element slot is written before the counter that publishes it.
+ *
+ * @param <E> the element type
+ */
+public class BoundedSpscQueue<E> {
+    private final Object[] elements;
+    private final int mask;
+    // Next slot the consumer reads, only written by the consumer
+    private final AtomicLong head = new AtomicLong();
+    // Next slot the producer writes, only written by the producer
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * @param capacity number of elements the queue holds, rounded up to a power of two
+     */
+    public BoundedSpscQueue(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30, was " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        this.elements = new Object[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Adds the element unless the queue is full. Must only be called by the producer thread.
+     */
+    public boolean offer(E element) {
+        long currentTail = tail.get();
+        if (currentTail - head.get() == elements.length) {
+            return false;
+        }
+        elements[(int) currentTail & mask] = element;
+        tail.lazySet(currentTail + 1);
+        return true;
+    }
+
+    /**
+     * Removes and returns the oldest element, or {@code null} if the queue is empty. Must only be called by the consumer thread.
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long currentHead = head.get();
+        if (currentHead == tail.get()) {
+            return null;
+        }
+        int index = (int) currentHead & mask;
+        E element = (E) elements[index];
+        elements[index] = null;
+        head.lazySet(currentHead + 1);
+        return element;
+    }
+
+    public int capacity() {
+        return elements.length;
+    }
+}
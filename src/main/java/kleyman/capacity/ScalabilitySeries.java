@@ -0,0 +1,16 @@
+package kleyman.capacity;
+
+/**
+ * Throughput measured at several concurrency levels of otherwise identical scenarios, with its fitted model.
+ *
+ * @param label       description of the scenarios, e.g. payload size and key type
+ * @param concurrency thread counts, in ascending order
+ * @param throughput  successful operations per second measured at each thread count
+ * @param model       fitted model, or {@code null} when the series could not be fitted
+ */
+public record ScalabilitySeries(String label, double[] concurrency, double[] throughput, UslModel model) {
+
+    public static ScalabilitySeries fit(String label, double[] concurrency, double[] throughput) {
+        return new ScalabilitySeries(label, concurrency, throughput, UslModel.fit(concurrency, throughput));
+    }
+}
@@ -0,0 +1,111 @@
+package kleyman.capacity;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.QRDecomposition;
+import org.apache.commons.math3.linear.RealVector;
+import org.apache.commons.math3.linear.SingularMatrixException;
+
+import java.util.Arrays;
+
+/**
+ * Universal Scalability Law model of throughput as a function of concurrency:
+ * {@code X(N) = λN / (1 + σ(N-1) + κN(N-1))}.
+ *
+ * @param lambda throughput of a single thread, in operations per second
+ * @param sigma  contention coefficient, the serialized share of the work
+ * @param kappa  coherency coefficient, the cost of keeping threads in agreement, which makes throughput retrograde
+ */
+public record UslModel(double lambda, double sigma, double kappa) {
+    /**
+     * Fewer concurrency levels than this would fit the three coefficients exactly, leaving no residual to tell
+     * a good fit from noise.
+     */
+    public static final int MIN_POINTS = 4;
+
+    /**
+     * Fits the model to measured throughput. Rearranged as {@code N/X = 1/λ + (σ/λ)(N-1) + (κ/λ)N(N-1)}
+     * the model is linear in its coefficients, so it is fitted by least squares without iteration.
+     * Negative coefficients have no physical meaning; a coefficient that fits negative is fixed at zero
+     * and the others are fitted again, keeping the coherency coefficient when only contention fits negative.
+     *
+     * @return the fitted model, or {@code null} when there are too few distinct concurrency levels
+     * or the data does not fit the model
+     */
+    public static UslModel fit(double[] concurrency, double[] throughput) {
+        if (concurrency.length != throughput.length) {
+            throw new IllegalArgumentException("Concurrency and throughput must have the same length");
+        }
+        if (Arrays.stream(concurrency).distinct().count() < MIN_POINTS) {
+            return null;
+        }
+        UslModel model = fit(concurrency, throughput, true, true);
+        if (model != null && model.kappa < 0) {
+            model = fit(concurrency, throughput, true, false);
+        }
+        if (model != null && model.sigma < 0) {
+            UslModel withoutContention = fit(concurrency, throughput, false, true);
+            model = withoutContention != null && withoutContention.kappa >= 0
+                    ? withoutContention
+                    : fit(concurrency, throughput, false, false);
+        }
+        return model;
+    }
+
+    private static UslModel fit(double[] concurrency, double[] throughput, boolean withSigma, boolean withKappa) {
+        int columns = 1 + (withSigma ? 1 : 0) + (withKappa ? 1 : 0);
+        double[][] design = new double[concurrency.length][columns];
+        double[] target = new double[concurrency.length];
+        for (int i = 0; i < concurrency.length; i++) {
+            if (throughput[i] <= 0) {
+                return null;
+            }
+            double n = concurrency[i];
+            int column = 0;
+            design[i][column++] = 1;
+            if (withSigma) {
+                design[i][column++] = n - 1;
+            }
+            if (withKappa) {
+                design[i][column] = n * (n - 1);
+            }
+            target[i] = n / throughput[i];
+        }
+        RealVector coefficients;
+        try {
+            coefficients = new QRDecomposition(new Array2DRowRealMatrix(design, false)).getSolver()
+                    .solve(new ArrayRealVector(target, false));
+        } catch (SingularMatrixException e) {
+            return null;
+        }
+        double inverseLambda = coefficients.getEntry(0);
+        if (inverseLambda <= 0) {
+            return null;
+        }
+        double sigma = withSigma ? coefficients.getEntry(1) / inverseLambda : 0;
+        double kappa = withKappa ? coefficients.getEntry(columns - 1) / inverseLambda : 0;
+        return new UslModel(1 / inverseLambda, sigma, kappa);
+    }
+
+    public double throughputAt(double concurrency) {
+        return lambda * concurrency / (1 + sigma * (concurrency - 1) + kappa * concurrency * (concurrency - 1));
+    }
+
+    /**
+     * Returns the concurrency with the highest throughput, {@code sqrt((1-σ)/κ)}, or infinity when the
+     * model has no coherency cost and throughput only levels off.
+     */
+    public double peakConcurrency() {
+        return kappa <= 0 ? Double.POSITIVE_INFINITY : Math.sqrt(Math.max(0, 1 - sigma) / kappa);
+    }
+
+    /**
+     * Returns the highest throughput: at the peak concurrency, or the asymptote {@code λ/σ} without coherency cost.
+     */
+    public double peakThroughput() {
+        if (kappa <= 0) {
+            return sigma <= 0 ? Double.POSITIVE_INFINITY : lambda / sigma;
+        }
+        return throughputAt(Math.max(1, peakConcurrency()));
+    }
+}
@@ -8,6 +8,10 @@ import com.couchbase.client.java.ClusterOptions;
 import com.couchbase.client.java.Collection;
 import com.couchbase.client.java.env.ClusterEnvironment;
 import com.couchbase.client.java.kv.GetResult;
+import kleyman.metrics.MetricsSetup;
+import kleyman.metrics.PhaseRecordingRequestTracer;
+import kleyman.metrics.PrometheusSdkMeter;
+import kleyman.metrics.SdkHealthMonitor;
 import kleyman.util.EnvironmentVariableUtils;
 import lombok.Getter;
 import org.slf4j.Logger;
@@ -25,6 +29,9 @@ public class CouchbaseConnectionManager implements AutoCloseable {
     @Getter
     private final Collection collection;
     private ClusterEnvironment env;
+    private final SdkHealthMonitor sdkHealthMonitor;
+    @Getter
+    private final PartitionLocator partitionLocator;
 
     /**
      * Initializes a new CouchbaseConnectionManager by connecting to the Couchbase cluster
@@ -40,28 +47,36 @@ public class CouchbaseConnectionManager implements AutoCloseable {
 
         this.env = createClusterEnvironment(customPoolSize);
         this.cluster = connectToCluster(host, username, password);
+        this.sdkHealthMonitor = new SdkHealthMonitor(cluster, MetricsSetup.getPrometheusRegistry());
         this.collection = initializeBucket(bucketName);
+        this.partitionLocator = PartitionLocator.forBucket(cluster, bucketName);
     }
 
+    /**
+     * Builds the cluster environment with the request tracer that breaks requests into phases,
+     * the meter that bridges SDK metrics into the Prometheus registry
+     * and, if requested, a custom KV connection pool size.
+     */
     private ClusterEnvironment createClusterEnvironment(int customPoolSize) {
+        // Lets the health monitor read orphan counts per service from the report instead of parsing its text
+        if (System.getProperty(SdkHealthMonitor.STRUCTURED_ORPHAN_REPORT_PROPERTY) == null) {
+            System.setProperty(SdkHealthMonitor.STRUCTURED_ORPHAN_REPORT_PROPERTY, "false");
+        }
+        ClusterEnvironment.Builder builder = ClusterEnvironment.builder()
+                .requestTracer(new PhaseRecordingRequestTracer())
+                .meter(new PrometheusSdkMeter(MetricsSetup.getPrometheusRegistry()));
         if (customPoolSize > 0) {
             logger.info("Custom KV connection pool size set to: {}", customPoolSize);
-            return ClusterEnvironment.builder()
-                    .ioConfig(IoConfig.numKvConnections(customPoolSize))
-                    .build();
+            builder.ioConfig(IoConfig.numKvConnections(customPoolSize));
         } else {
             logger.info("Using default KV connection pool size.");
-            return null;
         }
+        return builder.build();
     }
 
     private Cluster connectToCluster(String host, String username, String password) {
         try {
-            if (env != null) {
-                return Cluster.connect(host, ClusterOptions.clusterOptions(username, password).environment(env));
-            } else {
-                return Cluster.connect(host, username, password);
-            }
+            return Cluster.connect(host, ClusterOptions.clusterOptions(username, password).environment(env));
         } catch (Exception e) {
             logger.error("Failed to connect to Couchbase cluster: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to connect to Couchbase", e);
@@ -82,6 +97,7 @@ public class CouchbaseConnectionManager implements AutoCloseable {
     @Override
     public void close() {
         if (cluster != null) {
+            sdkHealthMonitor.close();
             cluster.disconnect();
             if (env != null) {
                 env.shutdown();
@@ -0,0 +1,76 @@
+package kleyman.config;
+
+import com.couchbase.client.core.config.BucketConfig;
+import com.couchbase.client.core.config.CouchbaseBucketConfig;
+import com.couchbase.client.core.config.NodeInfo;
+import com.couchbase.client.core.node.KeyValueLocator;
+import com.couchbase.client.java.Cluster;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Maps document keys to their vBucket (partition) and to the node owning the active copy of that partition.
+ * Partitions are computed with the same CRC32-based mapping the SDK uses.
+ */
+public interface PartitionLocator {
+    int DEFAULT_PARTITIONS = 1024;
+    String UNKNOWN_NODE = "unknown";
+
+    int numberOfPartitions();
+
+    String nodeForPartition(int partition);
+
+    default int partitionForKey(String key) {
+        return KeyValueLocator.partitionForKey(key.getBytes(StandardCharsets.UTF_8), numberOfPartitions());
+    }
+
+    /**
+     * Creates a locator reading the current configuration of the bucket on every call,
+     * so partition ownership follows rebalances and failovers during a run.
+     */
+    static PartitionLocator forBucket(Cluster cluster, String bucketName) {
+        return new PartitionLocator() {
+            @Override
+            public int numberOfPartitions() {
+                CouchbaseBucketConfig config = bucketConfig();
+                return config == null ? DEFAULT_PARTITIONS : config.numberOfPartitions();
+            }
+
+            @Override
+            public String nodeForPartition(int partition) {
+                CouchbaseBucketConfig config = bucketConfig();
+                if (config == null) {
+                    return UNKNOWN_NODE;
+                }
+                short nodeIndex = config.nodeIndexForActive(partition, false);
+                if (nodeIndex < 0) {
+                    return UNKNOWN_NODE;
+                }
+                NodeInfo node = config.nodeAtIndex(nodeIndex);
+                return node.hostname();
+            }
+
+            private CouchbaseBucketConfig bucketConfig() {
+                BucketConfig config = cluster.core().clusterConfig().bucketConfig(bucketName);
+                return config instanceof CouchbaseBucketConfig couchbaseConfig ? couchbaseConfig : null;
+            }
+        };
+    }
+
+    /**
+     * Creates a locator for a single emulated node owning every partition.
+     */
+    static PartitionLocator singleNode(int numberOfPartitions, String node) {
+        return new PartitionLocator() {
+            @Override
+            public int numberOfPartitions() {
+                return numberOfPartitions;
+            }
+
+            @Override
+            public String nodeForPartition(int partition) {
+                return node;
+            }
+        };
+    }
+}
@@ -0,0 +1,127 @@
+package kleyman.control;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Serves the control API of a {@link RunController} under {@value #CONTEXT_PATH}:
+ * <ul>
+ *     <li>{@code GET /control/status}: live state of the run and the running scenario</li>
+ *     <li>{@code GET /control/scenarios}: every finished, skipped and running scenario</li>
+ *     <li>{@code POST /control/start}: starts a run that waits for a start request</li>
+ *     <li>{@code POST /control/stop}: ends the current scenario and skips the remaining ones</li>
+ *     <li>{@code POST /control/skip}: ends the current scenario and moves on to the next</li>
+ *     <li>{@code POST /control/concurrency?threads=N}: changes the worker threads of the running scenario</li>
+ * </ul>
+ * Every response is JSON. Requests that do not apply in the current state, e.g. skipping between scenarios,
+ * are answered with 409.
+ */
+public class ControlHandler implements HttpHandler {
+    public static final String CONTEXT_PATH = "/control";
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private final RunController controller;
+
+    public ControlHandler(RunController controller) {
+        this.controller = controller;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String action = exchange.getRequestURI().getPath().substring(CONTEXT_PATH.length()).replaceAll("^/+|/+$", "");
+            String method = exchange.getRequestMethod();
+            switch (action) {
+                case "status" -> respondToGet(exchange, method, controller.status());
+                case "scenarios" -> respondToGet(exchange, method, controller.scenarios());
+                case "start" -> respondToPost(exchange, method, controller::start, "The run has already started");
+                case "stop" -> {
+                    if (requirePost(exchange, method)) {
+                        controller.stop();
+                        respond(exchange, 202, controller.status());
+                    }
+                }
+                case "skip" -> respondToPost(exchange, method, controller::skip, "No scenario is running");
+                case "concurrency" -> {
+                    if (requirePost(exchange, method)) {
+                        changeConcurrency(exchange);
+                    }
+                }
+                default -> respond(exchange, 404, Map.of("error", "Unknown control action: " + action));
+            }
+        }
+    }
+
+    private void changeConcurrency(HttpExchange exchange) throws IOException {
+        String threads = queryParameter(exchange.getRequestURI().getRawQuery(), "threads");
+        int concurrency;
+        try {
+            concurrency = Integer.parseInt(threads);
+        } catch (NumberFormatException e) {
+            respond(exchange, 400, Map.of("error", "Query parameter threads must be a number, was " + threads));
+            return;
+        }
+        if (concurrency < 1) {
+            respond(exchange, 400, Map.of("error", "Query parameter threads must be at least 1, was " + concurrency));
+            return;
+        }
+        respondToPost(exchange, "POST", () -> controller.setConcurrency(concurrency), "No scenario is running");
+    }
+
+    private void respondToGet(HttpExchange exchange, String method, Object body) throws IOException {
+        if (!"GET".equals(method)) {
+            respond(exchange, 405, Map.of("error", "Use GET"));
+            return;
+        }
+        respond(exchange, 200, body);
+    }
+
+    /**
+     * Applies the action only once the request is known to be a POST, so no other method can change the run.
+     */
+    private void respondToPost(HttpExchange exchange, String method, BooleanSupplier action, String conflict) throws IOException {
+        if (!requirePost(exchange, method)) {
+            return;
+        }
+        if (action.getAsBoolean()) {
+            respond(exchange, 202, controller.status());
+        } else {
+            respond(exchange, 409, Map.of("error", conflict));
+        }
+    }
+
+    /**
+     * Actions change the run, so they are only accepted as POST requests.
+     */
+    private static boolean requirePost(HttpExchange exchange, String method) throws IOException {
+        if ("POST".equals(method)) {
+            return true;
+        }
+        respond(exchange, 405, Map.of("error", "Use POST"));
+        return false;
+    }
+
+    private static void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, json.length);
+        exchange.getResponseBody().write(json);
+    }
+
+    static String queryParameter(String query, String name) {
+        if (query == null) {
+            return null;
+        }
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0 && parameter.substring(0, separator).equals(name)) {
+                return parameter.substring(separator + 1);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,188 @@
+package kleyman.control;
+
+import kleyman.loadtest.CouchbaseLoadTestExecutor;
+import kleyman.metrics.CouchbaseMetrics;
+import kleyman.metrics.TimelinePoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Lets a running load test be controlled while the JVM stays up, so warm caches and connections are kept:
+ * starting the run, stopping it, skipping the current scenario and changing the concurrency of the running
+ * scenario. The test runner reports every scenario it starts and finishes; the control API calls the other methods.
+ * The control API is only served with {@code load.test.control.enabled=true}; with
+ * {@code load.test.control.await.start=true} as well, the runner waits for a start request before the first scenario.
+ */
+public class RunController {
+    private static final Logger logger = LoggerFactory.getLogger(RunController.class);
+    public static final String ENABLED_PROPERTY = "load.test.control.enabled";
+    public static final String AWAIT_START_PROPERTY = "load.test.control.await.start";
+    // Without the control API no start request could arrive, so the run does not wait for one
+    private static final RunController INSTANCE = new RunController(isEnabled() && Boolean.getBoolean(AWAIT_START_PROPERTY));
+    private final CountDownLatch startSignal;
+    // Finished and skipped scenarios in run order
+    private final List<ScenarioStatus> finished = new ArrayList<>();
+    private volatile CouchbaseLoadTestExecutor current;
+    private volatile boolean stopRequested;
+
+    RunController(boolean awaitStart) {
+        this.startSignal = new CountDownLatch(awaitStart ? 1 : 0);
+    }
+
+    /**
+     * Returns whether the control API is served, which is opt-in since it can stop the run.
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    /**
+     * Returns the controller of this JVM's run.
+     */
+    public static RunController get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Blocks until the run is started, when the runner was configured to wait for a start request.
+     */
+    public void awaitStart() throws InterruptedException {
+        if (startSignal.getCount() > 0) {
+            logger.info("Waiting for a start request on the control API");
+            startSignal.await();
+        }
+    }
+
+    /**
+     * Starts a run that is waiting for a start request.
+     *
+     * @return {@code false} if the run had already started
+     */
+    public boolean start() {
+        if (startSignal.getCount() == 0) {
+            return false;
+        }
+        logger.info("Start requested");
+        startSignal.countDown();
+        return true;
+    }
+
+    /**
+     * Stops the run: the current scenario ends early and every remaining scenario is skipped.
+     */
+    public void stop() {
+        logger.info("Stop of the run requested");
+        stopRequested = true;
+        startSignal.countDown();
+        CouchbaseLoadTestExecutor scenario = current;
+        if (scenario != null) {
+            scenario.requestStop();
+        }
+    }
+
+    /**
+     * Ends the current scenario early and moves on to the next one.
+     *
+     * @return {@code false} if no scenario is running
+     */
+    public boolean skip() {
+        CouchbaseLoadTestExecutor scenario = current;
+        if (scenario == null) {
+            return false;
+        }
+        scenario.requestStop();
+        return true;
+    }
+
+    /**
+     * Changes the number of worker threads of the current scenario.
+     *
+     * @return {@code false} if no scenario is running or it has already ended
+     */
+    public boolean setConcurrency(int concurrency) {
+        CouchbaseLoadTestExecutor scenario = current;
+        return scenario != null && scenario.setConcurrency(concurrency);
+    }
+
+    /**
+     * Returns the worker threads of the current scenario running at this moment, or 0 between scenarios.
+     */
+    public int getActiveWorkers() {
+        CouchbaseLoadTestExecutor scenario = current;
+        return scenario == null ? 0 : scenario.getActiveWorkers();
+    }
+
+    public boolean isStopRequested() {
+        return stopRequested;
+    }
+
+    public void scenarioStarted(CouchbaseLoadTestExecutor scenario) {
+        current = scenario;
+    }
+
+    public void scenarioFinished(CouchbaseLoadTestExecutor scenario) {
+        ScenarioStatus.State state = scenario.isStopRequested() ? ScenarioStatus.State.STOPPED : ScenarioStatus.State.COMPLETED;
+        synchronized (finished) {
+            finished.add(describe(scenario, state));
+        }
+        if (current == scenario) {
+            current = null;
+        }
+    }
+
+    /**
+     * Records a scenario that was not started because the run was stopped.
+     */
+    public void scenarioSkipped(CouchbaseLoadTestExecutor scenario) {
+        synchronized (finished) {
+            finished.add(describe(scenario, ScenarioStatus.State.SKIPPED));
+        }
+    }
+
+    /**
+     * Lists the finished and skipped scenarios in run order, followed by the running one.
+     */
+    public List<ScenarioStatus> scenarios() {
+        List<ScenarioStatus> scenarios;
+        synchronized (finished) {
+            scenarios = new ArrayList<>(finished);
+        }
+        CouchbaseLoadTestExecutor scenario = current;
+        if (scenario != null) {
+            scenarios.add(describe(scenario, ScenarioStatus.State.RUNNING));
+        }
+        return scenarios;
+    }
+
+    /**
+     * Returns the live state of the run. Only counters and the last sampled interval are read, so polling is cheap.
+     */
+    public RunStatus status() {
+        CouchbaseLoadTestExecutor scenario = current;
+        int finishedScenarios;
+        int skippedScenarios;
+        synchronized (finished) {
+            skippedScenarios = (int) finished.stream().filter(status -> status.state() == ScenarioStatus.State.SKIPPED).count();
+            finishedScenarios = finished.size() - skippedScenarios;
+        }
+        RunStatus.State state = stopRequested ? RunStatus.State.STOPPING
+                : startSignal.getCount() > 0 ? RunStatus.State.WAITING : RunStatus.State.RUNNING;
+        return new RunStatus(state, scenario == null ? null : describe(scenario, ScenarioStatus.State.RUNNING),
+                finishedScenarios, skippedScenarios);
+    }
+
+    private static ScenarioStatus describe(CouchbaseLoadTestExecutor scenario, ScenarioStatus.State state) {
+        CouchbaseMetrics metrics = scenario.getCouchbaseMetrics();
+        TimelinePoint lastInterval = metrics.getLatencyTimeline().getLastPoint();
+        return new ScenarioStatus(metrics.getScenarioId(), scenario.getSettings().getWorkloadType().name(), state,
+                scenario.getConcurrency(), state == ScenarioStatus.State.RUNNING ? scenario.getActiveWorkers() : 0,
+                metrics.getElapsedSeconds(), metrics.getTotalSuccessfulOperations(), metrics.getTotalFailedOperations(),
+                metrics.getThroughput(),
+                lastInterval == null ? null : lastInterval.p50Latency(),
+                lastInterval == null ? null : lastInterval.p99Latency());
+    }
+}
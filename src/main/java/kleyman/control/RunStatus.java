@@ -0,0 +1,20 @@
+package kleyman.control;
+
+/**
+ * Live state of the whole run, as returned by the control API.
+ *
+ * @param state              state of the run
+ * @param current            the running scenario, or {@code null} between scenarios
+ * @param finishedScenarios  scenarios that completed or were stopped
+ * @param skippedScenarios   scenarios not started because the run was stopped
+ */
+public record RunStatus(State state, ScenarioStatus current, int finishedScenarios, int skippedScenarios) {
+
+    public enum State {
+        // Waiting for a start request before the first scenario
+        WAITING,
+        RUNNING,
+        // Stop requested, the remaining scenarios are skipped
+        STOPPING
+    }
+}
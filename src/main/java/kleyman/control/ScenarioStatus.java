@@ -0,0 +1,31 @@
+package kleyman.control;
+
+/**
+ * State of one scenario of the run, as listed by the control API. Latencies are in milliseconds and come from
+ * the last sampled interval; they are {@code null} before the first interval has been sampled.
+ *
+ * @param scenarioId           scenario id
+ * @param workload             workload type of the scenario
+ * @param state                state of the scenario
+ * @param concurrency          target number of worker threads
+ * @param activeWorkers        worker threads currently running
+ * @param elapsedSeconds       time since the scenario started
+ * @param successfulOperations successful operations of all types
+ * @param failedOperations     failed operations of all types
+ * @param throughput           successful operations per second since the scenario started
+ * @param p50Latency           median latency of the last interval
+ * @param p99Latency           99th percentile latency of the last interval
+ */
+public record ScenarioStatus(String scenarioId, String workload, State state, int concurrency, int activeWorkers,
+                             double elapsedSeconds, double successfulOperations, double failedOperations,
+                             double throughput, Double p50Latency, Double p99Latency) {
+
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        // Ended before its end time by a skip or stop request
+        STOPPED,
+        // Not started because the run was stopped
+        SKIPPED
+    }
+}
@@ -0,0 +1,64 @@
+package kleyman.distributed;
+
+import kleyman.testrunner.CouchbaseTestRunner;
+import kleyman.testrunner.RunConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Random;
+
+/**
+ * Runs the load of one agent of a distributed run: registers with the coordinator set with
+ * {@code load.test.distributed.coordinator}, runs the assigned scenarios, starting each together with the other
+ * agents, and sends the results to the coordinator, which writes the report for the whole run.
+ */
+public class Agent {
+    private static final Logger logger = LoggerFactory.getLogger(Agent.class);
+    static final String COORDINATOR_PROPERTY = "load.test.distributed.coordinator";
+
+    private Agent() {
+    }
+
+    /**
+     * Runs the agent for the coordinator set by {@code load.test.distributed.coordinator}.
+     *
+     * @return whether some scenarios could not run because the backend failed
+     */
+    public static boolean runConfigured() throws IOException, InterruptedException {
+        String coordinator = System.getProperty(COORDINATOR_PROPERTY);
+        if (coordinator == null || coordinator.isBlank()) {
+            throw new IllegalStateException("Set " + COORDINATOR_PROPERTY + " to the address of the coordinator");
+        }
+        return run(new AgentClient(URI.create(coordinator.trim())), RunConfiguration.fromProperties());
+    }
+
+    /**
+     * Registers with the coordinator through the given client and runs the assigned scenarios with the given
+     * configuration, overriding its start barrier, random and scenario duration with the assignment.
+     * The completed trials are reported even when the run fails.
+     */
+    static boolean run(AgentClient client, RunConfiguration configuration) throws IOException, InterruptedException {
+        Assignment assignment = client.register();
+        CouchbaseTestRunner testRunner = new CouchbaseTestRunner(configuration.toBuilder()
+                .startBarrier(client)
+                .random(new Random(assignment.seed()))
+                .scenarioDefaults(configuration.getScenarioDefaults().toBuilder()
+                        .testDuration(Duration.ofMillis(assignment.testDurationMillis()))
+                        .build())
+                .build());
+        try {
+            testRunner.runTests(EnumSet.copyOf(assignment.scenarioGroups()));
+        } finally {
+            // A crashed run still reports the trials it completed, so the coordinator counts this agent as finished
+            // and releases the barriers the other agents wait at
+            AgentReport report = AgentReport.from(assignment.agentId(), testRunner.getCompletedScenarios());
+            client.submit(report);
+        }
+        logger.info("Agent {} finished", assignment.agentId());
+        return testRunner.hasFailed();
+    }
+}
@@ -0,0 +1,116 @@
+package kleyman.distributed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kleyman.testrunner.ScenarioStartBarrier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * Talks to the {@link Coordinator} on behalf of an agent. It doubles as the agent's {@link ScenarioStartBarrier}:
+ * every scenario waits until the common start the coordinator hands out, converted to the agent's own clock
+ * with the clock offset estimated when the agent registers.
+ */
+public class AgentClient implements ScenarioStartBarrier {
+    private static final Logger logger = LoggerFactory.getLogger(AgentClient.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    // Round trips to the coordinator's clock, of which the fastest gives the offset estimate
+    static final int CLOCK_SAMPLES = 8;
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final URI baseUri;
+    private volatile long clockOffsetMillis;
+    private volatile int agentId;
+
+    /**
+     * @param coordinatorUri address of the coordinator, e.g. {@code http://load-coordinator:8090}
+     */
+    public AgentClient(URI coordinatorUri) {
+        this.baseUri = URI.create(coordinatorUri.toString().replaceAll("/+$", "") + Coordinator.CONTEXT_PATH + "/");
+    }
+
+    /**
+     * Estimates the clock offset to the coordinator and registers the agent.
+     */
+    public Assignment register() throws IOException, InterruptedException {
+        clockOffsetMillis = estimateClockOffset();
+        Assignment assignment = post("register", null, Assignment.class);
+        agentId = assignment.agentId();
+        logger.info("Registered as agent {} of {}, clock offset to the coordinator {} ms", agentId, assignment.agentCount(), clockOffsetMillis);
+        return assignment;
+    }
+
+    /**
+     * Waits for every agent to reach the scenario, then until the common start on the agent's clock.
+     */
+    @Override
+    public void awaitStart(String scenarioKey) throws IOException, InterruptedException {
+        StartTime startTime = post("barrier", new BarrierRequest(agentId, scenarioKey), StartTime.class);
+        long delay = toLocalTime(startTime.startAtMillis()) - System.currentTimeMillis();
+        if (delay > 0) {
+            Thread.sleep(delay);
+        }
+    }
+
+    /**
+     * Tells the coordinator the agent skips the scenario, so the other agents do not wait for it.
+     */
+    @Override
+    public void skip(String scenarioKey) throws IOException, InterruptedException {
+        post("skip", new BarrierRequest(agentId, scenarioKey), Object.class);
+    }
+
+    public void submit(AgentReport report) throws IOException, InterruptedException {
+        post("results", report, Object.class);
+        logger.info("Submitted {} scenario trials to the coordinator", report.scenarios().size());
+    }
+
+    /**
+     * Converts a time of the coordinator's clock to the agent's clock.
+     */
+    long toLocalTime(long coordinatorMillis) {
+        return coordinatorMillis - clockOffsetMillis;
+    }
+
+    /**
+     * Returns how far the coordinator's clock is ahead of the local clock, taken from the round trip with the
+     * least delay, assuming the coordinator read its clock halfway through that round trip.
+     */
+    private long estimateClockOffset() throws IOException, InterruptedException {
+        long bestRoundTrip = Long.MAX_VALUE;
+        long offset = 0;
+        for (int i = 0; i < CLOCK_SAMPLES; i++) {
+            long sentAt = System.currentTimeMillis();
+            CoordinatorTime time = send(HttpRequest.newBuilder(baseUri.resolve("time")).GET().build(), CoordinatorTime.class);
+            long receivedAt = System.currentTimeMillis();
+            if (receivedAt - sentAt < bestRoundTrip) {
+                bestRoundTrip = receivedAt - sentAt;
+                offset = time.timeMillis() - (sentAt + receivedAt) / 2;
+            }
+        }
+        return offset;
+    }
+
+    private <T> T post(String action, Object body, Class<T> responseType) throws IOException, InterruptedException {
+        HttpRequest.BodyPublisher publisher = body == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+        return send(HttpRequest.newBuilder(baseUri.resolve(action))
+                .header("Content-Type", "application/json")
+                .POST(publisher)
+                .build(), responseType);
+    }
+
+    private <T> T send(HttpRequest request, Class<T> responseType) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Coordinator answered " + request.uri() + " with " + response.statusCode()
+                    + ": " + new String(response.body()));
+        }
+        return objectMapper.readValue(response.body(), responseType);
+    }
+}
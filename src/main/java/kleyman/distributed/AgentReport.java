@@ -0,0 +1,30 @@
+package kleyman.distributed;
+
+import kleyman.metrics.CouchbaseMetrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Results an agent sends to the coordinator once it has run its scenarios.
+ *
+ * @param agentId   id of the agent
+ * @param scenarios every completed trial, in the order they completed
+ */
+public record AgentReport(int agentId, List<ScenarioSnapshot> scenarios) {
+
+    /**
+     * Creates the report from the archived scenarios of the agent, numbering repeated trials of a scenario from 1.
+     */
+    public static AgentReport from(int agentId, List<CouchbaseMetrics> completedScenarios) {
+        Map<String, Integer> trials = new HashMap<>();
+        List<ScenarioSnapshot> scenarios = new ArrayList<>(completedScenarios.size());
+        for (CouchbaseMetrics metrics : completedScenarios) {
+            int trial = trials.merge(metrics.getScenarioId(), 1, Integer::sum);
+            scenarios.add(ScenarioSnapshot.from(metrics, trial));
+        }
+        return new AgentReport(agentId, scenarios);
+    }
+}
@@ -0,0 +1,19 @@
+package kleyman.distributed;
+
+import kleyman.testrunner.ScenarioGroup;
+
+import java.util.List;
+
+/**
+ * Work the {@link Coordinator} hands to an agent when it registers. Every agent runs the same scenario groups
+ * for the same duration, and shuffles repeated trials with the same seed, so all agents run the same scenarios
+ * in the same order.
+ *
+ * @param agentId            id of the agent, from 1 up to the agent count
+ * @param agentCount         number of agents taking part in the run
+ * @param scenarioGroups     scenario groups to run
+ * @param testDurationMillis duration of every scenario
+ * @param seed               seed of the trial order
+ */
+public record Assignment(int agentId, int agentCount, List<ScenarioGroup> scenarioGroups, long testDurationMillis, long seed) {
+}
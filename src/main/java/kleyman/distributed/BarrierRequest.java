@@ -0,0 +1,10 @@
+package kleyman.distributed;
+
+/**
+ * Sent by an agent that is ready to start a scenario, or that skips it.
+ *
+ * @param agentId     id of the agent
+ * @param scenarioKey scenario id and how often the scenario has run before
+ */
+record BarrierRequest(int agentId, String scenarioKey) {
+}
@@ -0,0 +1,277 @@
+package kleyman.distributed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import kleyman.metrics.CouchbaseMetrics;
+import kleyman.testrunner.ScenarioGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coordinates a distributed run: a fixed number of agents register, each scenario starts on all agents at the
+ * same instant, and the results of all agents are merged into one result per scenario trial.
+ * The agents talk to the coordinator under {@value #CONTEXT_PATH}:
+ * <ul>
+ *     <li>{@code GET /distributed/time}: the coordinator's clock, from which the agents estimate their clock offset</li>
+ *     <li>{@code POST /distributed/register}: registers an agent and returns its {@link Assignment}</li>
+ *     <li>{@code POST /distributed/barrier}: returns the common start of a scenario once every agent is ready for it</li>
+ *     <li>{@code POST /distributed/skip}: tells the coordinator an agent skips a scenario, e.g. because its run was stopped</li>
+ *     <li>{@code POST /distributed/results}: takes the {@link AgentReport} of an agent</li>
+ * </ul>
+ * The barrier request is held open until the last agent arrives, so every request is served on its own thread.
+ * An agent that skips a scenario, or that has reported and so runs no more scenarios, counts as arrived,
+ * so the other agents are not held back until the timeout.
+ */
+public class Coordinator implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(Coordinator.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    public static final String CONTEXT_PATH = "/distributed";
+    static final String AGENTS_PROPERTY = "load.test.distributed.agents";
+    static final String PORT_PROPERTY = "load.test.distributed.port";
+    // Comma-separated scenario groups, e.g. THREAD_POOL,SUB_DOCUMENT, all groups by default
+    static final String SCENARIOS_PROPERTY = "load.test.distributed.scenarios";
+    // ISO-8601 duration the coordinator waits for the agents at every step
+    static final String TIMEOUT_PROPERTY = "load.test.distributed.timeout";
+    static final int DEFAULT_PORT = 8090;
+    // Time between the last agent reaching a barrier and the common start, enough for every agent to hear of it
+    static final Duration START_LEAD_TIME = Duration.ofMillis(500);
+    private final int agentCount;
+    private final List<ScenarioGroup> scenarioGroups;
+    private final long testDurationMillis;
+    private final long seed;
+    private final Duration timeout;
+    private final AtomicInteger registeredAgents = new AtomicInteger();
+    private final Map<String, Barrier> barriers = new ConcurrentHashMap<>();
+    private final Map<Integer, AgentReport> reports = new ConcurrentHashMap<>();
+    private final Set<Integer> finishedAgents = ConcurrentHashMap.newKeySet();
+    private final CountDownLatch allReported;
+    private HttpServer server;
+    private ExecutorService requestExecutor;
+
+    public Coordinator(int agentCount, List<ScenarioGroup> scenarioGroups, long testDurationMillis, long seed, Duration timeout) {
+        if (agentCount < 1) {
+            throw new IllegalArgumentException("A distributed run needs at least one agent, was " + agentCount);
+        }
+        if (scenarioGroups.isEmpty()) {
+            throw new IllegalArgumentException("A distributed run needs at least one scenario group");
+        }
+        this.agentCount = agentCount;
+        this.scenarioGroups = List.copyOf(scenarioGroups);
+        this.testDurationMillis = testDurationMillis;
+        this.seed = seed;
+        this.timeout = timeout;
+        this.allReported = new CountDownLatch(agentCount);
+    }
+
+    /**
+     * Creates the coordinator configured with the {@code load.test.distributed.*} properties.
+     */
+    public static Coordinator fromProperties() {
+        String agents = System.getProperty(AGENTS_PROPERTY);
+        if (agents == null) {
+            throw new IllegalStateException("Set " + AGENTS_PROPERTY + " to the number of agents");
+        }
+        String groups = System.getProperty(SCENARIOS_PROPERTY);
+        List<ScenarioGroup> scenarioGroups = groups == null || groups.isBlank()
+                ? List.of(ScenarioGroup.values())
+                : Arrays.stream(groups.split(",")).map(group -> ScenarioGroup.valueOf(group.trim().toUpperCase(Locale.ROOT))).toList();
+        return new Coordinator(Integer.parseInt(agents.trim()), scenarioGroups,
+                Long.parseLong(System.getProperty("load.test.duration.millis", "180000")),
+                ThreadLocalRandom.current().nextLong(), Duration.parse(System.getProperty(TIMEOUT_PROPERTY, "PT6H")));
+    }
+
+    /**
+     * Starts serving the agents on the given port, or on a free port when it is 0.
+     */
+    public void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext(CONTEXT_PATH, this::handle);
+        requestExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "distributed-coordinator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(requestExecutor);
+        server.start();
+        logger.info("Coordinator waiting for {} agents on port {}", agentCount, getPort());
+    }
+
+    /**
+     * Starts serving the agents on the port set with {@code load.test.distributed.port}.
+     */
+    public void start() throws IOException {
+        start(Integer.getInteger(PORT_PROPERTY, DEFAULT_PORT));
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Waits until every agent has reported and returns the merged, archived results of every scenario trial.
+     *
+     * @throws TimeoutException if some agent has not reported within the timeout
+     */
+    public List<CouchbaseMetrics> awaitResults() throws InterruptedException, TimeoutException {
+        if (!allReported.await(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            throw new TimeoutException((agentCount - reports.size()) + " of " + agentCount + " agents did not report within " + timeout);
+        }
+        logger.info("All {} agents reported, merging their results", agentCount);
+        return ResultMerger.merge(reports.values()).stream().map(ResultMerger::toMetrics).toList();
+    }
+
+    /**
+     * Registers the next agent.
+     *
+     * @throws IllegalStateException if every agent has registered already
+     */
+    Assignment register() {
+        int agentId = registeredAgents.incrementAndGet();
+        if (agentId > agentCount) {
+            registeredAgents.decrementAndGet();
+            throw new IllegalStateException("All " + agentCount + " agents have registered already");
+        }
+        logger.info("Agent {} of {} registered", agentId, agentCount);
+        return new Assignment(agentId, agentCount, scenarioGroups, testDurationMillis, seed);
+    }
+
+    /**
+     * Waits until every agent is ready to start the scenario and returns its common start.
+     */
+    StartTime awaitBarrier(int agentId, String scenarioKey) throws InterruptedException, TimeoutException {
+        Barrier barrier = arrive(agentId, scenarioKey);
+        try {
+            return barrier.startAt.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Barrier of " + scenarioKey + " failed", e.getCause());
+        }
+    }
+
+    /**
+     * Counts the agent as arrived at the scenario it skips, without waiting for the common start.
+     */
+    void skipBarrier(int agentId, String scenarioKey) {
+        logger.info("Agent {} skips {}", agentId, scenarioKey);
+        arrive(agentId, scenarioKey);
+    }
+
+    /**
+     * Takes the report of an agent, which runs no more scenarios and so no longer holds back any barrier.
+     */
+    void acceptReport(AgentReport report) {
+        if (reports.putIfAbsent(report.agentId(), report) == null) {
+            logger.info("Agent {} reported {} scenario trials", report.agentId(), report.scenarios().size());
+            finishedAgents.add(report.agentId());
+            barriers.forEach(this::releaseIfReady);
+            allReported.countDown();
+        }
+    }
+
+    private Barrier arrive(int agentId, String scenarioKey) {
+        Barrier barrier = barriers.computeIfAbsent(scenarioKey, key -> new Barrier());
+        synchronized (barrier) {
+            barrier.arrivedAgents.add(agentId);
+        }
+        releaseIfReady(scenarioKey, barrier);
+        return barrier;
+    }
+
+    /**
+     * Hands out the common start of the scenario once every agent has arrived at it, skipped it or finished.
+     */
+    private void releaseIfReady(String scenarioKey, Barrier barrier) {
+        synchronized (barrier) {
+            Set<Integer> readyAgents = new HashSet<>(barrier.arrivedAgents);
+            readyAgents.addAll(finishedAgents);
+            if (readyAgents.size() >= agentCount && !barrier.startAt.isDone()) {
+                long startAt = System.currentTimeMillis() + START_LEAD_TIME.toMillis();
+                logger.info("All agents ready for {}, starting it at {}", scenarioKey, startAt);
+                barrier.startAt.complete(new StartTime(startAt));
+            }
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                dispatch(exchange);
+            } catch (IllegalStateException e) {
+                respond(exchange, 409, Map.of("error", e.getMessage()));
+            } catch (TimeoutException e) {
+                respond(exchange, 504, Map.of("error", "Not every agent reached the barrier within " + timeout));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                respond(exchange, 503, Map.of("error", "Coordinator is shutting down"));
+            }
+        }
+    }
+
+    private void dispatch(HttpExchange exchange) throws IOException, InterruptedException, TimeoutException {
+        String action = exchange.getRequestURI().getPath().substring(CONTEXT_PATH.length()).replaceAll("^/+|/+$", "");
+        String method = exchange.getRequestMethod();
+        if (!method.equals("time".equals(action) ? "GET" : "POST")) {
+            respond(exchange, 405, Map.of("error", "Method " + method + " not allowed for " + action));
+            return;
+        }
+        switch (action) {
+            case "time" -> respond(exchange, 200, new CoordinatorTime(System.currentTimeMillis()));
+            case "register" -> respond(exchange, 200, register());
+            case "barrier" -> {
+                BarrierRequest request = objectMapper.readValue(exchange.getRequestBody(), BarrierRequest.class);
+                respond(exchange, 200, awaitBarrier(request.agentId(), request.scenarioKey()));
+            }
+            case "skip" -> {
+                BarrierRequest request = objectMapper.readValue(exchange.getRequestBody(), BarrierRequest.class);
+                skipBarrier(request.agentId(), request.scenarioKey());
+                respond(exchange, 202, Map.of("scenarioKey", request.scenarioKey()));
+            }
+            case "results" -> {
+                acceptReport(objectMapper.readValue(exchange.getRequestBody(), AgentReport.class));
+                respond(exchange, 202, Map.of("reportedAgents", reports.size()));
+            }
+            default -> respond(exchange, 404, Map.of("error", "Unknown coordinator action: " + action));
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, json.length);
+        exchange.getResponseBody().write(json);
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            requestExecutor.shutdownNow();
+            logger.info("Coordinator stopped.");
+        }
+    }
+
+    private static final class Barrier {
+        private final CompletableFuture<StartTime> startAt = new CompletableFuture<>();
+        private final Set<Integer> arrivedAgents = new HashSet<>();
+    }
+}
@@ -0,0 +1,7 @@
+package kleyman.distributed;
+
+/**
+ * Current time of the coordinator's clock in epoch milliseconds, used by the agents to estimate their clock offset.
+ */
+record CoordinatorTime(long timeMillis) {
+}
@@ -0,0 +1,27 @@
+package kleyman.distributed;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Role of the process in a distributed run, set with {@code load.test.distributed.role}: the {@link Coordinator}
+ * assigns scenarios to the agents, starts them together and merges their results into one report,
+ * while every {@link Agent} generates load and reports its results to the coordinator.
+ */
+public enum DistributedRole {
+    COORDINATOR,
+    AGENT;
+
+    public static final String ROLE_PROPERTY = "load.test.distributed.role";
+
+    /**
+     * Returns the configured role, or empty when the process runs on its own.
+     */
+    public static Optional<DistributedRole> configured() {
+        String role = System.getProperty(ROLE_PROPERTY);
+        if (role == null || role.isBlank()) {
+            return Optional.empty();
+        }
+        return Optional.of(valueOf(role.trim().toUpperCase(Locale.ROOT)));
+    }
+}
@@ -0,0 +1,37 @@
+package kleyman.distributed;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Results of one operation of a scenario run by one agent, or merged over all agents.
+ *
+ * @param operation         {@value #PUT}, {@value #GET} or the name of an {@link kleyman.metrics.OperationType}
+ * @param successes         number of successful operations
+ * @param failures          number of failed operations
+ * @param payloadCount      number of operations whose payload size was recorded
+ * @param payloadTotalBytes total payload bytes of those operations
+ * @param latencyHistogram  latencies in microseconds, encoded by {@link HistogramCodec}
+ */
+public record OperationSnapshot(String operation, long successes, long failures, long payloadCount,
+                                double payloadTotalBytes, String latencyHistogram) {
+    static final String PUT = "PUT";
+    static final String GET = "GET";
+
+    static OperationSnapshot of(String operation, Counter successCounter, Counter failureCounter,
+                                DistributionSummary payloadBytes, Histogram latencyHistogram) {
+        return new OperationSnapshot(operation, Math.round(successCounter.count()), Math.round(failureCounter.count()),
+                payloadBytes.count(), payloadBytes.totalAmount(), HistogramCodec.encode(latencyHistogram));
+    }
+
+    /**
+     * Adds up the results of the same operation run by two agents.
+     */
+    OperationSnapshot merge(OperationSnapshot other) {
+        Histogram latencies = HistogramCodec.decode(latencyHistogram);
+        latencies.add(HistogramCodec.decode(other.latencyHistogram));
+        return new OperationSnapshot(operation, successes + other.successes, failures + other.failures,
+                payloadCount + other.payloadCount, payloadTotalBytes + other.payloadTotalBytes, HistogramCodec.encode(latencies));
+    }
+}
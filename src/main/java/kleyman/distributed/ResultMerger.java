@@ -0,0 +1,78 @@
+package kleyman.distributed;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import kleyman.metrics.CouchbaseMetrics;
+import kleyman.metrics.OperationMetrics;
+import kleyman.metrics.OperationType;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges the reports of all agents into one result per scenario trial. Counts and latency histograms are added up
+ * without loss; the merged results are turned back into archived {@link CouchbaseMetrics}, so the usual report,
+ * exports and SLO gate apply to the distributed run as a whole.
+ * Only counts, payload sizes and latencies are merged: the replica, CAS, partition, request phase and client
+ * resource sections of the agents are not part of the merged results.
+ */
+public final class ResultMerger {
+    private static final Logger logger = LoggerFactory.getLogger(ResultMerger.class);
+
+    private ResultMerger() {
+    }
+
+    /**
+     * Merges the same trial of the same scenario over the agents, in the order the first agent reported them.
+     */
+    static List<ScenarioSnapshot> merge(Collection<AgentReport> reports) {
+        Map<String, ScenarioSnapshot> merged = new LinkedHashMap<>();
+        for (AgentReport report : reports) {
+            for (ScenarioSnapshot scenario : report.scenarios()) {
+                merged.merge(scenario.scenarioId() + "#" + scenario.trial(), scenario, ScenarioSnapshot::merge);
+            }
+        }
+        return List.copyOf(merged.values());
+    }
+
+    /**
+     * Rebuilds archived metrics from a merged scenario. Counts and histograms are added in bulk, and the archived
+     * timers are rebuilt from the merged histograms, so their percentiles match the histograms' precision.
+     */
+    static CouchbaseMetrics toMetrics(ScenarioSnapshot scenario) {
+        CouchbaseMetrics metrics = CouchbaseMetrics.restored(scenario.scenarioId(), scenario.threads(),
+                scenario.jsonSize(), scenario.uniqueKeys());
+        for (OperationSnapshot operation : scenario.operations()) {
+            switch (operation.operation()) {
+                case OperationSnapshot.PUT -> restore(operation, metrics, metrics.getPutSuccessCounter(), metrics.getPutFailureCounter(),
+                        metrics.getPutPayloadBytes(), metrics.getPutLatencyHistogram());
+                case OperationSnapshot.GET -> restore(operation, metrics, metrics.getGetSuccessCounter(), metrics.getGetFailureCounter(),
+                        metrics.getGetPayloadBytes(), metrics.getGetLatencyHistogram());
+                default -> {
+                    OperationMetrics operationMetrics = metrics.getOperationMetrics(OperationType.valueOf(operation.operation()));
+                    restore(operation, metrics, operationMetrics.getSuccessCounter(), operationMetrics.getFailureCounter(),
+                            operationMetrics.getPayloadBytes(), operationMetrics.getLatencyHistogram());
+                }
+            }
+        }
+        metrics.getLatencyHistogram().add(HistogramCodec.decode(scenario.latencyHistogram()));
+        metrics.restoreElapsed(Duration.ofMillis(scenario.elapsedMillis()));
+        logger.info("Merged trial {} of {} with {} threads in total", scenario.trial(), scenario.scenarioId(), scenario.threads());
+        return metrics.archive();
+    }
+
+    private static void restore(OperationSnapshot operation, CouchbaseMetrics metrics, Counter successCounter,
+                                Counter failureCounter, DistributionSummary payloadBytes, Histogram latencyHistogram) {
+        successCounter.increment(operation.successes());
+        failureCounter.increment(operation.failures());
+        latencyHistogram.add(HistogramCodec.decode(operation.latencyHistogram()));
+        // The agents only report the total, so the merged summary keeps the mean payload size
+        metrics.restorePayloadBytes(payloadBytes, operation.payloadCount(), operation.payloadTotalBytes());
+    }
+}
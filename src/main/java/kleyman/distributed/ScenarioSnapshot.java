@@ -0,0 +1,62 @@
+package kleyman.distributed;
+
+import kleyman.metrics.CouchbaseMetrics;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Results of one trial of a scenario run by one agent, or merged over all agents, in a form that can be sent
+ * between processes: counters as exact counts and latencies as full HdrHistograms.
+ *
+ * @param scenarioId       scenario id
+ * @param trial            trial of the scenario, from 1
+ * @param threads          worker threads, added up over the agents when merged
+ * @param jsonSize         JSON file used by the scenario
+ * @param uniqueKeys       whether the scenario used unique keys
+ * @param elapsedMillis    wall-clock duration, the longest of the agents when merged
+ * @param latencyHistogram latencies of every operation in microseconds, encoded by {@link HistogramCodec}
+ * @param operations       results per operation
+ */
+public record ScenarioSnapshot(String scenarioId, int trial, int threads, String jsonSize, boolean uniqueKeys,
+                               long elapsedMillis, String latencyHistogram, List<OperationSnapshot> operations) {
+
+    /**
+     * Takes the snapshot of an archived scenario.
+     */
+    public static ScenarioSnapshot from(CouchbaseMetrics metrics, int trial) {
+        List<OperationSnapshot> operations = new ArrayList<>();
+        operations.add(OperationSnapshot.of(OperationSnapshot.PUT, metrics.getPutSuccessCounter(), metrics.getPutFailureCounter(),
+                metrics.getPutPayloadBytes(), metrics.getPutLatencyHistogram()));
+        operations.add(OperationSnapshot.of(OperationSnapshot.GET, metrics.getGetSuccessCounter(), metrics.getGetFailureCounter(),
+                metrics.getGetPayloadBytes(), metrics.getGetLatencyHistogram()));
+        metrics.getOperationMetricsByType().forEach((type, operationMetrics) -> operations.add(OperationSnapshot.of(type.name(),
+                operationMetrics.getSuccessCounter(), operationMetrics.getFailureCounter(),
+                operationMetrics.getPayloadBytes(), operationMetrics.getLatencyHistogram())));
+        return new ScenarioSnapshot(metrics.getScenarioId(), trial, metrics.getThreadSize(), metrics.getJsonSize(),
+                metrics.isUniqueKeys(), Math.round(metrics.getElapsedSeconds() * 1000),
+                HistogramCodec.encode(metrics.getLatencyHistogram()), operations);
+    }
+
+    /**
+     * Adds up the results of the same trial run by two agents: threads, counts and histograms are summed,
+     * and the elapsed time is the longer of the two, since the agents ran side by side.
+     */
+    ScenarioSnapshot merge(ScenarioSnapshot other) {
+        Histogram latencies = HistogramCodec.decode(latencyHistogram);
+        latencies.add(HistogramCodec.decode(other.latencyHistogram));
+        Map<String, OperationSnapshot> mergedOperations = new LinkedHashMap<>();
+        for (OperationSnapshot operation : operations) {
+            mergedOperations.put(operation.operation(), operation);
+        }
+        for (OperationSnapshot operation : other.operations) {
+            mergedOperations.merge(operation.operation(), operation, OperationSnapshot::merge);
+        }
+        return new ScenarioSnapshot(scenarioId, trial, threads + other.threads, jsonSize, uniqueKeys,
+                Math.max(elapsedMillis, other.elapsedMillis), HistogramCodec.encode(latencies),
+                List.copyOf(mergedOperations.values()));
+    }
+}
@@ -0,0 +1,7 @@
+package kleyman.distributed;
+
+/**
+ * Common start of a scenario, in epoch milliseconds of the coordinator's clock.
+ */
+record StartTime(long startAtMillis) {
+}
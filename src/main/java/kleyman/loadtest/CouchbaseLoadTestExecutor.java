@@ -2,34 +2,107 @@ package kleyman.loadtest;
 
 import com.couchbase.client.core.error.CouchbaseException;
 import com.couchbase.client.java.json.JsonObject;
+import kleyman.accesslog.AccessLogReader;
+import kleyman.accesslog.AccessLogReplayer;
+import kleyman.metrics.ClientResourceSampler;
 import kleyman.metrics.CouchbaseMetrics;
 import kleyman.metrics.MetricManager;
-import kleyman.metrics.MetricsSetup;
-import kleyman.service.CouchbaseService;
+import kleyman.metrics.ScenarioContext;
+import kleyman.metrics.SlowOperationLog;
+import kleyman.metrics.SoakMonitor;
+import kleyman.results.HistogramLogExporter;
+import kleyman.results.ResultExporter;
+import kleyman.service.DataBaseService;
+import kleyman.service.VersionedDocument;
+import kleyman.trace.OperationTraceReader;
+import kleyman.trace.OperationTraceWriter;
+import kleyman.trace.TraceHeader;
+import kleyman.trace.TraceReplayer;
+import kleyman.trace.TracingDataBaseService;
 import kleyman.util.JsonFileReaderUtils;
+import kleyman.util.OutputDirectoryUtils;
 import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Couchbase implementation of the LoadTestExecutor interface for conducting load tests.
+ * While the scenario runs, its concurrency can be changed and it can be stopped early, e.g. from the control API:
+ * worker threads are started or retired one by one, and the scenario keeps its original end time.
+ * With {@code load.test.trace.enabled} every operation is recorded to an operation trace, {@code scenario-N.cbtr},
+ * which the {@link WorkloadType#TRACE_REPLAY} workload re-issues later, e.g. against another cluster configuration.
+ * The services capture operations whose latency reaches the slow threshold of their kind with their keys,
+ * see {@link SlowOperationLog}.
+ * The {@link WorkloadType#ACCESS_LOG_REPLAY} workload re-issues the entries of a production KV access log instead.
  */
 public class CouchbaseLoadTestExecutor implements LoadTestExecutor {
     private static final Logger logger = LoggerFactory.getLogger(CouchbaseLoadTestExecutor.class);
+    private static final int SUB_DOCUMENT_LOOKUP_PATHS = 2;
+    private static final String SUB_DOCUMENT_UPDATED_AT_PATH = "loadtest.updatedAt";
+    private static final String SUB_DOCUMENT_COUNTER_PATH = "loadtest.counter";
+    private static final String SUB_DOCUMENT_EVENTS_PATH = "loadtest.events";
+    private static final String HOT_KEY_PREFIX = "user::hot::";
+    private static final String CAS_VERSION_FIELD = "loadtestVersion";
+    private static final String COUNTER_KEY_PREFIX = "counter::";
+    private static final int BINARY_CHUNK_BYTES = 16;
+    // Pause before the first and longest pause between any-replica polls that wait for a write to replicate
+    private static final long REPLICATION_POLL_MIN_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long REPLICATION_POLL_MAX_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long MIN_SHUTDOWN_GRACE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final String SOAK_DIRECTORY_PROPERTY = "load.test.soak.directory";
+    static final String TRACE_ENABLED_PROPERTY = "load.test.trace.enabled";
+    static final String TRACE_DIRECTORY_PROPERTY = "load.test.trace.directory";
+    // Size of the memory mapping that holds the operation trace, at most 2047 MB
+    static final String TRACE_CAPACITY_PROPERTY = "load.test.trace.capacity.mb";
+    private static final int DEFAULT_TRACE_CAPACITY_MB = 512;
+    private static final int MAX_TRACE_CAPACITY_MB = 2047;
     @Getter
     private final int threadCount;
     @Getter
     private final boolean useUniqueKeys;
     private final String jsonFilePath;
     private final long testDurationMillis;
-    private final CouchbaseService couchbaseService;
+    private final DataBaseService<JsonObject, CouchbaseMetrics> couchbaseService;
+    // The service the executor was created with, before slow operation capture and tracing wrap it
+    private final DataBaseService<JsonObject, CouchbaseMetrics> backendService;
+    // Wraps the service when operations are traced, null otherwise
+    private final TracingDataBaseService operationTracer;
+    @Getter
     private final CouchbaseMetrics couchbaseMetrics;
+    // Records the polls waiting for replication, which are not part of the workload, null for other workloads
+    private final CouchbaseMetrics replicationPollMetrics;
     private final String scenarioId;
+    @Getter
+    private final ScenarioSettings settings;
+    private final Object workerLock = new Object();
+    // Ids of the worker threads currently running, from 1 up to the target concurrency
+    private final Set<Integer> runningWorkers = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, JsonObject> jsonDataByFile = new ConcurrentHashMap<>();
+    private final CountDownLatch stopSignal = new CountDownLatch(1);
+    private volatile int targetConcurrency;
+    private volatile boolean stopRequested;
+    private volatile long deadlineMillis;
+    private ExecutorService workerPool;
+    // Archived results of the scenario once it has completed, null until then
+    @Getter
+    private volatile CouchbaseMetrics archivedMetrics;
+    // Operations the workers re-issue in a replay workload, null otherwise
+    private volatile ReplaySource replaySource;
 
     /**
      * Constructs a CouchbaseTestScenario for running load tests.
@@ -37,17 +110,42 @@ public class CouchbaseLoadTestExecutor implements LoadTestExecutor {
      * @param threadCount      number of concurrent threads to use
      * @param jsonFilePath     file path to the JSON data
      * @param useUniqueKeys    whether to use unique keys for each operation
-     * @param couchbaseService the service to interact with the Couchbase database
+     * @param couchbaseService the service to interact with the database
+     * @param scenarioId       scenario id
+     */
+    public CouchbaseLoadTestExecutor(int threadCount, String jsonFilePath, boolean useUniqueKeys, DataBaseService<JsonObject, CouchbaseMetrics> couchbaseService, String scenarioId) {
+        this(threadCount, jsonFilePath, useUniqueKeys, couchbaseService, scenarioId, ScenarioSettings.defaults());
+    }
+
+    /**
+     * Constructs a CouchbaseTestScenario for running load tests with additional scenario settings.
+     *
+     * @param threadCount      number of concurrent threads to use
+     * @param jsonFilePath     file path to the JSON data
+     * @param useUniqueKeys    whether to use unique keys for each operation
+     * @param couchbaseService the service to interact with the database
      * @param scenarioId       scenario id
+     * @param settings         workload, durability and other optional scenario settings
      */
-    public CouchbaseLoadTestExecutor(int threadCount, String jsonFilePath, boolean useUniqueKeys, CouchbaseService couchbaseService, String scenarioId) {
+    public CouchbaseLoadTestExecutor(int threadCount, String jsonFilePath, boolean useUniqueKeys, DataBaseService<JsonObject, CouchbaseMetrics> couchbaseService, String scenarioId, ScenarioSettings settings) {
+        this.settings = settings;
         this.threadCount = threadCount;
         this.jsonFilePath = jsonFilePath;
         this.useUniqueKeys = useUniqueKeys;
-        this.couchbaseService = couchbaseService;
+        this.backendService = couchbaseService;
+        this.operationTracer = Boolean.getBoolean(TRACE_ENABLED_PROPERTY) && settings.getWorkloadType() != WorkloadType.TRACE_REPLAY
+                ? new TracingDataBaseService(couchbaseService, this::payloadIdOf)
+                : null;
+        this.couchbaseService = operationTracer != null ? operationTracer : couchbaseService;
         this.scenarioId = scenarioId;
-        this.testDurationMillis = Long.parseLong(System.getProperty("load.test.duration.millis", "180000"));
-        this.couchbaseMetrics = new CouchbaseMetrics(MetricsSetup.getPrometheusRegistry(), scenarioId, threadCount, jsonFilePath, useUniqueKeys);
+        this.testDurationMillis = settings.getTestDuration() != null
+                ? settings.getTestDuration().toMillis()
+                : Long.parseLong(System.getProperty("load.test.duration.millis", "180000"));
+        this.couchbaseMetrics = new CouchbaseMetrics(settings.getMeterRegistry(), scenarioId, threadCount, jsonFilePath, useUniqueKeys);
+        this.replicationPollMetrics = settings.getWorkloadType() == WorkloadType.REPLICA_READ
+                ? CouchbaseMetrics.detached(scenarioId, threadCount, jsonFilePath, useUniqueKeys)
+                : null;
+        this.targetConcurrency = threadCount;
     }
 
     /**
@@ -58,18 +156,318 @@ public class CouchbaseLoadTestExecutor implements LoadTestExecutor {
 
     @Override
     public void executeLoadTest() {
-        logger.info("Starting load test with {} threads using unique keys: {} by {}", threadCount, useUniqueKeys, scenarioId);
-        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
-        for (int i = 1; i <= threadCount; i++) {
-            JsonObject jsonData = loadJsonDataFromFile(jsonFilePath + i + ".json");
-            if (jsonData == null) return;
-            final int threadId = i;
-            executor.submit(() -> performThreadOperations(threadId, jsonData));
-        }
-        shutdownExecutor(executor);
+        try (OperationTraceWriter ignored = startOperationTrace()) {
+            try {
+                switch (settings.getWorkloadType()) {
+                    case TRACE_REPLAY -> replayTrace();
+                    case ACCESS_LOG_REPLAY -> replayAccessLog();
+                    default -> runScenario();
+                }
+            } finally {
+                if (operationTracer != null) {
+                    operationTracer.setWriter(null);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to complete the operation trace of {}", scenarioId, e);
+        }
+    }
+
+    /**
+     * Replays the operations recorded outside the workers of the trace, then runs one worker per recorded worker.
+     * The scenario ends once every worker has replayed its operations.
+     */
+    private void replayTrace() {
+        try (OperationTraceReader trace = OperationTraceReader.open(settings.getReplayTrace())) {
+            logger.info("Replaying {} operations of {} at speed {}", trace.getRecordCount(), settings.getReplayTrace(), settings.getReplaySpeed());
+            TraceReplayer traceReplayer = new TraceReplayer(trace, couchbaseService, couchbaseMetrics, this::jsonDataForFile,
+                    settings.getReplaySpeed());
+            traceReplayer.replaySetup();
+            replaySource = traceReplayer;
+            runScenario();
+        } catch (IOException e) {
+            logger.error("Failed to read operation trace {}", settings.getReplayTrace(), e);
+        }
+    }
+
+    /**
+     * Streams the access log into the queues of the workers while they replay it.
+     * The scenario ends once every worker has replayed the entries of its keys.
+     */
+    private void replayAccessLog() {
+        try (AccessLogReplayer accessLogReplayer = new AccessLogReplayer(AccessLogReader.open(settings.getAccessLog()),
+                couchbaseService, couchbaseMetrics, threadCount, settings.getReplayQueueCapacity(), settings.getReplaySpeed())) {
+            logger.info("Replaying access log {} with {} threads at speed {}", settings.getAccessLog(), threadCount, settings.getReplaySpeed());
+            accessLogReplayer.start();
+            replaySource = accessLogReplayer;
+            runScenario();
+        } catch (IOException e) {
+            logger.error("Failed to read access log {}", settings.getAccessLog(), e);
+        }
+    }
+
+    private void runScenario() {
+        logger.info("Starting {} load test with {} threads using unique keys: {} and durability: {} by {}",
+                settings.getWorkloadType(), threadCount, useUniqueKeys, settings.getDurabilityLevel(), scenarioId);
+        if (settings.getWorkloadType() == WorkloadType.CAS_CONTENTION && !seedHotDocuments()) return;
+        ExecutorService executor = Executors.newCachedThreadPool();
+        ScenarioContext.activate(couchbaseMetrics);
+        couchbaseMetrics.markScenarioStart();
+        deadlineMillis = System.currentTimeMillis() + testDurationMillis;
+        boolean completed = false;
+        // The histogram log is declared first so it is closed last, after the sampler has recorded the last interval
+        try (HistogramLogExporter ignoredLog = startHistogramLog();
+             ClientResourceSampler ignored = ClientResourceSampler.start(couchbaseMetrics);
+             SoakMonitor ignoredMonitor = startSoakMonitor()) {
+            synchronized (workerLock) {
+                workerPool = executor;
+                if (!startWorkers()) {
+                    return;
+                }
+            }
+            awaitEnd();
+            shutdownExecutor(executor);
+            completed = true;
+        } finally {
+            if (!completed) {
+                executor.shutdownNow();
+            }
+            couchbaseMetrics.markScenarioEnd();
+            ScenarioContext.clear(couchbaseMetrics);
+            // Releases the live meters of the scenario; only a completed scenario's immutable results are saved
+            CouchbaseMetrics archived = couchbaseMetrics.archive();
+            if (completed) {
+                archivedMetrics = archived;
+                MetricManager.store(archived);
+            }
+        }
         logger.info("Load test completed.");
-        //Saves scenario's metrics
-        MetricManager.metricsMap.put(scenarioId, couchbaseMetrics);
+    }
+
+    /**
+     * Changes the number of worker threads of the running scenario. New workers start at once; retired workers
+     * finish their current operation first. The new concurrency also applies if the scenario has not started yet.
+     * The change is recorded in the scenario's metrics, see {@link CouchbaseMetrics#recordConcurrencyChange(int)}.
+     *
+     * @return {@code false} if the scenario has already ended or the JSON data of a new worker could not be read
+     */
+    public boolean setConcurrency(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1, was " + concurrency);
+        }
+        if (settings.getWorkloadType().isReplay()) {
+            logger.info("{} replays recorded operations, its concurrency cannot be changed", scenarioId);
+            return false;
+        }
+        synchronized (workerLock) {
+            if (stopRequested || (workerPool != null && workerPool.isShutdown())) {
+                return false;
+            }
+            logger.info("Changing concurrency of {} from {} to {} threads", scenarioId, targetConcurrency, concurrency);
+            if (concurrency != targetConcurrency) {
+                couchbaseMetrics.recordConcurrencyChange(concurrency);
+            }
+            targetConcurrency = concurrency;
+            return workerPool == null || startWorkers();
+        }
+    }
+
+    public int getConcurrency() {
+        return targetConcurrency;
+    }
+
+    public int getActiveWorkers() {
+        return runningWorkers.size();
+    }
+
+    /**
+     * Ends the scenario early: workers finish their current operation and the results so far are kept.
+     */
+    public void requestStop() {
+        synchronized (workerLock) {
+            if (!stopRequested) {
+                logger.info("Stop requested for {}", scenarioId);
+                stopRequested = true;
+                stopSignal.countDown();
+            }
+        }
+    }
+
+    public boolean isStopRequested() {
+        return stopRequested;
+    }
+
+    /**
+     * Starts a worker for every id up to the target concurrency that has none running. Called with the worker lock held.
+     */
+    private boolean startWorkers() {
+        for (int threadId = 1; threadId <= targetConcurrency; threadId++) {
+            // Replaying workers write the recorded documents instead of a document per thread
+            JsonObject jsonData = replaySource == null ? jsonDataForThread(threadId) : null;
+            if (replaySource == null && jsonData == null) {
+                return false;
+            }
+            if (runningWorkers.add(threadId)) {
+                final int workerId = threadId;
+                workerPool.submit(() -> runWorker(workerId, jsonData));
+            }
+        }
+        return true;
+    }
+
+    private JsonObject jsonDataForThread(int threadId) {
+        return jsonDataForFile(settings.getJsonFiles() == 0 ? threadId : (threadId - 1) % settings.getJsonFiles() + 1);
+    }
+
+    private JsonObject jsonDataForFile(int fileNumber) {
+        JsonObject cached = jsonDataByFile.get(fileNumber);
+        if (cached != null) {
+            return cached;
+        }
+        JsonObject jsonData = loadJsonDataFromFile(jsonFilePath + fileNumber + ".json");
+        if (jsonData != null) {
+            jsonDataByFile.put(fileNumber, jsonData);
+        }
+        return jsonData;
+    }
+
+    /**
+     * Returns the number of the JSON file the document was read from, or 0 if it was not read from a file as is.
+     */
+    private int payloadIdOf(JsonObject jsonData) {
+        for (Map.Entry<Integer, JsonObject> entry : jsonDataByFile.entrySet()) {
+            if (entry.getValue() == jsonData) {
+                return entry.getKey();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Runs the operations of a worker while it is active. The worker leaves the running set under the worker lock,
+     * so a concurrency change racing with its retirement either keeps it running or starts it again.
+     */
+    private void runWorker(int threadId, JsonObject jsonData) {
+        if (operationTracer != null) {
+            operationTracer.bindWorker(threadId);
+        }
+        if (replaySource != null) {
+            replayWorker(threadId);
+            return;
+        }
+        while (true) {
+            performThreadOperations(threadId, jsonData);
+            synchronized (workerLock) {
+                if (!isWorkerActive(threadId)) {
+                    runningWorkers.remove(threadId);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Replays the operations of the worker and ends the scenario once it was the last worker still replaying.
+     */
+    private void replayWorker(int threadId) {
+        int replayed = replaySource.replayWorker(threadId, () -> isWorkerActive(threadId));
+        logger.info("Thread {} replayed {} operations.", threadId, replayed);
+        synchronized (workerLock) {
+            runningWorkers.remove(threadId);
+            if (runningWorkers.isEmpty()) {
+                logger.info("All workers of {} completed their replay", scenarioId);
+                stopSignal.countDown();
+            }
+        }
+    }
+
+    private boolean isWorkerActive(int threadId) {
+        return !stopRequested && threadId <= targetConcurrency && System.currentTimeMillis() <= deadlineMillis;
+    }
+
+    /**
+     * Waits until the scenario's end time or until a stop is requested.
+     */
+    private void awaitEnd() {
+        try {
+            long remainingMillis = deadlineMillis - System.currentTimeMillis();
+            if (remainingMillis > 0 && stopSignal.await(remainingMillis, TimeUnit.MILLISECONDS)) {
+                logger.info("{} stopped before its end time", scenarioId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while waiting for {} to end", scenarioId, e);
+        }
+    }
+
+    /**
+     * Starts writing the latency histogram of every sampling interval to {@code scenario-N.hlog}, with a
+     * {@code -trial-K} suffix for later trials; returns {@code null} if the log cannot be created.
+     */
+    private HistogramLogExporter startHistogramLog() {
+        Path logFile = OutputDirectoryUtils.resolve(ResultExporter.EXPORT_DIRECTORY_PROPERTY)
+                .resolve(ResultExporter.baseName(scenarioId, currentTrial()) + HistogramLogExporter.EXTENSION);
+        try {
+            return HistogramLogExporter.start(couchbaseMetrics, logFile);
+        } catch (IOException e) {
+            logger.error("Failed to create interval latency log {}, continuing without it", logFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Starts recording every operation to {@code scenario-N.cbtr} in {@code load.test.trace.directory}, with a
+     * {@code -trial-K} suffix for later trials; returns {@code null} if tracing is off or the trace cannot be created.
+     */
+    private OperationTraceWriter startOperationTrace() {
+        if (operationTracer == null) {
+            return null;
+        }
+        Path traceFile = OutputDirectoryUtils.resolve(TRACE_DIRECTORY_PROPERTY)
+                .resolve(ResultExporter.baseName(scenarioId, currentTrial()) + OperationTraceWriter.EXTENSION);
+        int capacityMb = Math.max(1, Math.min(MAX_TRACE_CAPACITY_MB, Integer.getInteger(TRACE_CAPACITY_PROPERTY, DEFAULT_TRACE_CAPACITY_MB)));
+        try {
+            OperationTraceWriter writer = OperationTraceWriter.create(traceFile,
+                    new TraceHeader(scenarioId, jsonFilePath, useUniqueKeys, System.currentTimeMillis()), capacityMb << 20);
+            operationTracer.setWriter(writer);
+            return writer;
+        } catch (IOException e) {
+            logger.error("Failed to create operation trace {}, continuing without it", traceFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the trial of the scenario this executor runs, from 1, until its results are stored.
+     */
+    public int currentTrial() {
+        return MetricManager.trialsMap.getOrDefault(scenarioId, List.of()).size() + 1;
+    }
+
+    /**
+     * Starts writing interval results of a soak scenario to {@code scenario-N-intervals.csv};
+     * returns {@code null} for other scenarios, which try-with-resources skips.
+     */
+    private SoakMonitor startSoakMonitor() {
+        if (!settings.isSoak()) {
+            return null;
+        }
+        Path intervalFile = OutputDirectoryUtils.resolve(SOAK_DIRECTORY_PROPERTY)
+                .resolve(scenarioId.toLowerCase().replace(' ', '-') + "-intervals.csv");
+        try {
+            return SoakMonitor.start(couchbaseMetrics, settings.getIntervalLength(), intervalFile);
+        } catch (IOException e) {
+            logger.error("Failed to create soak interval file {}, continuing without interval results", intervalFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Creates a new executor for another trial of the same scenario, with its own metrics.
+     * It should be created only once the previous trial has completed, since both register the same meters.
+     */
+    public CouchbaseLoadTestExecutor newTrial() {
+        return new CouchbaseLoadTestExecutor(threadCount, jsonFilePath, useUniqueKeys, backendService, scenarioId, settings);
     }
 
     private JsonObject loadJsonDataFromFile(String jsonFilePathForThread) {
@@ -85,19 +483,41 @@ public class CouchbaseLoadTestExecutor implements LoadTestExecutor {
     /**
      * Executes the operations for a specific thread.
      * Each thread uploads data to the Couchbase database and retrieves it multiple times within the test duration.
+     * The operations performed after the upload depend on the {@link WorkloadType} of the scenario.
      *
      * @param threadId the identifier for the current thread
      * @param jsonData the JSON data to be uploaded and retrieved
      */
     private void performThreadOperations(int threadId, JsonObject jsonData) {
         logger.info("Thread {} starting operations.", threadId);
-        long startTime = System.currentTimeMillis();
-        while (System.currentTimeMillis() - startTime <= testDurationMillis) {
+        int payloadBytes = jsonData.toBytes().length;
+        List<String> lookupPaths = selectLookupPaths(jsonData);
+        String counterKey = COUNTER_KEY_PREFIX + (useUniqueKeys ? String.valueOf(threadId) : "shared");
+        byte[] blob = createBinaryPayload(settings.getBinaryPayloadBytes());
+        byte[] chunk = createBinaryPayload(BINARY_CHUNK_BYTES);
+        while (isWorkerActive(threadId)) {
             String key = createKeyKey(threadId);
             try {
-                couchbaseService.upload(key, jsonData, couchbaseMetrics);
-                logger.debug("Thread {}: Uploaded data for key: {}", threadId, key);
-                couchbaseService.retrieveJsonThreeTimes(key, couchbaseMetrics);
+                switch (settings.getWorkloadType()) {
+                    case SUB_DOCUMENT -> {
+                        uploadDocument(key, jsonData, payloadBytes);
+                        performSubDocumentOperations(key, lookupPaths, payloadBytes);
+                    }
+                    case REPLICA_READ -> performReplicaReadOperations(key, jsonData, payloadBytes);
+                    case CAS_CONTENTION -> performCasUpdate(createHotKey());
+                    case COUNTER -> {
+                        couchbaseService.incrementCounter(counterKey, 1, couchbaseMetrics);
+                        couchbaseService.decrementCounter(counterKey, 1, couchbaseMetrics);
+                    }
+                    case BINARY -> performBinaryOperations(key, blob, chunk);
+                    default -> {
+                        uploadDocument(key, jsonData, payloadBytes);
+                        couchbaseService.retrieveJsonThreeTimes(key, couchbaseMetrics);
+                        for (int i = 0; i < 3; i++) {
+                            couchbaseMetrics.recordGetPayloadBytes(payloadBytes);
+                        }
+                    }
+                }
                 logger.debug("Thread {}: Uploaded and retrieved data for key: {}", threadId, key);
             } catch (CouchbaseException e) {
                 logger.error("Thread {}: Couchbase error during operations for key: {}", threadId, key, e);
@@ -108,21 +528,168 @@ public class CouchbaseLoadTestExecutor implements LoadTestExecutor {
         logger.info("Thread {} completed operations.", threadId);
     }
 
+    private void uploadDocument(String key, JsonObject jsonData, int payloadBytes) {
+        couchbaseService.upload(key, jsonData, settings.getDurabilityLevel(), couchbaseMetrics);
+        couchbaseMetrics.recordPutPayloadBytes(payloadBytes);
+        logger.debug("Uploaded data for key: {}", key);
+    }
+
+    /**
+     * Uploads the document, reads it back from the active node and then from the replicas.
+     * A replica read is stale when it is served by a replica with a CAS other than the one just written.
+     * Any-replica reads are then repeated until a replica returns the written CAS, which measures the
+     * replication lag as seen by the client, counted from the write acknowledgement. Only the first any-replica
+     * read counts as a workload operation.
+     */
+    private void performReplicaReadOperations(String key, JsonObject jsonData, int payloadBytes) {
+        long cas = couchbaseService.uploadAndGetCas(key, jsonData, settings.getDurabilityLevel(), couchbaseMetrics);
+        long acknowledgedAt = System.nanoTime();
+        couchbaseMetrics.recordPutPayloadBytes(payloadBytes);
+        couchbaseService.retrieve(key, couchbaseMetrics);
+        couchbaseMetrics.recordGetPayloadBytes(payloadBytes);
+
+        VersionedDocument<JsonObject> anyReplica = couchbaseService.retrieveFromAnyReplica(key, couchbaseMetrics);
+        recordReplicaRead(anyReplica, cas);
+        for (VersionedDocument<JsonObject> copy : couchbaseService.retrieveFromAllReplicas(key, couchbaseMetrics)) {
+            if (copy.replica()) {
+                recordReplicaRead(copy, cas);
+            }
+        }
+        waitForReplication(key, cas, anyReplica, acknowledgedAt);
+    }
+
+    /**
+     * Uploads the blob and reads it back, then appends and prepends a small chunk and reads the grown blob.
+     * The next upload resets the blob, so its size stays bounded.
+     */
+    private void performBinaryOperations(String key, byte[] blob, byte[] chunk) {
+        couchbaseService.uploadBinary(key, blob, couchbaseMetrics);
+        couchbaseService.retrieveBinary(key, couchbaseMetrics);
+        couchbaseService.appendBinary(key, chunk, couchbaseMetrics);
+        couchbaseService.prependBinary(key, chunk, couchbaseMetrics);
+        couchbaseService.retrieveBinary(key, couchbaseMetrics);
+    }
+
+    static byte[] createBinaryPayload(int size) {
+        byte[] payload = new byte[size];
+        ThreadLocalRandom.current().nextBytes(payload);
+        return payload;
+    }
+
+    /**
+     * Updates a hot document with get, modify and replace-with-CAS, retrying from the read on CAS mismatch.
+     */
+    private void performCasUpdate(String key) {
+        for (int retries = 0; retries <= settings.getMaxCasRetries(); retries++) {
+            VersionedDocument<JsonObject> document = couchbaseService.retrieveWithCas(key, couchbaseMetrics);
+            JsonObject content = document.content();
+            content.put(CAS_VERSION_FIELD, content.getLong(CAS_VERSION_FIELD) + 1);
+            boolean applied = couchbaseService.replaceWithCas(key, content, document.cas(), couchbaseMetrics);
+            couchbaseMetrics.recordCasAttempt(applied);
+            if (applied) {
+                couchbaseMetrics.recordCasUpdate(retries);
+                return;
+            }
+        }
+        couchbaseMetrics.incrementCasUpdateAbandoned();
+    }
+
+    /**
+     * Uploads the hot documents of the CAS contention workload before the scenario starts,
+     * so every update finds its document. The documents are a copy of the cached first JSON file with a version field,
+     * so the cached file is read only once and stays as it was read. The uploads go through the service, so traces
+     * still capture them as setup, but are recorded to detached metrics, so they count as neither PUTs nor throughput.
+     */
+    private boolean seedHotDocuments() {
+        JsonObject fileData = jsonDataForFile(1);
+        if (fileData == null) return false;
+        JsonObject jsonData = JsonObject.fromJson(fileData.toString()).put(CAS_VERSION_FIELD, 0L);
+        CouchbaseMetrics seedingMetrics = CouchbaseMetrics.detached(scenarioId, threadCount, jsonFilePath, useUniqueKeys);
+        for (int i = 0; i < settings.getHotSetSize(); i++) {
+            couchbaseService.upload(HOT_KEY_PREFIX + i, jsonData, seedingMetrics);
+        }
+        logger.info("Seeded {} hot documents for {}", settings.getHotSetSize(), scenarioId);
+        return true;
+    }
+
+    private String createHotKey() {
+        return HOT_KEY_PREFIX + ThreadLocalRandom.current().nextInt(settings.getHotSetSize());
+    }
+
+    private void recordReplicaRead(VersionedDocument<JsonObject> document, long writtenCas) {
+        couchbaseMetrics.recordReplicaRead(document.replica(), document.replica() && document.cas() != writtenCas);
+    }
+
+    /**
+     * Polls any replica until it returns the written CAS, pausing between polls with a backoff that doubles up to
+     * {@link #REPLICATION_POLL_MAX_BACKOFF_NANOS}, so the lag resolution is bounded by that pause. The polls bypass
+     * slow operation capture and tracing and are recorded to metrics of their own, so they neither load the cluster
+     * back to back nor count as replica reads of the workload.
+     */
+    private void waitForReplication(String key, long writtenCas, VersionedDocument<JsonObject> firstRead, long acknowledgedAt) {
+        long deadline = acknowledgedAt + settings.getReplicationLagTimeout().toNanos();
+        long backoffNanos = REPLICATION_POLL_MIN_BACKOFF_NANOS;
+        VersionedDocument<JsonObject> read = firstRead;
+        while (!(read.replica() && read.cas() == writtenCas)) {
+            long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0) {
+                couchbaseMetrics.incrementReplicationLagTimeout();
+                return;
+            }
+            LockSupport.parkNanos(Math.min(backoffNanos, remainingNanos));
+            backoffNanos = Math.min(backoffNanos * 2, REPLICATION_POLL_MAX_BACKOFF_NANOS);
+            read = backendService.retrieveFromAnyReplica(key, replicationPollMetrics);
+        }
+        couchbaseMetrics.recordReplicationLag(System.nanoTime() - acknowledgedAt, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Reads the freshly uploaded document once in full and then touches only a few of its fields:
+     * a path lookup, a field upsert, a counter increment and an array append.
+     */
+    private void performSubDocumentOperations(String key, List<String> lookupPaths, int payloadBytes) {
+        couchbaseService.retrieve(key, couchbaseMetrics);
+        couchbaseMetrics.recordGetPayloadBytes(payloadBytes);
+        couchbaseService.lookupIn(key, lookupPaths, couchbaseMetrics);
+        long now = System.currentTimeMillis();
+        couchbaseService.mutateIn(key, Map.of(SUB_DOCUMENT_UPDATED_AT_PATH, now), couchbaseMetrics);
+        couchbaseService.incrementField(key, SUB_DOCUMENT_COUNTER_PATH, 1, couchbaseMetrics);
+        couchbaseService.appendToArray(key, SUB_DOCUMENT_EVENTS_PATH, now, couchbaseMetrics);
+    }
+
+    /**
+     * Picks the top-level fields of the payload used for sub-document lookups,
+     * so lookups work for both the small and the big JSON files.
+     */
+    static List<String> selectLookupPaths(JsonObject jsonData) {
+        List<String> paths = new ArrayList<>(SUB_DOCUMENT_LOOKUP_PATHS);
+        Iterator<String> names = jsonData.getNames().iterator();
+        while (names.hasNext() && paths.size() < SUB_DOCUMENT_LOOKUP_PATHS) {
+            paths.add(names.next());
+        }
+        return paths;
+    }
+
     String createKeyKey(int threadId) {
         return useUniqueKeys ? "user::" + threadId + "::" + System.nanoTime() : "user::shared";
     }
 
     /**
-     * Shuts down the ExecutorService and waits for tasks to complete.
+     * Shuts down the ExecutorService and waits for tasks to complete: the test duration plus a grace period
+     * of a tenth of it, at least one minute. Threads still running after that are interrupted.
      *
      * @param executor the ExecutorService to shut down
      */
     private void shutdownExecutor(ExecutorService executor) {
-        executor.shutdown();
+        synchronized (workerLock) {
+            executor.shutdown();
+        }
+        long timeoutMillis = Math.max(MIN_SHUTDOWN_GRACE_MILLIS, testDurationMillis / 10);
         try {
-            boolean terminated = executor.awaitTermination(60, TimeUnit.MINUTES);
+            boolean terminated = executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
             if (!terminated) {
-                logger.warn("Executor did not terminate in the specified time.");
+                logger.warn("Executor did not terminate in {} ms, interrupting remaining threads.", timeoutMillis);
+                executor.shutdownNow();
             } else {
                 logger.info("Executor terminated successfully.");
             }
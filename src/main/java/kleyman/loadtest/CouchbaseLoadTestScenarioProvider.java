@@ -1,8 +1,18 @@
 package kleyman.loadtest;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 
-import kleyman.service.CouchbaseService;
+import com.couchbase.client.core.msg.kv.DurabilityLevel;
+import com.couchbase.client.java.json.JsonObject;
+import kleyman.accesslog.AccessLogReader;
+import kleyman.metrics.CouchbaseMetrics;
+import kleyman.service.DataBaseService;
+import kleyman.trace.OperationTraceReader;
+import kleyman.trace.TraceHeader;
 import kleyman.util.EnvironmentVariableUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,15 +23,43 @@ import org.slf4j.LoggerFactory;
  */
 public class CouchbaseLoadTestScenarioProvider {
     private static final Logger logger = LoggerFactory.getLogger(CouchbaseLoadTestScenarioProvider.class);
-    private final CouchbaseService couchbaseService;
-    private final String jsonBigPath = EnvironmentVariableUtils.getEnv("JSON_BIG_PATH");
-    private final String jsonSmallPath = EnvironmentVariableUtils.getEnv("JSON_SMALL_PATH");
+    private final DataBaseService<JsonObject, CouchbaseMetrics> couchbaseService;
+    private final ScenarioDefaults defaults;
+    private final String jsonBigPath;
+    private final String jsonSmallPath;
     private static final int[] THREAD_COUNTS = {5, 10, 15};
     public static final int[] CONNECTION_POOL_SIZE = {5, 10, 15};
+    public static final DurabilityLevel[] DURABILITY_LEVELS = {
+            DurabilityLevel.NONE,
+            DurabilityLevel.MAJORITY,
+            DurabilityLevel.MAJORITY_AND_PERSIST_TO_ACTIVE,
+            DurabilityLevel.PERSIST_TO_MAJORITY
+    };
+    public static final int[] CAS_HOT_SET_SIZES = {1, 10};
+    private static final int DURABILITY_FIRST_SCENARIO = 18;
+    private static final int REPLICA_READ_FIRST_SCENARIO = 22;
+    private static final int CAS_CONTENTION_FIRST_SCENARIO = 24;
+    public static final int COUNTER_FIRST_SCENARIO = 30;
+    public static final int BINARY_FIRST_SCENARIO = 32;
+    public static final int[] BINARY_PAYLOAD_BYTES = {256, 4096};
+    public static final int SOAK_SCENARIO = 34;
+    public static final int CONCURRENCY_SWEEP_FIRST_SCENARIO = 35;
+    public static final int ACCESS_LOG_REPLAY_SCENARIO = 0;
     private static final String SCENARIO_PREFIX = "Scenario ";
 
-    public CouchbaseLoadTestScenarioProvider(CouchbaseService couchbaseService) {
+    public CouchbaseLoadTestScenarioProvider(DataBaseService<JsonObject, CouchbaseMetrics> couchbaseService) {
+        this(couchbaseService, ScenarioDefaults.fromEnvironment());
+    }
+
+    /**
+     * Creates a provider whose scenarios use the given JSON files, duration and meter registry,
+     * falling back to the environment for every value the defaults do not set.
+     */
+    public CouchbaseLoadTestScenarioProvider(DataBaseService<JsonObject, CouchbaseMetrics> couchbaseService, ScenarioDefaults defaults) {
         this.couchbaseService = couchbaseService;
+        this.defaults = defaults;
+        this.jsonBigPath = defaults.getJsonBigPath() != null ? defaults.getJsonBigPath() : EnvironmentVariableUtils.getEnv("JSON_BIG_PATH");
+        this.jsonSmallPath = defaults.getJsonSmallPath() != null ? defaults.getJsonSmallPath() : EnvironmentVariableUtils.getEnv("JSON_SMALL_PATH");
     }
 
     /**
@@ -54,15 +92,204 @@ public class CouchbaseLoadTestScenarioProvider {
 
     public List<CouchbaseLoadTestExecutor> createConnectionPoolScenarios() {
         logger.info("Creating Couchbase load test connection pool scenarios.");
-        List<CouchbaseLoadTestExecutor> scenarios = List.of(
-                createExecutor(THREAD_COUNTS[1], jsonBigPath, true, 13),
-                createExecutor(THREAD_COUNTS[1], jsonBigPath, true, 14),
-                createExecutor(THREAD_COUNTS[1], jsonBigPath, true, 15));
+        List<CouchbaseLoadTestExecutor> scenarios = new ArrayList<>();
+        for (int i = 0; i < CONNECTION_POOL_SIZE.length; i++) {
+            scenarios.add(createConnectionPoolScenario(i));
+        }
         logger.info("Created {} connection pool load test scenarios.", scenarios.size());
         return scenarios;
     }
 
+    /**
+     * Creates only the connection pool scenario of the given pool size, so the meters of the other scenarios
+     * are not registered while this provider's connection runs it.
+     *
+     * @param poolSizeIndex index of the pool size in {@link #CONNECTION_POOL_SIZE}
+     * @return the CouchbaseLoadTestExecutor of that pool size
+     */
+    public CouchbaseLoadTestExecutor createConnectionPoolScenario(int poolSizeIndex) {
+        return createExecutor(THREAD_COUNTS[1], jsonBigPath, true, 13 + poolSizeIndex);
+    }
+
+    /**
+     * Creates sub-document scenarios with 10 threads and unique keys for the big and the small JSON data.
+     * Each thread performs full-document and sub-document operations on the same payload,
+     * so their latency and payload size can be compared side by side.
+     *
+     * @return a list of CouchbaseLoadTestExecutor scenarios
+     */
+    public List<CouchbaseLoadTestExecutor> createSubDocumentScenarios() {
+        logger.info("Creating Couchbase load test sub-document scenarios.");
+        ScenarioSettings subDocument = ScenarioSettings.builder().workloadType(WorkloadType.SUB_DOCUMENT).build();
+        List<CouchbaseLoadTestExecutor> scenarios = List.of(
+                createExecutor(THREAD_COUNTS[1], jsonBigPath, true, 16, subDocument),
+                createExecutor(THREAD_COUNTS[1], jsonSmallPath, true, 17, subDocument));
+        logger.info("Created {} sub-document load test scenarios.", scenarios.size());
+        return scenarios;
+    }
+
+    /**
+     * Creates one scenario per synchronous durability level with 10 threads, big JSON data and unique keys,
+     * so that write latency percentiles and throughput can be compared between levels.
+     *
+     * @return a list of CouchbaseLoadTestExecutor scenarios
+     */
+    public List<CouchbaseLoadTestExecutor> createDurabilityScenarios() {
+        logger.info("Creating Couchbase load test durability scenarios.");
+        List<CouchbaseLoadTestExecutor> scenarios = new ArrayList<>();
+        for (int i = 0; i < DURABILITY_LEVELS.length; i++) {
+            ScenarioSettings durability = ScenarioSettings.builder().durabilityLevel(DURABILITY_LEVELS[i]).build();
+            scenarios.add(createExecutor(THREAD_COUNTS[1], jsonBigPath, true, DURABILITY_FIRST_SCENARIO + i, durability));
+        }
+        logger.info("Created {} durability load test scenarios.", scenarios.size());
+        return scenarios;
+    }
+
+    /**
+     * Creates replica read scenarios with 10 threads and unique keys for the big and the small JSON data.
+     * Writes are not durable, so replica reads right after a write show the staleness of asynchronous replication.
+     *
+     * @return a list of CouchbaseLoadTestExecutor scenarios
+     */
+    public List<CouchbaseLoadTestExecutor> createReplicaReadScenarios() {
+        logger.info("Creating Couchbase load test replica read scenarios.");
+        ScenarioSettings replicaRead = ScenarioSettings.builder().workloadType(WorkloadType.REPLICA_READ).build();
+        List<CouchbaseLoadTestExecutor> scenarios = List.of(
+                createExecutor(THREAD_COUNTS[1], jsonBigPath, true, REPLICA_READ_FIRST_SCENARIO, replicaRead),
+                createExecutor(THREAD_COUNTS[1], jsonSmallPath, true, REPLICA_READ_FIRST_SCENARIO + 1, replicaRead));
+        logger.info("Created {} replica read load test scenarios.", scenarios.size());
+        return scenarios;
+    }
+
+    /**
+     * Creates CAS contention scenarios for every combination of 5, 10 or 15 threads and a hot set of 1 or 10
+     * small JSON documents, so that CAS mismatches and update throughput can be followed as contention grows.
+     *
+     * @return a list of CouchbaseLoadTestExecutor scenarios
+     */
+    public List<CouchbaseLoadTestExecutor> createCasContentionScenarios() {
+        logger.info("Creating Couchbase load test CAS contention scenarios.");
+        List<CouchbaseLoadTestExecutor> scenarios = new ArrayList<>();
+        int scenarioNumber = CAS_CONTENTION_FIRST_SCENARIO;
+        for (int hotSetSize : CAS_HOT_SET_SIZES) {
+            ScenarioSettings casContention = ScenarioSettings.builder()
+                    .workloadType(WorkloadType.CAS_CONTENTION)
+                    .hotSetSize(hotSetSize)
+                    .build();
+            for (int threadCount : THREAD_COUNTS) {
+                scenarios.add(createExecutor(threadCount, jsonSmallPath, false, scenarioNumber++, casContention));
+            }
+        }
+        logger.info("Created {} CAS contention load test scenarios.", scenarios.size());
+        return scenarios;
+    }
+
+    /**
+     * Creates small-op scenarios with 10 threads: counters on a shared and on per-thread keys, numbered from
+     * {@value #COUNTER_FIRST_SCENARIO}, and raw binary blobs of 256 bytes and 4 kb on unique keys, numbered from
+     * {@value #BINARY_FIRST_SCENARIO}.
+     *
+     * @return a list of CouchbaseLoadTestExecutor scenarios
+     */
+    public List<CouchbaseLoadTestExecutor> createCounterAndBinaryScenarios() {
+        logger.info("Creating Couchbase load test counter and binary scenarios.");
+        ScenarioSettings counter = ScenarioSettings.builder().workloadType(WorkloadType.COUNTER).build();
+        List<CouchbaseLoadTestExecutor> scenarios = new ArrayList<>(List.of(
+                createExecutor(THREAD_COUNTS[1], jsonSmallPath, false, COUNTER_FIRST_SCENARIO, counter),
+                createExecutor(THREAD_COUNTS[1], jsonSmallPath, true, COUNTER_FIRST_SCENARIO + 1, counter)));
+        for (int i = 0; i < BINARY_PAYLOAD_BYTES.length; i++) {
+            ScenarioSettings binary = ScenarioSettings.builder()
+                    .workloadType(WorkloadType.BINARY)
+                    .binaryPayloadBytes(BINARY_PAYLOAD_BYTES[i])
+                    .build();
+            scenarios.add(createExecutor(THREAD_COUNTS[1], jsonSmallPath, true, BINARY_FIRST_SCENARIO + i, binary));
+        }
+        logger.info("Created {} counter and binary load test scenarios.", scenarios.size());
+        return scenarios;
+    }
+
+    /**
+     * Creates the soak scenario: the full-document workload with small JSON files and unique keys,
+     * running for the given duration with its results written to disk interval by interval.
+     */
+    public CouchbaseLoadTestExecutor createSoakScenario(Duration duration) {
+        logger.info("Creating Couchbase soak scenario running for {}.", duration);
+        ScenarioSettings soak = ScenarioSettings.builder().soak(true).testDuration(duration).build();
+        return createExecutor(THREAD_COUNTS[0], jsonSmallPath, true, SOAK_SCENARIO, soak);
+    }
+
+    /**
+     * Creates one scenario per thread count of the concurrency sweep, numbered from
+     * {@value #CONCURRENCY_SWEEP_FIRST_SCENARIO}: the full-document workload with small JSON files and unique keys.
+     * Threads share the JSON files of the largest thread pool scenario, so the sweep can go beyond it.
+     */
+    public List<CouchbaseLoadTestExecutor> createConcurrencySweepScenarios(int[] threadCounts) {
+        logger.info("Creating Couchbase concurrency sweep scenarios.");
+        ScenarioSettings sweep = ScenarioSettings.builder().jsonFiles(THREAD_COUNTS[THREAD_COUNTS.length - 1]).build();
+        List<CouchbaseLoadTestExecutor> scenarios = new ArrayList<>();
+        for (int i = 0; i < threadCounts.length; i++) {
+            scenarios.add(createExecutor(threadCounts[i], jsonSmallPath, true, CONCURRENCY_SWEEP_FIRST_SCENARIO + i, sweep));
+        }
+        logger.info("Created {} concurrency sweep scenarios.", scenarios.size());
+        return scenarios;
+    }
+
+    /**
+     * Creates the scenario replaying the given operation trace with one thread per recorded worker. It keeps the id
+     * of the recorded scenario, so the replay can be compared with the recording or with a replay against another
+     * cluster. It ends once every worker has replayed its operations, at the latest after twice the recorded
+     * duration at the given speed plus a minute.
+     */
+    public CouchbaseLoadTestExecutor createTraceReplayScenario(Path trace, double speed) throws IOException {
+        try (OperationTraceReader reader = OperationTraceReader.open(trace)) {
+            TraceHeader header = reader.getHeader();
+            int workers = reader.getWorkerIds().stream().mapToInt(Integer::intValue).max().orElse(0);
+            long limitNanos = (long) (2 * reader.getLastStartNanos() / Math.min(speed, 1.0));
+            logger.info("Creating replay of {} with {} operations of {} workers.", header.scenarioId(), reader.getRecordCount(), workers);
+            ScenarioSettings replay = ScenarioSettings.builder()
+                    .workloadType(WorkloadType.TRACE_REPLAY)
+                    .replayTrace(trace)
+                    .replaySpeed(speed)
+                    .testDuration(Duration.ofNanos(limitNanos).plusMinutes(1))
+                    .build();
+            return new CouchbaseLoadTestExecutor(Math.max(1, workers), header.jsonFilePath(), header.uniqueKeys(), couchbaseService,
+                    header.scenarioId(), withDefaults(replay));
+        }
+    }
+
+    /**
+     * Creates scenario {@value #ACCESS_LOG_REPLAY_SCENARIO}, replaying the given KV access log with the given number
+     * of threads. It ends once every entry has been replayed, at the latest after twice the logged duration
+     * at the given speed plus a minute.
+     */
+    public CouchbaseLoadTestExecutor createAccessLogReplayScenario(Path accessLog, int threadCount, double speed) throws IOException {
+        Duration span = AccessLogReader.timeSpan(accessLog);
+        logger.info("Creating replay of access log {} spanning {}.", accessLog, span);
+        ScenarioSettings replay = ScenarioSettings.builder()
+                .workloadType(WorkloadType.ACCESS_LOG_REPLAY)
+                .accessLog(accessLog)
+                .replaySpeed(speed)
+                .testDuration(Duration.ofNanos((long) (2 * span.toNanos() / Math.min(speed, 1.0))).plusMinutes(1))
+                .build();
+        return createExecutor(threadCount, jsonSmallPath, false, ACCESS_LOG_REPLAY_SCENARIO, replay);
+    }
+
     private CouchbaseLoadTestExecutor createExecutor(int threadCount, String jsonPath, boolean uniqueKeys, int scenarioNumber) {
-        return new CouchbaseLoadTestExecutor(threadCount, jsonPath, uniqueKeys, couchbaseService, SCENARIO_PREFIX + scenarioNumber);
+        return createExecutor(threadCount, jsonPath, uniqueKeys, scenarioNumber, ScenarioSettings.defaults());
+    }
+
+    private CouchbaseLoadTestExecutor createExecutor(int threadCount, String jsonPath, boolean uniqueKeys, int scenarioNumber, ScenarioSettings settings) {
+        return new CouchbaseLoadTestExecutor(threadCount, jsonPath, uniqueKeys, couchbaseService, SCENARIO_PREFIX + scenarioNumber, withDefaults(settings));
+    }
+
+    /**
+     * Applies the meter registry of the defaults and, unless the scenario sets its own, their duration.
+     */
+    private ScenarioSettings withDefaults(ScenarioSettings settings) {
+        ScenarioSettings.ScenarioSettingsBuilder builder = settings.toBuilder().meterRegistry(defaults.getMeterRegistry());
+        if (settings.getTestDuration() == null) {
+            builder.testDuration(defaults.getTestDuration());
+        }
+        return builder.build();
     }
 }
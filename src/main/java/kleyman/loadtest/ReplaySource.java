@@ -0,0 +1,16 @@
+package kleyman.loadtest;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Supplies the operations of a replay workload, which the executor's workers re-issue instead of generating their own.
+ */
+public interface ReplaySource {
+
+    /**
+     * Issues the operations assigned to the given worker while it stays active.
+     *
+     * @return the number of operations issued
+     */
+    int replayWorker(int workerId, BooleanSupplier active);
+}
@@ -0,0 +1,38 @@
+package kleyman.loadtest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import kleyman.metrics.MetricsSetup;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Run-wide inputs of the scenarios a {@link CouchbaseLoadTestScenarioProvider} creates. A value that is not set
+ * is read from its environment variable or system property, the way a standalone run is configured.
+ */
+@Getter
+@Builder(toBuilder = true)
+public class ScenarioDefaults {
+    /**
+     * Path of the big JSON files up to their file number; when not set, the {@code JSON_BIG_PATH} variable applies.
+     */
+    private final String jsonBigPath;
+    /**
+     * Path of the small JSON files up to their file number; when not set, the {@code JSON_SMALL_PATH} variable applies.
+     */
+    private final String jsonSmallPath;
+    /**
+     * Duration of the scenarios that do not set their own; when not set, the {@code load.test.duration.millis} property applies.
+     */
+    private final Duration testDuration;
+    /**
+     * Registry the meters of the scenarios are registered with.
+     */
+    @Builder.Default
+    private final MeterRegistry meterRegistry = MetricsSetup.getPrometheusRegistry();
+
+    public static ScenarioDefaults fromEnvironment() {
+        return ScenarioDefaults.builder().build();
+    }
+}
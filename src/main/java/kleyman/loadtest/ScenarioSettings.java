@@ -0,0 +1,89 @@
+package kleyman.loadtest;
+
+import com.couchbase.client.core.msg.kv.DurabilityLevel;
+import io.micrometer.core.instrument.MeterRegistry;
+import kleyman.accesslog.AccessLogReplayer;
+import kleyman.metrics.MetricsSetup;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Optional settings of a load test scenario on top of thread count, payload and key strategy.
+ * Every setting has a default that reproduces the original full-document scenarios.
+ */
+@Getter
+@Builder(toBuilder = true)
+public class ScenarioSettings {
+    @Builder.Default
+    private final WorkloadType workloadType = WorkloadType.FULL_DOCUMENT;
+    @Builder.Default
+    private final DurabilityLevel durabilityLevel = DurabilityLevel.NONE;
+    /**
+     * How long replica reads are repeated after a write before it is counted as not replicated in time.
+     */
+    @Builder.Default
+    private final Duration replicationLagTimeout = Duration.ofMillis(100);
+    /**
+     * Number of hot documents the CAS contention workload spreads its updates over.
+     */
+    @Builder.Default
+    private final int hotSetSize = 1;
+    /**
+     * How many times a CAS update is retried after a mismatch before it is given up.
+     */
+    @Builder.Default
+    private final int maxCasRetries = 16;
+    /**
+     * Size of the blob uploaded by the binary workload.
+     */
+    @Builder.Default
+    private final int binaryPayloadBytes = 256;
+    /**
+     * Number of distinct JSON files the threads cycle through; zero gives every thread its own file.
+     */
+    private final int jsonFiles;
+    /**
+     * How long each thread keeps running operations; when not set, the {@code load.test.duration.millis} property applies.
+     */
+    private final Duration testDuration;
+    /**
+     * Whether the scenario is a soak test, whose results are also written to disk interval by interval
+     * and checked for trends.
+     */
+    private final boolean soak;
+    /**
+     * Length of the intervals a soak test is split into.
+     */
+    @Builder.Default
+    private final Duration intervalLength = Duration.ofMinutes(1);
+    /**
+     * Operation trace re-issued by the trace replay workload.
+     */
+    private final Path replayTrace;
+    /**
+     * KV access log re-issued by the access log replay workload.
+     */
+    private final Path accessLog;
+    /**
+     * Number of entries the access log replay queues ahead for each worker.
+     */
+    @Builder.Default
+    private final int replayQueueCapacity = AccessLogReplayer.DEFAULT_QUEUE_CAPACITY;
+    /**
+     * How much faster than recorded the trace or access log is replayed; {@link Double#POSITIVE_INFINITY} replays at maximum speed.
+     */
+    @Builder.Default
+    private final double replaySpeed = 1.0;
+    /**
+     * Registry the meters of the scenario are registered with.
+     */
+    @Builder.Default
+    private final MeterRegistry meterRegistry = MetricsSetup.getPrometheusRegistry();
+
+    public static ScenarioSettings defaults() {
+        return ScenarioSettings.builder().build();
+    }
+}
@@ -0,0 +1,51 @@
+package kleyman.loadtest;
+
+/**
+ * Operation mix performed by each thread of a load test scenario.
+ */
+public enum WorkloadType {
+    /**
+     * One upload of the whole document followed by three retrievals of the whole document.
+     */
+    FULL_DOCUMENT,
+    /**
+     * Full-document upload and retrieval followed by sub-document path lookups, field upserts,
+     * counter increments and array appends on the same document, so both can be compared on the same payload.
+     */
+    SUB_DOCUMENT,
+    /**
+     * Full-document upload, one active read and reads from any and from all replicas,
+     * measuring stale replica reads and how long a write takes to become visible on a replica.
+     */
+    REPLICA_READ,
+    /**
+     * Read-modify-write updates of a small set of hot documents: each update reads the document with its CAS,
+     * modifies it and replaces it only if the CAS still matches, retrying on mismatch.
+     */
+    CAS_CONTENTION,
+    /**
+     * Binary KV counter increment followed by a decrement, as a rate limiter acquiring and releasing a permit.
+     */
+    COUNTER,
+    /**
+     * Raw binary upsert and get of a small blob followed by an append and a prepend, without any JSON encoding.
+     */
+    BINARY,
+    /**
+     * The operations of a recorded operation trace, re-issued worker by worker in the recorded order,
+     * see {@link kleyman.trace.TraceReplayer}.
+     */
+    TRACE_REPLAY,
+    /**
+     * The entries of a KV access log, streamed from disk and re-issued at the logged pace,
+     * see {@link kleyman.accesslog.AccessLogReplayer}.
+     */
+    ACCESS_LOG_REPLAY;
+
+    /**
+     * Whether the workers re-issue recorded operations instead of generating their own.
+     */
+    public boolean isReplay() {
+        return this == TRACE_REPLAY || this == ACCESS_LOG_REPLAY;
+    }
+}
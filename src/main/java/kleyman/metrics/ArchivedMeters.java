@@ -0,0 +1,169 @@
+package kleyman.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Immutable copies of meters taken when a scenario ends. Each copy keeps only the count, total, max and
+ * the published percentiles of the live meter, which are all the report reads, so an archived scenario
+ * costs a few dozen bytes per meter instead of the live meter's sliding histograms.
+ * Archived meters are not registered anywhere and reject recording.
+ */
+final class ArchivedMeters {
+
+    private ArchivedMeters() {
+    }
+
+    static Counter counter(Counter counter) {
+        return new ArchivedCounter(counter.getId(), counter.count());
+    }
+
+    static Timer timer(Timer timer) {
+        return new ArchivedTimer(timer.getId(), compact(timer.takeSnapshot()), timer.baseTimeUnit());
+    }
+
+    /**
+     * Rebuilds the timer's count, total, max and published percentiles from a histogram of its latencies in microseconds,
+     * for results measured elsewhere that were never recorded into the timer.
+     */
+    static Timer timer(Timer timer, Histogram latencies) {
+        long count = latencies.getTotalCount();
+        ValueAtPercentile[] percentiles = new ValueAtPercentile[CouchbaseMetrics.LATENCY_PERCENTILES.length];
+        for (int i = 0; i < percentiles.length; i++) {
+            double percentile = CouchbaseMetrics.LATENCY_PERCENTILES[i];
+            percentiles[i] = new ValueAtPercentile(percentile,
+                    count == 0 ? 0 : TimeUnit.MICROSECONDS.toNanos(latencies.getValueAtPercentile(percentile * 100)));
+        }
+        HistogramSnapshot snapshot = new HistogramSnapshot(count, count == 0 ? 0 : latencies.getMean() * count * 1000,
+                TimeUnit.MICROSECONDS.toNanos(latencies.getMaxValue()), percentiles, new CountAtBucket[0], null);
+        return new ArchivedTimer(timer.getId(), snapshot, timer.baseTimeUnit());
+    }
+
+    static DistributionSummary summary(DistributionSummary summary) {
+        return new ArchivedSummary(summary.getId(), compact(summary.takeSnapshot()));
+    }
+
+    /**
+     * Rebuilds the summary from the number and total of its values, for results measured elsewhere; its max is the mean.
+     */
+    static DistributionSummary summary(DistributionSummary summary, long count, double total) {
+        return new ArchivedSummary(summary.getId(), new HistogramSnapshot(count, total, count == 0 ? 0 : total / count,
+                new ValueAtPercentile[0], new CountAtBucket[0], null));
+    }
+
+    /**
+     * Drops histogram buckets, which none of the scenario meters publish, and keeps the percentiles.
+     */
+    private static HistogramSnapshot compact(HistogramSnapshot snapshot) {
+        return new HistogramSnapshot(snapshot.count(), snapshot.total(), snapshot.max(),
+                snapshot.percentileValues(), new CountAtBucket[0], null);
+    }
+
+    private static IllegalStateException archived(Meter.Id id) {
+        return new IllegalStateException("Meter " + id.getName() + " belongs to a finished scenario and can no longer record");
+    }
+
+    private record ArchivedCounter(Id id, double count) implements Counter {
+        @Override
+        public void increment(double amount) {
+            throw archived(id);
+        }
+
+        @Override
+        public Id getId() {
+            return id;
+        }
+    }
+
+    /**
+     * Keeps the snapshot in nanoseconds, the unit {@link Timer#takeSnapshot()} reports in.
+     */
+    private record ArchivedTimer(Id id, HistogramSnapshot snapshot, TimeUnit baseTimeUnit) implements Timer {
+        @Override
+        public void record(long amount, TimeUnit unit) {
+            throw archived(id);
+        }
+
+        @Override
+        public <T> T record(Supplier<T> f) {
+            throw archived(id);
+        }
+
+        @Override
+        public <T> T recordCallable(Callable<T> f) {
+            throw archived(id);
+        }
+
+        @Override
+        public void record(Runnable f) {
+            throw archived(id);
+        }
+
+        @Override
+        public long count() {
+            return snapshot.count();
+        }
+
+        @Override
+        public double totalTime(TimeUnit unit) {
+            return snapshot.total(unit);
+        }
+
+        @Override
+        public double max(TimeUnit unit) {
+            return snapshot.max(unit);
+        }
+
+        @Override
+        public HistogramSnapshot takeSnapshot() {
+            return snapshot;
+        }
+
+        @Override
+        public Id getId() {
+            return id;
+        }
+    }
+
+    private record ArchivedSummary(Id id, HistogramSnapshot snapshot) implements DistributionSummary {
+        @Override
+        public void record(double amount) {
+            throw archived(id);
+        }
+
+        @Override
+        public long count() {
+            return snapshot.count();
+        }
+
+        @Override
+        public double totalAmount() {
+            return snapshot.total();
+        }
+
+        @Override
+        public double max() {
+            return snapshot.max();
+        }
+
+        @Override
+        public HistogramSnapshot takeSnapshot() {
+            return snapshot;
+        }
+
+        @Override
+        public Id getId() {
+            return id;
+        }
+    }
+}
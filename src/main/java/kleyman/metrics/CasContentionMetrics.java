@@ -0,0 +1,77 @@
+package kleyman.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+
+/**
+ * Meters describing read-modify-write updates guarded by CAS within a scenario:
+ * how many replace attempts were rejected because another thread changed the document first,
+ * how many retries a successful update needed and how many updates gave up.
+ */
+@Getter
+public class CasContentionMetrics {
+    private final Counter attemptCounter;
+    private final Counter mismatchCounter;
+    private final Counter updateCounter;
+    private final Counter abandonedCounter;
+    private final DistributionSummary retriesPerUpdate;
+
+    CasContentionMetrics(MeterRegistry meterRegistry, String scenarioId) {
+        attemptCounter = Counter.builder("couchbase.cas.attempts")
+                .description("Count of replace attempts carrying the CAS of the preceding read")
+                .tag("scenario", scenarioId)
+                .register(meterRegistry);
+
+        mismatchCounter = Counter.builder("couchbase.cas.mismatches")
+                .description("Count of replace attempts rejected because the document changed since it was read")
+                .tag("scenario", scenarioId)
+                .register(meterRegistry);
+
+        updateCounter = Counter.builder("couchbase.cas.updates")
+                .description("Count of read-modify-write updates that were eventually applied")
+                .tag("scenario", scenarioId)
+                .register(meterRegistry);
+
+        abandonedCounter = Counter.builder("couchbase.cas.abandoned")
+                .description("Count of updates given up after exhausting their retries")
+                .tag("scenario", scenarioId)
+                .register(meterRegistry);
+
+        retriesPerUpdate = DistributionSummary.builder("couchbase.cas.retries_per_update")
+                .description("Retries needed by each applied update")
+                .tag("scenario", scenarioId)
+                .register(meterRegistry);
+    }
+
+    private CasContentionMetrics(Counter attemptCounter, Counter mismatchCounter, Counter updateCounter,
+                                 Counter abandonedCounter, DistributionSummary retriesPerUpdate) {
+        this.attemptCounter = attemptCounter;
+        this.mismatchCounter = mismatchCounter;
+        this.updateCounter = updateCounter;
+        this.abandonedCounter = abandonedCounter;
+        this.retriesPerUpdate = retriesPerUpdate;
+    }
+
+    CasContentionMetrics archive() {
+        return new CasContentionMetrics(ArchivedMeters.counter(attemptCounter), ArchivedMeters.counter(mismatchCounter),
+                ArchivedMeters.counter(updateCounter), ArchivedMeters.counter(abandonedCounter), ArchivedMeters.summary(retriesPerUpdate));
+    }
+
+    void recordAttempt(boolean applied) {
+        attemptCounter.increment();
+        if (!applied) {
+            mismatchCounter.increment();
+        }
+    }
+
+    public double getMismatchRate() {
+        double attempts = attemptCounter.count();
+        return attempts == 0 ? 0 : (mismatchCounter.count() / attempts) * 100;
+    }
+
+    public double getAverageRetriesPerUpdate() {
+        return retriesPerUpdate.count() == 0 ? 0 : retriesPerUpdate.mean();
+    }
+}
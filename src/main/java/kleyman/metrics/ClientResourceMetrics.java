@@ -0,0 +1,180 @@
+package kleyman.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Time series of the load generator's own resource usage during a scenario, one {@link ClientResourceSample}
+ * per sampling interval. The latest sample is exported as gauges; the whole series is kept for the report
+ * and to decide whether the client itself limited the run.
+ */
+public class ClientResourceMetrics {
+    /**
+     * Average process CPU above which the load generator, not the cluster, is likely the bottleneck.
+     */
+    public static final double CPU_SATURATION_THRESHOLD = 0.8;
+    /**
+     * Share of wall-clock time spent in garbage collection above which latencies include client pauses.
+     */
+    public static final double GC_TIME_THRESHOLD = 0.05;
+    /**
+     * Samples kept per scenario; one hour at the default one-second interval, coarser beyond that.
+     */
+    static final int MAX_SAMPLES = 3600;
+    private static final ClientResourceSample EMPTY_SAMPLE = new ClientResourceSample(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+    private final List<ClientResourceSample> samples = new ArrayList<>();
+    private volatile ClientResourceSample latestSample = EMPTY_SAMPLE;
+
+    ClientResourceMetrics(MeterRegistry meterRegistry, String scenarioId) {
+        registerGauge(meterRegistry, scenarioId, "couchbase.client.cpu.process", "CPU used by the load generator process, from 0 to 1", ClientResourceSample::processCpuLoad);
+        registerGauge(meterRegistry, scenarioId, "couchbase.client.cpu.system", "CPU used by the machine running the load generator, from 0 to 1", ClientResourceSample::systemCpuLoad);
+        registerGauge(meterRegistry, scenarioId, "couchbase.client.gc.time_ratio", "Share of the last interval spent in garbage collection", ClientResourceSample::gcTimeRatio);
+        registerGauge(meterRegistry, scenarioId, "couchbase.client.allocation_rate", "Bytes allocated per second by the load generator", ClientResourceSample::allocationRate);
+        Gauge.builder("couchbase.client.threads", this, metrics -> metrics.latestSample.runnableThreads())
+                .description("Load generator threads per state")
+                .tag("scenario", scenarioId)
+                .tag("state", "runnable")
+                .register(meterRegistry);
+        Gauge.builder("couchbase.client.threads", this, metrics -> metrics.latestSample.blockedThreads())
+                .description("Load generator threads per state")
+                .tag("scenario", scenarioId)
+                .tag("state", "blocked")
+                .register(meterRegistry);
+        Gauge.builder("couchbase.client.threads", this, metrics -> metrics.latestSample.waitingThreads())
+                .description("Load generator threads per state")
+                .tag("scenario", scenarioId)
+                .tag("state", "waiting")
+                .register(meterRegistry);
+    }
+
+    private ClientResourceMetrics(List<ClientResourceSample> samples) {
+        this.samples.addAll(samples);
+        if (!samples.isEmpty()) {
+            latestSample = samples.get(samples.size() - 1);
+        }
+    }
+
+    /**
+     * Returns a copy of the time series without the exported gauges.
+     */
+    synchronized ClientResourceMetrics archive() {
+        return new ClientResourceMetrics(samples);
+    }
+
+    synchronized void record(ClientResourceSample sample) {
+        if (samples.size() >= MAX_SAMPLES) {
+            halveResolution();
+        }
+        samples.add(sample);
+        latestSample = sample;
+    }
+
+    /**
+     * Merges every two consecutive samples into one, so long runs keep covering the whole scenario
+     * with a bounded number of samples.
+     */
+    private void halveResolution() {
+        List<ClientResourceSample> merged = new ArrayList<>(samples.size() / 2 + 1);
+        for (int i = 0; i + 1 < samples.size(); i += 2) {
+            merged.add(merge(samples.get(i), samples.get(i + 1)));
+        }
+        if (samples.size() % 2 == 1) {
+            merged.add(samples.get(samples.size() - 1));
+        }
+        samples.clear();
+        samples.addAll(merged);
+    }
+
+    private static ClientResourceSample merge(ClientResourceSample first, ClientResourceSample second) {
+        long intervalMillis = first.intervalMillis() + second.intervalMillis();
+        double firstWeight = intervalMillis == 0 ? 0.5 : (double) first.intervalMillis() / intervalMillis;
+        double secondWeight = 1 - firstWeight;
+        long allocatedBytes = first.allocatedBytes() < 0 || second.allocatedBytes() < 0 ? -1 : first.allocatedBytes() + second.allocatedBytes();
+        return new ClientResourceSample(second.elapsedMillis(), intervalMillis,
+                first.processCpuLoad() * firstWeight + second.processCpuLoad() * secondWeight,
+                first.systemCpuLoad() * firstWeight + second.systemCpuLoad() * secondWeight,
+                first.gcTimeMillis() + second.gcTimeMillis(),
+                first.gcCount() + second.gcCount(),
+                allocatedBytes,
+                first.operationsPerSecond() * firstWeight + second.operationsPerSecond() * secondWeight,
+                Math.max(first.runnableThreads(), second.runnableThreads()),
+                Math.max(first.blockedThreads(), second.blockedThreads()),
+                Math.max(first.waitingThreads(), second.waitingThreads()));
+    }
+
+    public synchronized List<ClientResourceSample> getSamples() {
+        return List.copyOf(samples);
+    }
+
+    /**
+     * Returns the process CPU averaged over the samples, weighted by interval length, from 0 to 1.
+     */
+    public synchronized double getAverageProcessCpuLoad() {
+        double weighted = 0;
+        long totalMillis = 0;
+        for (ClientResourceSample sample : samples) {
+            weighted += sample.processCpuLoad() * sample.intervalMillis();
+            totalMillis += sample.intervalMillis();
+        }
+        return totalMillis == 0 ? 0 : weighted / totalMillis;
+    }
+
+    public synchronized double getMaxProcessCpuLoad() {
+        return samples.stream().mapToDouble(ClientResourceSample::processCpuLoad).max().orElse(0);
+    }
+
+    /**
+     * Returns the share of the sampled time spent in garbage collection, from 0 to 1.
+     */
+    public synchronized double getGcTimeRatio() {
+        long gcMillis = samples.stream().mapToLong(ClientResourceSample::gcTimeMillis).sum();
+        long totalMillis = samples.stream().mapToLong(ClientResourceSample::intervalMillis).sum();
+        return totalMillis == 0 ? 0 : (double) gcMillis / totalMillis;
+    }
+
+    /**
+     * Returns the average allocation rate in bytes per second.
+     */
+    public synchronized double getAverageAllocationRate() {
+        long allocatedBytes = 0;
+        long totalMillis = 0;
+        for (ClientResourceSample sample : samples) {
+            if (sample.allocatedBytes() >= 0) {
+                allocatedBytes += sample.allocatedBytes();
+                totalMillis += sample.intervalMillis();
+            }
+        }
+        return totalMillis == 0 ? 0 : allocatedBytes * 1000.0 / totalMillis;
+    }
+
+    public synchronized int getMaxBlockedThreads() {
+        return samples.stream().mapToInt(ClientResourceSample::blockedThreads).max().orElse(0);
+    }
+
+    /**
+     * Returns a warning for every way the client's own resource usage may have invalidated the run.
+     */
+    public List<String> getWarnings() {
+        List<String> warnings = new ArrayList<>();
+        double cpuLoad = getAverageProcessCpuLoad();
+        if (cpuLoad > CPU_SATURATION_THRESHOLD) {
+            warnings.add(String.format("client CPU averaged %.0f%%, the load generator may be the bottleneck", cpuLoad * 100));
+        }
+        double gcTimeRatio = getGcTimeRatio();
+        if (gcTimeRatio > GC_TIME_THRESHOLD) {
+            warnings.add(String.format("client GC took %.1f%% of the run, latencies include client pauses", gcTimeRatio * 100));
+        }
+        return warnings;
+    }
+
+    private void registerGauge(MeterRegistry meterRegistry, String scenarioId, String name, String description, ToDoubleFunction<ClientResourceSample> value) {
+        Gauge.builder(name, this, metrics -> value.applyAsDouble(metrics.latestSample))
+                .description(description)
+                .tag("scenario", scenarioId)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,29 @@
+package kleyman.metrics;
+
+/**
+ * Resource usage of the load generator JVM over one sampling interval of a scenario.
+ *
+ * @param elapsedMillis       end of the interval, measured from the start of the scenario
+ * @param intervalMillis      length of the interval
+ * @param processCpuLoad      CPU used by this process, from 0 to 1 of all cores
+ * @param systemCpuLoad       CPU used by the whole machine, from 0 to 1 of all cores
+ * @param gcTimeMillis        time spent in garbage collection during the interval
+ * @param gcCount             number of collections during the interval
+ * @param allocatedBytes      bytes allocated by all threads during the interval, or -1 if not supported
+ * @param operationsPerSecond successful operations per second during the interval
+ * @param runnableThreads     threads runnable at the end of the interval
+ * @param blockedThreads      threads blocked on a monitor at the end of the interval
+ * @param waitingThreads      threads waiting or timed waiting at the end of the interval
+ */
+public record ClientResourceSample(long elapsedMillis, long intervalMillis, double processCpuLoad, double systemCpuLoad,
+                                   long gcTimeMillis, long gcCount, long allocatedBytes, double operationsPerSecond,
+                                   int runnableThreads, int blockedThreads, int waitingThreads) {
+
+    public double gcTimeRatio() {
+        return intervalMillis == 0 ? 0 : (double) gcTimeMillis / intervalMillis;
+    }
+
+    public double allocationRate() {
+        return intervalMillis == 0 || allocatedBytes < 0 ? 0 : allocatedBytes * 1000.0 / intervalMillis;
+    }
+}
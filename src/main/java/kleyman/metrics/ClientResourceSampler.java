@@ -0,0 +1,170 @@
+package kleyman.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the load generator's own CPU, garbage collection, allocation and thread states from the platform
+ * MXBeans while a scenario runs, recording one {@link ClientResourceSample} per interval into the scenario's
+ * {@link ClientResourceMetrics} and closing the interval of its {@link LatencyTimeline}. Sampling runs on a
+ * single daemon thread; closing the sampler records the last, possibly shorter, interval so short scenarios
+ * still get a sample.
+ */
+public class ClientResourceSampler implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ClientResourceSampler.class);
+    public static final Duration SAMPLE_INTERVAL = Duration.ofSeconds(1);
+    private final CouchbaseMetrics couchbaseMetrics;
+    private final OperatingSystemMXBean operatingSystem = ManagementFactory.getOperatingSystemMXBean();
+    private final List<GarbageCollectorMXBean> garbageCollectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final ScheduledExecutorService scheduler;
+    private final long startNanos;
+    private long lastSampleNanos;
+    private long lastGcTimeMillis;
+    private long lastGcCount;
+    private long lastAllocatedBytes;
+    private double lastOperations;
+
+    private ClientResourceSampler(CouchbaseMetrics couchbaseMetrics) {
+        this.couchbaseMetrics = couchbaseMetrics;
+        this.startNanos = System.nanoTime();
+        this.lastSampleNanos = startNanos;
+        this.lastGcTimeMillis = totalGcTimeMillis();
+        this.lastGcCount = totalGcCount();
+        this.lastAllocatedBytes = totalAllocatedBytes();
+        this.lastOperations = couchbaseMetrics.getTotalSuccessfulOperations();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "client-resource-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts sampling into the given scenario's metrics.
+     */
+    public static ClientResourceSampler start(CouchbaseMetrics couchbaseMetrics) {
+        ClientResourceSampler sampler = new ClientResourceSampler(couchbaseMetrics);
+        long intervalMillis = SAMPLE_INTERVAL.toMillis();
+        sampler.scheduler.scheduleAtFixedRate(sampler::sample, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        return sampler;
+    }
+
+    /**
+     * Stops sampling, records the last interval and logs every warning about the client's resource usage.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        try {
+            if (!scheduler.awaitTermination(SAMPLE_INTERVAL.toMillis(), TimeUnit.MILLISECONDS)) {
+                logger.warn("Client resource sampler did not stop in time.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sample();
+        for (String warning : couchbaseMetrics.getClientResourceMetrics().getWarnings()) {
+            logger.warn("{}: {}", couchbaseMetrics.getScenarioId(), warning);
+        }
+    }
+
+    private synchronized void sample() {
+        try {
+            long now = System.nanoTime();
+            long intervalMillis = TimeUnit.NANOSECONDS.toMillis(now - lastSampleNanos);
+            if (intervalMillis == 0) {
+                return;
+            }
+            long gcTimeMillis = totalGcTimeMillis();
+            long gcCount = totalGcCount();
+            long allocatedBytes = totalAllocatedBytes();
+            double operations = couchbaseMetrics.getTotalSuccessfulOperations();
+            int runnable = 0;
+            int blocked = 0;
+            int waiting = 0;
+            for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds(), 0)) {
+                if (info == null) {
+                    continue;
+                }
+                switch (info.getThreadState()) {
+                    case RUNNABLE -> runnable++;
+                    case BLOCKED -> blocked++;
+                    case WAITING, TIMED_WAITING -> waiting++;
+                    default -> {
+                    }
+                }
+            }
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(now - startNanos);
+            double operationsPerSecond = (operations - lastOperations) * 1000.0 / intervalMillis;
+            couchbaseMetrics.getClientResourceMetrics().record(new ClientResourceSample(
+                    elapsedMillis,
+                    intervalMillis,
+                    processCpuLoad(),
+                    systemCpuLoad(),
+                    gcTimeMillis - lastGcTimeMillis,
+                    gcCount - lastGcCount,
+                    allocatedBytes < 0 || lastAllocatedBytes < 0 ? -1 : Math.max(0, allocatedBytes - lastAllocatedBytes),
+                    operationsPerSecond,
+                    runnable,
+                    blocked,
+                    waiting));
+            couchbaseMetrics.getLatencyTimeline().sample(elapsedMillis, intervalMillis, operationsPerSecond);
+            lastSampleNanos = now;
+            lastGcTimeMillis = gcTimeMillis;
+            lastGcCount = gcCount;
+            lastAllocatedBytes = allocatedBytes;
+            lastOperations = operations;
+        } catch (RuntimeException e) {
+            logger.warn("Failed to sample client resources", e);
+        }
+    }
+
+    private double processCpuLoad() {
+        if (operatingSystem instanceof com.sun.management.OperatingSystemMXBean sunOperatingSystem) {
+            return Math.max(0, sunOperatingSystem.getProcessCpuLoad());
+        }
+        return 0;
+    }
+
+    private double systemCpuLoad() {
+        if (operatingSystem instanceof com.sun.management.OperatingSystemMXBean sunOperatingSystem) {
+            return Math.max(0, sunOperatingSystem.getCpuLoad());
+        }
+        return 0;
+    }
+
+    private long totalGcTimeMillis() {
+        return garbageCollectors.stream().mapToLong(gc -> Math.max(0, gc.getCollectionTime())).sum();
+    }
+
+    private long totalGcCount() {
+        return garbageCollectors.stream().mapToLong(gc -> Math.max(0, gc.getCollectionCount())).sum();
+    }
+
+    /**
+     * Sums the bytes allocated by the live threads. Allocation of threads that ended during the interval is lost,
+     * so interval deltas are clamped at zero when they occur.
+     */
+    private long totalAllocatedBytes() {
+        if (threads instanceof com.sun.management.ThreadMXBean sunThreads && sunThreads.isThreadAllocatedMemoryEnabled()) {
+            long total = 0;
+            for (long allocated : sunThreads.getThreadAllocatedBytes(sunThreads.getAllThreadIds())) {
+                total += Math.max(0, allocated);
+            }
+            return total;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,191 @@
+package kleyman.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Optional live console view of the running scenario, enabled with {@code load.test.dashboard=true}. Once per second
+ * it shows the worker threads running at that moment, which follow concurrency changes, the rolling throughput, error rate, operations in flight, client CPU and the p50/p99/max latency of PUT and
+ * GET operations over the last second. Everything is read from counters and HdrHistogram interval recorders, whose
+ * writers never wait for the reader, so the dashboard does not slow the load threads down.
+ * On a terminal the screen is redrawn in place; otherwise each frame is printed below the previous one.
+ */
+public class ConsoleDashboard implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ConsoleDashboard.class);
+    public static final String DASHBOARD_PROPERTY = "load.test.dashboard";
+    static final Duration REFRESH_INTERVAL = Duration.ofSeconds(1);
+    private static final String CLEAR_SCREEN = "\033[H\033[2J";
+    private final PrintStream out;
+    private final boolean redrawInPlace;
+    // Worker threads of the running scenario
+    private final IntSupplier activeWorkers;
+    private final OperatingSystemMXBean operatingSystem = ManagementFactory.getOperatingSystemMXBean();
+    private ScheduledExecutorService scheduler;
+    private CouchbaseMetrics scenario;
+    private double lastSuccessful;
+    private double lastFailed;
+    private long lastRefreshNanos;
+
+    /**
+     * Creates a dashboard that only shows the frames it is asked for, see {@link #start(PrintStream, boolean, IntSupplier)}.
+     */
+    ConsoleDashboard(PrintStream out, boolean redrawInPlace, IntSupplier activeWorkers) {
+        this.out = out;
+        this.redrawInPlace = redrawInPlace;
+        this.activeWorkers = activeWorkers;
+    }
+
+    /**
+     * Starts the dashboard on standard output when {@code load.test.dashboard} is {@code true};
+     * returns {@code null} otherwise, which try-with-resources skips.
+     *
+     * @param activeWorkers gives the worker threads of the running scenario
+     */
+    public static ConsoleDashboard startIfEnabled(IntSupplier activeWorkers) {
+        if (!Boolean.getBoolean(DASHBOARD_PROPERTY)) {
+            return null;
+        }
+        return start(System.out, System.console() != null, activeWorkers);
+    }
+
+    static ConsoleDashboard start(PrintStream out, boolean redrawInPlace, IntSupplier activeWorkers) {
+        ConsoleDashboard dashboard = new ConsoleDashboard(out, redrawInPlace, activeWorkers);
+        dashboard.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "console-dashboard");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        long intervalMillis = REFRESH_INTERVAL.toMillis();
+        dashboard.scheduler.scheduleAtFixedRate(dashboard::refresh, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        return dashboard;
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private synchronized void refresh() {
+        try {
+            Frame frame = takeFrame(ScenarioContext.current());
+            out.print((redrawInPlace ? CLEAR_SCREEN : "") + render(frame));
+            out.flush();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to refresh the console dashboard", e);
+        }
+    }
+
+    /**
+     * Reads the rolling values since the previous frame. A new scenario starts its interval recorders,
+     * so its first frame shows no latencies yet.
+     */
+    Frame takeFrame(CouchbaseMetrics current) {
+        long now = System.nanoTime();
+        if (current == null) {
+            scenario = null;
+            return new Frame(null, 0, 0, 0, 0, 0, processCpuLoad(), null, null);
+        }
+        if (current != scenario) {
+            scenario = current;
+            current.enableOperationIntervalRecording();
+            lastSuccessful = current.getTotalSuccessfulOperations();
+            lastFailed = current.getTotalFailedOperations();
+            lastRefreshNanos = now;
+            return new Frame(current.getScenarioId(), activeWorkers.getAsInt(), current.getElapsedSeconds(), 0, 0,
+                    current.getInFlightOperations(), processCpuLoad(), null, null);
+        }
+        double seconds = (now - lastRefreshNanos) / 1_000_000_000.0;
+        double successful = current.getTotalSuccessfulOperations();
+        double failed = current.getTotalFailedOperations();
+        double intervalSuccessful = successful - lastSuccessful;
+        double intervalFailed = failed - lastFailed;
+        double intervalTotal = intervalSuccessful + intervalFailed;
+        lastSuccessful = successful;
+        lastFailed = failed;
+        lastRefreshNanos = now;
+        return new Frame(current.getScenarioId(), activeWorkers.getAsInt(), current.getElapsedSeconds(),
+                seconds == 0 ? 0 : intervalSuccessful / seconds,
+                intervalTotal == 0 ? 0 : intervalFailed * 100 / intervalTotal,
+                current.getInFlightOperations(), processCpuLoad(),
+                OperationLatency.of(current.getPutIntervalRecorder(), seconds),
+                OperationLatency.of(current.getGetIntervalRecorder(), seconds));
+    }
+
+    static String render(Frame frame) {
+        StringBuilder view = new StringBuilder();
+        if (frame.scenarioId() == null) {
+            view.append("Couchbase load test: waiting for the next scenario")
+                    .append(String.format(Locale.ROOT, "   client CPU %.1f%%%n", frame.processCpuLoad() * 100));
+            return view.toString();
+        }
+        view.append(String.format(Locale.ROOT, "Couchbase load test: %s, %d threads, %s elapsed%n",
+                frame.scenarioId(), frame.threads(), formatElapsed(frame.elapsedSeconds())));
+        view.append(String.format(Locale.ROOT, "TPS %10.1f   errors %6.2f%%   in flight %5d   client CPU %5.1f%%%n",
+                frame.throughput(), frame.errorRate(), frame.inFlight(), frame.processCpuLoad() * 100));
+        view.append(String.format(Locale.ROOT, "%-5s %10s %10s %10s %10s%n", "", "ops/s", "p50 ms", "p99 ms", "max ms"));
+        appendOperation(view, "PUT", frame.put());
+        appendOperation(view, "GET", frame.get());
+        return view.toString();
+    }
+
+    private static void appendOperation(StringBuilder view, String name, OperationLatency latency) {
+        if (latency == null) {
+            view.append(String.format(Locale.ROOT, "%-5s %10s %10s %10s %10s%n", name, "-", "-", "-", "-"));
+            return;
+        }
+        view.append(String.format(Locale.ROOT, "%-5s %10.1f %10.3f %10.3f %10.3f%n",
+                name, latency.operationsPerSecond(), latency.p50(), latency.p99(), latency.max()));
+    }
+
+    private static String formatElapsed(double elapsedSeconds) {
+        long seconds = (long) elapsedSeconds;
+        return String.format(Locale.ROOT, "%02d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+    }
+
+    private double processCpuLoad() {
+        if (operatingSystem instanceof com.sun.management.OperatingSystemMXBean sunOperatingSystem) {
+            return Math.max(0, sunOperatingSystem.getProcessCpuLoad());
+        }
+        return 0;
+    }
+
+    /**
+     * Values of one dashboard frame, with the worker threads running when it was taken.
+     * Latencies are {@code null} when no interval has been recorded yet.
+     */
+    record Frame(String scenarioId, int threads, double elapsedSeconds, double throughput, double errorRate,
+                 long inFlight, double processCpuLoad, OperationLatency put, OperationLatency get) {
+    }
+
+    /**
+     * Rate and latency in milliseconds of one operation over the last refresh interval.
+     */
+    record OperationLatency(double operationsPerSecond, double p50, double p99, double max) {
+
+        static OperationLatency of(IntervalLatencyRecorder recorder, double seconds) {
+            if (recorder == null || seconds == 0) {
+                return null;
+            }
+            Histogram interval = recorder.takeIntervalHistogram();
+            if (interval.getTotalCount() == 0) {
+                return new OperationLatency(0, 0, 0, 0);
+            }
+            return new OperationLatency(interval.getTotalCount() / seconds, interval.getValueAtPercentile(50) / 1000.0,
+                    interval.getValueAtPercentile(99) / 1000.0, interval.getMaxValue() / 1000.0);
+        }
+    }
+}
@@ -1,13 +1,27 @@
 package kleyman.metrics;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import kleyman.profiling.ProfileSummary;
+import org.HdrHistogram.Histogram;
+import lombok.AccessLevel;
 import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Metrics collector for Couchbase operations.
@@ -17,27 +31,98 @@ import java.util.concurrent.TimeUnit;
  * It provides methods to increment counters, record latencies, and calculate metrics
  * such as average latency, transactions per second, error rates, and maximum latencies
  * for performance monitoring and analysis.
+ *
+ * Additional operations such as sub-document lookups and mutations are tracked per {@link OperationType};
+ * their meters are registered lazily the first time the operation is recorded in the scenario.
  */
 @Getter
 public class CouchbaseMetrics {
 
     private static final Logger logger = LoggerFactory.getLogger(CouchbaseMetrics.class);
+    static final double[] LATENCY_PERCENTILES = {0.5, 0.95, 0.99};
+    // Published percentiles cover up to a day instead of the default two-minute window; the report reads
+    // the percentiles of the latency histograms instead, which cover the whole scenario however long it runs
+    static final Duration PERCENTILE_WINDOW = Duration.ofDays(1);
+    // Registry without backends for meters looked up on an archived scenario that never recorded them
+    static final MeterRegistry ARCHIVE_REGISTRY = new CompositeMeterRegistry();
     private final Counter putSuccessCounter;
     private final Counter putFailureCounter;
     private final Counter getSuccessCounter;
     private final Counter getFailureCounter;
     private final Timer putTimer;
     private final Timer getTimer;
+    private final DistributionSummary putPayloadBytes;
+    private final DistributionSummary getPayloadBytes;
+    private final Map<OperationType, OperationMetrics> operationMetricsByType = new ConcurrentHashMap<>();
+    private volatile ReplicaConsistencyMetrics replicaConsistencyMetrics;
+    private volatile CasContentionMetrics casContentionMetrics;
+    private volatile RequestPhaseMetrics requestPhaseMetrics;
+    private volatile SdkClientMetrics sdkClientMetrics;
+    private volatile PartitionMetrics partitionMetrics;
+    private volatile ClientResourceMetrics clientResourceMetrics;
+    // Shared with the archived copy, since the profile is only parsed after the scenario has been archived
+    private final AtomicReference<ProfileSummary> profileSummary;
+    private volatile IntervalLatencyRecorder intervalLatencyRecorder;
+    // Latency of every operation of the scenario in microseconds, recorded once per operation and read
+    // by the histograms of the run result file and every interval view below
+    @Getter(AccessLevel.NONE)
+    private final ScenarioLatencies latencies;
+    @Getter(AccessLevel.NONE)
+    private final ScenarioLatencies.OperationLatency putLatency;
+    @Getter(AccessLevel.NONE)
+    private final ScenarioLatencies.OperationLatency getLatency;
+    // Throughput and latency percentiles per sampling interval of the client resource sampler
+    private final LatencyTimeline latencyTimeline;
+    private final LongAdder inFlightOperations = new LongAdder();
+    // Operations whose latency reached the scenario's slow threshold, with their keys
+    private final SlowOperationLog slowOperationLog;
+    // PUT and GET latencies per interval, only created for a live view such as the console dashboard
+    private volatile IntervalLatencyRecorder putIntervalRecorder;
+    private volatile IntervalLatencyRecorder getIntervalRecorder;
+    private volatile SoakSummary soakSummary;
+    // Set for results measured elsewhere, whose archived timers and payload summaries are rebuilt from their totals
+    @Getter(AccessLevel.NONE)
+    private final boolean restored;
+    // Payload count and bytes per payload summary of restored results
+    @Getter(AccessLevel.NONE)
+    private final Map<Meter.Id, PayloadTotals> restoredPayloadBytes = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final String scenarioId;
     private final int threadSize;
     private final String jsonSize;
     private final boolean uniqueKeys;
+    private volatile long scenarioStartNanos;
+    private volatile long scenarioEndNanos;
+    // Worker threads while the scenario runs, and the thread time accumulated before the last change
+    @Getter(AccessLevel.NONE)
+    private int concurrency;
+    @Getter(AccessLevel.NONE)
+    private long concurrencySinceNanos;
+    @Getter(AccessLevel.NONE)
+    private double threadNanos;
+    private boolean concurrencyChanged;
 
     public CouchbaseMetrics(MeterRegistry meterRegistry, String scenarioId, int threadSize, String jsonSize, boolean uniqueKeys) {
+        this(meterRegistry, scenarioId, threadSize, jsonSize, uniqueKeys, false);
+    }
+
+    private CouchbaseMetrics(MeterRegistry meterRegistry, String scenarioId, int threadSize, String jsonSize, boolean uniqueKeys,
+                             boolean restored) {
         logger.info("Starting collection of metrics");
 
+        this.restored = restored;
+        this.meterRegistry = meterRegistry;
+        this.scenarioId = scenarioId;
         this.threadSize = threadSize;
         this.jsonSize = jsonSize;
         this.uniqueKeys = uniqueKeys;
+        this.concurrency = threadSize;
+        this.profileSummary = new AtomicReference<>();
+        this.latencies = new ScenarioLatencies();
+        this.putLatency = latencies.operation("put");
+        this.getLatency = latencies.operation("get");
+        this.latencyTimeline = new LatencyTimeline(latencies.newView());
+        this.slowOperationLog = new SlowOperationLog(latencies);
         putSuccessCounter = Counter.builder("couchbase.put.success")
                 .description("Count of successful PUT operations")
                 .tag("scenario", scenarioId)
@@ -61,14 +146,202 @@ public class CouchbaseMetrics {
         putTimer = Timer.builder("couchbase.put.response_time")
                 .description("Latency of PUT operations")
                 .tag("scenario", scenarioId)
+                .publishPercentiles(LATENCY_PERCENTILES)
+                .distributionStatisticExpiry(PERCENTILE_WINDOW)
+                .distributionStatisticBufferLength(1)
                 .register(meterRegistry);
 
         getTimer = Timer.builder("couchbase.get.response_time")
                 .description("Latency of GET operations")
                 .tag("scenario", scenarioId)
+                .publishPercentiles(LATENCY_PERCENTILES)
+                .distributionStatisticExpiry(PERCENTILE_WINDOW)
+                .distributionStatisticBufferLength(1)
+                .register(meterRegistry);
+
+        putPayloadBytes = DistributionSummary.builder("couchbase.put.payload_bytes")
+                .description("Payload bytes sent by PUT operations")
+                .baseUnit("bytes")
+                .tag("scenario", scenarioId)
+                .register(meterRegistry);
+
+        getPayloadBytes = DistributionSummary.builder("couchbase.get.payload_bytes")
+                .description("Payload bytes received by GET operations")
+                .baseUnit("bytes")
+                .tag("scenario", scenarioId)
                 .register(meterRegistry);
     }
 
+    /**
+     * Creates metrics for a scenario whose meters are registered with no backend, for operations that must not
+     * count towards the scenario's results, e.g. the polls that wait for a write to reach a replica.
+     */
+    public static CouchbaseMetrics detached(String scenarioId, int threadSize, String jsonSize, boolean uniqueKeys) {
+        return new CouchbaseMetrics(new CompositeMeterRegistry(), scenarioId, threadSize, jsonSize, uniqueKeys);
+    }
+
+    /**
+     * Creates metrics for results that were measured elsewhere, e.g. merged from several processes, whose meters
+     * are registered with a registry of their own.
+     * Counts are added to the counters, latencies to the latency histograms and payload sizes with
+     * {@link #restorePayloadBytes(DistributionSummary, long, double)}, each in bulk; the archived copy then rebuilds
+     * the latency timers from the histograms instead of the timers recording every latency again.
+     */
+    public static CouchbaseMetrics restored(String scenarioId, int threadSize, String jsonSize, boolean uniqueKeys) {
+        return new CouchbaseMetrics(new SimpleMeterRegistry(), scenarioId, threadSize, jsonSize, uniqueKeys, true);
+    }
+
+    /**
+     * Creates the archived copy of a finished scenario, see {@link #archive()}.
+     */
+    private CouchbaseMetrics(CouchbaseMetrics live) {
+        this.restored = false;
+        this.meterRegistry = ARCHIVE_REGISTRY;
+        this.scenarioId = live.scenarioId;
+        this.threadSize = live.threadSize;
+        this.jsonSize = live.jsonSize;
+        this.uniqueKeys = live.uniqueKeys;
+        this.profileSummary = live.profileSummary;
+        this.scenarioStartNanos = live.scenarioStartNanos;
+        this.scenarioEndNanos = live.scenarioEndNanos;
+        synchronized (live) {
+            this.concurrency = live.concurrency;
+            this.concurrencySinceNanos = live.concurrencySinceNanos;
+            this.threadNanos = live.threadNanos;
+            this.concurrencyChanged = live.concurrencyChanged;
+        }
+        this.soakSummary = live.soakSummary;
+        this.latencies = live.latencies.archive();
+        this.putLatency = latencies.operation("put");
+        this.getLatency = latencies.operation("get");
+        this.latencyTimeline = live.latencyTimeline.archive();
+        this.slowOperationLog = live.slowOperationLog.archive();
+        this.putSuccessCounter = ArchivedMeters.counter(live.putSuccessCounter);
+        this.putFailureCounter = ArchivedMeters.counter(live.putFailureCounter);
+        this.getSuccessCounter = ArchivedMeters.counter(live.getSuccessCounter);
+        this.getFailureCounter = ArchivedMeters.counter(live.getFailureCounter);
+        this.putTimer = live.archiveTimer(live.putTimer, putLatency.getHistogram());
+        this.getTimer = live.archiveTimer(live.getTimer, getLatency.getHistogram());
+        this.putPayloadBytes = live.archivePayloadBytes(live.putPayloadBytes);
+        this.getPayloadBytes = live.archivePayloadBytes(live.getPayloadBytes);
+        live.operationMetricsByType.forEach((type, metrics) ->
+                operationMetricsByType.put(type, metrics.archive(live, latencies.operation(type.getMetricName()))));
+        this.replicaConsistencyMetrics = live.replicaConsistencyMetrics == null ? null : live.replicaConsistencyMetrics.archive();
+        this.casContentionMetrics = live.casContentionMetrics == null ? null : live.casContentionMetrics.archive();
+        this.requestPhaseMetrics = live.requestPhaseMetrics == null ? null : live.requestPhaseMetrics.archive();
+        this.sdkClientMetrics = live.sdkClientMetrics == null ? null : live.sdkClientMetrics.archive();
+        this.partitionMetrics = live.partitionMetrics == null ? null : live.partitionMetrics.archive();
+        this.clientResourceMetrics = live.clientResourceMetrics == null ? null : live.clientResourceMetrics.archive();
+    }
+
+    /**
+     * Ends the scenario's meter lifecycle: returns an immutable, compact copy of the scenario's results
+     * (counts, percentiles and the client resource time series) and removes every meter tagged with the scenario,
+     * including the bridged SDK meters, from the registry, so registry size and scrape cost stay flat
+     * however many scenarios run. The live instance should not be recorded to afterwards.
+     */
+    public CouchbaseMetrics archive() {
+        CouchbaseMetrics archived = new CouchbaseMetrics(this);
+        int removed = 0;
+        for (Meter meter : List.copyOf(meterRegistry.getMeters())) {
+            if (scenarioId.equals(meter.getId().getTag("scenario"))) {
+                meterRegistry.remove(meter);
+                removed++;
+            }
+        }
+        logger.info("Archived {} and removed its {} live meters", scenarioId, removed);
+        return archived;
+    }
+
+    /**
+     * Sets the number and total bytes of the payloads of restored results, see {@link #restored}.
+     */
+    public void restorePayloadBytes(DistributionSummary payloadBytes, long count, double totalBytes) {
+        if (!restored) {
+            throw new IllegalStateException("Only restored results take payload totals, " + scenarioId + " records them");
+        }
+        restoredPayloadBytes.put(payloadBytes.getId(), new PayloadTotals(count, totalBytes));
+    }
+
+    Timer archiveTimer(Timer timer, Histogram latencies) {
+        return restored ? ArchivedMeters.timer(timer, latencies) : ArchivedMeters.timer(timer);
+    }
+
+    DistributionSummary archivePayloadBytes(DistributionSummary payloadBytes) {
+        PayloadTotals totals = restoredPayloadBytes.get(payloadBytes.getId());
+        return totals == null ? ArchivedMeters.summary(payloadBytes) : ArchivedMeters.summary(payloadBytes, totals.count(), totals.bytes());
+    }
+
+    private record PayloadTotals(long count, double bytes) {
+    }
+
+    public OperationMetrics getOperationMetrics(OperationType operationType) {
+        return operationMetricsByType.computeIfAbsent(operationType,
+                type -> new OperationMetrics(meterRegistry, scenarioId, type, latencies.operation(type.getMetricName())));
+    }
+
+    /**
+     * Marks the start of the scenario's measurement interval used for wall-clock throughput.
+     */
+    public void markScenarioStart() {
+        scenarioStartNanos = System.nanoTime();
+        scenarioEndNanos = 0;
+    }
+
+    /**
+     * Marks the end of the scenario's measurement interval used for wall-clock throughput.
+     */
+    public void markScenarioEnd() {
+        scenarioEndNanos = System.nanoTime();
+    }
+
+    /**
+     * Records that the worker threads of the scenario changed while it ran, e.g. from the control API. Its results
+     * then no longer describe {@link #getThreadSize()} threads, but {@link #getAverageConcurrency()} on average.
+     */
+    public synchronized void recordConcurrencyChange(int threads) {
+        long now = System.nanoTime();
+        long start = scenarioStartNanos;
+        if (start != 0) {
+            threadNanos += concurrency * (double) (now - Math.max(concurrencySinceNanos, start));
+        }
+        concurrencySinceNanos = now;
+        concurrency = threads;
+        concurrencyChanged = true;
+    }
+
+    /**
+     * Returns whether the worker threads changed while the scenario ran.
+     */
+    public synchronized boolean isConcurrencyChanged() {
+        return concurrencyChanged;
+    }
+
+    /**
+     * Returns the worker threads of the scenario averaged over its wall-clock time, which is the thread count
+     * unless the concurrency changed while it ran.
+     */
+    public synchronized double getAverageConcurrency() {
+        long start = scenarioStartNanos;
+        if (!concurrencyChanged || start == 0) {
+            return concurrency;
+        }
+        long end = scenarioEndNanos == 0 ? System.nanoTime() : scenarioEndNanos;
+        if (end <= start) {
+            return concurrency;
+        }
+        double total = threadNanos + concurrency * (double) Math.max(0, end - Math.max(concurrencySinceNanos, start));
+        return total / (end - start);
+    }
+
+    /**
+     * Sets the scenario's wall-clock duration for results that were measured elsewhere, e.g. merged from several processes.
+     */
+    public void restoreElapsed(Duration elapsed) {
+        scenarioStartNanos = 1;
+        scenarioEndNanos = 1 + elapsed.toNanos();
+    }
+
     public void incrementPutSuccess() {
         putSuccessCounter.increment();
     }
@@ -87,10 +360,342 @@ public class CouchbaseMetrics {
 
     public void recordPutLatency(long duration, TimeUnit unit) {
         putTimer.record(duration, unit);
+        putLatency.record(unit.toNanos(duration));
     }
 
     public void recordGetLatency(long duration, TimeUnit unit) {
         getTimer.record(duration, unit);
+        getLatency.record(unit.toNanos(duration));
+    }
+
+    /**
+     * Marks the start of an operation, which counts as in flight until {@link #endOperation(long)}.
+     *
+     * @return the start time to pass to {@link #endOperation(long)}
+     */
+    public long startOperation() {
+        inFlightOperations.increment();
+        return System.nanoTime();
+    }
+
+    /**
+     * Marks the end of an operation started with {@link #startOperation()}.
+     *
+     * @return the duration of the operation in nanoseconds
+     */
+    public long endOperation(long startNanos) {
+        long duration = System.nanoTime() - startNanos;
+        inFlightOperations.decrement();
+        return duration;
+    }
+
+    /**
+     * Returns the number of operations started and not yet ended.
+     */
+    public long getInFlightOperations() {
+        return Math.max(0, inFlightOperations.sum());
+    }
+
+    /**
+     * Starts reading PUT and GET latencies interval by interval, on top of the scenario-wide histograms.
+     * Each recorder must have a single reader, since reading an interval resets it.
+     */
+    public synchronized void enableOperationIntervalRecording() {
+        if (putIntervalRecorder == null) {
+            putIntervalRecorder = putLatency.newView();
+            getIntervalRecorder = getLatency.newView();
+        }
+    }
+
+    public void recordPutPayloadBytes(long bytes) {
+        putPayloadBytes.record(bytes);
+    }
+
+    public void recordGetPayloadBytes(long bytes) {
+        getPayloadBytes.record(bytes);
+    }
+
+    /**
+     * Records whether the first replica read after a write returned a stale copy.
+     */
+    public void recordReplicaRead(boolean servedByReplica, boolean stale) {
+        getReplicaConsistencyMetrics().recordRead(servedByReplica, stale);
+    }
+
+    /**
+     * Records the time from a write being acknowledged until a replica read returned the written version.
+     */
+    public void recordReplicationLag(long duration, TimeUnit unit) {
+        getReplicaConsistencyMetrics().getReplicationLagTimer().record(duration, unit);
+    }
+
+    /**
+     * Records a write whose version was not observed on a replica within the polling timeout.
+     */
+    public void incrementReplicationLagTimeout() {
+        getReplicaConsistencyMetrics().getLagTimeoutCounter().increment();
+    }
+
+    public ReplicaConsistencyMetrics getReplicaConsistencyMetrics() {
+        ReplicaConsistencyMetrics metrics = replicaConsistencyMetrics;
+        if (metrics == null) {
+            synchronized (this) {
+                metrics = replicaConsistencyMetrics;
+                if (metrics == null) {
+                    metrics = new ReplicaConsistencyMetrics(meterRegistry, scenarioId);
+                    replicaConsistencyMetrics = metrics;
+                }
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Records a replace attempt guarded by CAS and whether the server applied it.
+     */
+    public void recordCasAttempt(boolean applied) {
+        getCasContentionMetrics().recordAttempt(applied);
+    }
+
+    /**
+     * Records an applied read-modify-write update together with the retries it needed.
+     */
+    public void recordCasUpdate(int retries) {
+        CasContentionMetrics metrics = getCasContentionMetrics();
+        metrics.getUpdateCounter().increment();
+        metrics.getRetriesPerUpdate().record(retries);
+    }
+
+    /**
+     * Records an update given up after exhausting its retries.
+     */
+    public void incrementCasUpdateAbandoned() {
+        getCasContentionMetrics().getAbandonedCounter().increment();
+    }
+
+    /**
+     * Returns the applied read-modify-write updates per second of wall-clock scenario time.
+     */
+    public double getCasUpdateThroughput() {
+        double elapsedSeconds = getElapsedSeconds();
+        return elapsedSeconds == 0 ? 0 : getCasContentionMetrics().getUpdateCounter().count() / elapsedSeconds;
+    }
+
+    /**
+     * Returns the successful operations of the given type per second of wall-clock scenario time.
+     */
+    public double getThroughput(OperationType operationType) {
+        double elapsedSeconds = getElapsedSeconds();
+        return elapsedSeconds == 0 ? 0 : getSuccessfulOperations(operationType) / elapsedSeconds;
+    }
+
+    /**
+     * Records the time a single request spent in the given phase.
+     */
+    public void recordRequestPhase(RequestPhase phase, long nanos) {
+        getRequestPhaseMetrics().record(phase, nanos);
+    }
+
+    public RequestPhaseMetrics getRequestPhaseMetrics() {
+        RequestPhaseMetrics metrics = requestPhaseMetrics;
+        if (metrics == null) {
+            synchronized (this) {
+                metrics = requestPhaseMetrics;
+                if (metrics == null) {
+                    metrics = new RequestPhaseMetrics(meterRegistry, scenarioId);
+                    requestPhaseMetrics = metrics;
+                }
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Records a request completed by the SDK with its latency and retries, attributed to the node it was last sent to.
+     */
+    public void recordNodeRequest(String node, long latencyNanos, int retries) {
+        getSdkClientMetrics().recordRequest(node, latencyNanos, retries);
+    }
+
+    /**
+     * Records responses of the given service that arrived after their request had already completed.
+     */
+    public void recordOrphans(String service, long count) {
+        getSdkClientMetrics().recordOrphans(service, count);
+    }
+
+    public SdkClientMetrics getSdkClientMetrics() {
+        SdkClientMetrics metrics = sdkClientMetrics;
+        if (metrics == null) {
+            synchronized (this) {
+                metrics = sdkClientMetrics;
+                if (metrics == null) {
+                    metrics = new SdkClientMetrics(meterRegistry, scenarioId);
+                    sdkClientMetrics = metrics;
+                }
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Records an operation on a key in the given partition, owned by the given node.
+     */
+    public void recordPartitionOperation(int partition, int numberOfPartitions, String node, long latencyNanos) {
+        PartitionMetrics metrics = partitionMetrics;
+        if (metrics == null) {
+            synchronized (this) {
+                metrics = partitionMetrics;
+                if (metrics == null) {
+                    metrics = new PartitionMetrics(meterRegistry, scenarioId, numberOfPartitions);
+                    partitionMetrics = metrics;
+                }
+            }
+        }
+        metrics.record(partition, node, latencyNanos);
+    }
+
+    /**
+     * Returns the partition breakdown of the scenario, or {@code null} if no operation was attributed to a partition.
+     */
+    public PartitionMetrics getPartitionMetrics() {
+        return partitionMetrics;
+    }
+
+    /**
+     * Attaches the hot spots found in the scenario's JFR recording.
+     */
+    public void recordProfile(ProfileSummary profileSummary) {
+        this.profileSummary.set(profileSummary);
+    }
+
+    public ProfileSummary getProfileSummary() {
+        return profileSummary.get();
+    }
+
+    public ClientResourceMetrics getClientResourceMetrics() {
+        ClientResourceMetrics metrics = clientResourceMetrics;
+        if (metrics == null) {
+            synchronized (this) {
+                metrics = clientResourceMetrics;
+                if (metrics == null) {
+                    metrics = new ClientResourceMetrics(meterRegistry, scenarioId);
+                    clientResourceMetrics = metrics;
+                }
+            }
+        }
+        return metrics;
+    }
+
+    public CasContentionMetrics getCasContentionMetrics() {
+        CasContentionMetrics metrics = casContentionMetrics;
+        if (metrics == null) {
+            synchronized (this) {
+                metrics = casContentionMetrics;
+                if (metrics == null) {
+                    metrics = new CasContentionMetrics(meterRegistry, scenarioId);
+                    casContentionMetrics = metrics;
+                }
+            }
+        }
+        return metrics;
+    }
+
+    public void incrementSuccess(OperationType operationType) {
+        getOperationMetrics(operationType).getSuccessCounter().increment();
+    }
+
+    public void incrementFailure(OperationType operationType) {
+        getOperationMetrics(operationType).getFailureCounter().increment();
+    }
+
+    public void recordLatency(OperationType operationType, long duration, TimeUnit unit) {
+        OperationMetrics operationMetrics = getOperationMetrics(operationType);
+        operationMetrics.getTimer().record(duration, unit);
+        operationMetrics.recordLatency(unit.toNanos(duration));
+    }
+
+    /**
+     * Starts reading the latency of every operation interval by interval, on top of the scenario-wide histograms.
+     */
+    public IntervalLatencyRecorder enableIntervalRecording() {
+        IntervalLatencyRecorder recorder = intervalLatencyRecorder;
+        if (recorder == null) {
+            synchronized (this) {
+                recorder = intervalLatencyRecorder;
+                if (recorder == null) {
+                    recorder = latencies.newView();
+                    intervalLatencyRecorder = recorder;
+                }
+            }
+        }
+        return recorder;
+    }
+
+    /**
+     * Returns the latency of every operation of the scenario in microseconds.
+     */
+    public Histogram getLatencyHistogram() {
+        return latencies.getTotal();
+    }
+
+    /**
+     * Returns the PUT latencies of the scenario in microseconds.
+     */
+    public Histogram getPutLatencyHistogram() {
+        return putLatency.getHistogram();
+    }
+
+    /**
+     * Returns the GET latencies of the scenario in microseconds.
+     */
+    public Histogram getGetLatencyHistogram() {
+        return getLatency.getHistogram();
+    }
+
+    public void recordSoakSummary(SoakSummary soakSummary) {
+        this.soakSummary = soakSummary;
+    }
+
+    public void recordPayloadBytes(OperationType operationType, long bytes) {
+        getOperationMetrics(operationType).getPayloadBytes().record(bytes);
+    }
+
+    public double getAverageLatency(OperationType operationType) {
+        OperationMetrics operationMetrics = operationMetricsByType.get(operationType);
+        if (operationMetrics == null) {
+            return 0;
+        }
+        double successfulCount = operationMetrics.getSuccessCounter().count();
+        double totalResponseTime = operationMetrics.getTimer().totalTime(TimeUnit.MILLISECONDS);
+        return successfulCount == 0 ? 0 : Math.round((totalResponseTime / successfulCount) * 10.0) / 10.0;
+    }
+
+    /**
+     * Returns the latency in milliseconds of the given operation at the given percentile, e.g. 0.99,
+     * over the whole scenario.
+     */
+    public double getLatencyPercentile(OperationType operationType, double percentile) {
+        OperationMetrics operationMetrics = operationMetricsByType.get(operationType);
+        return operationMetrics == null ? 0 : getLatencyPercentile(operationMetrics.getLatencyHistogram(), percentile);
+    }
+
+    public double getSuccessfulOperations(OperationType operationType) {
+        OperationMetrics operationMetrics = operationMetricsByType.get(operationType);
+        return operationMetrics == null ? 0 : operationMetrics.getSuccessCounter().count();
+    }
+
+    public double getAveragePayloadBytes(OperationType operationType) {
+        OperationMetrics operationMetrics = operationMetricsByType.get(operationType);
+        return operationMetrics == null ? 0 : Math.round(operationMetrics.getPayloadBytes().mean());
+    }
+
+    public double getAveragePutPayloadBytes() {
+        return Math.round(putPayloadBytes.mean());
+    }
+
+    public double getAverageGetPayloadBytes() {
+        return Math.round(getPayloadBytes.mean());
     }
 
     public double getAveragePutLatency() {
@@ -106,28 +711,107 @@ public class CouchbaseMetrics {
     }
 
     public double getOverallAverageResponseTime() {
-        double totalResponseTime = putTimer.totalTime(TimeUnit.MILLISECONDS) + getTimer.totalTime(TimeUnit.MILLISECONDS);
-        double totalSuccessfulCount = putSuccessCounter.count() + getSuccessCounter.count();
+        double totalResponseTime = getTotalResponseTime();
+        double totalSuccessfulCount = getTotalSuccessfulOperations();
         return totalSuccessfulCount == 0 ? 0 : Math.round((totalResponseTime / totalSuccessfulCount) * 10.0) / 10.0;
     }
 
     public double getTransactionsPerSecond() {
-        double totalSuccessfulTransactions = putSuccessCounter.count() + getSuccessCounter.count();
-        double totalOperationTime = putTimer.totalTime(TimeUnit.MILLISECONDS) + getTimer.totalTime(TimeUnit.MILLISECONDS);
+        double totalSuccessfulTransactions = getTotalSuccessfulOperations();
+        double totalOperationTime = getTotalResponseTime();
         return totalOperationTime == 0 ? 0 : Math.round((totalSuccessfulTransactions / (totalOperationTime / 1000.0)) * 10.0) / 10.0;
     }
 
+    /**
+     * Returns the number of successful PUT operations per second of scenario wall-clock time.
+     */
+    public double getPutThroughput() {
+        double elapsedSeconds = getElapsedSeconds();
+        return elapsedSeconds == 0 ? 0 : Math.round((putSuccessCounter.count() / elapsedSeconds) * 10.0) / 10.0;
+    }
+
+    /**
+     * Returns the number of successful operations of all types per second of scenario wall-clock time.
+     */
+    public double getThroughput() {
+        double elapsedSeconds = getElapsedSeconds();
+        return elapsedSeconds == 0 ? 0 : getTotalSuccessfulOperations() / elapsedSeconds;
+    }
+
+    /**
+     * Returns the PUT latency in milliseconds at the given percentile, e.g. 0.99, over the whole scenario.
+     */
+    public double getPutLatencyPercentile(double percentile) {
+        return getLatencyPercentile(getPutLatencyHistogram(), percentile);
+    }
+
+    /**
+     * Returns the GET latency in milliseconds at the given percentile, e.g. 0.99, over the whole scenario.
+     */
+    public double getGetLatencyPercentile(double percentile) {
+        return getLatencyPercentile(getGetLatencyHistogram(), percentile);
+    }
+
+    /**
+     * Returns the scenario wall-clock duration in seconds, up to now if the scenario is still running.
+     */
+    public double getElapsedSeconds() {
+        long start = scenarioStartNanos;
+        if (start == 0) {
+            return 0;
+        }
+        long end = scenarioEndNanos == 0 ? System.nanoTime() : scenarioEndNanos;
+        return (end - start) / 1_000_000_000.0;
+    }
+
+    /**
+     * Reads the percentile from a histogram of latencies in microseconds, which unlike the timers' percentiles
+     * covers the whole scenario however long it runs.
+     */
+    static double getLatencyPercentile(Histogram histogram, double percentile) {
+        return histogram.getTotalCount() == 0 ? 0 : Math.round(histogram.getValueAtPercentile(percentile * 100) / 10.0) / 100.0;
+    }
+
+    static double getLatencyPercentile(Timer timer, double percentile) {
+        for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+            if (value.percentile() == percentile) {
+                return Math.round(value.value(TimeUnit.MILLISECONDS) * 100.0) / 100.0;
+            }
+        }
+        return 0;
+    }
+
     public double getTotalErrorRate() {
-        double totalSuccessfulTransactions = putSuccessCounter.count() + getSuccessCounter.count();
-        double totalFailedTransactions = putFailureCounter.count() + getFailureCounter.count();
+        double totalSuccessfulTransactions = getTotalSuccessfulOperations();
+        double totalFailedTransactions = getTotalFailedOperations();
         double totalTransactions = totalSuccessfulTransactions + totalFailedTransactions;
 
         return totalTransactions == 0 ? 0 : (totalFailedTransactions / totalTransactions) * 100;
     }
 
+    public double getTotalFailedOperations() {
+        double totalFailed = putFailureCounter.count() + getFailureCounter.count();
+        for (OperationMetrics operationMetrics : operationMetricsByType.values()) {
+            totalFailed += operationMetrics.getFailureCounter().count();
+        }
+        return totalFailed;
+    }
+
     public double getTotalSuccessfulOperations() {
         double totalSuccessfulPut = putSuccessCounter.count();
         double totalSuccessfulGet = getSuccessCounter.count();
-        return totalSuccessfulPut + totalSuccessfulGet;
+        double totalSuccessfulOther = 0;
+        for (OperationMetrics operationMetrics : operationMetricsByType.values()) {
+            totalSuccessfulOther += operationMetrics.getSuccessCounter().count();
+        }
+        return totalSuccessfulPut + totalSuccessfulGet + totalSuccessfulOther;
+    }
+
+    private double getTotalResponseTime() {
+        double totalResponseTime = putTimer.totalTime(TimeUnit.MILLISECONDS) + getTimer.totalTime(TimeUnit.MILLISECONDS);
+        for (OperationMetrics operationMetrics : operationMetricsByType.values()) {
+            totalResponseTime += operationMetrics.getTimer().totalTime(TimeUnit.MILLISECONDS);
+        }
+        return totalResponseTime;
     }
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package kleyman.metrics;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.PackedConcurrentHistogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencies of a scenario's operations since the previous read, so the distribution can be read interval by interval
+ * without stopping the writers. The operations record into the {@link ScenarioLatencies} of the scenario only, which
+ * moves their latencies into this view when it is read; a view therefore costs the load threads nothing.
+ * Two histograms are swapped on every read, which keeps memory constant however long the scenario runs.
+ * Latencies are kept in microseconds, from 1 µs up to one hour, with three significant digits.
+ */
+public class IntervalLatencyRecorder {
+    static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+    static final int SIGNIFICANT_DIGITS = 3;
+    private final ScenarioLatencies source;
+    private Histogram current = new Histogram(1, HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private Histogram recycledHistogram = new Histogram(1, HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+
+    IntervalLatencyRecorder(ScenarioLatencies source) {
+        this.source = source;
+    }
+
+    synchronized void add(Histogram latencies) {
+        current.add(latencies);
+    }
+
+    /**
+     * Creates a thread-safe histogram with the same range and precision, for latencies of a whole scenario.
+     */
+    static Histogram newScenarioHistogram() {
+        return new ConcurrentHistogram(1, HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    }
+
+    /**
+     * Creates a thread-safe histogram like {@link #newScenarioHistogram()} whose memory grows with the recorded range,
+     * for the many per-operation histograms of a run.
+     */
+    static Histogram newOperationHistogram() {
+        return new PackedConcurrentHistogram(1, HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    }
+
+    /**
+     * Converts the latency to microseconds, clamped to the trackable range.
+     */
+    static long toRecordedMicros(long nanos) {
+        return Math.max(1, Math.min(HIGHEST_TRACKABLE_MICROS, TimeUnit.NANOSECONDS.toMicros(nanos)));
+    }
+
+    /**
+     * Returns the latencies recorded since the previous call. The returned histogram is reused by the
+     * next call, so it must be consumed before asking for the next interval.
+     */
+    public Histogram takeIntervalHistogram() {
+        source.drain();
+        synchronized (this) {
+            Histogram interval = current;
+            recycledHistogram.reset();
+            current = recycledHistogram;
+            recycledHistogram = interval;
+            return interval;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package kleyman.metrics;
+
+import java.util.Locale;
+
+/**
+ * Results of one interval of a soak scenario. Latencies are in milliseconds.
+ *
+ * @param interval          index of the interval, starting at zero
+ * @param endElapsedMillis  end of the interval, measured from the start of the scenario
+ * @param operations        successful operations completed during the interval
+ * @param errors            failed operations during the interval
+ * @param throughput        successful operations per second
+ * @param errorRate         failed operations in percent of all operations
+ */
+public record IntervalResult(int interval, long endElapsedMillis, long operations, long errors, double throughput,
+                             double errorRate, double meanLatency, double p50Latency, double p95Latency,
+                             double p99Latency, double maxLatency) {
+
+    static final String CSV_HEADER = "interval,end_elapsed_ms,operations,errors,throughput_ops,error_rate_pct,mean_ms,p50_ms,p95_ms,p99_ms,max_ms";
+
+    String toCsv() {
+        return String.format(Locale.ROOT, "%d,%d,%d,%d,%.2f,%.4f,%.3f,%.3f,%.3f,%.3f,%.3f",
+                interval, endElapsedMillis, operations, errors, throughput, errorRate,
+                meanLatency, p50Latency, p95Latency, p99Latency, maxLatency);
+    }
+}
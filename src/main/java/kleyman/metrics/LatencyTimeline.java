@@ -0,0 +1,106 @@
+package kleyman.metrics;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Throughput and latency percentiles of a scenario over time, one {@link TimelinePoint} per sampling interval
+ * of the {@link ClientResourceSampler}. Latencies are read from an {@link IntervalLatencyRecorder} view of the scenario's
+ * latencies that is reset at every sample, so only the points are kept; like the client resource samples, they are bounded by
+ * halving the resolution of long runs. A listener can receive every interval histogram before it is reused,
+ * e.g. to stream it to an HdrHistogram log.
+ */
+public class LatencyTimeline {
+    static final int MAX_POINTS = ClientResourceMetrics.MAX_SAMPLES;
+    private final IntervalLatencyRecorder recorder;
+    private final List<TimelinePoint> points = new ArrayList<>();
+    private volatile Consumer<Histogram> intervalListener;
+
+    LatencyTimeline(IntervalLatencyRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    private LatencyTimeline(List<TimelinePoint> points) {
+        this.recorder = null;
+        this.points.addAll(points);
+    }
+
+    /**
+     * Sets the listener that receives the latencies of every interval in microseconds, with the interval's start
+     * and end as epoch millisecond timestamps, or removes it when {@code null}. The histogram is reused by the next
+     * interval, so the listener must not keep it.
+     */
+    public void setIntervalListener(Consumer<Histogram> intervalListener) {
+        this.intervalListener = intervalListener;
+    }
+
+    /**
+     * Closes the current interval and adds its point.
+     */
+    synchronized void sample(long elapsedMillis, long intervalMillis, double throughput) {
+        if (recorder == null) {
+            throw new IllegalStateException("The timeline of an archived scenario cannot be sampled");
+        }
+        Histogram interval = recorder.takeIntervalHistogram();
+        if (points.size() >= MAX_POINTS) {
+            halveResolution();
+        }
+        long operations = interval.getTotalCount();
+        points.add(new TimelinePoint(elapsedMillis, intervalMillis, throughput, operations,
+                operations == 0 ? 0 : interval.getValueAtPercentile(50) / 1000.0,
+                operations == 0 ? 0 : interval.getValueAtPercentile(99) / 1000.0,
+                interval.getMaxValue() / 1000.0));
+        Consumer<Histogram> listener = intervalListener;
+        if (listener != null) {
+            long endMillis = System.currentTimeMillis();
+            interval.setStartTimeStamp(endMillis - intervalMillis);
+            interval.setEndTimeStamp(endMillis);
+            listener.accept(interval);
+        }
+    }
+
+    /**
+     * Returns the point of the last sampled interval, or {@code null} before the first sample.
+     */
+    public synchronized TimelinePoint getLastPoint() {
+        return points.isEmpty() ? null : points.get(points.size() - 1);
+    }
+
+    public synchronized List<TimelinePoint> getPoints() {
+        return List.copyOf(points);
+    }
+
+    synchronized LatencyTimeline archive() {
+        return new LatencyTimeline(points);
+    }
+
+    /**
+     * Merges every two consecutive points into one. Throughput and the median are weighted by interval length
+     * and operations; the merged p99 and maximum are the higher of the two, which keeps tail spikes visible.
+     */
+    private void halveResolution() {
+        List<TimelinePoint> merged = new ArrayList<>(points.size() / 2 + 1);
+        for (int i = 0; i + 1 < points.size(); i += 2) {
+            merged.add(merge(points.get(i), points.get(i + 1)));
+        }
+        if (points.size() % 2 == 1) {
+            merged.add(points.get(points.size() - 1));
+        }
+        points.clear();
+        points.addAll(merged);
+    }
+
+    private static TimelinePoint merge(TimelinePoint first, TimelinePoint second) {
+        long intervalMillis = first.intervalMillis() + second.intervalMillis();
+        long operations = first.operations() + second.operations();
+        double throughput = intervalMillis == 0 ? 0
+                : (first.throughput() * first.intervalMillis() + second.throughput() * second.intervalMillis()) / intervalMillis;
+        double p50 = operations == 0 ? 0
+                : (first.p50Latency() * first.operations() + second.p50Latency() * second.operations()) / operations;
+        return new TimelinePoint(second.elapsedMillis(), intervalMillis, throughput, operations, p50,
+                Math.max(first.p99Latency(), second.p99Latency()), Math.max(first.maxLatency(), second.maxLatency()));
+    }
+}
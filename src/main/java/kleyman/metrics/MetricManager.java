@@ -1,12 +1,26 @@
 package kleyman.metrics;
 
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Manages metrics for Couchbase operations by storing them in a shared map.
  * Provides a centralized location for accessing and managing CouchbaseMetrics instances.
+ * Finished scenarios are stored as their archived copies, see {@link CouchbaseMetrics#archive()}.
+ * When scenarios are repeated, {@code metricsMap} holds the last completed trial of each scenario
+ * and {@code trialsMap} every trial, in the order they completed.
  */
 public class MetricManager {
-    public static Map<String, CouchbaseMetrics> metricsMap = new HashMap<>();
+    public static final Map<String, CouchbaseMetrics> metricsMap = new ConcurrentHashMap<>();
+    public static final Map<String, List<CouchbaseMetrics>> trialsMap = new ConcurrentHashMap<>();
+
+    /**
+     * Stores the archived results of a completed trial of a scenario.
+     */
+    public static void store(CouchbaseMetrics archivedMetrics) {
+        metricsMap.put(archivedMetrics.getScenarioId(), archivedMetrics);
+        trialsMap.computeIfAbsent(archivedMetrics.getScenarioId(), scenarioId -> new CopyOnWriteArrayList<>()).add(archivedMetrics);
+    }
 }
@@ -1,24 +1,48 @@
 package kleyman.metrics;
 
 import com.sun.net.httpserver.HttpServer;
+import kleyman.control.ControlHandler;
+import kleyman.control.RunController;
 import io.micrometer.prometheus.PrometheusMeterRegistry;
 import io.micrometer.prometheus.PrometheusConfig;
 import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.OutputStream;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
- * Sets up a Prometheus metrics server on port 8081.
+ * Sets up a Prometheus metrics server on port 8081, or the port set with {@code load.test.metrics.port},
+ * e.g. to run several agents of a distributed run on one host.
  * Provides a /metrics endpoint to expose application metrics.
+ * <p>
+ * With {@code load.test.control.enabled=true} the /control endpoints of the {@link ControlHandler} are served by
+ * a second server on port 8082, or {@code load.test.control.port}. Since they can stop the run, that server only
+ * listens on the loopback interface unless an address is set with {@code load.test.control.bind}.
  */
 public class MetricsSetup {
     @Getter
     private static final PrometheusMeterRegistry prometheusRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
     private static final Logger logger = LoggerFactory.getLogger(MetricsSetup.class.getName());
+    // Scrapes within this window reuse the last rendered snapshot
+    private static final Duration SCRAPE_CACHE_TTL = Duration.ofSeconds(1);
+    static final String CONTROL_BIND_PROPERTY = "load.test.control.bind";
+    static final String CONTROL_PORT_PROPERTY = "load.test.control.port";
+    static final String PORT_PROPERTY = "load.test.metrics.port";
+    static final int DEFAULT_PORT = 8081;
+    static final int DEFAULT_CONTROL_PORT = 8082;
     private static HttpServer server;
+    private static HttpServer controlServer;
+    private static ExecutorService scrapeExecutor;
+
+    static {
+        // Exposes the slow operations of the running scenario next to the Micrometer meters
+        new SlowOperationCollector().register(prometheusRegistry.getPrometheusRegistry());
+    }
 
     public MetricsSetup() {
         setupMetrics();
@@ -26,30 +50,53 @@ public class MetricsSetup {
 
     public static void setupMetrics() {
         try {
-            // Create an HttpServer instance that listens on port 8081
-            server = HttpServer.create(new InetSocketAddress(8081), 0);
-            // Define a /metrics endpoint
-            server.createContext("/metrics", exchange -> {
-                // Prepare the response by scraping the Prometheus registry
-                String response = prometheusRegistry.scrape();
-                exchange.getResponseHeaders().set("Content-Type", "text/plain");
-                exchange.sendResponseHeaders(200, response.length());
-                // Write the response
-                OutputStream os = exchange.getResponseBody();
-                os.write(response.getBytes());
-                os.close();
+            int port = Integer.getInteger(PORT_PROPERTY, DEFAULT_PORT);
+            server = HttpServer.create(new InetSocketAddress(port), 0);
+            // Define a /metrics endpoint serving a cached, optionally gzipped snapshot of the registry
+            server.createContext("/metrics", new PrometheusScrapeHandler(prometheusRegistry, SCRAPE_CACHE_TTL));
+            // Serve scrapes on a single low-priority thread so they do not compete with the load threads
+            scrapeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-scrape");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
             });
+            server.setExecutor(scrapeExecutor);
 
             server.start();
-            logger.info("Metrics server started on port 8081");
+            logger.info("Metrics server started on port {}", port);
         } catch (Exception e) {
             logger.error("Failed to start metrics server", e);
         }
+        if (RunController.isEnabled()) {
+            startControlServer();
+        }
+    }
+
+    private static void startControlServer() {
+        try {
+            String bindAddress = System.getProperty(CONTROL_BIND_PROPERTY);
+            InetAddress address = bindAddress == null || bindAddress.isBlank()
+                    ? InetAddress.getLoopbackAddress() : InetAddress.getByName(bindAddress);
+            InetSocketAddress socketAddress = new InetSocketAddress(address, Integer.getInteger(CONTROL_PORT_PROPERTY, DEFAULT_CONTROL_PORT));
+            controlServer = HttpServer.create(socketAddress, 0);
+            controlServer.createContext(ControlHandler.CONTEXT_PATH, new ControlHandler(RunController.get()));
+            controlServer.setExecutor(scrapeExecutor);
+            controlServer.start();
+            logger.info("Control API started on {}", socketAddress);
+        } catch (Exception e) {
+            logger.error("Failed to start control API", e);
+        }
     }
 
     public static void stopMetricsServer() {
+        if (controlServer != null) {
+            controlServer.stop(0);
+            controlServer = null;
+        }
         if (server != null) {
             server.stop(0);
+            scrapeExecutor.shutdownNow();
             logger.info("Metrics server stopped.");
         }
     }
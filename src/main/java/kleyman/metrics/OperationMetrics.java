@@ -0,0 +1,84 @@
+package kleyman.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Group of meters describing a single {@link OperationType} within a scenario:
+ * success and failure counters, a latency timer and a summary of payload bytes sent and received.
+ * The latencies are also kept in a histogram in microseconds, so results of several processes can be merged exactly;
+ * they are recorded into the scenario's {@link ScenarioLatencies}, which derives the histogram and every interval view.
+ */
+@Getter
+public class OperationMetrics {
+    private final Counter successCounter;
+    private final Counter failureCounter;
+    private final Timer timer;
+    private final DistributionSummary payloadBytes;
+    @Getter(AccessLevel.NONE)
+    private final ScenarioLatencies.OperationLatency latency;
+
+    private OperationMetrics(Counter successCounter, Counter failureCounter, Timer timer, DistributionSummary payloadBytes,
+                             ScenarioLatencies.OperationLatency latency) {
+        this.successCounter = successCounter;
+        this.failureCounter = failureCounter;
+        this.timer = timer;
+        this.payloadBytes = payloadBytes;
+        this.latency = latency;
+    }
+
+    OperationMetrics(MeterRegistry meterRegistry, String scenarioId, OperationType operationType,
+                     ScenarioLatencies.OperationLatency latency) {
+        String prefix = "couchbase." + operationType.getMetricName();
+        successCounter = Counter.builder(prefix + ".success")
+                .description("Count of successful " + operationType.getDisplayName() + " operations")
+                .tag("scenario", scenarioId)
+                .register(meterRegistry);
+
+        failureCounter = Counter.builder(prefix + ".failure")
+                .description("Count of failed " + operationType.getDisplayName() + " operations")
+                .tag("scenario", scenarioId)
+                .register(meterRegistry);
+
+        timer = Timer.builder(prefix + ".response_time")
+                .description("Latency of " + operationType.getDisplayName() + " operations")
+                .tag("scenario", scenarioId)
+                .publishPercentiles(CouchbaseMetrics.LATENCY_PERCENTILES)
+                .distributionStatisticExpiry(CouchbaseMetrics.PERCENTILE_WINDOW)
+                .distributionStatisticBufferLength(1)
+                .register(meterRegistry);
+
+        payloadBytes = DistributionSummary.builder(prefix + ".payload_bytes")
+                .description("Payload bytes sent and received by " + operationType.getDisplayName() + " operations")
+                .baseUnit("bytes")
+                .tag("scenario", scenarioId)
+                .register(meterRegistry);
+
+        this.latency = latency;
+    }
+
+    void recordLatency(long nanos) {
+        latency.record(nanos);
+    }
+
+    /**
+     * Returns the latencies of the operation in microseconds.
+     */
+    public Histogram getLatencyHistogram() {
+        return latency.getHistogram();
+    }
+
+    /**
+     * Returns the archived copy, whose latencies are the given operation latencies of the archived scenario.
+     */
+    OperationMetrics archive(CouchbaseMetrics live, ScenarioLatencies.OperationLatency archivedLatency) {
+        return new OperationMetrics(ArchivedMeters.counter(successCounter), ArchivedMeters.counter(failureCounter),
+                live.archiveTimer(timer, archivedLatency.getHistogram()), live.archivePayloadBytes(payloadBytes),
+                archivedLatency);
+    }
+}
@@ -0,0 +1,34 @@
+package kleyman.metrics;
+
+import lombok.Getter;
+
+/**
+ * Operations tracked by {@link CouchbaseMetrics} in addition to the full-document PUT and GET operations.
+ * Each operation gets its own success and failure counters, latency timer and payload size summary,
+ * registered under {@code couchbase.<metricName>.*}.
+ */
+@Getter
+public enum OperationType {
+    LOOKUP_IN("lookup_in", "LOOKUP_IN (path lookup)"),
+    MUTATE_IN("mutate_in", "MUTATE_IN (field upsert)"),
+    SUBDOC_COUNTER("subdoc_counter", "MUTATE_IN (counter)"),
+    SUBDOC_ARRAY_APPEND("subdoc_array_append", "MUTATE_IN (array append)"),
+    REPLICA_GET_ANY("replica_get_any", "GET (any replica)"),
+    REPLICA_GET_ALL("replica_get_all", "GET (all replicas)"),
+    CAS_GET("cas_get", "GET (for CAS update)"),
+    CAS_REPLACE("cas_replace", "REPLACE (with CAS)"),
+    COUNTER_INCREMENT("counter_increment", "INCREMENT (counter)"),
+    COUNTER_DECREMENT("counter_decrement", "DECREMENT (counter)"),
+    BINARY_UPSERT("binary_upsert", "UPSERT (raw binary)"),
+    BINARY_GET("binary_get", "GET (raw binary)"),
+    BINARY_APPEND("binary_append", "APPEND (raw binary)"),
+    BINARY_PREPEND("binary_prepend", "PREPEND (raw binary)");
+
+    private final String metricName;
+    private final String displayName;
+
+    OperationType(String metricName, String displayName) {
+        this.metricName = metricName;
+        this.displayName = displayName;
+    }
+}
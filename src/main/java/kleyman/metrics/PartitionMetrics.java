@@ -0,0 +1,145 @@
+package kleyman.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Load of a scenario broken down by vBucket (partition) and by the node owning the partition.
+ * Per-partition counts are kept in plain arrays because exporting a meter per partition would create
+ * a thousand series per scenario; per-node latency is exported as {@code couchbase.node.operations}.
+ */
+public class PartitionMetrics {
+    /**
+     * A partition is hot when it receives this many times the operations of an average partition.
+     */
+    public static final double HOT_PARTITION_FACTOR = 4.0;
+    /**
+     * Minimum operations before a partition can be called hot, so short runs spread over a thousand partitions
+     * are not flagged because of sampling noise.
+     */
+    public static final long MIN_HOT_PARTITION_OPERATIONS = 100;
+    /**
+     * Load is uneven when the busiest node serves this many times its fair share of operations.
+     */
+    public static final double UNEVEN_NODE_FACTOR = 1.25;
+    private final MeterRegistry meterRegistry;
+    private final String scenarioId;
+    private final AtomicLongArray partitionOperations;
+    private final AtomicLongArray partitionLatencyNanos;
+    private final Map<String, Timer> nodeTimers = new ConcurrentHashMap<>();
+
+    PartitionMetrics(MeterRegistry meterRegistry, String scenarioId, int numberOfPartitions) {
+        this.meterRegistry = meterRegistry;
+        this.scenarioId = scenarioId;
+        this.partitionOperations = new AtomicLongArray(numberOfPartitions);
+        this.partitionLatencyNanos = new AtomicLongArray(numberOfPartitions);
+    }
+
+    private PartitionMetrics(String scenarioId, AtomicLongArray partitionOperations, AtomicLongArray partitionLatencyNanos) {
+        this.meterRegistry = CouchbaseMetrics.ARCHIVE_REGISTRY;
+        this.scenarioId = scenarioId;
+        this.partitionOperations = partitionOperations;
+        this.partitionLatencyNanos = partitionLatencyNanos;
+    }
+
+    PartitionMetrics archive() {
+        PartitionMetrics archived = new PartitionMetrics(scenarioId, copy(partitionOperations), copy(partitionLatencyNanos));
+        nodeTimers.forEach((node, timer) -> archived.nodeTimers.put(node, ArchivedMeters.timer(timer)));
+        return archived;
+    }
+
+    private static AtomicLongArray copy(AtomicLongArray values) {
+        long[] copy = new long[values.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = values.get(i);
+        }
+        return new AtomicLongArray(copy);
+    }
+
+    void record(int partition, String node, long latencyNanos) {
+        if (partition < partitionOperations.length()) {
+            partitionOperations.incrementAndGet(partition);
+            partitionLatencyNanos.addAndGet(partition, latencyNanos);
+        }
+        nodeTimers.computeIfAbsent(node, this::createNodeTimer).record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public int getNumberOfPartitions() {
+        return partitionOperations.length();
+    }
+
+    public long getTotalOperations() {
+        long total = 0;
+        for (int i = 0; i < partitionOperations.length(); i++) {
+            total += partitionOperations.get(i);
+        }
+        return total;
+    }
+
+    public long getPartitionOperations(int partition) {
+        return partitionOperations.get(partition);
+    }
+
+    public double getAveragePartitionLatency(int partition) {
+        long operations = partitionOperations.get(partition);
+        return operations == 0 ? 0 : partitionLatencyNanos.get(partition) / (operations * 1_000_000.0);
+    }
+
+    /**
+     * Returns the partitions receiving at least {@link #HOT_PARTITION_FACTOR} times the average load
+     * and at least {@link #MIN_HOT_PARTITION_OPERATIONS} operations, busiest first.
+     */
+    public List<Integer> getHotPartitions() {
+        double threshold = Math.max(MIN_HOT_PARTITION_OPERATIONS, HOT_PARTITION_FACTOR * getTotalOperations() / partitionOperations.length());
+        List<Integer> hotPartitions = new ArrayList<>();
+        for (int i = 0; i < partitionOperations.length(); i++) {
+            if (partitionOperations.get(i) >= threshold) {
+                hotPartitions.add(i);
+            }
+        }
+        hotPartitions.sort((a, b) -> Long.compare(partitionOperations.get(b), partitionOperations.get(a)));
+        return hotPartitions;
+    }
+
+    public Map<String, Timer> getNodeTimers() {
+        return new LinkedHashMap<>(nodeTimers);
+    }
+
+    /**
+     * Returns the share of operations served by the busiest node, in percent.
+     */
+    public double getBusiestNodeShare() {
+        long total = 0;
+        long busiest = 0;
+        for (Timer timer : nodeTimers.values()) {
+            total += timer.count();
+            busiest = Math.max(busiest, timer.count());
+        }
+        return total == 0 ? 0 : busiest * 100.0 / total;
+    }
+
+    /**
+     * Returns whether the busiest node served more than {@link #UNEVEN_NODE_FACTOR} times its fair share.
+     * Only meaningful with more than one node.
+     */
+    public boolean isNodeLoadUneven() {
+        int nodes = nodeTimers.size();
+        return nodes > 1 && getBusiestNodeShare() > UNEVEN_NODE_FACTOR * 100.0 / nodes;
+    }
+
+    private Timer createNodeTimer(String node) {
+        return Timer.builder("couchbase.node.operations")
+                .description("Latency of operations on keys whose active partition is owned by the node")
+                .tag("scenario", scenarioId)
+                .tag("node", node)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,97 @@
+package kleyman.metrics;
+
+import com.couchbase.client.core.cnc.RequestSpan;
+import com.couchbase.client.core.cnc.RequestTracer;
+import com.couchbase.client.core.cnc.tracing.NoopRequestSpan;
+import com.couchbase.client.core.msg.RequestContext;
+import com.couchbase.client.core.util.HostAndPort;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SDK {@link RequestTracer} that breaks every top-level request into encode, queue, network and server phases
+ * and records them into the {@link RequestPhaseMetrics} of the running scenario,
+ * together with the end-to-end latency and retries per node the request was last dispatched to.
+ *
+ * <p>The phases are read from the {@link RequestContext} the SDK fills in anyway, when the request span ends.
+ * Child spans (encoding, dispatch and the per-copy requests of replica reads) get the shared no-op span,
+ * and the phase timers are registered once per scenario, so the only allocation per request is its top-level span.
+ */
+public class PhaseRecordingRequestTracer implements RequestTracer {
+    static final String UNKNOWN_NODE = "unknown";
+
+    @Override
+    public RequestSpan requestSpan(String name, RequestSpan parent) {
+        return parent == null ? new PhaseRecordingSpan() : NoopRequestSpan.INSTANCE;
+    }
+
+    @Override
+    public Mono<Void> start() {
+        return Mono.empty();
+    }
+
+    @Override
+    public Mono<Void> stop(Duration timeout) {
+        return Mono.empty();
+    }
+
+    /**
+     * Records the phases of a completed request into the given metrics.
+     * The server reports its duration in microseconds, all other latencies are in nanoseconds.
+     */
+    static void recordPhases(RequestContext context, CouchbaseMetrics metrics) {
+        long encode = context.encodeLatency();
+        long server = TimeUnit.MICROSECONDS.toNanos(context.serverLatency());
+        long dispatch = context.dispatchLatency();
+        metrics.recordRequestPhase(RequestPhase.ENCODE, encode);
+        metrics.recordRequestPhase(RequestPhase.SERVER, server);
+        metrics.recordRequestPhase(RequestPhase.NETWORK, Math.max(0, dispatch - server));
+        if (context.logicallyCompletedAt() != 0) {
+            long total = context.logicalRequestLatency();
+            metrics.recordRequestPhase(RequestPhase.QUEUE, Math.max(0, total - encode - context.totalDispatchLatency()));
+            HostAndPort node = context.lastDispatchedTo();
+            metrics.recordNodeRequest(node == null ? UNKNOWN_NODE : node.host(), total, context.retryAttempts());
+        }
+    }
+
+    private static final class PhaseRecordingSpan implements RequestSpan {
+        private volatile RequestContext requestContext;
+
+        @Override
+        public void requestContext(RequestContext requestContext) {
+            this.requestContext = requestContext;
+        }
+
+        @Override
+        public void end() {
+            RequestContext context = requestContext;
+            CouchbaseMetrics metrics = ScenarioContext.current();
+            if (context != null && metrics != null) {
+                recordPhases(context, metrics);
+            }
+        }
+
+        @Override
+        public void attribute(String key, String value) {
+        }
+
+        @Override
+        public void attribute(String key, boolean value) {
+        }
+
+        @Override
+        public void attribute(String key, long value) {
+        }
+
+        @Override
+        public void event(String name, Instant timestamp) {
+        }
+
+        @Override
+        public void status(StatusCode status) {
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package kleyman.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serves the Prometheus exposition of the registry. The registry is rendered straight into UTF-8 bytes,
+ * without building the whole exposition as a string, and the rendered snapshot is reused for scrapes within
+ * the cache TTL so several scrapers or a short scrape interval do not render it again. The gzip-compressed
+ * form is built once per snapshot, the first time a client accepts it.
+ * Clients accepting OpenMetrics, such as Prometheus with exemplar storage enabled, get their own snapshot in that format,
+ * the only one that carries exemplars, e.g. those of the {@link SlowOperationCollector}.
+ * Every scrape is timed as {@code couchbase.metrics.scrape}, tagged with whether the snapshot was reused.
+ */
+public class PrometheusScrapeHandler implements HttpHandler {
+    private final PrometheusMeterRegistry registry;
+    private final long cacheTtlNanos;
+    private final Timer cachedScrapeTimer;
+    private final Timer renderedScrapeTimer;
+    private final Snapshot textSnapshot = new Snapshot(TextFormat.CONTENT_TYPE_004);
+    private final Snapshot openMetricsSnapshot = new Snapshot(TextFormat.CONTENT_TYPE_OPENMETRICS_100);
+
+    public PrometheusScrapeHandler(PrometheusMeterRegistry registry, Duration cacheTtl) {
+        this.registry = registry;
+        this.cacheTtlNanos = cacheTtl.toNanos();
+        this.cachedScrapeTimer = createScrapeTimer(registry, "true");
+        this.renderedScrapeTimer = createScrapeTimer(registry, "false");
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        long startTime = System.nanoTime();
+        boolean cached;
+        byte[] body;
+        boolean gzip = acceptsGzip(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+        String contentType = TextFormat.chooseContentType(exchange.getRequestHeaders().getFirst("Accept"));
+        Snapshot snapshot = TextFormat.CONTENT_TYPE_OPENMETRICS_100.equals(contentType) ? openMetricsSnapshot : textSnapshot;
+        synchronized (this) {
+            cached = snapshot.body != null && startTime - snapshot.renderedAtNanos < cacheTtlNanos;
+            if (!cached) {
+                snapshot.body = render(snapshot);
+                snapshot.gzippedBody = null;
+                snapshot.renderedAtNanos = System.nanoTime();
+            }
+            if (gzip && snapshot.gzippedBody == null) {
+                snapshot.gzippedBody = compress(snapshot.body);
+            }
+            body = gzip ? snapshot.gzippedBody : snapshot.body;
+        }
+        try (exchange) {
+            exchange.getResponseHeaders().set("Content-Type", snapshot.contentType);
+            if (gzip) {
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            OutputStream responseBody = exchange.getResponseBody();
+            responseBody.write(body);
+        } finally {
+            (cached ? cachedScrapeTimer : renderedScrapeTimer).record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private byte[] render(Snapshot snapshot) throws IOException {
+        int sizeHint = snapshot.body == null ? 64 * 1024 : snapshot.body.length + snapshot.body.length / 8;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(sizeHint);
+        try (Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8)) {
+            registry.scrape(writer, snapshot.contentType);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] compress(byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(content);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Returns whether the Accept-Encoding header lists gzip without disabling it with {@code q=0}.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.trim().split(";");
+            if (!parameters[0].trim().equalsIgnoreCase("gzip")) {
+                continue;
+            }
+            for (int i = 1; i < parameters.length; i++) {
+                String parameter = parameters[i].trim().replace(" ", "");
+                if (parameter.startsWith("q=") && isZeroQuality(parameter.substring(2))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isZeroQuality(String quality) {
+        try {
+            return Double.parseDouble(quality) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The last rendering of the registry in one exposition format, guarded by the handler's lock.
+     */
+    private static final class Snapshot {
+        private final String contentType;
+        private byte[] body;
+        private byte[] gzippedBody;
+        private long renderedAtNanos;
+
+        private Snapshot(String contentType) {
+            this.contentType = contentType;
+        }
+    }
+
+    private static Timer createScrapeTimer(PrometheusMeterRegistry registry, String cached) {
+        return Timer.builder("couchbase.metrics.scrape")
+                .description("Time taken to serve a Prometheus scrape")
+                .tag("cached", cached)
+                .register(registry);
+    }
+}
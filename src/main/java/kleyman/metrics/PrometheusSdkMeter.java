@@ -0,0 +1,117 @@
+package kleyman.metrics;
+
+import com.couchbase.client.core.cnc.Counter;
+import com.couchbase.client.core.cnc.Meter;
+import com.couchbase.client.core.cnc.TracingIdentifiers;
+import com.couchbase.client.core.cnc.ValueRecorder;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * SDK {@link Meter} that bridges the meters the SDK emits internally into a Micrometer registry,
+ * tagged with the scenario running when a value is recorded.
+ *
+ * <p>The SDK creates its meters once and keeps them, so the scenario cannot be fixed at creation time.
+ * Each bridged meter instead resolves its Micrometer meter per scenario on every record,
+ * and keeps only the meter of the running scenario, which the registry hands out again if it is re-registered.
+ * Bridged meters are kept by name and tags, so an SDK meter requested again reuses the bridge already created.
+ * The operation latency meter is reported in microseconds by the SDK and is bridged to a {@link Timer}
+ * with the percentile settings of the scenario timers; other value recorders are bridged to distribution summaries.
+ */
+public class PrometheusSdkMeter implements Meter {
+    static final String NO_SCENARIO = "none";
+    private final MeterRegistry meterRegistry;
+    private final Map<SdkMeterId, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<SdkMeterId, ValueRecorder> valueRecorders = new ConcurrentHashMap<>();
+
+    public PrometheusSdkMeter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Counter counter(String name, Map<String, String> tags) {
+        return counters.computeIfAbsent(new SdkMeterId(name, new HashMap<>(tags)), id -> createCounter(name, tags));
+    }
+
+    private Counter createCounter(String name, Map<String, String> tags) {
+        ScenarioTaggedMeter<io.micrometer.core.instrument.Counter> counters = new ScenarioTaggedMeter<>(scenario ->
+                io.micrometer.core.instrument.Counter.builder(name)
+                        .tags(toTags(tags, scenario))
+                        .register(meterRegistry));
+        return value -> counters.current().increment(value);
+    }
+
+    @Override
+    public ValueRecorder valueRecorder(String name, Map<String, String> tags) {
+        return valueRecorders.computeIfAbsent(new SdkMeterId(name, new HashMap<>(tags)), id -> createValueRecorder(name, tags));
+    }
+
+    private ValueRecorder createValueRecorder(String name, Map<String, String> tags) {
+        if (TracingIdentifiers.METER_OPERATIONS.equals(name)) {
+            ScenarioTaggedMeter<Timer> timers = new ScenarioTaggedMeter<>(scenario ->
+                    Timer.builder(name)
+                            .description("SDK-side latency of operations")
+                            .tags(toTags(tags, scenario))
+                            .publishPercentiles(CouchbaseMetrics.LATENCY_PERCENTILES)
+                            .distributionStatisticExpiry(CouchbaseMetrics.PERCENTILE_WINDOW)
+                            .distributionStatisticBufferLength(1)
+                            .register(meterRegistry));
+            return value -> timers.current().record(value, TimeUnit.MICROSECONDS);
+        }
+        ScenarioTaggedMeter<DistributionSummary> summaries = new ScenarioTaggedMeter<>(scenario ->
+                DistributionSummary.builder(name)
+                        .tags(toTags(tags, scenario))
+                        .register(meterRegistry));
+        return value -> summaries.current().record(value);
+    }
+
+    private static Tags toTags(Map<String, String> sdkTags, String scenario) {
+        Tags tags = Tags.of("scenario", scenario);
+        for (Map.Entry<String, String> tag : sdkTags.entrySet()) {
+            tags = tags.and(tag.getKey(), tag.getValue() == null ? "" : tag.getValue());
+        }
+        return tags;
+    }
+
+    static String currentScenario() {
+        CouchbaseMetrics metrics = ScenarioContext.current();
+        return metrics == null ? NO_SCENARIO : metrics.getScenarioId();
+    }
+
+    /**
+     * Holds the Micrometer meter of the running scenario only, so finished scenarios do not keep their meters alive
+     * after they have been archived and removed from the registry.
+     */
+    private static final class ScenarioTaggedMeter<M> {
+        private final Function<String, M> factory;
+        private volatile ScenarioMeter<M> current;
+
+        private ScenarioTaggedMeter(Function<String, M> factory) {
+            this.factory = factory;
+        }
+
+        M current() {
+            String scenario = currentScenario();
+            ScenarioMeter<M> meter = current;
+            if (meter == null || !meter.scenario().equals(scenario)) {
+                meter = new ScenarioMeter<>(scenario, factory.apply(scenario));
+                current = meter;
+            }
+            return meter.meter();
+        }
+    }
+
+    private record ScenarioMeter<M>(String scenario, M meter) {
+    }
+
+    private record SdkMeterId(String name, Map<String, String> tags) {
+    }
+}
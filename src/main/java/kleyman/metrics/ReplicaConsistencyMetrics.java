@@ -0,0 +1,94 @@
+package kleyman.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters describing how consistent replica reads are with the preceding write within a scenario:
+ * how many first reads were served by a replica, how many of them were stale,
+ * and how long it took until a replica returned the written version.
+ */
+@Getter
+public class ReplicaConsistencyMetrics {
+    private final Counter readCounter;
+    private final Counter replicaServedCounter;
+    private final Counter staleReadCounter;
+    private final Counter lagTimeoutCounter;
+    private final Timer replicationLagTimer;
+
+    ReplicaConsistencyMetrics(MeterRegistry meterRegistry, String scenarioId) {
+        readCounter = Counter.builder("couchbase.replica.reads")
+                .description("Count of replica reads checked against the preceding write")
+                .tag("scenario", scenarioId)
+                .register(meterRegistry);
+
+        replicaServedCounter = Counter.builder("couchbase.replica.served_by_replica")
+                .description("Count of checked reads answered by a replica rather than the active node")
+                .tag("scenario", scenarioId)
+                .register(meterRegistry);
+
+        staleReadCounter = Counter.builder("couchbase.replica.stale_reads")
+                .description("Count of checked reads that returned a CAS older than the preceding write")
+                .tag("scenario", scenarioId)
+                .register(meterRegistry);
+
+        lagTimeoutCounter = Counter.builder("couchbase.replica.lag_timeouts")
+                .description("Count of writes not observed on a replica within the polling timeout")
+                .tag("scenario", scenarioId)
+                .register(meterRegistry);
+
+        replicationLagTimer = Timer.builder("couchbase.replica.replication_lag")
+                .description("Time from write acknowledgement until a replica read returned the written CAS")
+                .tag("scenario", scenarioId)
+                .publishPercentiles(CouchbaseMetrics.LATENCY_PERCENTILES)
+                .distributionStatisticExpiry(CouchbaseMetrics.PERCENTILE_WINDOW)
+                .distributionStatisticBufferLength(1)
+                .register(meterRegistry);
+    }
+
+    private ReplicaConsistencyMetrics(Counter readCounter, Counter replicaServedCounter, Counter staleReadCounter,
+                                      Counter lagTimeoutCounter, Timer replicationLagTimer) {
+        this.readCounter = readCounter;
+        this.replicaServedCounter = replicaServedCounter;
+        this.staleReadCounter = staleReadCounter;
+        this.lagTimeoutCounter = lagTimeoutCounter;
+        this.replicationLagTimer = replicationLagTimer;
+    }
+
+    ReplicaConsistencyMetrics archive() {
+        return new ReplicaConsistencyMetrics(ArchivedMeters.counter(readCounter), ArchivedMeters.counter(replicaServedCounter),
+                ArchivedMeters.counter(staleReadCounter), ArchivedMeters.counter(lagTimeoutCounter), ArchivedMeters.timer(replicationLagTimer));
+    }
+
+    void recordRead(boolean servedByReplica, boolean stale) {
+        readCounter.increment();
+        if (servedByReplica) {
+            replicaServedCounter.increment();
+        }
+        if (stale) {
+            staleReadCounter.increment();
+        }
+    }
+
+    public double getStaleReadRate() {
+        double reads = readCounter.count();
+        return reads == 0 ? 0 : (staleReadCounter.count() / reads) * 100;
+    }
+
+    public double getReplicaServedRate() {
+        double reads = readCounter.count();
+        return reads == 0 ? 0 : (replicaServedCounter.count() / reads) * 100;
+    }
+
+    public double getReplicationLagPercentile(double percentile) {
+        return CouchbaseMetrics.getLatencyPercentile(replicationLagTimer, percentile);
+    }
+
+    public double getAverageReplicationLag() {
+        return replicationLagTimer.count() == 0 ? 0 : replicationLagTimer.mean(TimeUnit.MILLISECONDS);
+    }
+}
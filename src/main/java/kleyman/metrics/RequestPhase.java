@@ -0,0 +1,37 @@
+package kleyman.metrics;
+
+import lombok.Getter;
+
+/**
+ * Phases a single SDK request is broken into by {@link PhaseRecordingRequestTracer} and {@code CouchbaseService}.
+ */
+@Getter
+public enum RequestPhase {
+    /**
+     * Encoding the request into its wire format.
+     */
+    ENCODE("encode"),
+    /**
+     * Time inside the client not spent encoding or on the wire: waiting for a free endpoint, retry back-off
+     * and completing the response.
+     */
+    QUEUE("queue"),
+    /**
+     * Round-trip of the last dispatch minus the server-reported duration.
+     */
+    NETWORK("network"),
+    /**
+     * Duration reported by the server in the response.
+     */
+    SERVER("server"),
+    /**
+     * Decoding the response content into the requested type.
+     */
+    DECODE("decode");
+
+    private final String tagValue;
+
+    RequestPhase(String tagValue) {
+        this.tagValue = tagValue;
+    }
+}
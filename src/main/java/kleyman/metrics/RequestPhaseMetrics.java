@@ -0,0 +1,56 @@
+package kleyman.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One latency timer per {@link RequestPhase} within a scenario, registered as {@code couchbase.request.phase}
+ * with a {@code phase} tag. All timers are registered up front, so recording a phase does not allocate.
+ */
+public class RequestPhaseMetrics {
+    private final Map<RequestPhase, Timer> timers = new EnumMap<>(RequestPhase.class);
+
+    RequestPhaseMetrics(MeterRegistry meterRegistry, String scenarioId) {
+        for (RequestPhase phase : RequestPhase.values()) {
+            timers.put(phase, Timer.builder("couchbase.request.phase")
+                    .description("Time SDK requests spend in each phase")
+                    .tag("scenario", scenarioId)
+                    .tag("phase", phase.getTagValue())
+                    .publishPercentiles(CouchbaseMetrics.LATENCY_PERCENTILES)
+                    .distributionStatisticExpiry(CouchbaseMetrics.PERCENTILE_WINDOW)
+                    .distributionStatisticBufferLength(1)
+                    .register(meterRegistry));
+        }
+    }
+
+    private RequestPhaseMetrics(Map<RequestPhase, Timer> timers) {
+        this.timers.putAll(timers);
+    }
+
+    RequestPhaseMetrics archive() {
+        Map<RequestPhase, Timer> archivedTimers = new EnumMap<>(RequestPhase.class);
+        timers.forEach((phase, timer) -> archivedTimers.put(phase, ArchivedMeters.timer(timer)));
+        return new RequestPhaseMetrics(archivedTimers);
+    }
+
+    void record(RequestPhase phase, long nanos) {
+        timers.get(phase).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public Timer getTimer(RequestPhase phase) {
+        return timers.get(phase);
+    }
+
+    public double getAverage(RequestPhase phase) {
+        Timer timer = timers.get(phase);
+        return timer.count() == 0 ? 0 : timer.mean(TimeUnit.MILLISECONDS);
+    }
+
+    public double getPercentile(RequestPhase phase, double percentile) {
+        return CouchbaseMetrics.getLatencyPercentile(timers.get(phase), percentile);
+    }
+}
@@ -0,0 +1,30 @@
+package kleyman.metrics;
+
+/**
+ * Holds the metrics of the scenario currently running, for SDK plugins such as
+ * {@link PhaseRecordingRequestTracer} that are created with the cluster environment and outlive a single scenario.
+ * Scenarios run one after another, so a single slot is enough.
+ */
+public final class ScenarioContext {
+    private static volatile CouchbaseMetrics current;
+
+    private ScenarioContext() {
+    }
+
+    public static void activate(CouchbaseMetrics metrics) {
+        current = metrics;
+    }
+
+    public static void clear(CouchbaseMetrics metrics) {
+        if (current == metrics) {
+            current = null;
+        }
+    }
+
+    /**
+     * Returns the metrics of the running scenario, or {@code null} between scenarios.
+     */
+    public static CouchbaseMetrics current() {
+        return current;
+    }
+}
@@ -0,0 +1,146 @@
+package kleyman.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Latencies of every operation of a scenario in microseconds, from 1 µs up to one hour with three significant digits.
+ * An operation costs a single write to the HdrHistogram {@link Recorder} of its kind, which never waits for readers.
+ * Every other view is derived from the recorders when it is read: {@link #drain()} moves the latencies recorded since
+ * the previous drain into the cumulative histogram of each operation and of the whole scenario, and into the
+ * {@link IntervalLatencyRecorder interval views} such as the timeline, the soak intervals and the console dashboard.
+ */
+class ScenarioLatencies {
+    private final Map<String, OperationLatency> operations = new ConcurrentHashMap<>();
+    // Cumulative latencies of all operations, written only by drains
+    private final Histogram total;
+    // Interval views of all operations
+    private final List<IntervalLatencyRecorder> views = new CopyOnWriteArrayList<>();
+    private final boolean archived;
+
+    ScenarioLatencies() {
+        this(IntervalLatencyRecorder.newScenarioHistogram(), false);
+    }
+
+    private ScenarioLatencies(Histogram total, boolean archived) {
+        this.total = total;
+        this.archived = archived;
+    }
+
+    /**
+     * Returns the latencies of the operation with the given name, e.g. {@code put} or an {@link OperationType}'s metric name.
+     */
+    OperationLatency operation(String name) {
+        return operations.computeIfAbsent(name, OperationLatency::new);
+    }
+
+    /**
+     * Adds a view of the latencies of all operations per interval. Each view must have a single reader,
+     * since reading an interval resets it.
+     */
+    IntervalLatencyRecorder newView() {
+        IntervalLatencyRecorder view = new IntervalLatencyRecorder(this);
+        views.add(view);
+        return view;
+    }
+
+    /**
+     * Returns the cumulative latencies of all operations, up to date with every operation recorded so far.
+     */
+    Histogram getTotal() {
+        drain();
+        return total;
+    }
+
+    /**
+     * Moves the latencies recorded since the previous drain into the cumulative histograms and every view.
+     */
+    synchronized void drain() {
+        if (archived) {
+            return;
+        }
+        for (OperationLatency operation : operations.values()) {
+            Histogram interval = operation.takeRecorded();
+            if (interval.getTotalCount() == 0) {
+                continue;
+            }
+            operation.cumulative.add(interval);
+            total.add(interval);
+            for (IntervalLatencyRecorder view : operation.views) {
+                view.add(interval);
+            }
+            for (IntervalLatencyRecorder view : views) {
+                view.add(interval);
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of the cumulative histograms, which no longer records.
+     */
+    ScenarioLatencies archive() {
+        drain();
+        ScenarioLatencies archivedLatencies = new ScenarioLatencies(total.copy(), true);
+        operations.forEach((name, operation) ->
+                archivedLatencies.operations.put(name, archivedLatencies.new OperationLatency(name, operation.cumulative.copy())));
+        return archivedLatencies;
+    }
+
+    /**
+     * Latencies of one kind of operation.
+     */
+    final class OperationLatency {
+        private final String name;
+        // Null once archived
+        private final Recorder recorder;
+        private final Histogram cumulative;
+        // Interval views of this operation only
+        private final List<IntervalLatencyRecorder> views = new CopyOnWriteArrayList<>();
+        private Histogram recycled;
+
+        private OperationLatency(String name) {
+            this(name, IntervalLatencyRecorder.newOperationHistogram());
+        }
+
+        private OperationLatency(String name, Histogram cumulative) {
+            this.name = name;
+            this.recorder = archived ? null : new Recorder(1, IntervalLatencyRecorder.HIGHEST_TRACKABLE_MICROS,
+                    IntervalLatencyRecorder.SIGNIFICANT_DIGITS);
+            this.cumulative = cumulative;
+        }
+
+        void record(long nanos) {
+            if (recorder == null) {
+                throw new IllegalStateException("An archived scenario cannot record the latency of " + name);
+            }
+            recorder.recordValue(IntervalLatencyRecorder.toRecordedMicros(nanos));
+        }
+
+        /**
+         * Returns the cumulative latencies of the operation, up to date with every operation recorded so far.
+         */
+        Histogram getHistogram() {
+            drain();
+            return cumulative;
+        }
+
+        /**
+         * Adds a view of the latencies of this operation per interval, with a single reader.
+         */
+        IntervalLatencyRecorder newView() {
+            IntervalLatencyRecorder view = new IntervalLatencyRecorder(ScenarioLatencies.this);
+            views.add(view);
+            return view;
+        }
+
+        private Histogram takeRecorded() {
+            recycled = recorder.getIntervalHistogram(recycled);
+            return recycled;
+        }
+    }
+}
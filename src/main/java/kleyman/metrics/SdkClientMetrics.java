@@ -0,0 +1,87 @@
+package kleyman.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters describing what happens inside the SDK during a scenario, per node the requests were dispatched to:
+ * end-to-end request latency as seen by the SDK and retries, plus orphaned responses per service.
+ * Meters are created the first time a node or service shows up and reused afterwards.
+ */
+public class SdkClientMetrics {
+    private final MeterRegistry meterRegistry;
+    private final String scenarioId;
+    private final Map<String, Timer> nodeLatencyTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> nodeRetryCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> orphanCounters = new ConcurrentHashMap<>();
+
+    SdkClientMetrics(MeterRegistry meterRegistry, String scenarioId) {
+        this.meterRegistry = meterRegistry;
+        this.scenarioId = scenarioId;
+    }
+
+    SdkClientMetrics archive() {
+        SdkClientMetrics archived = new SdkClientMetrics(CouchbaseMetrics.ARCHIVE_REGISTRY, scenarioId);
+        nodeLatencyTimers.forEach((node, timer) -> archived.nodeLatencyTimers.put(node, ArchivedMeters.timer(timer)));
+        nodeRetryCounters.forEach((node, counter) -> archived.nodeRetryCounters.put(node, ArchivedMeters.counter(counter)));
+        orphanCounters.forEach((service, counter) -> archived.orphanCounters.put(service, ArchivedMeters.counter(counter)));
+        return archived;
+    }
+
+    void recordRequest(String node, long latencyNanos, int retries) {
+        nodeLatencyTimers.computeIfAbsent(node, this::createNodeLatencyTimer).record(latencyNanos, TimeUnit.NANOSECONDS);
+        if (retries > 0) {
+            nodeRetryCounters.computeIfAbsent(node, this::createNodeRetryCounter).increment(retries);
+        }
+    }
+
+    void recordOrphans(String service, long count) {
+        orphanCounters.computeIfAbsent(service, this::createOrphanCounter).increment(count);
+    }
+
+    public Map<String, Timer> getNodeLatencyTimers() {
+        return Map.copyOf(nodeLatencyTimers);
+    }
+
+    public double getRetries(String node) {
+        Counter counter = nodeRetryCounters.get(node);
+        return counter == null ? 0 : counter.count();
+    }
+
+    public double getOrphans(String service) {
+        Counter counter = orphanCounters.get(service);
+        return counter == null ? 0 : counter.count();
+    }
+
+    private Timer createNodeLatencyTimer(String node) {
+        return Timer.builder("couchbase.sdk.node.latency")
+                .description("Latency of requests from creation to completion inside the SDK, per node")
+                .tag("scenario", scenarioId)
+                .tag("node", node)
+                .publishPercentiles(CouchbaseMetrics.LATENCY_PERCENTILES)
+                .distributionStatisticExpiry(CouchbaseMetrics.PERCENTILE_WINDOW)
+                .distributionStatisticBufferLength(1)
+                .register(meterRegistry);
+    }
+
+    private Counter createNodeRetryCounter(String node) {
+        return Counter.builder("couchbase.sdk.node.retries")
+                .description("Count of retries of requests last dispatched to the node")
+                .tag("scenario", scenarioId)
+                .tag("node", node)
+                .register(meterRegistry);
+    }
+
+    private Counter createOrphanCounter(String service) {
+        return Counter.builder("couchbase.sdk.orphans")
+                .description("Count of responses that arrived after their request had already completed")
+                .tag("scenario", scenarioId)
+                .tag("service", service)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,90 @@
+package kleyman.metrics;
+
+import com.couchbase.client.core.cnc.EventSubscription;
+import com.couchbase.client.core.cnc.events.tracing.OrphansRecordedEvent;
+import com.couchbase.client.core.endpoint.CircuitBreaker;
+import com.couchbase.client.core.service.ServiceType;
+import com.couchbase.client.java.Cluster;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Watches the health of a connected cluster from the client side:
+ * exposes the number of KV endpoints per circuit breaker state as gauges
+ * and counts orphaned responses reported by the SDK into the metrics of the running scenario.
+ * Orphan counts are read from the structured orphan report, which the SDK only fills when its orphan reporter
+ * uses the legacy format, see {@link #STRUCTURED_ORPHAN_REPORT_PROPERTY}.
+ */
+public class SdkHealthMonitor implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(SdkHealthMonitor.class);
+    // The SDK only exposes the per-service orphan counts of its report as structured data in the legacy report format
+    public static final String STRUCTURED_ORPHAN_REPORT_PROPERTY = "com.couchbase.orphanReporterNewOutputFormat";
+    private static final String ORPHAN_SERVICE = "service";
+    private static final String ORPHAN_COUNT = "count";
+    private final MeterRegistry meterRegistry;
+    private final List<Gauge> gauges = new ArrayList<>();
+    private final EventSubscription subscription;
+    private volatile boolean structuredReportMissing;
+
+    public SdkHealthMonitor(Cluster cluster, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            gauges.add(Gauge.builder("couchbase.sdk.circuit_breakers", cluster, c -> countKvEndpoints(c, state))
+                    .description("Number of KV endpoints whose circuit breaker is in the given state")
+                    .tag("state", state.name())
+                    .register(meterRegistry));
+        }
+        this.subscription = cluster.environment().eventBus().subscribe(event -> {
+            if (event instanceof OrphansRecordedEvent orphansRecorded) {
+                if (orphansRecorded.orphans() != null) {
+                    recordOrphans(orphansRecorded.orphans());
+                } else if (!structuredReportMissing) {
+                    structuredReportMissing = true;
+                    logger.warn("Orphan reports carry no per-service counts with {}=true, orphans are not counted",
+                            STRUCTURED_ORPHAN_REPORT_PROPERTY);
+                }
+            }
+        });
+    }
+
+    private static double countKvEndpoints(Cluster cluster, CircuitBreaker.State state) {
+        return cluster.core().diagnostics()
+                .filter(endpoint -> endpoint.type() == ServiceType.KV && endpoint.circuitBreakerState() == state)
+                .count();
+    }
+
+    private static void recordOrphans(List<Map<String, Object>> orphans) {
+        CouchbaseMetrics metrics = ScenarioContext.current();
+        if (metrics == null) {
+            return;
+        }
+        orphanCounts(orphans).forEach(metrics::recordOrphans);
+    }
+
+    /**
+     * Returns the orphan count per service from the structured report of an {@link OrphansRecordedEvent},
+     * which holds one entry per service, for example {@code {"service": "kv", "count": 3, "top": [...]}}.
+     */
+    static Map<String, Long> orphanCounts(List<Map<String, Object>> orphans) {
+        Map<String, Long> counts = new HashMap<>();
+        for (Map<String, Object> serviceReport : orphans) {
+            if (serviceReport.get(ORPHAN_SERVICE) instanceof String service && serviceReport.get(ORPHAN_COUNT) instanceof Number count) {
+                counts.merge(service, count.longValue(), Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public void close() {
+        subscription.unsubscribe();
+        gauges.forEach(meterRegistry::remove);
+    }
+}
@@ -0,0 +1,17 @@
+package kleyman.metrics;
+
+/**
+ * A single operation captured by the {@link SlowOperationLog} because its latency passed the slow threshold.
+ *
+ * @param timestampMillis when the operation ended, in epoch milliseconds, to correlate it with GC and server logs
+ * @param operation       metric name of the operation, e.g. {@code put} or {@code replica_get_any}
+ * @param key             document key
+ * @param thread          name of the thread that issued the operation
+ * @param latencyNanos    latency of the operation
+ * @param documentBytes   encoded size of the document sent or received, -1 if unknown
+ * @param partition       vBucket of the key, -1 if unknown
+ * @param error           simple class name of the exception the operation failed with, {@code null} if it succeeded
+ */
+public record SlowOperation(long timestampMillis, String operation, String key, String thread, long latencyNanos,
+                            long documentBytes, int partition, String error) {
+}
@@ -0,0 +1,83 @@
+package kleyman.metrics;
+
+import io.prometheus.client.Collector;
+import io.prometheus.client.exemplars.Exemplar;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Exposes the {@link SlowOperationLog} of the running scenario to Prometheus:
+ * {@code couchbase_slow_operations_total} counts the captured operations per operation, with the slowest held entry
+ * of the operation as exemplar, and {@code couchbase_slow_operation_threshold_seconds} is the current threshold
+ * of each operation.
+ * Exemplars carry the key, thread and vBucket of the operation and its latency in seconds; they are only part
+ * of the OpenMetrics exposition, whose labels of an exemplar may hold at most 128 characters together.
+ */
+public class SlowOperationCollector extends Collector {
+    static final String COUNT_NAME = "couchbase_slow_operations";
+    static final String THRESHOLD_NAME = "couchbase_slow_operation_threshold_seconds";
+    private static final int MAX_KEY_CHARACTERS = 64;
+    private static final int MAX_THREAD_CHARACTERS = 32;
+    private final Supplier<CouchbaseMetrics> scenario;
+
+    public SlowOperationCollector() {
+        this(ScenarioContext::current);
+    }
+
+    /**
+     * @param scenario gives the metrics of the running scenario, or {@code null} between scenarios
+     */
+    SlowOperationCollector(Supplier<CouchbaseMetrics> scenario) {
+        this.scenario = scenario;
+    }
+
+    @Override
+    public List<MetricFamilySamples> collect() {
+        CouchbaseMetrics metrics = scenario.get();
+        if (metrics == null) {
+            return List.of();
+        }
+        SlowOperationLog log = metrics.getSlowOperationLog();
+        Map<String, SlowOperation> slowestByOperation = log.getEntries().stream()
+                .collect(Collectors.toMap(SlowOperation::operation, Function.identity(),
+                        (first, second) -> first.latencyNanos() >= second.latencyNanos() ? first : second));
+        List<String> labelNames = List.of("scenario", "operation");
+        List<MetricFamilySamples.Sample> counts = new ArrayList<>();
+        log.getCapturedByOperation().forEach((operation, count) -> {
+            SlowOperation slowest = slowestByOperation.get(operation);
+            counts.add(new MetricFamilySamples.Sample(COUNT_NAME + "_total", labelNames, List.of(metrics.getScenarioId(), operation),
+                    count, slowest == null ? null : toExemplar(slowest)));
+        });
+        counts.sort(Comparator.comparing(sample -> sample.labelValues.get(1)));
+        List<MetricFamilySamples> families = new ArrayList<>();
+        families.add(new MetricFamilySamples(COUNT_NAME, Type.COUNTER,
+                "Operations whose latency reached the slow operation threshold", counts));
+        Map<String, Long> thresholds = log.getThresholds();
+        if (!thresholds.isEmpty()) {
+            List<MetricFamilySamples.Sample> thresholdSamples = new ArrayList<>();
+            thresholds.forEach((operation, thresholdNanos) -> thresholdSamples.add(new MetricFamilySamples.Sample(THRESHOLD_NAME,
+                    labelNames, List.of(metrics.getScenarioId(), operation), thresholdNanos / (double) TimeUnit.SECONDS.toNanos(1))));
+            families.add(new MetricFamilySamples(THRESHOLD_NAME, Type.GAUGE, "Latency from which operations are captured as slow",
+                    thresholdSamples));
+        }
+        return families;
+    }
+
+    static Exemplar toExemplar(SlowOperation operation) {
+        return new Exemplar(operation.latencyNanos() / (double) TimeUnit.SECONDS.toNanos(1), operation.timestampMillis(),
+                "key", truncate(operation.key(), MAX_KEY_CHARACTERS),
+                "thread", truncate(operation.thread(), MAX_THREAD_CHARACTERS),
+                "vbucket", String.valueOf(operation.partition()));
+    }
+
+    private static String truncate(String value, int maxCharacters) {
+        return value.length() <= maxCharacters ? value : value.substring(0, maxCharacters);
+    }
+}
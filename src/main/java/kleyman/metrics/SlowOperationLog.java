@@ -0,0 +1,213 @@
+package kleyman.metrics;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded ring buffer of the slowest operations of a scenario, so latency outliers can be traced back to their keys,
+ * partitions and time. An operation is slow when its latency reaches the dynamic threshold of its kind: the configured
+ * percentile, p99.9 by default, of every latency of that kind of operation in the scenario so far, re-read at most
+ * once a second and only once enough operations of the kind were recorded to make it meaningful. Until then nothing
+ * of the kind is captured, and nothing at all with {@code load.test.slow.enabled=false}.
+ * <p>
+ * Writers claim a slot with a single atomic increment and never lock or wait; once the buffer is full the newest
+ * entries overwrite the oldest. Every slot holds the sequence number it was written for, so a reader skips a slot
+ * that still holds an older entry or already holds a newer one: an entry written concurrently may be missing from
+ * a snapshot, but no entry appears out of order.
+ */
+public class SlowOperationLog {
+    static final String ENABLED_PROPERTY = "load.test.slow.enabled";
+    static final String CAPACITY_PROPERTY = "load.test.slow.capacity";
+    static final String PERCENTILE_PROPERTY = "load.test.slow.percentile";
+    // Lower bound of the threshold, so operations of a very fast backend are not reported as slow
+    static final String MIN_THRESHOLD_PROPERTY = "load.test.slow.min.millis";
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final double DEFAULT_PERCENTILE = 99.9;
+    static final long MIN_SAMPLES = 1000;
+    private static final long REFRESH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // Latencies of the scenario in microseconds, null once archived or when capturing is disabled
+    private final ScenarioLatencies latencies;
+    private final double percentile;
+    private final long minThresholdNanos;
+    private final AtomicReferenceArray<Entry> entries;
+    private final int mask;
+    private final AtomicLong written = new AtomicLong();
+    private final Map<String, LongAdder> capturedByOperation = new ConcurrentHashMap<>();
+    private final Map<String, Threshold> thresholds = new ConcurrentHashMap<>();
+
+    SlowOperationLog(ScenarioLatencies latencies) {
+        this(Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true")) ? latencies : null,
+                Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY),
+                Double.parseDouble(System.getProperty(PERCENTILE_PROPERTY, String.valueOf(DEFAULT_PERCENTILE))),
+                TimeUnit.MILLISECONDS.toNanos(Long.getLong(MIN_THRESHOLD_PROPERTY, 0)));
+    }
+
+    /**
+     * @param latencies         latencies of the scenario in microseconds, the threshold of each operation is a percentile
+     *                          of its latencies; {@code null} captures nothing
+     * @param capacity          number of entries kept, rounded up to a power of two
+     * @param percentile        percentile of the latencies an operation must reach to be slow, e.g. 99.9
+     * @param minThresholdNanos lower bound of the threshold
+     */
+    SlowOperationLog(ScenarioLatencies latencies, int capacity, double percentile, long minThresholdNanos) {
+        if (capacity < 1 || capacity > 1 << 20) {
+            throw new IllegalArgumentException("Slow operation capacity must be between 1 and 2^20, was " + capacity);
+        }
+        if (!(percentile > 0 && percentile < 100)) {
+            throw new IllegalArgumentException("Slow operation percentile must be between 0 and 100, was " + percentile);
+        }
+        int size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        this.latencies = latencies;
+        this.percentile = percentile;
+        this.minThresholdNanos = minThresholdNanos;
+        this.entries = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Returns whether the operation with the given name and latency is slow, re-reading the threshold of the operation
+     * when it is due. The names are those of {@link ScenarioLatencies#operation(String)}.
+     */
+    public boolean isSlow(String operation, long latencyNanos) {
+        if (latencies == null) {
+            return false;
+        }
+        Threshold threshold = thresholds.get(operation);
+        if (threshold == null) {
+            threshold = thresholds.computeIfAbsent(operation, Threshold::new);
+        }
+        threshold.refreshIfDue();
+        return latencyNanos >= threshold.nanos;
+    }
+
+    /**
+     * Adds a slow operation, overwriting the oldest entry once the buffer is full.
+     */
+    public void record(SlowOperation operation) {
+        long sequence = written.getAndIncrement();
+        entries.lazySet((int) sequence & mask, new Entry(sequence, operation));
+        capturedByOperation.computeIfAbsent(operation.operation(), name -> new LongAdder()).increment();
+    }
+
+    /**
+     * Returns the current threshold of the operation in nanoseconds, {@link Long#MAX_VALUE} while too few operations
+     * of its kind were recorded.
+     */
+    public long getThresholdNanos(String operation) {
+        Threshold threshold = thresholds.get(operation);
+        return threshold == null ? Long.MAX_VALUE : threshold.nanos;
+    }
+
+    /**
+     * Returns the thresholds in nanoseconds of the operations that have one, in operation name order.
+     */
+    public Map<String, Long> getThresholds() {
+        Map<String, Long> set = new TreeMap<>();
+        thresholds.forEach((operation, threshold) -> {
+            if (threshold.nanos != Long.MAX_VALUE) {
+                set.put(operation, threshold.nanos);
+            }
+        });
+        return set;
+    }
+
+    /**
+     * Returns the number of slow operations captured, including those overwritten since.
+     */
+    public long getCapturedCount() {
+        return written.get();
+    }
+
+    /**
+     * Returns the number of slow operations captured per operation, in operation name order.
+     */
+    public Map<String, Long> getCapturedByOperation() {
+        Map<String, Long> counts = new TreeMap<>();
+        capturedByOperation.forEach((operation, count) -> counts.put(operation, count.sum()));
+        return counts;
+    }
+
+    /**
+     * Returns the entries currently held, oldest first.
+     */
+    public List<SlowOperation> getEntries() {
+        long end = written.get();
+        List<SlowOperation> snapshot = new ArrayList<>();
+        for (long sequence = Math.max(0, end - entries.length()); sequence < end; sequence++) {
+            Entry entry = entries.get((int) sequence & mask);
+            if (entry != null && entry.sequence() == sequence) {
+                snapshot.add(entry.operation());
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns up to {@code limit} of the held entries, slowest first.
+     */
+    public List<SlowOperation> getSlowest(int limit) {
+        return getEntries().stream()
+                .sorted(Comparator.comparingLong(SlowOperation::latencyNanos).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Returns an immutable copy holding the current entries, counts and threshold, which no longer captures.
+     */
+    SlowOperationLog archive() {
+        SlowOperationLog archived = new SlowOperationLog(null, entries.length(), percentile, minThresholdNanos);
+        // Slots are copied in place so the entries keep their sequence positions
+        archived.written.set(written.get());
+        for (int i = 0; i < entries.length(); i++) {
+            archived.entries.set(i, entries.get(i));
+        }
+        capturedByOperation.forEach((operation, count) ->
+                archived.capturedByOperation.computeIfAbsent(operation, name -> new LongAdder()).add(count.sum()));
+        thresholds.forEach((operation, threshold) -> archived.thresholds.put(operation, archived.new Threshold(operation, threshold.nanos)));
+        return archived;
+    }
+
+    private record Entry(long sequence, SlowOperation operation) {
+    }
+
+    /**
+     * Slow threshold of one kind of operation.
+     */
+    private final class Threshold {
+        private final String operation;
+        private final AtomicLong nextRefreshNanos = new AtomicLong(System.nanoTime());
+        private volatile long nanos;
+
+        private Threshold(String operation) {
+            this(operation, Long.MAX_VALUE);
+        }
+
+        private Threshold(String operation, long nanos) {
+            this.operation = operation;
+            this.nanos = nanos;
+        }
+
+        private void refreshIfDue() {
+            long now = System.nanoTime();
+            long next = nextRefreshNanos.get();
+            if (now - next < 0 || !nextRefreshNanos.compareAndSet(next, now + REFRESH_INTERVAL_NANOS)) {
+                return;
+            }
+            Histogram histogram = latencies.operation(operation).getHistogram();
+            if (histogram.getTotalCount() >= MIN_SAMPLES) {
+                nanos = Math.max(minThresholdNanos, TimeUnit.MICROSECONDS.toNanos(histogram.getValueAtPercentile(percentile)));
+            }
+        }
+    }
+}
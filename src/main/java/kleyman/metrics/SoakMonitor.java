@@ -0,0 +1,130 @@
+package kleyman.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closes an interval of a soak scenario every {@code intervalLength}: reads the interval's latency histogram,
+ * throughput and error rate, appends them as a CSV line to the interval file and feeds them to a
+ * {@link TrendDetector}. Nothing is kept per interval in memory, so a scenario can run for days.
+ * Closing the monitor ends the last interval and attaches a {@link SoakSummary} to the scenario's metrics.
+ */
+public class SoakMonitor implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(SoakMonitor.class);
+    private final CouchbaseMetrics couchbaseMetrics;
+    private final IntervalLatencyRecorder latencyRecorder;
+    private final Path intervalFile;
+    private final BufferedWriter writer;
+    private final TrendDetector trendDetector = new TrendDetector();
+    private final ScheduledExecutorService scheduler;
+    private final long startNanos;
+    private long lastIntervalNanos;
+    private double lastOperations;
+    private double lastFailures;
+    private int intervals;
+
+    private SoakMonitor(CouchbaseMetrics couchbaseMetrics, Path intervalFile) throws IOException {
+        this.couchbaseMetrics = couchbaseMetrics;
+        this.latencyRecorder = couchbaseMetrics.enableIntervalRecording();
+        this.intervalFile = intervalFile;
+        Files.createDirectories(intervalFile.toAbsolutePath().getParent());
+        this.writer = Files.newBufferedWriter(intervalFile, StandardCharsets.UTF_8);
+        this.writer.write(IntervalResult.CSV_HEADER);
+        this.writer.newLine();
+        this.startNanos = System.nanoTime();
+        this.lastIntervalNanos = startNanos;
+        this.lastOperations = couchbaseMetrics.getTotalSuccessfulOperations();
+        this.lastFailures = couchbaseMetrics.getTotalFailedOperations();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "soak-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts closing intervals of the given length, writing them to the given CSV file.
+     */
+    public static SoakMonitor start(CouchbaseMetrics couchbaseMetrics, Duration intervalLength, Path intervalFile) throws IOException {
+        SoakMonitor monitor = new SoakMonitor(couchbaseMetrics, intervalFile);
+        long intervalMillis = intervalLength.toMillis();
+        monitor.scheduler.scheduleAtFixedRate(monitor::closeInterval, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        logger.info("Soak monitoring of {} started, writing {} intervals to {}", couchbaseMetrics.getScenarioId(), intervalLength, intervalFile);
+        return monitor;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        try {
+            if (!scheduler.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.warn("Soak monitor did not stop in time.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeInterval();
+        try {
+            writer.close();
+        } catch (IOException e) {
+            logger.error("Failed to close soak interval file {}", intervalFile, e);
+        }
+        SoakSummary summary = new SoakSummary(intervalFile, intervals, trendDetector.getTrends());
+        couchbaseMetrics.recordSoakSummary(summary);
+        for (TrendResult trend : summary.trends()) {
+            if (trend.detected()) {
+                logger.warn("{}: {} detected, from {} to {} ({}%)", couchbaseMetrics.getScenarioId(), trend.metric(),
+                        String.format("%.2f", trend.start()), String.format("%.2f", trend.end()), String.format("%.1f", trend.change()));
+            }
+        }
+    }
+
+    private synchronized void closeInterval() {
+        try {
+            long now = System.nanoTime();
+            double intervalSeconds = (now - lastIntervalNanos) / 1_000_000_000.0;
+            if (intervalSeconds <= 0) {
+                return;
+            }
+            double operations = couchbaseMetrics.getTotalSuccessfulOperations();
+            double failures = couchbaseMetrics.getTotalFailedOperations();
+            long intervalOperations = Math.round(operations - lastOperations);
+            long intervalErrors = Math.round(failures - lastFailures);
+            long attempts = intervalOperations + intervalErrors;
+            Histogram latencies = latencyRecorder.takeIntervalHistogram();
+            IntervalResult result = new IntervalResult(
+                    intervals,
+                    TimeUnit.NANOSECONDS.toMillis(now - startNanos),
+                    intervalOperations,
+                    intervalErrors,
+                    intervalOperations / intervalSeconds,
+                    attempts == 0 ? 0 : intervalErrors * 100.0 / attempts,
+                    latencies.getTotalCount() == 0 ? 0 : latencies.getMean() / 1000.0,
+                    latencies.getValueAtPercentile(50) / 1000.0,
+                    latencies.getValueAtPercentile(95) / 1000.0,
+                    latencies.getValueAtPercentile(99) / 1000.0,
+                    latencies.getMaxValue() / 1000.0);
+            writer.write(result.toCsv());
+            writer.newLine();
+            writer.flush();
+            trendDetector.add(result);
+            intervals++;
+            lastIntervalNanos = now;
+            lastOperations = operations;
+            lastFailures = failures;
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to close soak interval of {}", couchbaseMetrics.getScenarioId(), e);
+        }
+    }
+}
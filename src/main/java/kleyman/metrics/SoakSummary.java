@@ -0,0 +1,14 @@
+package kleyman.metrics;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Outcome of a soak scenario: where its interval results were written and the trends found in them.
+ */
+public record SoakSummary(Path intervalFile, int intervals, List<TrendResult> trends) {
+
+    public boolean hasDetectedTrends() {
+        return trends.stream().anyMatch(TrendResult::detected);
+    }
+}
@@ -0,0 +1,16 @@
+package kleyman.metrics;
+
+/**
+ * Throughput and latency of a scenario over one sampling interval. Latencies are in milliseconds.
+ *
+ * @param elapsedMillis  end of the interval, measured from the start of the scenario
+ * @param intervalMillis length of the interval
+ * @param throughput     successful operations per second
+ * @param operations     operations whose latency was recorded during the interval
+ * @param p50Latency     median latency
+ * @param p99Latency     99th percentile latency
+ * @param maxLatency     highest latency
+ */
+public record TimelinePoint(long elapsedMillis, long intervalMillis, double throughput, long operations,
+                            double p50Latency, double p99Latency, double maxLatency) {
+}
@@ -0,0 +1,96 @@
+package kleyman.metrics;
+
+import java.util.List;
+
+/**
+ * Detects latency drift, throughput decay and a rising error rate over the intervals of a soak scenario.
+ * Each metric is fitted with a least-squares line that is updated interval by interval from running sums,
+ * so detection needs constant memory however many intervals the scenario has. A trend is reported when
+ * the fitted line moves past the metric's threshold between the first and the last interval.
+ */
+public class TrendDetector {
+    /**
+     * Fewer intervals than this are too few to tell a trend from noise.
+     */
+    public static final int MIN_INTERVALS = 6;
+    public static final double LATENCY_DRIFT_PERCENT = 20;
+    public static final double THROUGHPUT_DECAY_PERCENT = 10;
+    public static final double ERROR_RATE_RISE_POINTS = 1;
+    private final LinearFit p99Latency = new LinearFit();
+    private final LinearFit throughput = new LinearFit();
+    private final LinearFit errorRate = new LinearFit();
+
+    public void add(IntervalResult interval) {
+        p99Latency.add(interval.interval(), interval.p99Latency());
+        throughput.add(interval.interval(), interval.throughput());
+        errorRate.add(interval.interval(), interval.errorRate());
+    }
+
+    public List<TrendResult> getTrends() {
+        return List.of(
+                relativeTrend("p99 latency drift", p99Latency, LATENCY_DRIFT_PERCENT),
+                relativeTrend("throughput decay", throughput, -THROUGHPUT_DECAY_PERCENT),
+                absoluteTrend("error rate rise", errorRate, ERROR_RATE_RISE_POINTS));
+    }
+
+    /**
+     * A positive threshold detects increases, a negative one decreases.
+     */
+    private static TrendResult relativeTrend(String metric, LinearFit fit, double thresholdPercent) {
+        double start = fit.startValue();
+        double end = fit.endValue();
+        double change = start <= 0 ? 0 : (end - start) / start * 100;
+        boolean detected = fit.count >= MIN_INTERVALS && (thresholdPercent > 0 ? change > thresholdPercent : change < thresholdPercent);
+        return new TrendResult(metric, start, end, change, detected);
+    }
+
+    private static TrendResult absoluteTrend(String metric, LinearFit fit, double thresholdPoints) {
+        double start = fit.startValue();
+        double end = fit.endValue();
+        double change = end - start;
+        return new TrendResult(metric, start, end, change, fit.count >= MIN_INTERVALS && change > thresholdPoints);
+    }
+
+    private static final class LinearFit {
+        private long count;
+        private double sumX;
+        private double sumY;
+        private double sumXY;
+        private double sumXX;
+        private double firstX;
+        private double lastX;
+
+        void add(double x, double y) {
+            if (count == 0) {
+                firstX = x;
+            }
+            lastX = x;
+            count++;
+            sumX += x;
+            sumY += y;
+            sumXY += x * y;
+            sumXX += x * x;
+        }
+
+        double startValue() {
+            return valueAt(firstX);
+        }
+
+        double endValue() {
+            return valueAt(lastX);
+        }
+
+        private double valueAt(double x) {
+            if (count == 0) {
+                return 0;
+            }
+            double denominator = count * sumXX - sumX * sumX;
+            if (denominator == 0) {
+                return sumY / count;
+            }
+            double slope = (count * sumXY - sumX * sumY) / denominator;
+            double intercept = (sumY - slope * sumX) / count;
+            return intercept + slope * x;
+        }
+    }
+}
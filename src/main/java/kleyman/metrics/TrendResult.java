@@ -0,0 +1,13 @@
+package kleyman.metrics;
+
+/**
+ * A metric's trend over a soak scenario, as the start and end of the line fitted through its interval values.
+ *
+ * @param metric   name of the metric
+ * @param start    fitted value at the first interval
+ * @param end      fitted value at the last interval
+ * @param change   relative change in percent, or the change in percentage points for rates
+ * @param detected whether the change exceeds the metric's threshold
+ */
+public record TrendResult(String metric, double start, double end, double change, boolean detected) {
+}
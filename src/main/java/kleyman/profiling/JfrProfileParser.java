@@ -0,0 +1,106 @@
+package kleyman.profiling;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a JFR recording event by event and aggregates CPU samples, allocation samples and lock contention
+ * by code location, without loading the whole recording into memory.
+ */
+public final class JfrProfileParser {
+    static final int TOP_HOT_SPOTS = 5;
+    private static final String EXECUTION_SAMPLE = "jdk.ExecutionSample";
+    private static final String ALLOCATION_SAMPLE = "jdk.ObjectAllocationSample";
+    private static final String MONITOR_ENTER = "jdk.JavaMonitorEnter";
+    private static final String THREAD_PARK = "jdk.ThreadPark";
+    private static final String UNKNOWN_FRAME = "unknown";
+    private static final String[] PLATFORM_PACKAGES = {"java.", "javax.", "jdk.", "sun.", "com.sun."};
+
+    private JfrProfileParser() {
+    }
+
+    public static ProfileSummary parse(Path recording) throws IOException {
+        Map<String, Long> cpuFrames = new HashMap<>();
+        Map<String, Long> allocationSites = new HashMap<>();
+        Map<String, Long> contention = new HashMap<>();
+        long cpuSamples = 0;
+        long allocatedBytes = 0;
+        try (RecordingFile recordingFile = new RecordingFile(recording)) {
+            while (recordingFile.hasMoreEvents()) {
+                RecordedEvent event = recordingFile.readEvent();
+                switch (event.getEventType().getName()) {
+                    case EXECUTION_SAMPLE -> {
+                        cpuSamples++;
+                        cpuFrames.merge(topFrame(event.getStackTrace()), 1L, Long::sum);
+                    }
+                    case ALLOCATION_SAMPLE -> {
+                        long weight = event.getLong("weight");
+                        allocatedBytes += weight;
+                        allocationSites.merge(applicationFrame(event.getStackTrace()), weight, Long::sum);
+                    }
+                    case MONITOR_ENTER, THREAD_PARK ->
+                            contention.merge(applicationFrame(event.getStackTrace()), event.getDuration().toNanos(), Long::sum);
+                    default -> {
+                    }
+                }
+            }
+        }
+        return new ProfileSummary(recording, cpuSamples, top(cpuFrames), allocatedBytes, top(allocationSites), top(contention));
+    }
+
+    private static List<ProfileHotSpot> top(Map<String, Long> values) {
+        return values.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(TOP_HOT_SPOTS)
+                .map(entry -> new ProfileHotSpot(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    private static String topFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return UNKNOWN_FRAME;
+        }
+        return format(stackTrace.getFrames().get(0));
+    }
+
+    /**
+     * Returns the first frame outside the platform libraries, since the top frame of an allocation or a park
+     * is almost always inside the JDK, or the top frame if the whole stack is platform code.
+     */
+    private static String applicationFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return UNKNOWN_FRAME;
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (frame.isJavaFrame() && !isPlatformFrame(frame)) {
+                return format(frame);
+            }
+        }
+        return format(stackTrace.getFrames().get(0));
+    }
+
+    private static boolean isPlatformFrame(RecordedFrame frame) {
+        String className = frame.getMethod().getType().getName();
+        for (String platformPackage : PLATFORM_PACKAGES) {
+            if (className.startsWith(platformPackage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String format(RecordedFrame frame) {
+        String className = frame.getMethod().getType().getName();
+        String simpleName = className.substring(className.lastIndexOf('.') + 1);
+        return simpleName + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
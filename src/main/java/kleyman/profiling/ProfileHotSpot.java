@@ -0,0 +1,10 @@
+package kleyman.profiling;
+
+/**
+ * A code location and how much of a profiled resource it accounted for.
+ *
+ * @param location class, method and line of the frame
+ * @param value    execution samples, sampled bytes allocated or nanoseconds spent waiting, depending on the list
+ */
+public record ProfileHotSpot(String location, long value) {
+}
@@ -0,0 +1,19 @@
+package kleyman.profiling;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Hot spots of a scenario extracted from its JFR recording, each list busiest first.
+ *
+ * @param recording       the recording file the summary was extracted from
+ * @param cpuSamples      total execution samples
+ * @param cpuFrames       top frames of the execution samples, valued in samples
+ * @param allocatedBytes  total sampled allocation weight in bytes
+ * @param allocationSites first application frames of the allocation samples, valued in bytes
+ * @param contention      first application frames blocked on a monitor or parked on a lock, valued in nanoseconds
+ */
+public record ProfileSummary(Path recording, long cpuSamples, List<ProfileHotSpot> cpuFrames,
+                             long allocatedBytes, List<ProfileHotSpot> allocationSites,
+                             List<ProfileHotSpot> contention) {
+}
@@ -0,0 +1,110 @@
+package kleyman.profiling;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import kleyman.metrics.CouchbaseMetrics;
+import kleyman.results.ResultExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * Records a scenario with JDK Flight Recorder and, when closed, saves the recording and attaches a
+ * {@link ProfileSummary} of its hot spots to the scenario's metrics.
+ * The settings are either the name of a built-in configuration ({@code default} or {@code profile})
+ * or the path of a {@code .jfc} file; {@value #DISABLED} turns profiling off.
+ * Soak scenarios are recorded with {@link #startRolling}, which keeps only the most recent part of the recording
+ * on disk, so a scenario running for days does not fill the disk.
+ */
+public class ScenarioProfiler implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ScenarioProfiler.class);
+    public static final String DISABLED = "none";
+    // Part of a rolling recording kept on disk and summarized once the scenario ends
+    static final Duration ROLLING_MAX_AGE = Duration.ofHours(1);
+    static final long ROLLING_MAX_SIZE_BYTES = 256L << 20;
+    private final CouchbaseMetrics couchbaseMetrics;
+    private final Recording recording;
+    private final Path recordingFile;
+
+    private ScenarioProfiler(CouchbaseMetrics couchbaseMetrics, Recording recording, Path recordingFile) {
+        this.couchbaseMetrics = couchbaseMetrics;
+        this.recording = recording;
+        this.recordingFile = recordingFile;
+    }
+
+    /**
+     * Starts recording the scenario. If profiling is disabled or the recording cannot be started,
+     * the returned profiler does nothing.
+     *
+     * The recording is saved to {@code scenario-N.jfr}, with a {@code -trial-K} suffix for later trials.
+     *
+     * @param couchbaseMetrics metrics of the scenario the summary is attached to
+     * @param trial            trial of the scenario, from 1
+     * @param settings         built-in configuration name, {@code .jfc} path or {@value #DISABLED}
+     * @param directory        directory the recording is saved to
+     */
+    public static ScenarioProfiler start(CouchbaseMetrics couchbaseMetrics, int trial, String settings, Path directory) {
+        return start(couchbaseMetrics, trial, settings, directory, false);
+    }
+
+    /**
+     * Starts recording the scenario like {@link #start}, keeping only the last hour of the recording,
+     * at most 256 MB, which is what is saved and summarized when the profiler is closed.
+     */
+    public static ScenarioProfiler startRolling(CouchbaseMetrics couchbaseMetrics, int trial, String settings, Path directory) {
+        return start(couchbaseMetrics, trial, settings, directory, true);
+    }
+
+    private static ScenarioProfiler start(CouchbaseMetrics couchbaseMetrics, int trial, String settings, Path directory, boolean rolling) {
+        if (DISABLED.equalsIgnoreCase(settings)) {
+            return new ScenarioProfiler(couchbaseMetrics, null, null);
+        }
+        try {
+            Recording recording = new Recording(loadConfiguration(settings));
+            recording.setName(couchbaseMetrics.getScenarioId());
+            recording.setToDisk(true);
+            if (rolling) {
+                recording.setMaxAge(ROLLING_MAX_AGE);
+                recording.setMaxSize(ROLLING_MAX_SIZE_BYTES);
+            }
+            Files.createDirectories(directory);
+            Path recordingFile = directory.resolve(ResultExporter.baseName(couchbaseMetrics.getScenarioId(), trial) + ".jfr");
+            recording.start();
+            logger.info("Started JFR recording of {} with {} settings", couchbaseMetrics.getScenarioId(), settings);
+            return new ScenarioProfiler(couchbaseMetrics, recording, recordingFile);
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            logger.warn("Failed to start JFR recording of {} with {} settings", couchbaseMetrics.getScenarioId(), settings, e);
+            return new ScenarioProfiler(couchbaseMetrics, null, null);
+        }
+    }
+
+    /**
+     * Stops the recording, saves it and attaches its summary to the scenario's metrics.
+     */
+    @Override
+    public void close() {
+        if (recording == null) {
+            return;
+        }
+        try (recording) {
+            recording.stop();
+            recording.dump(recordingFile);
+            logger.info("Saved JFR recording of {} to {}", couchbaseMetrics.getScenarioId(), recordingFile);
+            couchbaseMetrics.recordProfile(JfrProfileParser.parse(recordingFile));
+        } catch (IOException | IllegalStateException e) {
+            logger.warn("Failed to save or parse JFR recording of {}", couchbaseMetrics.getScenarioId(), e);
+        }
+    }
+
+    private static Configuration loadConfiguration(String settings) throws IOException, ParseException {
+        if (settings.endsWith(".jfc")) {
+            return Configuration.create(Path.of(settings));
+        }
+        return Configuration.getConfiguration(settings);
+    }
+}
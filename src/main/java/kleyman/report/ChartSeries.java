@@ -0,0 +1,12 @@
+package kleyman.report;
+
+/**
+ * Data series of a chart slide.
+ *
+ * @param name name shown in the legend
+ * @param x    x values
+ * @param y    y values, one per x value
+ * @param line whether the points are joined by a line without markers, instead of drawn as markers only
+ */
+public record ChartSeries(String name, double[] x, double[] y, boolean line) {
+}
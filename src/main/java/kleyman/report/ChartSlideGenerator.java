@@ -0,0 +1,182 @@
+package kleyman.report;
+
+import kleyman.capacity.ScalabilitySeries;
+import kleyman.capacity.UslModel;
+import kleyman.metrics.TimelinePoint;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xddf.usermodel.XDDFLineProperties;
+import org.apache.poi.xddf.usermodel.XDDFNoFillProperties;
+import org.apache.poi.xddf.usermodel.XDDFShapeProperties;
+import org.apache.poi.xddf.usermodel.chart.AxisCrosses;
+import org.apache.poi.xddf.usermodel.chart.AxisPosition;
+import org.apache.poi.xddf.usermodel.chart.ChartTypes;
+import org.apache.poi.xddf.usermodel.chart.LegendPosition;
+import org.apache.poi.xddf.usermodel.chart.MarkerStyle;
+import org.apache.poi.xddf.usermodel.chart.ScatterStyle;
+import org.apache.poi.xddf.usermodel.chart.XDDFDataSourcesFactory;
+import org.apache.poi.xddf.usermodel.chart.XDDFNumericalDataSource;
+import org.apache.poi.xddf.usermodel.chart.XDDFScatterChartData;
+import org.apache.poi.xddf.usermodel.chart.XDDFValueAxis;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFChart;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Color;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates slides with native PowerPoint charts, whose data is embedded in the presentation
+ * so the charts stay editable.
+ */
+public class ChartSlideGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(ChartSlideGenerator.class);
+    private static final Rectangle2D CHART_ANCHOR = new Rectangle2D.Double(40, 60, 640, 440);
+    private static final Rectangle2D UPPER_CHART_ANCHOR = new Rectangle2D.Double(40, 50, 640, 235);
+    private static final Rectangle2D LOWER_CHART_ANCHOR = new Rectangle2D.Double(40, 295, 640, 235);
+    private static final int DISTRIBUTION_SERIES_PER_CHART = 6;
+    private static final int FITTED_CURVE_POINTS = 50;
+    private final MetricsTableDataGenerator metricsTableGenerator;
+
+    public ChartSlideGenerator() {
+        this.metricsTableGenerator = new MetricsTableDataGenerator();
+    }
+
+    /**
+     * Creates one slide per fitted scalability series, plotting the measured throughput against the
+     * Universal Scalability Law curve, which is extended past the measured thread counts up to the predicted peak.
+     */
+    public void createScalabilityChartSlides(XMLSlideShow ppt) {
+        logger.info("Creating Scalability chart slides...");
+        for (ScalabilitySeries series : metricsTableGenerator.generateScalabilitySeries()) {
+            UslModel model = series.model();
+            if (model == null) {
+                continue;
+            }
+            double maxMeasured = Arrays.stream(series.concurrency()).max().orElse(1);
+            double maxConcurrency = Math.max(maxMeasured, Math.min(model.peakConcurrency() * 1.5, maxMeasured * 4));
+            double[] fittedConcurrency = new double[FITTED_CURVE_POINTS];
+            double[] fittedThroughput = new double[FITTED_CURVE_POINTS];
+            for (int i = 0; i < FITTED_CURVE_POINTS; i++) {
+                fittedConcurrency[i] = 1 + (maxConcurrency - 1) * i / (FITTED_CURVE_POINTS - 1);
+                fittedThroughput[i] = model.throughputAt(fittedConcurrency[i]);
+            }
+            XSLFSlide slide = PPTXReportGenerator.initializeXSLFSlide(ppt);
+            PPTXReportGenerator.createTextBox(slide, "Scalability: " + series.label(), 24.0, Color.BLACK, 0, true);
+            addScatterChart(ppt, slide, "Threads", "Throughput (ops/s)", List.of(
+                    new ChartSeries("Measured", series.concurrency(), series.throughput(), false),
+                    new ChartSeries("USL fit", fittedConcurrency, fittedThroughput, true)));
+        }
+        logger.info("Scalability chart slides creation complete.");
+    }
+
+    /**
+     * Creates one chart of the measured throughput against threads of every scalability series, so the series
+     * can be compared on the same axes.
+     */
+    public void createThroughputVsThreadsChartSlide(XMLSlideShow ppt) {
+        List<ChartSeries> seriesList = metricsTableGenerator.generateScalabilitySeries().stream()
+                .map(series -> new ChartSeries(series.label(), series.concurrency(), series.throughput(), true))
+                .toList();
+        if (seriesList.isEmpty()) {
+            return;
+        }
+        logger.info("Creating Throughput vs Threads chart slide...");
+        XSLFSlide slide = PPTXReportGenerator.initializeXSLFSlide(ppt);
+        PPTXReportGenerator.createTextBox(slide, "Throughput vs Threads", 24.0, Color.BLACK, 0, true);
+        addScatterChart(ppt, slide, "Threads", "Throughput (ops/s)", seriesList);
+    }
+
+    /**
+     * Creates the latency distribution curves of all scenarios, up to six scenarios per chart. The x axis counts
+     * the nines of the percentile, so 1 is p90, 2 is p99 and 3 is p99.9.
+     */
+    public void createLatencyDistributionChartSlides(XMLSlideShow ppt) {
+        logger.info("Creating Latency Distribution chart slides...");
+        List<ChartSeries> seriesList = metricsTableGenerator.generateLatencyDistributionSeries();
+        int charts = (seriesList.size() + DISTRIBUTION_SERIES_PER_CHART - 1) / DISTRIBUTION_SERIES_PER_CHART;
+        for (int chart = 0; chart < charts; chart++) {
+            int from = chart * DISTRIBUTION_SERIES_PER_CHART;
+            List<ChartSeries> page = seriesList.subList(from, Math.min(from + DISTRIBUTION_SERIES_PER_CHART, seriesList.size()));
+            XSLFSlide slide = PPTXReportGenerator.initializeXSLFSlide(ppt);
+            String title = charts > 1 ? "Latency Distribution (" + (chart + 1) + "/" + charts + ")" : "Latency Distribution";
+            PPTXReportGenerator.createTextBox(slide, title, 24.0, Color.BLACK, 0, true);
+            addScatterChart(ppt, slide, "Percentile (nines: 1 = p90, 2 = p99, 3 = p99.9)", "Latency (ms)", page);
+        }
+        logger.info("Latency Distribution chart slides creation complete.");
+    }
+
+    /**
+     * Creates one slide per sampled scenario with its throughput over time above its median and p99 latency over time.
+     */
+    public void createTimelineChartSlides(XMLSlideShow ppt) {
+        logger.info("Creating Timeline chart slides...");
+        for (Map.Entry<String, List<TimelinePoint>> timeline : metricsTableGenerator.generateTimelines().entrySet()) {
+            List<TimelinePoint> points = timeline.getValue();
+            double[] elapsedSeconds = points.stream().mapToDouble(point -> point.elapsedMillis() / 1000.0).toArray();
+            XSLFSlide slide = PPTXReportGenerator.initializeXSLFSlide(ppt);
+            PPTXReportGenerator.createTextBox(slide, "Throughput and Latency over Time: " + timeline.getKey(), 20.0, Color.BLACK, 0, true);
+            addScatterChart(ppt, slide, UPPER_CHART_ANCHOR, "Elapsed (s)", "Throughput (ops/s)", List.of(
+                    new ChartSeries("Throughput", elapsedSeconds, points.stream().mapToDouble(TimelinePoint::throughput).toArray(), true)));
+            addScatterChart(ppt, slide, LOWER_CHART_ANCHOR, "Elapsed (s)", "Latency (ms)", List.of(
+                    new ChartSeries("p50", elapsedSeconds, points.stream().mapToDouble(TimelinePoint::p50Latency).toArray(), true),
+                    new ChartSeries("p99", elapsedSeconds, points.stream().mapToDouble(TimelinePoint::p99Latency).toArray(), true)));
+        }
+        logger.info("Timeline chart slides creation complete.");
+    }
+
+    /**
+     * Adds a scatter chart filling the slide below its title, see
+     * {@link #addScatterChart(XMLSlideShow, XSLFSlide, Rectangle2D, String, String, List)}.
+     */
+    static void addScatterChart(XMLSlideShow ppt, XSLFSlide slide, String xTitle, String yTitle, List<ChartSeries> seriesList) {
+        addScatterChart(ppt, slide, CHART_ANCHOR, xTitle, yTitle, seriesList);
+    }
+
+    /**
+     * Adds a scatter chart with numeric x and y axes at the given position. The data of every series is written
+     * to the chart's embedded workbook, two columns per series.
+     */
+    static void addScatterChart(XMLSlideShow ppt, XSLFSlide slide, Rectangle2D anchor, String xTitle, String yTitle,
+                                List<ChartSeries> seriesList) {
+        XSLFChart chart = ppt.createChart();
+        slide.addChart(chart, anchor);
+        XDDFValueAxis xAxis = chart.createValueAxis(AxisPosition.BOTTOM);
+        xAxis.setTitle(xTitle);
+        XDDFValueAxis yAxis = chart.createValueAxis(AxisPosition.LEFT);
+        yAxis.setTitle(yTitle);
+        yAxis.setCrosses(AxisCrosses.AUTO_ZERO);
+        XDDFScatterChartData data = (XDDFScatterChartData) chart.createData(ChartTypes.SCATTER, xAxis, yAxis);
+        data.setStyle(ScatterStyle.LINE_MARKER);
+        data.setVaryColors(false);
+        int column = 0;
+        for (ChartSeries chartSeries : seriesList) {
+            XDDFNumericalDataSource<Double> x = XDDFDataSourcesFactory.fromArray(box(chartSeries.x()),
+                    chart.formatRange(new CellRangeAddress(1, chartSeries.x().length, column, column)), column);
+            XDDFNumericalDataSource<Double> y = XDDFDataSourcesFactory.fromArray(box(chartSeries.y()),
+                    chart.formatRange(new CellRangeAddress(1, chartSeries.y().length, column + 1, column + 1)), column + 1);
+            XDDFScatterChartData.Series series = (XDDFScatterChartData.Series) data.addSeries(x, y);
+            series.setTitle(chartSeries.name(), chart.setSheetTitle(chartSeries.name(), column + 1));
+            series.setSmooth(false);
+            if (chartSeries.line()) {
+                series.setMarkerStyle(MarkerStyle.NONE);
+            } else {
+                series.setMarkerStyle(MarkerStyle.CIRCLE);
+                XDDFShapeProperties noLine = new XDDFShapeProperties();
+                noLine.setLineProperties(new XDDFLineProperties(new XDDFNoFillProperties()));
+                series.setShapeProperties(noLine);
+            }
+            column += 2;
+        }
+        chart.plot(data);
+        chart.getOrAddLegend().setPosition(LegendPosition.BOTTOM);
+    }
+
+    private static Double[] box(double[] values) {
+        return Arrays.stream(values).boxed().toArray(Double[]::new);
+    }
+}
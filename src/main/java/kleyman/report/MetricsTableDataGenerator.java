@@ -1,12 +1,42 @@
 package kleyman.report;
 
+import com.couchbase.client.core.msg.kv.DurabilityLevel;
+import kleyman.capacity.ScalabilitySeries;
+import kleyman.capacity.UslModel;
 import kleyman.loadtest.CouchbaseLoadTestScenarioProvider;
+import kleyman.metrics.CasContentionMetrics;
+import kleyman.metrics.ClientResourceMetrics;
 import kleyman.metrics.CouchbaseMetrics;
 import kleyman.metrics.MetricManager;
+import kleyman.metrics.OperationType;
+import kleyman.metrics.PartitionMetrics;
+import kleyman.metrics.ReplicaConsistencyMetrics;
+import kleyman.metrics.RequestPhase;
+import kleyman.metrics.RequestPhaseMetrics;
+import kleyman.metrics.SlowOperation;
+import kleyman.metrics.SoakSummary;
+import kleyman.metrics.TimelinePoint;
+import kleyman.metrics.TrendResult;
+import kleyman.profiling.ProfileHotSpot;
+import kleyman.profiling.ProfileSummary;
+import kleyman.results.RunResult;
+import kleyman.results.TrialStatistics;
+import org.HdrHistogram.Histogram;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.LongFunction;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
 
 /**
  * The {@code MetricsTableGenerator} class is responsible for generating
@@ -26,6 +56,19 @@ public class MetricsTableDataGenerator {
     private static final int THREAD_POOL_END_INDEX = 12;
     private static final int CONNECTION_POOL_START_INDEX = 13;
     private static final int CONNECTION_POOL_END_INDEX = 15;
+    private static final int SUB_DOCUMENT_START_INDEX = 16;
+    private static final int SUB_DOCUMENT_END_INDEX = 17;
+    private static final int DURABILITY_START_INDEX = 18;
+    private static final int REPLICA_READ_START_INDEX = 22;
+    private static final int REPLICA_READ_END_INDEX = 23;
+    private static final int CAS_CONTENTION_START_INDEX = 24;
+    private static final int CAS_CONTENTION_END_INDEX = 29;
+    private static final int[] CAS_HOT_SET_SIZES = CouchbaseLoadTestScenarioProvider.CAS_HOT_SET_SIZES;
+    private static final int COUNTER_START_INDEX = CouchbaseLoadTestScenarioProvider.COUNTER_FIRST_SCENARIO;
+    private static final int COUNTER_END_INDEX = CouchbaseLoadTestScenarioProvider.BINARY_FIRST_SCENARIO - 1;
+    private static final int BINARY_START_INDEX = CouchbaseLoadTestScenarioProvider.BINARY_FIRST_SCENARIO;
+    private static final int[] BINARY_PAYLOAD_BYTES = CouchbaseLoadTestScenarioProvider.BINARY_PAYLOAD_BYTES;
+    private static final DurabilityLevel[] DURABILITY_LEVELS = CouchbaseLoadTestScenarioProvider.DURABILITY_LEVELS;
     private static final int[] CONNECTION_POOL_SIZE = CouchbaseLoadTestScenarioProvider.CONNECTION_POOL_SIZE;
     private int connectionsCounter = 0;
     private static final String[] HEADERS = {
@@ -38,10 +81,175 @@ public class MetricsTableDataGenerator {
             "Overall Average Response Time (ms)"
     };
 
+    private static final String[] SUB_DOCUMENT_HEADERS = {
+            "Scenario ID",
+            "Operation",
+            "Successful Operations",
+            "Average Latency (ms)",
+            "Average Payload (bytes)"
+    };
+    private static final OperationType[] SUB_DOCUMENT_OPERATIONS = {
+            OperationType.LOOKUP_IN,
+            OperationType.MUTATE_IN,
+            OperationType.SUBDOC_COUNTER,
+            OperationType.SUBDOC_ARRAY_APPEND
+    };
+
+    private static final String[] DURABILITY_HEADERS = {
+            "Scenario ID",
+            "Durability Level",
+            "PUT Throughput (ops/s)",
+            "PUT p50 Latency (ms)",
+            "PUT p95 Latency (ms)",
+            "PUT p99 Latency (ms)",
+            "Average PUT Latency (ms)"
+    };
+
+    private static final String[] REPLICA_READ_HEADERS = {
+            "Scenario ID",
+            "Active GET Avg (ms)",
+            "Any Replica GET Avg (ms)",
+            "Any Replica GET p99 (ms)",
+            "All Replicas GET Avg (ms)",
+            "Served By Replica (%)",
+            "Stale Reads (%)",
+            "Replication Lag p50 (ms)",
+            "Replication Lag p99 (ms)",
+            "Lag Timeouts"
+    };
+
+    private static final String[] CAS_CONTENTION_HEADERS = {
+            "Scenario ID",
+            "Update Throughput (ops/s)",
+            "CAS Mismatch Rate (%)",
+            "Retries Per Update",
+            "Abandoned Updates",
+            "Average GET Latency (ms)",
+            "Average REPLACE Latency (ms)"
+    };
+
+    private static final String[] SMALL_OPERATION_HEADERS = {
+            "Scenario ID",
+            "Operation",
+            "Successful Operations",
+            "Throughput (ops/s)",
+            "Average Latency (ms)",
+            "p99 Latency (ms)"
+    };
+    private static final OperationType[] COUNTER_OPERATIONS = {
+            OperationType.COUNTER_INCREMENT,
+            OperationType.COUNTER_DECREMENT
+    };
+    private static final OperationType[] BINARY_OPERATIONS = {
+            OperationType.BINARY_UPSERT,
+            OperationType.BINARY_GET,
+            OperationType.BINARY_APPEND,
+            OperationType.BINARY_PREPEND
+    };
+
+    private static final String[] REQUEST_PHASE_HEADERS = {
+            "Scenario ID",
+            "Encode Avg (ms)",
+            "Queue Avg (ms)",
+            "Network Avg (ms)",
+            "Server Avg (ms)",
+            "Decode Avg (ms)",
+            "Queue p99 (ms)",
+            "Server p99 (ms)"
+    };
+
+    private static final String[] PARTITION_HEADERS = {
+            "Scenario ID",
+            "Nodes",
+            "Busiest Node Share (%)",
+            "Hot vBuckets",
+            "Hottest vBucket",
+            "Hottest vBucket Share (%)",
+            "Hottest vBucket Avg (ms)"
+    };
+    private static final int MAX_PARTITION_ROWS = 12;
+    private static final String[] CLIENT_RESOURCE_HEADERS = {
+            "Scenario ID",
+            "Avg Client CPU (%)",
+            "Max Client CPU (%)",
+            "GC Time (%)",
+            "Allocation (MB/s)",
+            "Max Blocked Threads",
+            "Client Limited"
+    };
+
+    private static final String[] PROFILE_HEADERS = {
+            "Scenario ID",
+            "Top CPU Frames (% samples)",
+            "Top Allocation Sites (MB)",
+            "Lock Contention (ms)"
+    };
+    private static final int PROFILE_HOT_SPOTS_PER_CELL = 3;
+    private static final String[] SLOW_OPERATION_HEADERS = {
+            "Scenario ID",
+            "Operation",
+            "Key",
+            "vBucket",
+            "Thread",
+            "Time",
+            "Latency (ms)",
+            "Document (bytes)",
+            "Error"
+    };
+    private static final int MAX_SLOW_OPERATION_ROWS = 12;
+    private static final int MAX_SLOW_OPERATION_KEY_CHARACTERS = 40;
+    private static final DateTimeFormatter SLOW_OPERATION_TIME_FORMAT =
+            DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+    private static final String[] SOAK_TREND_HEADERS = {
+            "Scenario ID",
+            "Metric",
+            "Start",
+            "End",
+            "Change",
+            "Detected"
+    };
+
+    private static final String[] TRIAL_HEADERS = {
+            "Scenario ID",
+            "Trials",
+            "Mean TPS",
+            "TPS 95% CI",
+            "Mean Response Time (ms)",
+            "Response Time 95% CI (ms)"
+    };
+    private static final String[] KEY_SHARING_HEADERS = {
+            "Scenarios (Unique vs Shared)",
+            "Unique Keys Mean TPS",
+            "Shared Keys Mean TPS",
+            "Difference (%)",
+            "p-value",
+            "Significant"
+    };
+    private static final double SIGNIFICANCE_LEVEL = 0.05;
+    // First scenario of each thread pool series with the same payload and key type
+    private static final int[] THREAD_POOL_SERIES_STARTS = {1, 2, 7, 8};
+    private static final int THREAD_POOL_SERIES_STEP = 2;
+    // Thread counts a series needs to be charted at all
+    private static final int MIN_SCALABILITY_POINTS = 2;
+    private static final int CONCURRENCY_SWEEP_START_INDEX = CouchbaseLoadTestScenarioProvider.CONCURRENCY_SWEEP_FIRST_SCENARIO;
+    private static final String[] SCALABILITY_HEADERS = {
+            "Series",
+            "Threads Measured",
+            "λ (ops/s per thread)",
+            "σ (contention)",
+            "κ (coherency)",
+            "Peak Threads",
+            "Peak Throughput (ops/s)"
+    };
+    // Percentiles of the latency distribution curves, plotted by their number of nines, see #toNines(double)
+    private static final double[] DISTRIBUTION_PERCENTILES = {0, 50, 75, 90, 95, 99, 99.5, 99.9, 99.95, 99.99, 99.999};
+
     private final Map<String, CouchbaseMetrics> metricsMap;
+    private final Map<String, List<CouchbaseMetrics>> trialsMap;
 
     public MetricsTableDataGenerator() {
         this.metricsMap = MetricManager.metricsMap;
+        this.trialsMap = MetricManager.trialsMap;
     }
 
     public String[][] generateThreadPoolMetricsTableData() {
@@ -52,6 +260,615 @@ public class MetricsTableDataGenerator {
         return generateMetricsTableDataForScenarioType(CONNECTION_POOL_START_INDEX, CONNECTION_POOL_END_INDEX, CONNECTION_POOL_SIZE);
     }
 
+    /**
+     * Generates one row per operation of each sub-document scenario: the full-document GET and PUT
+     * followed by the sub-document operations performed on the same payload.
+     */
+    public String[][] generateSubDocumentMetricsTableData() {
+        logger.debug("Generating sub-document metrics table data for scenarios {} to {}", SUB_DOCUMENT_START_INDEX, SUB_DOCUMENT_END_INDEX);
+        int rowsPerScenario = SUB_DOCUMENT_OPERATIONS.length + 2;
+        String[][] tableData = new String[(SUB_DOCUMENT_END_INDEX - SUB_DOCUMENT_START_INDEX + 1) * rowsPerScenario + 1][SUB_DOCUMENT_HEADERS.length];
+        System.arraycopy(SUB_DOCUMENT_HEADERS, 0, tableData[0], 0, SUB_DOCUMENT_HEADERS.length);
+
+        int rowIndex = 1;
+        for (int i = SUB_DOCUMENT_START_INDEX; i <= SUB_DOCUMENT_END_INDEX; i++) {
+            String scenarioId = "Scenario " + i;
+            CouchbaseMetrics metrics = metricsMap.get(scenarioId);
+            if (metrics != null) {
+                String scenarioLabel = scenarioId + ": " + getJsonSize(metrics);
+                tableData[rowIndex++] = new String[]{scenarioLabel, "GET (full document)",
+                        String.valueOf(metrics.getGetSuccessCounter().count()),
+                        String.format("%.2f", metrics.getAverageGetLatency()),
+                        String.format("%.0f", metrics.getAverageGetPayloadBytes())};
+                tableData[rowIndex++] = new String[]{scenarioLabel, "PUT (full document)",
+                        String.valueOf(metrics.getPutSuccessCounter().count()),
+                        String.format("%.2f", metrics.getAveragePutLatency()),
+                        String.format("%.0f", metrics.getAveragePutPayloadBytes())};
+                for (OperationType operationType : SUB_DOCUMENT_OPERATIONS) {
+                    tableData[rowIndex++] = new String[]{scenarioLabel, operationType.getDisplayName(),
+                            String.valueOf(metrics.getSuccessfulOperations(operationType)),
+                            String.format("%.2f", metrics.getAverageLatency(operationType)),
+                            String.format("%.0f", metrics.getAveragePayloadBytes(operationType))};
+                }
+            } else {
+                logger.warn("No metrics found for {}", scenarioId);
+            }
+        }
+        logger.debug("Sub-document metrics table data generation completed with {} rows.", rowIndex);
+        return tableData;
+    }
+
+    /**
+     * Generates one row per durability level with wall-clock PUT throughput and PUT latency percentiles.
+     */
+    public String[][] generateDurabilityMetricsTableData() {
+        logger.debug("Generating durability metrics table data for {} levels", DURABILITY_LEVELS.length);
+        String[][] tableData = new String[DURABILITY_LEVELS.length + 1][DURABILITY_HEADERS.length];
+        System.arraycopy(DURABILITY_HEADERS, 0, tableData[0], 0, DURABILITY_HEADERS.length);
+
+        int rowIndex = 1;
+        for (int i = 0; i < DURABILITY_LEVELS.length; i++) {
+            String scenarioId = "Scenario " + (DURABILITY_START_INDEX + i);
+            CouchbaseMetrics metrics = metricsMap.get(scenarioId);
+            if (metrics != null) {
+                tableData[rowIndex][0] = scenarioId + ": threads=" + formatThreads(metrics) + "," + getJsonSize(metrics);
+                tableData[rowIndex][1] = DURABILITY_LEVELS[i].name();
+                tableData[rowIndex][2] = String.format("%.2f", metrics.getPutThroughput());
+                tableData[rowIndex][3] = String.format("%.2f", metrics.getPutLatencyPercentile(0.5));
+                tableData[rowIndex][4] = String.format("%.2f", metrics.getPutLatencyPercentile(0.95));
+                tableData[rowIndex][5] = String.format("%.2f", metrics.getPutLatencyPercentile(0.99));
+                tableData[rowIndex][6] = String.format("%.2f", metrics.getAveragePutLatency());
+                rowIndex++;
+            } else {
+                logger.warn("No metrics found for {}", scenarioId);
+            }
+        }
+        logger.debug("Durability metrics table data generation completed with {} rows.", rowIndex);
+        return tableData;
+    }
+
+    /**
+     * Generates one row per replica read scenario comparing active and replica read latency,
+     * the share of stale replica reads and the observed replication lag.
+     */
+    public String[][] generateReplicaReadMetricsTableData() {
+        logger.debug("Generating replica read metrics table data for scenarios {} to {}", REPLICA_READ_START_INDEX, REPLICA_READ_END_INDEX);
+        String[][] tableData = new String[REPLICA_READ_END_INDEX - REPLICA_READ_START_INDEX + 2][REPLICA_READ_HEADERS.length];
+        System.arraycopy(REPLICA_READ_HEADERS, 0, tableData[0], 0, REPLICA_READ_HEADERS.length);
+
+        int rowIndex = 1;
+        for (int i = REPLICA_READ_START_INDEX; i <= REPLICA_READ_END_INDEX; i++) {
+            String scenarioId = "Scenario " + i;
+            CouchbaseMetrics metrics = metricsMap.get(scenarioId);
+            if (metrics != null) {
+                ReplicaConsistencyMetrics replicaMetrics = metrics.getReplicaConsistencyMetrics();
+                tableData[rowIndex][0] = scenarioId + ": threads=" + formatThreads(metrics) + "," + getJsonSize(metrics);
+                tableData[rowIndex][1] = String.format("%.2f", metrics.getAverageGetLatency());
+                tableData[rowIndex][2] = String.format("%.2f", metrics.getAverageLatency(OperationType.REPLICA_GET_ANY));
+                tableData[rowIndex][3] = String.format("%.2f", metrics.getLatencyPercentile(OperationType.REPLICA_GET_ANY, 0.99));
+                tableData[rowIndex][4] = String.format("%.2f", metrics.getAverageLatency(OperationType.REPLICA_GET_ALL));
+                tableData[rowIndex][5] = String.format("%.2f", replicaMetrics.getReplicaServedRate());
+                tableData[rowIndex][6] = String.format("%.2f", replicaMetrics.getStaleReadRate());
+                tableData[rowIndex][7] = String.format("%.2f", replicaMetrics.getReplicationLagPercentile(0.5));
+                tableData[rowIndex][8] = String.format("%.2f", replicaMetrics.getReplicationLagPercentile(0.99));
+                tableData[rowIndex][9] = String.valueOf((long) replicaMetrics.getLagTimeoutCounter().count());
+                rowIndex++;
+            } else {
+                logger.warn("No metrics found for {}", scenarioId);
+            }
+        }
+        logger.debug("Replica read metrics table data generation completed with {} rows.", rowIndex);
+        return tableData;
+    }
+
+    /**
+     * Generates one row per CAS contention scenario, ordered by hot set size and then by thread count,
+     * with the applied update throughput and how often updates collided.
+     */
+    public String[][] generateCasContentionMetricsTableData() {
+        logger.debug("Generating CAS contention metrics table data for scenarios {} to {}", CAS_CONTENTION_START_INDEX, CAS_CONTENTION_END_INDEX);
+        int scenariosPerHotSet = (CAS_CONTENTION_END_INDEX - CAS_CONTENTION_START_INDEX + 1) / CAS_HOT_SET_SIZES.length;
+        String[][] tableData = new String[CAS_CONTENTION_END_INDEX - CAS_CONTENTION_START_INDEX + 2][CAS_CONTENTION_HEADERS.length];
+        System.arraycopy(CAS_CONTENTION_HEADERS, 0, tableData[0], 0, CAS_CONTENTION_HEADERS.length);
+
+        int rowIndex = 1;
+        for (int i = CAS_CONTENTION_START_INDEX; i <= CAS_CONTENTION_END_INDEX; i++) {
+            String scenarioId = "Scenario " + i;
+            CouchbaseMetrics metrics = metricsMap.get(scenarioId);
+            if (metrics != null) {
+                CasContentionMetrics casMetrics = metrics.getCasContentionMetrics();
+                int hotSetSize = CAS_HOT_SET_SIZES[(i - CAS_CONTENTION_START_INDEX) / scenariosPerHotSet];
+                tableData[rowIndex][0] = scenarioId + ": threads=" + formatThreads(metrics) + ",hot keys=" + hotSetSize;
+                tableData[rowIndex][1] = String.format("%.2f", metrics.getCasUpdateThroughput());
+                tableData[rowIndex][2] = String.format("%.2f", casMetrics.getMismatchRate());
+                tableData[rowIndex][3] = String.format("%.2f", casMetrics.getAverageRetriesPerUpdate());
+                tableData[rowIndex][4] = String.valueOf((long) casMetrics.getAbandonedCounter().count());
+                tableData[rowIndex][5] = String.format("%.2f", metrics.getAverageLatency(OperationType.CAS_GET));
+                tableData[rowIndex][6] = String.format("%.2f", metrics.getAverageLatency(OperationType.CAS_REPLACE));
+                rowIndex++;
+            } else {
+                logger.warn("No metrics found for {}", scenarioId);
+            }
+        }
+        logger.debug("CAS contention metrics table data generation completed with {} rows.", rowIndex);
+        return tableData;
+    }
+
+    /**
+     * Generates one row per operation of the counter and the binary scenarios,
+     * with per-operation throughput and latency of these small, high-frequency operations.
+     */
+    public String[][] generateCounterAndBinaryMetricsTableData() {
+        int counterRows = (COUNTER_END_INDEX - COUNTER_START_INDEX + 1) * COUNTER_OPERATIONS.length;
+        int binaryRows = BINARY_PAYLOAD_BYTES.length * BINARY_OPERATIONS.length;
+        logger.debug("Generating counter and binary metrics table data for {} rows", counterRows + binaryRows);
+        String[][] tableData = new String[counterRows + binaryRows + 1][SMALL_OPERATION_HEADERS.length];
+        System.arraycopy(SMALL_OPERATION_HEADERS, 0, tableData[0], 0, SMALL_OPERATION_HEADERS.length);
+
+        int rowIndex = 1;
+        for (int i = COUNTER_START_INDEX; i <= COUNTER_END_INDEX; i++) {
+            CouchbaseMetrics metrics = metricsMap.get("Scenario " + i);
+            if (metrics != null) {
+                rowIndex = addOperationRows(tableData, rowIndex, "Scenario " + i + ": " + getKey(metrics), metrics, COUNTER_OPERATIONS);
+            } else {
+                logger.warn("No metrics found for Scenario {}", i);
+            }
+        }
+        for (int i = 0; i < BINARY_PAYLOAD_BYTES.length; i++) {
+            CouchbaseMetrics metrics = metricsMap.get("Scenario " + (BINARY_START_INDEX + i));
+            if (metrics != null) {
+                String scenarioLabel = "Scenario " + (BINARY_START_INDEX + i) + ": " + BINARY_PAYLOAD_BYTES[i] + " bytes";
+                rowIndex = addOperationRows(tableData, rowIndex, scenarioLabel, metrics, BINARY_OPERATIONS);
+            } else {
+                logger.warn("No metrics found for Scenario {}", BINARY_START_INDEX + i);
+            }
+        }
+        logger.debug("Counter and binary metrics table data generation completed with {} rows.", rowIndex);
+        return tableData;
+    }
+
+    private int addOperationRows(String[][] tableData, int rowIndex, String scenarioLabel, CouchbaseMetrics metrics, OperationType[] operationTypes) {
+        for (OperationType operationType : operationTypes) {
+            tableData[rowIndex++] = new String[]{scenarioLabel, operationType.getDisplayName(),
+                    String.valueOf((long) metrics.getSuccessfulOperations(operationType)),
+                    String.format("%.2f", metrics.getThroughput(operationType)),
+                    String.format("%.2f", metrics.getAverageLatency(operationType)),
+                    String.format("%.2f", metrics.getLatencyPercentile(operationType, 0.99))};
+        }
+        return rowIndex;
+    }
+
+    /**
+     * Generates one row per thread pool scenario with the average time requests spent in each phase,
+     * so a latency change can be attributed to the client, the network or the server.
+     */
+    public String[][] generateRequestPhaseMetricsTableData() {
+        logger.debug("Generating request phase metrics table data for scenarios {} to {}", THREAD_POOL_START_INDEX, THREAD_POOL_END_INDEX);
+        String[][] tableData = new String[THREAD_POOL_END_INDEX - THREAD_POOL_START_INDEX + 2][REQUEST_PHASE_HEADERS.length];
+        System.arraycopy(REQUEST_PHASE_HEADERS, 0, tableData[0], 0, REQUEST_PHASE_HEADERS.length);
+
+        int rowIndex = 1;
+        for (int i = THREAD_POOL_START_INDEX; i <= THREAD_POOL_END_INDEX; i++) {
+            String scenarioId = "Scenario " + i;
+            CouchbaseMetrics metrics = metricsMap.get(scenarioId);
+            if (metrics != null) {
+                RequestPhaseMetrics phases = metrics.getRequestPhaseMetrics();
+                tableData[rowIndex][0] = scenarioId + ": threads=" + formatThreads(metrics) + "," + getJsonSize(metrics) + "," + getKey(metrics);
+                tableData[rowIndex][1] = String.format("%.3f", phases.getAverage(RequestPhase.ENCODE));
+                tableData[rowIndex][2] = String.format("%.3f", phases.getAverage(RequestPhase.QUEUE));
+                tableData[rowIndex][3] = String.format("%.3f", phases.getAverage(RequestPhase.NETWORK));
+                tableData[rowIndex][4] = String.format("%.3f", phases.getAverage(RequestPhase.SERVER));
+                tableData[rowIndex][5] = String.format("%.3f", phases.getAverage(RequestPhase.DECODE));
+                tableData[rowIndex][6] = String.format("%.3f", phases.getPercentile(RequestPhase.QUEUE, 0.99));
+                tableData[rowIndex][7] = String.format("%.3f", phases.getPercentile(RequestPhase.SERVER, 0.99));
+                rowIndex++;
+            } else {
+                logger.warn("No metrics found for {}", scenarioId);
+            }
+        }
+        logger.debug("Request phase metrics table data generation completed with {} rows.", rowIndex);
+        return tableData;
+    }
+
+    /**
+     * Lists the scenarios with hot vBuckets or uneven load across nodes, in scenario order.
+     * When no scenario is flagged, a single row says so.
+     */
+    public String[][] generatePartitionMetricsTableData() {
+        logger.debug("Generating partition metrics table data");
+        List<String> flaggedScenarios = metricsMap.entrySet().stream()
+                .filter(entry -> isPartitionLoadFlagged(entry.getValue().getPartitionMetrics()))
+                .map(Map.Entry::getKey)
+                .sorted(Comparator.comparingInt(RunResult::scenarioNumber))
+                .limit(MAX_PARTITION_ROWS)
+                .toList();
+
+        String[][] tableData = new String[Math.max(flaggedScenarios.size(), 1) + 1][PARTITION_HEADERS.length];
+        System.arraycopy(PARTITION_HEADERS, 0, tableData[0], 0, PARTITION_HEADERS.length);
+        if (flaggedScenarios.isEmpty()) {
+            Arrays.fill(tableData[1], "-");
+            tableData[1][0] = "No hot vBuckets or uneven node load detected";
+            return tableData;
+        }
+
+        int rowIndex = 1;
+        for (String scenarioId : flaggedScenarios) {
+            CouchbaseMetrics metrics = metricsMap.get(scenarioId);
+            PartitionMetrics partitions = metrics.getPartitionMetrics();
+            List<Integer> hotPartitions = partitions.getHotPartitions();
+            tableData[rowIndex][0] = scenarioId + ": threads=" + formatThreads(metrics) + "," + getKey(metrics);
+            tableData[rowIndex][1] = String.valueOf(partitions.getNodeTimers().size());
+            tableData[rowIndex][2] = String.format("%.1f", partitions.getBusiestNodeShare());
+            tableData[rowIndex][3] = String.valueOf(hotPartitions.size());
+            if (hotPartitions.isEmpty()) {
+                Arrays.fill(tableData[rowIndex], 4, PARTITION_HEADERS.length, "-");
+            } else {
+                int hottest = hotPartitions.get(0);
+                tableData[rowIndex][4] = String.valueOf(hottest);
+                tableData[rowIndex][5] = String.format("%.1f", partitions.getPartitionOperations(hottest) * 100.0 / partitions.getTotalOperations());
+                tableData[rowIndex][6] = String.format("%.2f", partitions.getAveragePartitionLatency(hottest));
+            }
+            rowIndex++;
+        }
+        logger.debug("Partition metrics table data generation completed with {} rows.", rowIndex);
+        return tableData;
+    }
+
+    /**
+     * Lists the load generator's own resource usage for every scenario that was sampled, in scenario order.
+     * The last column says whether the client's CPU or GC time may have invalidated the run.
+     */
+    public String[][] generateClientResourceMetricsTableData() {
+        logger.debug("Generating client resource metrics table data");
+        List<String> scenarioIds = metricsMap.entrySet().stream()
+                .filter(entry -> !entry.getValue().getClientResourceMetrics().getSamples().isEmpty())
+                .map(Map.Entry::getKey)
+                .sorted(Comparator.comparingInt(RunResult::scenarioNumber))
+                .toList();
+
+        String[][] tableData = new String[scenarioIds.size() + 1][CLIENT_RESOURCE_HEADERS.length];
+        System.arraycopy(CLIENT_RESOURCE_HEADERS, 0, tableData[0], 0, CLIENT_RESOURCE_HEADERS.length);
+        int rowIndex = 1;
+        for (String scenarioId : scenarioIds) {
+            CouchbaseMetrics metrics = metricsMap.get(scenarioId);
+            ClientResourceMetrics resources = metrics.getClientResourceMetrics();
+            tableData[rowIndex][0] = scenarioId + ": threads=" + formatThreads(metrics);
+            tableData[rowIndex][1] = String.format("%.1f", resources.getAverageProcessCpuLoad() * 100);
+            tableData[rowIndex][2] = String.format("%.1f", resources.getMaxProcessCpuLoad() * 100);
+            tableData[rowIndex][3] = String.format("%.2f", resources.getGcTimeRatio() * 100);
+            tableData[rowIndex][4] = String.format("%.1f", resources.getAverageAllocationRate() / (1024 * 1024));
+            tableData[rowIndex][5] = String.valueOf(resources.getMaxBlockedThreads());
+            tableData[rowIndex][6] = resources.getWarnings().isEmpty() ? "No" : "Yes";
+            rowIndex++;
+        }
+        logger.debug("Client resource metrics table data generation completed with {} rows.", rowIndex);
+        return tableData;
+    }
+
+    /**
+     * Lists the slowest operations captured in any scenario, slowest first, with the key, vBucket, thread and
+     * wall-clock time needed to correlate them with hot partitions and GC pauses.
+     * When no operation was captured, a single row says so.
+     */
+    public String[][] generateSlowOperationTableData() {
+        logger.debug("Generating slow operation table data");
+        List<Map.Entry<String, SlowOperation>> slowest = metricsMap.entrySet().stream()
+                .flatMap(entry -> entry.getValue().getSlowOperationLog().getSlowest(MAX_SLOW_OPERATION_ROWS).stream()
+                        .map(operation -> Map.entry(entry.getKey(), operation)))
+                .sorted(Comparator.comparingLong((Map.Entry<String, SlowOperation> entry) -> entry.getValue().latencyNanos()).reversed())
+                .limit(MAX_SLOW_OPERATION_ROWS)
+                .toList();
+
+        String[][] tableData = new String[Math.max(slowest.size(), 1) + 1][SLOW_OPERATION_HEADERS.length];
+        System.arraycopy(SLOW_OPERATION_HEADERS, 0, tableData[0], 0, SLOW_OPERATION_HEADERS.length);
+        if (slowest.isEmpty()) {
+            Arrays.fill(tableData[1], "-");
+            tableData[1][0] = "No slow operations captured";
+            return tableData;
+        }
+
+        int rowIndex = 1;
+        for (Map.Entry<String, SlowOperation> entry : slowest) {
+            SlowOperation operation = entry.getValue();
+            String key = operation.key();
+            tableData[rowIndex][0] = entry.getKey();
+            tableData[rowIndex][1] = operation.operation();
+            tableData[rowIndex][2] = key.length() <= MAX_SLOW_OPERATION_KEY_CHARACTERS ? key
+                    : key.substring(0, MAX_SLOW_OPERATION_KEY_CHARACTERS) + "…";
+            tableData[rowIndex][3] = operation.partition() < 0 ? "-" : String.valueOf(operation.partition());
+            tableData[rowIndex][4] = operation.thread();
+            tableData[rowIndex][5] = SLOW_OPERATION_TIME_FORMAT.format(Instant.ofEpochMilli(operation.timestampMillis()));
+            tableData[rowIndex][6] = String.format("%.2f", operation.latencyNanos() / 1_000_000.0);
+            tableData[rowIndex][7] = operation.documentBytes() < 0 ? "-" : String.valueOf(operation.documentBytes());
+            tableData[rowIndex][8] = operation.error() == null ? "-" : operation.error();
+            rowIndex++;
+        }
+        logger.debug("Slow operation table data generation completed with {} rows.", rowIndex);
+        return tableData;
+    }
+
+    /**
+     * Lists the top hot spots of every scenario that was profiled, in scenario order.
+     */
+    public String[][] generateProfileTableData() {
+        logger.debug("Generating profile table data");
+        List<String> scenarioIds = metricsMap.entrySet().stream()
+                .filter(entry -> entry.getValue().getProfileSummary() != null)
+                .map(Map.Entry::getKey)
+                .sorted(Comparator.comparingInt(RunResult::scenarioNumber))
+                .toList();
+
+        String[][] tableData = new String[scenarioIds.size() + 1][PROFILE_HEADERS.length];
+        System.arraycopy(PROFILE_HEADERS, 0, tableData[0], 0, PROFILE_HEADERS.length);
+        int rowIndex = 1;
+        for (String scenarioId : scenarioIds) {
+            ProfileSummary profile = metricsMap.get(scenarioId).getProfileSummary();
+            long cpuSamples = Math.max(1, profile.cpuSamples());
+            tableData[rowIndex][0] = scenarioId + " (" + profile.recording().getFileName() + ")";
+            tableData[rowIndex][1] = formatHotSpots(profile.cpuFrames(), value -> String.format("%.1f", value * 100.0 / cpuSamples));
+            tableData[rowIndex][2] = formatHotSpots(profile.allocationSites(), value -> String.format("%.1f", value / (1024.0 * 1024.0)));
+            tableData[rowIndex][3] = formatHotSpots(profile.contention(), value -> String.format("%.1f", value / 1_000_000.0));
+            rowIndex++;
+        }
+        logger.debug("Profile table data generation completed with {} rows.", rowIndex);
+        return tableData;
+    }
+
+    /**
+     * Lists the fitted trends of every soak scenario, one row per metric.
+     * Latency is in milliseconds, throughput in operations per second and the error rate in percent;
+     * the change of the error rate is in percentage points, the others are relative.
+     */
+    public String[][] generateSoakTrendTableData() {
+        logger.debug("Generating soak trend table data");
+        List<String> scenarioIds = metricsMap.entrySet().stream()
+                .filter(entry -> entry.getValue().getSoakSummary() != null)
+                .map(Map.Entry::getKey)
+                .sorted(Comparator.comparingInt(RunResult::scenarioNumber))
+                .toList();
+
+        int rows = scenarioIds.stream().mapToInt(id -> metricsMap.get(id).getSoakSummary().trends().size()).sum();
+        String[][] tableData = new String[rows + 1][SOAK_TREND_HEADERS.length];
+        System.arraycopy(SOAK_TREND_HEADERS, 0, tableData[0], 0, SOAK_TREND_HEADERS.length);
+        int rowIndex = 1;
+        for (String scenarioId : scenarioIds) {
+            SoakSummary soak = metricsMap.get(scenarioId).getSoakSummary();
+            for (TrendResult trend : soak.trends()) {
+                tableData[rowIndex][0] = scenarioId + " (" + soak.intervals() + " intervals)";
+                tableData[rowIndex][1] = trend.metric();
+                tableData[rowIndex][2] = String.format("%.2f", trend.start());
+                tableData[rowIndex][3] = String.format("%.2f", trend.end());
+                tableData[rowIndex][4] = String.format("%+.1f", trend.change());
+                tableData[rowIndex][5] = trend.detected() ? "Yes" : "No";
+                rowIndex++;
+            }
+        }
+        logger.debug("Soak trend table data generation completed with {} rows.", rowIndex);
+        return tableData;
+    }
+
+    /**
+     * Lists the mean and 95% confidence interval of TPS and response time over the trials of every
+     * scenario that ran more than once, in scenario order.
+     */
+    public String[][] generateTrialStatisticsTableData() {
+        logger.debug("Generating trial statistics table data");
+        List<String> scenarioIds = trialsMap.entrySet().stream()
+                .filter(entry -> entry.getValue().size() > 1)
+                .map(Map.Entry::getKey)
+                .sorted(Comparator.comparingInt(RunResult::scenarioNumber))
+                .toList();
+
+        String[][] tableData = new String[scenarioIds.size() + 1][TRIAL_HEADERS.length];
+        System.arraycopy(TRIAL_HEADERS, 0, tableData[0], 0, TRIAL_HEADERS.length);
+        int rowIndex = 1;
+        for (String scenarioId : scenarioIds) {
+            List<CouchbaseMetrics> trials = trialsMap.get(scenarioId);
+            TrialStatistics tps = TrialStatistics.of(trialValues(trials, CouchbaseMetrics::getTransactionsPerSecond));
+            TrialStatistics responseTime = TrialStatistics.of(trialValues(trials, CouchbaseMetrics::getOverallAverageResponseTime));
+            tableData[rowIndex][0] = scenarioId + ": threads=" + trials.get(0).getThreadSize() + ", " + getJsonSize(trials.get(0)) + ", " + getKey(trials.get(0));
+            tableData[rowIndex][1] = String.valueOf(trials.size());
+            tableData[rowIndex][2] = String.format("%.1f", tps.mean());
+            tableData[rowIndex][3] = String.format("%.1f - %.1f", tps.confidenceLow(), tps.confidenceHigh());
+            tableData[rowIndex][4] = String.format("%.2f", responseTime.mean());
+            tableData[rowIndex][5] = String.format("%.2f - %.2f", responseTime.confidenceLow(), responseTime.confidenceHigh());
+            rowIndex++;
+        }
+        logger.debug("Trial statistics table data generation completed with {} rows.", rowIndex);
+        return tableData;
+    }
+
+    /**
+     * Tests whether the TPS of every thread pool scenario with unique keys differs from its shared-key twin,
+     * with Welch's t-test over their trials. Pairs with fewer than two trials on either side are left out.
+     */
+    public String[][] generateKeySharingSignificanceTableData() {
+        logger.debug("Generating key sharing significance table data");
+        List<String[]> rows = new ArrayList<>();
+        for (int i = THREAD_POOL_START_INDEX; i < THREAD_POOL_END_INDEX; i += 2) {
+            List<CouchbaseMetrics> unique = trialsMap.getOrDefault("Scenario " + i, List.of());
+            List<CouchbaseMetrics> shared = trialsMap.getOrDefault("Scenario " + (i + 1), List.of());
+            if (unique.size() < 2 || shared.size() < 2) {
+                continue;
+            }
+            double[] uniqueTps = trialValues(unique, CouchbaseMetrics::getTransactionsPerSecond);
+            double[] sharedTps = trialValues(shared, CouchbaseMetrics::getTransactionsPerSecond);
+            double uniqueMean = TrialStatistics.of(uniqueTps).mean();
+            double sharedMean = TrialStatistics.of(sharedTps).mean();
+            double pValue = TrialStatistics.welchPValue(uniqueTps, sharedTps);
+            rows.add(new String[]{
+                    "Scenario " + i + " vs " + (i + 1) + ": threads=" + unique.get(0).getThreadSize() + ", " + getJsonSize(unique.get(0)),
+                    String.format("%.1f", uniqueMean),
+                    String.format("%.1f", sharedMean),
+                    String.format("%+.1f", uniqueMean == 0 ? 0 : (sharedMean - uniqueMean) / uniqueMean * 100),
+                    Double.isNaN(pValue) ? "-" : String.format("%.3f", pValue),
+                    pValue < SIGNIFICANCE_LEVEL ? "Yes" : "No"});
+        }
+        String[][] tableData = new String[rows.size() + 1][];
+        tableData[0] = KEY_SHARING_HEADERS.clone();
+        for (int row = 0; row < rows.size(); row++) {
+            tableData[row + 1] = rows.get(row);
+        }
+        logger.debug("Key sharing significance table data generation completed with {} rows.", rows.size() + 1);
+        return tableData;
+    }
+
+    /**
+     * Collects the throughput-vs-threads series of the thread pool scenarios, one per payload size and key type,
+     * and of the concurrency sweep, each with its Universal Scalability Law fit to the mean throughput of the trials.
+     */
+    public List<ScalabilitySeries> generateScalabilitySeries() {
+        List<ScalabilitySeries> series = new ArrayList<>();
+        for (int start : THREAD_POOL_SERIES_STARTS) {
+            List<CouchbaseMetrics> scenarios = new ArrayList<>();
+            for (int i = start; i <= THREAD_POOL_END_INDEX; i += THREAD_POOL_SERIES_STEP) {
+                CouchbaseMetrics metrics = metricsMap.get("Scenario " + i);
+                if (metrics != null && isSameSeries(metrics, metricsMap.get("Scenario " + start))) {
+                    scenarios.add(metrics);
+                }
+            }
+            addScalabilitySeries(series, "Thread pool " + describeSeries(scenarios), scenarios);
+        }
+        List<CouchbaseMetrics> sweep = metricsMap.entrySet().stream()
+                .filter(entry -> RunResult.scenarioNumber(entry.getKey()) >= CONCURRENCY_SWEEP_START_INDEX
+                        && RunResult.scenarioNumber(entry.getKey()) != Integer.MAX_VALUE)
+                .map(Map.Entry::getValue)
+                .toList();
+        addScalabilitySeries(series, "Concurrency sweep " + describeSeries(sweep), sweep);
+        return series;
+    }
+
+    /**
+     * Lists the fitted scalability coefficients and the predicted peak of every series; series with too few
+     * thread counts to fit show dashes.
+     */
+    public String[][] generateScalabilityTableData() {
+        logger.debug("Generating scalability table data");
+        List<ScalabilitySeries> seriesList = generateScalabilitySeries();
+        String[][] tableData = new String[seriesList.size() + 1][SCALABILITY_HEADERS.length];
+        System.arraycopy(SCALABILITY_HEADERS, 0, tableData[0], 0, SCALABILITY_HEADERS.length);
+        int rowIndex = 1;
+        for (ScalabilitySeries series : seriesList) {
+            UslModel model = series.model();
+            tableData[rowIndex][0] = series.label();
+            tableData[rowIndex][1] = Arrays.stream(series.concurrency()).mapToObj(threads -> String.valueOf((int) threads)).collect(Collectors.joining(", "));
+            tableData[rowIndex][2] = model == null ? "-" : String.format("%.1f", model.lambda());
+            tableData[rowIndex][3] = model == null ? "-" : String.format("%.4f", model.sigma());
+            tableData[rowIndex][4] = model == null ? "-" : String.format("%.5f", model.kappa());
+            tableData[rowIndex][5] = model == null ? "-" : formatPeak(model.peakConcurrency(), "%.0f");
+            tableData[rowIndex][6] = model == null ? "-" : formatPeak(model.peakThroughput(), "%.1f");
+            rowIndex++;
+        }
+        logger.debug("Scalability table data generation completed with {} rows.", rowIndex);
+        return tableData;
+    }
+
+    /**
+     * Creates the latency distribution curve of every scenario with recorded operations, in scenario order,
+     * from the scenario-wide latency histogram. Latencies are in milliseconds.
+     */
+    public List<ChartSeries> generateLatencyDistributionSeries() {
+        List<ChartSeries> series = new ArrayList<>();
+        for (String scenarioId : sortedScenarioIds()) {
+            Histogram histogram = metricsMap.get(scenarioId).getLatencyHistogram();
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            double[] nines = new double[DISTRIBUTION_PERCENTILES.length];
+            double[] latencies = new double[DISTRIBUTION_PERCENTILES.length];
+            for (int i = 0; i < DISTRIBUTION_PERCENTILES.length; i++) {
+                nines[i] = toNines(DISTRIBUTION_PERCENTILES[i]);
+                latencies[i] = histogram.getValueAtPercentile(DISTRIBUTION_PERCENTILES[i]) / 1000.0;
+            }
+            series.add(new ChartSeries(scenarioId, nines, latencies, true));
+        }
+        return series;
+    }
+
+    /**
+     * Collects the throughput and latency timeline of every scenario with at least two sampled intervals,
+     * in scenario order.
+     */
+    public Map<String, List<TimelinePoint>> generateTimelines() {
+        Map<String, List<TimelinePoint>> timelines = new LinkedHashMap<>();
+        for (String scenarioId : sortedScenarioIds()) {
+            List<TimelinePoint> points = metricsMap.get(scenarioId).getLatencyTimeline().getPoints();
+            if (points.size() >= 2) {
+                timelines.put(scenarioId, points);
+            }
+        }
+        return timelines;
+    }
+
+    /**
+     * Converts a percentile to its number of nines, e.g. 90 to 1 and 99.9 to 3, which spreads the tail
+     * of the distribution evenly along a chart axis.
+     */
+    static double toNines(double percentile) {
+        return Math.log10(100 / (100 - percentile));
+    }
+
+    private List<String> sortedScenarioIds() {
+        return metricsMap.keySet().stream()
+                .sorted(Comparator.comparingInt(RunResult::scenarioNumber))
+                .toList();
+    }
+
+    /**
+     * Fits the series with the mean throughput over the trials of each scenario. Series with fewer than
+     * {@link UslModel#MIN_POINTS} thread counts are listed with their measured throughput but without a fit.
+     */
+    private void addScalabilitySeries(List<ScalabilitySeries> series, String label, List<CouchbaseMetrics> allScenarios) {
+        // A scenario whose concurrency changed while it ran has no single thread count to fit
+        List<CouchbaseMetrics> scenarios = allScenarios.stream()
+                .filter(metrics -> trialsMap.getOrDefault(metrics.getScenarioId(), List.of(metrics)).stream()
+                        .noneMatch(CouchbaseMetrics::isConcurrencyChanged))
+                .toList();
+        if (scenarios.size() < MIN_SCALABILITY_POINTS) {
+            return;
+        }
+        List<CouchbaseMetrics> sorted = scenarios.stream().sorted(Comparator.comparingInt(CouchbaseMetrics::getThreadSize)).toList();
+        double[] concurrency = sorted.stream().mapToDouble(CouchbaseMetrics::getThreadSize).toArray();
+        double[] throughput = sorted.stream()
+                .mapToDouble(metrics -> Arrays.stream(trialValues(trialsMap.getOrDefault(metrics.getScenarioId(), List.of(metrics)),
+                        CouchbaseMetrics::getThroughput)).average().orElse(0))
+                .toArray();
+        series.add(ScalabilitySeries.fit(label, concurrency, throughput));
+    }
+
+    private static boolean isSameSeries(CouchbaseMetrics metrics, CouchbaseMetrics first) {
+        return first != null && metrics.isUniqueKeys() == first.isUniqueKeys() && metrics.getJsonSize().equals(first.getJsonSize());
+    }
+
+    private String describeSeries(List<CouchbaseMetrics> scenarios) {
+        return scenarios.isEmpty() ? "" : "(" + getJsonSize(scenarios.get(0)) + ", " + getKey(scenarios.get(0)) + ")";
+    }
+
+    /**
+     * Without a coherency cost the model has no peak; the throughput only levels off.
+     */
+    private static String formatPeak(double value, String format) {
+        return Double.isInfinite(value) ? "unbounded" : String.format(format, value);
+    }
+
+    private static double[] trialValues(List<CouchbaseMetrics> trials, ToDoubleFunction<CouchbaseMetrics> metric) {
+        return trials.stream().mapToDouble(metric).toArray();
+    }
+
+    private static String formatHotSpots(List<ProfileHotSpot> hotSpots, LongFunction<String> formatValue) {
+        if (hotSpots.isEmpty()) {
+            return "-";
+        }
+        return hotSpots.stream()
+                .limit(PROFILE_HOT_SPOTS_PER_CELL)
+                .map(hotSpot -> hotSpot.location() + " " + formatValue.apply(hotSpot.value()))
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static boolean isPartitionLoadFlagged(PartitionMetrics partitions) {
+        return partitions != null && (!partitions.getHotPartitions().isEmpty() || partitions.isNodeLoadUneven());
+    }
+
     private String[][] generateMetricsTableDataForScenarioType(int startIndex, int endIndex, int[] CONNECTION_POOL_SIZE) {
         logger.debug("Generating metrics table data for scenarios {} to {}", startIndex, endIndex);
         String[][] tableData = new String[endIndex - startIndex + 2][HEADERS.length];
@@ -82,16 +899,25 @@ public class MetricsTableDataGenerator {
 
         String scenarioIdRes = scenarioId;
         if (connectionPoolSize == null) {
-            scenarioIdRes = scenarioIdRes + ": " + "threads=" + metrics.getThreadSize() + "," + getJsonSize(metrics)
+            scenarioIdRes = scenarioIdRes + ": " + "threads=" + formatThreads(metrics) + "," + getJsonSize(metrics)
                     + "," + getKey(metrics);
         } else {
             scenarioIdRes = scenarioIdRes + ": " + "connections = " + CONNECTION_POOL_SIZE[connectionsCounter]
-                    + " threads =" + metrics.getThreadSize();
+                    + " threads =" + formatThreads(metrics);
             connectionsCounter++;
         }
         return scenarioIdRes;
     }
 
+    /**
+     * Formats the thread count of a scenario, with the time-weighted average when its concurrency changed while it ran.
+     */
+    private static String formatThreads(CouchbaseMetrics metrics) {
+        return metrics.isConcurrencyChanged()
+                ? String.format("%d (avg %.1f)", metrics.getThreadSize(), metrics.getAverageConcurrency())
+                : String.valueOf(metrics.getThreadSize());
+    }
+
     private String getJsonSize(CouchbaseMetrics metrics) {
         if (metrics.getJsonSize().contains("big")) {
             return "25kb";
@@ -23,7 +23,20 @@ import java.io.IOException;
  *     <li>Test scenarios and specific scenarios</li>
  *     <li>Results overview</li>
  *     <li>Thread pool results</li>
+ *     <li>Repeated trial statistics, when scenarios were run more than once</li>
+ *     <li>Scalability fit and charts of throughput against threads</li>
+ *     <li>Latency distribution charts and throughput and latency over time</li>
+ *     <li>Request phase breakdown</li>
  *     <li>Connection pool results</li>
+ *     <li>Sub-document results</li>
+ *     <li>Durability level results</li>
+ *     <li>Replica read results</li>
+ *     <li>CAS contention results</li>
+ *     <li>Counter and binary results</li>
+ *     <li>Partition and node load</li>
+ *     <li>Client resource usage</li>
+ *     <li>Profiling hot spots</li>
+ *     <li>Soak trends, when a soak scenario was run</li>
  *     <li>Findings, suggestions and conclusion</li>
  *     <li>Thank you slide</li>
  * </ul>
@@ -33,11 +46,13 @@ public class PPTXReportGenerator {
     private static int slideWidth;
     private final String filePath;
     private final TableSlideGenerator tableSlideGenerator;
+    private final ChartSlideGenerator chartSlideGenerator;
 
 
     public PPTXReportGenerator() {
         this.filePath = EnvironmentVariableUtils.getEnv("COUCHBASE_REPORT_PATH");
         this.tableSlideGenerator = new TableSlideGenerator();
+        this.chartSlideGenerator = new ChartSlideGenerator();
     }
 
     public void createReport() {
@@ -47,10 +62,25 @@ public class PPTXReportGenerator {
             createIntroductionSlide(ppt);
             createCouchbaseSetupAndLoadTestingSlide(ppt);
             createTestScenariosSlide(ppt);
+            createAdditionalScenariosSlide(ppt);
             createSpecificScenariosSlide(ppt);
             createResultsOverviewSlide(ppt);
             createThreadPoolResultsSlide(ppt);
+            createTrialStatisticsSlides(ppt);
+            createScalabilitySlides(ppt);
+            createLatencyChartSlides(ppt);
+            createRequestPhaseResultsSlide(ppt);
             createConnectionPoolResultsSlide(ppt);
+            createSubDocumentResultsSlide(ppt);
+            createDurabilityResultsSlide(ppt);
+            createReplicaReadResultsSlide(ppt);
+            createCasContentionResultsSlide(ppt);
+            createCounterAndBinaryResultsSlide(ppt);
+            createPartitionResultsSlide(ppt);
+            createSlowOperationsSlide(ppt);
+            createClientResourceResultsSlides(ppt);
+            createProfileResultsSlides(ppt);
+            createSoakTrendSlides(ppt);
             createFindingsSuggestionsConclusionSlide(ppt);
             createThankYouSlide(ppt);
             saveReport(ppt);
@@ -137,9 +167,21 @@ public class PPTXReportGenerator {
         createTextBox(scenariosSlide, "2. Scenario Types:", 20.0, Color.BLACK, 145, true);
         createTextBox(scenariosSlide, "• Thread Pool Scenarios: Tests varying the number of threads used for load operations from 5 to 15, use 2 JSON files of different sizes (1 kb and 25 kb), write to unique or shared keys and use Couchbase default connection pool size.", 18.0, Color.DARK_GRAY, 175, false);
         createTextBox(scenariosSlide, "• Connection Pool Scenarios: Tests evaluating performance with a fixed number of threads (10), use JSON files of same size (25 kb), unique keys, connection pool size vary from 5 to 15.", 18.0, Color.DARK_GRAY, 275, false);
+        createTextBox(scenariosSlide, "• Sub-Document Scenarios: 10 threads, unique keys, both JSON sizes; each thread compares full-document GET/PUT with path lookups, field upserts, counters and array appends on the same document.", 18.0, Color.DARK_GRAY, 375, false);
+        createTextBox(scenariosSlide, "• Durability Scenarios: 10 threads, 25 kb JSON, unique keys, writes with durability none, majority, majorityAndPersistToActive and persistToMajority.", 18.0, Color.DARK_GRAY, 450, false);
         logger.info("Test Scenarios slide creation complete.");
     }
 
+    private void createAdditionalScenariosSlide(XMLSlideShow ppt) {
+        logger.info("Creating Additional Test Scenarios slide...");
+        XSLFSlide scenariosSlide = initializeXSLFSlide(ppt);
+        createTextBox(scenariosSlide, "Additional Test Scenarios", 23.0, Color.BLACK, 10, true);
+        createTextBox(scenariosSlide, "• Replica Read Scenarios: 10 threads, unique keys, both JSON sizes; each write is read back from the active node, any replica and all replicas to measure stale reads and replication lag.", 18.0, Color.DARK_GRAY, 60, false);
+        createTextBox(scenariosSlide, "• CAS Contention Scenarios: 5, 10 and 15 threads updating a hot set of 1 or 10 small JSON documents with get, modify and replace-with-CAS, retrying on CAS mismatch.", 18.0, Color.DARK_GRAY, 135, false);
+        createTextBox(scenariosSlide, "• Counter and Binary Scenarios: 10 threads incrementing and decrementing shared or per-thread counters, and uploading, reading, appending to and prepending to 256 byte or 4 kb raw binary blobs.", 18.0, Color.DARK_GRAY, 210, false);
+        logger.info("Additional Test Scenarios slide creation complete.");
+    }
+
     private void createSpecificScenariosSlide(XMLSlideShow ppt) {
         logger.info("Creating Specific Scenarios slide...");
         // Create a new slide for specific scenarios
@@ -191,6 +233,65 @@ public class PPTXReportGenerator {
         tableSlideGenerator.createConnectionPoolResultsSlide(ppt);
     }
 
+    private void createRequestPhaseResultsSlide(XMLSlideShow ppt) {
+        tableSlideGenerator.createRequestPhaseResultsSlide(ppt);
+    }
+
+    private void createSubDocumentResultsSlide(XMLSlideShow ppt) {
+        tableSlideGenerator.createSubDocumentResultsSlide(ppt);
+    }
+
+    private void createDurabilityResultsSlide(XMLSlideShow ppt) {
+        tableSlideGenerator.createDurabilityResultsSlide(ppt);
+    }
+
+    private void createReplicaReadResultsSlide(XMLSlideShow ppt) {
+        tableSlideGenerator.createReplicaReadResultsSlide(ppt);
+    }
+
+    private void createCasContentionResultsSlide(XMLSlideShow ppt) {
+        tableSlideGenerator.createCasContentionResultsSlide(ppt);
+    }
+
+    private void createCounterAndBinaryResultsSlide(XMLSlideShow ppt) {
+        tableSlideGenerator.createCounterAndBinaryResultsSlide(ppt);
+    }
+
+    private void createPartitionResultsSlide(XMLSlideShow ppt) {
+        tableSlideGenerator.createPartitionResultsSlide(ppt);
+    }
+
+    private void createSlowOperationsSlide(XMLSlideShow ppt) {
+        tableSlideGenerator.createSlowOperationsSlide(ppt);
+    }
+
+    private void createClientResourceResultsSlides(XMLSlideShow ppt) {
+        tableSlideGenerator.createClientResourceResultsSlides(ppt);
+    }
+
+    private void createProfileResultsSlides(XMLSlideShow ppt) {
+        tableSlideGenerator.createProfileResultsSlides(ppt);
+    }
+
+    private void createTrialStatisticsSlides(XMLSlideShow ppt) {
+        tableSlideGenerator.createTrialStatisticsSlides(ppt);
+    }
+
+    private void createScalabilitySlides(XMLSlideShow ppt) {
+        tableSlideGenerator.createScalabilityResultsSlide(ppt);
+        chartSlideGenerator.createScalabilityChartSlides(ppt);
+        chartSlideGenerator.createThroughputVsThreadsChartSlide(ppt);
+    }
+
+    private void createLatencyChartSlides(XMLSlideShow ppt) {
+        chartSlideGenerator.createLatencyDistributionChartSlides(ppt);
+        chartSlideGenerator.createTimelineChartSlides(ppt);
+    }
+
+    private void createSoakTrendSlides(XMLSlideShow ppt) {
+        tableSlideGenerator.createSoakTrendSlides(ppt);
+    }
+
     private void createFindingsSuggestionsConclusionSlide(XMLSlideShow ppt) {
         logger.info("Creating Findings, Suggestions, and Conclusion slide...");
         XSLFSlide findingsSlide = initializeXSLFSlide(ppt);
@@ -201,14 +302,14 @@ public class PPTXReportGenerator {
         createTextBox(findingsSlide, "Findings:", 18.0, Color.BLACK, 30, true);
         createTextBox(findingsSlide, "• Total Successful Operations: High counts in scenarios with more threads and smaller JSON sizes.", 13.0, Color.DARK_GRAY, 60, false);
         createTextBox(findingsSlide, "• Transactions Per Second (TPS): The highest TPS was observed in scenarios with 5 threads and smaller payloads.", 13.0, Color.DARK_GRAY, 90, false);
-        createTextBox(findingsSlide, "• Shared vs. Unique Keys: Using shared keys resulted in better TPS in many scenarios, suggesting that caching mechanisms or key distribution may play a role in performance.", 13.0, Color.DARK_GRAY, 120, false);
+        createTextBox(findingsSlide, "• Shared vs. Unique Keys: Using shared keys resulted in better TPS in many scenarios, suggesting that caching mechanisms or key distribution may play a role in performance; repeat the scenarios to test whether the difference is significant.", 13.0, Color.DARK_GRAY, 120, false);
         createTextBox(findingsSlide, "• Performance Bottlenecks: A significant drop in TPS was noted at 15 threads with larger JSON sizes (25 KB), indicating a threshold where resource constraints begin to limit performance.", 13.0, Color.DARK_GRAY, 150, false);
         createTextBox(findingsSlide, "• Diminishing Returns: A decline in TPS was evident when exceeding 5 threads, suggesting Couchbase may have optimal operating limits under the tested conditions.", 13.0, Color.DARK_GRAY, 195, false);
         createTextBox(findingsSlide, "• Data size: Payload size greatly affects latency, with 25 KB causing significant increases in PUT and GET latencies compared to 1 KB, which had minimal impact.", 13.0, Color.DARK_GRAY, 225, false);
         createTextBox(findingsSlide, "• Connection pool size: Predefined connection pool sizes showed minimal impact on database performance.", 13.0, Color.DARK_GRAY, 255, false);
 
         createTextBox(findingsSlide, "Suggestions for Further Testing:", 18.0, Color.BLACK, 295, true);
-        createTextBox(findingsSlide, "• CPU Utilization, Memory Usage, Disk I/O Performance, Network Latency and Throughput, Couchbase Performance Metrics.", 13.0, Color.DARK_GRAY, 325, false);
+        createTextBox(findingsSlide, "• Server CPU Utilization, Memory Usage, Disk I/O Performance, Network Latency and Throughput, Couchbase Performance Metrics (client CPU and GC are now sampled per scenario).", 13.0, Color.DARK_GRAY, 325, false);
 
         createTextBox(findingsSlide, "Conclusion:", 18.0, Color.BLACK, 365, true);
         createTextBox(findingsSlide, "Higher thread pool sizes generally increased the total successful operations, especially with smaller JSON payloads. However, beyond 5 threads, TPS began to decline, particularly for larger payloads, indicating diminishing returns due to resource contention. Therefore, optimal thread pool size is crucial to balance performance and latency, necessitating careful tuning based on workload characteristics.", 13.0, Color.DARK_GRAY, 395, false);
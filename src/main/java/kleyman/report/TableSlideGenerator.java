@@ -14,6 +14,8 @@ import java.awt.*;
  */
 public class TableSlideGenerator {
     private static final Logger logger = LoggerFactory.getLogger(TableSlideGenerator.class);
+    private static final int MAX_ROWS_PER_SLIDE = 12;
+    private static final int MAX_PROFILE_ROWS_PER_SLIDE = 4;
     private final MetricsTableDataGenerator metricsTableGenerator;
 
     public TableSlideGenerator() {
@@ -38,6 +40,162 @@ public class TableSlideGenerator {
         logger.info("Connection Pool Tests Results slide creation complete.");
     }
 
+    public void createSubDocumentResultsSlide(XMLSlideShow ppt) {
+        logger.info("Creating Sub-Document Tests Results slide...");
+        XSLFSlide subDocumentResultsSlide = PPTXReportGenerator.initializeXSLFSlide(ppt);
+        PPTXReportGenerator.createTextBox(subDocumentResultsSlide, "Sub-Document vs Full-Document Results", 24.0, Color.BLACK, 0, true);
+        String[][] subDocumentTableData = metricsTableGenerator.generateSubDocumentMetricsTableData();
+        addTableToSlide(subDocumentResultsSlide, subDocumentTableData, 60);
+        logger.info("Sub-Document Tests Results slide creation complete.");
+    }
+
+    public void createDurabilityResultsSlide(XMLSlideShow ppt) {
+        logger.info("Creating Durability Tests Results slide...");
+        XSLFSlide durabilityResultsSlide = PPTXReportGenerator.initializeXSLFSlide(ppt);
+        PPTXReportGenerator.createTextBox(durabilityResultsSlide, "Durability Level Tests Results", 24.0, Color.BLACK, 0, true);
+        String[][] durabilityTableData = metricsTableGenerator.generateDurabilityMetricsTableData();
+        addTableToSlide(durabilityResultsSlide, durabilityTableData, 100);
+        logger.info("Durability Tests Results slide creation complete.");
+    }
+
+    public void createReplicaReadResultsSlide(XMLSlideShow ppt) {
+        logger.info("Creating Replica Read Tests Results slide...");
+        XSLFSlide replicaReadResultsSlide = PPTXReportGenerator.initializeXSLFSlide(ppt);
+        PPTXReportGenerator.createTextBox(replicaReadResultsSlide, "Replica Read Tests Results", 24.0, Color.BLACK, 0, true);
+        String[][] replicaReadTableData = metricsTableGenerator.generateReplicaReadMetricsTableData();
+        addTableToSlide(replicaReadResultsSlide, replicaReadTableData, 100);
+        logger.info("Replica Read Tests Results slide creation complete.");
+    }
+
+    public void createCasContentionResultsSlide(XMLSlideShow ppt) {
+        logger.info("Creating CAS Contention Tests Results slide...");
+        XSLFSlide casContentionResultsSlide = PPTXReportGenerator.initializeXSLFSlide(ppt);
+        PPTXReportGenerator.createTextBox(casContentionResultsSlide, "CAS Contention Tests Results", 24.0, Color.BLACK, 0, true);
+        String[][] casContentionTableData = metricsTableGenerator.generateCasContentionMetricsTableData();
+        addTableToSlide(casContentionResultsSlide, casContentionTableData, 60);
+        logger.info("CAS Contention Tests Results slide creation complete.");
+    }
+
+    public void createCounterAndBinaryResultsSlide(XMLSlideShow ppt) {
+        logger.info("Creating Counter and Binary Tests Results slide...");
+        XSLFSlide counterAndBinaryResultsSlide = PPTXReportGenerator.initializeXSLFSlide(ppt);
+        PPTXReportGenerator.createTextBox(counterAndBinaryResultsSlide, "Counter and Binary Tests Results", 24.0, Color.BLACK, 0, true);
+        String[][] counterAndBinaryTableData = metricsTableGenerator.generateCounterAndBinaryMetricsTableData();
+        addTableToSlide(counterAndBinaryResultsSlide, counterAndBinaryTableData, 60);
+        logger.info("Counter and Binary Tests Results slide creation complete.");
+    }
+
+    public void createRequestPhaseResultsSlide(XMLSlideShow ppt) {
+        logger.info("Creating Request Phase Breakdown slide...");
+        XSLFSlide requestPhaseResultsSlide = PPTXReportGenerator.initializeXSLFSlide(ppt);
+        PPTXReportGenerator.createTextBox(requestPhaseResultsSlide, "Request Phase Breakdown (Thread Pool Scenarios)", 24.0, Color.BLACK, 0, true);
+        String[][] requestPhaseTableData = metricsTableGenerator.generateRequestPhaseMetricsTableData();
+        addTableToSlide(requestPhaseResultsSlide, requestPhaseTableData, 60);
+        logger.info("Request Phase Breakdown slide creation complete.");
+    }
+
+    public void createPartitionResultsSlide(XMLSlideShow ppt) {
+        logger.info("Creating Partition and Node Load slide...");
+        XSLFSlide partitionResultsSlide = PPTXReportGenerator.initializeXSLFSlide(ppt);
+        PPTXReportGenerator.createTextBox(partitionResultsSlide, "Partition and Node Load (Flagged Scenarios)", 24.0, Color.BLACK, 0, true);
+        String[][] partitionTableData = metricsTableGenerator.generatePartitionMetricsTableData();
+        addTableToSlide(partitionResultsSlide, partitionTableData, 60);
+        logger.info("Partition and Node Load slide creation complete.");
+    }
+
+    public void createSlowOperationsSlide(XMLSlideShow ppt) {
+        logger.info("Creating Top Slow Operations slide...");
+        XSLFSlide slowOperationsSlide = PPTXReportGenerator.initializeXSLFSlide(ppt);
+        PPTXReportGenerator.createTextBox(slowOperationsSlide, "Top Slow Operations", 24.0, Color.BLACK, 0, true);
+        String[][] slowOperationTableData = metricsTableGenerator.generateSlowOperationTableData();
+        addTableToSlide(slowOperationsSlide, slowOperationTableData, 60);
+        logger.info("Top Slow Operations slide creation complete.");
+    }
+
+    /**
+     * Creates as many slides as needed to list every sampled scenario, {@value #MAX_ROWS_PER_SLIDE} per slide.
+     */
+    public void createClientResourceResultsSlides(XMLSlideShow ppt) {
+        logger.info("Creating Client Resource Usage slides...");
+        String[][] clientResourceTableData = metricsTableGenerator.generateClientResourceMetricsTableData();
+        addPaginatedTableSlides(ppt, "Client Resource Usage", clientResourceTableData, MAX_ROWS_PER_SLIDE);
+        logger.info("Client Resource Usage slides creation complete.");
+    }
+
+    /**
+     * Creates as many slides as needed to list the hot spots of every profiled scenario,
+     * {@value #MAX_PROFILE_ROWS_PER_SLIDE} per slide since every cell holds several frames.
+     */
+    public void createProfileResultsSlides(XMLSlideShow ppt) {
+        logger.info("Creating Profiling Hot Spots slides...");
+        String[][] profileTableData = metricsTableGenerator.generateProfileTableData();
+        addPaginatedTableSlides(ppt, "Profiling Hot Spots", profileTableData, MAX_PROFILE_ROWS_PER_SLIDE);
+        logger.info("Profiling Hot Spots slides creation complete.");
+    }
+
+    /**
+     * Creates the repeated trial slides, only when scenarios were run more than once: the confidence intervals
+     * of every repeated scenario and the significance of the shared versus unique keys differences.
+     */
+    public void createTrialStatisticsSlides(XMLSlideShow ppt) {
+        String[][] trialTableData = metricsTableGenerator.generateTrialStatisticsTableData();
+        if (trialTableData.length == 1) {
+            return;
+        }
+        logger.info("Creating Repeated Trials slides...");
+        addPaginatedTableSlides(ppt, "Repeated Trials (Mean and 95% Confidence Interval)", trialTableData, MAX_ROWS_PER_SLIDE);
+        String[][] keySharingTableData = metricsTableGenerator.generateKeySharingSignificanceTableData();
+        if (keySharingTableData.length > 1) {
+            addPaginatedTableSlides(ppt, "Shared vs Unique Keys: Significance of TPS Difference", keySharingTableData, MAX_ROWS_PER_SLIDE);
+        }
+        logger.info("Repeated Trials slides creation complete.");
+    }
+
+    /**
+     * Creates the Universal Scalability Law slide, only when a series has enough thread counts to be fitted.
+     */
+    public void createScalabilityResultsSlide(XMLSlideShow ppt) {
+        String[][] scalabilityTableData = metricsTableGenerator.generateScalabilityTableData();
+        if (scalabilityTableData.length == 1) {
+            return;
+        }
+        logger.info("Creating Scalability slide...");
+        addPaginatedTableSlides(ppt, "Scalability (Universal Scalability Law Fit)", scalabilityTableData, MAX_ROWS_PER_SLIDE);
+        logger.info("Scalability slide creation complete.");
+    }
+
+    /**
+     * Creates the soak trend slides, only when the run included a soak scenario.
+     */
+    public void createSoakTrendSlides(XMLSlideShow ppt) {
+        String[][] soakTrendTableData = metricsTableGenerator.generateSoakTrendTableData();
+        if (soakTrendTableData.length == 1) {
+            return;
+        }
+        logger.info("Creating Soak Trends slides...");
+        addPaginatedTableSlides(ppt, "Soak Trends", soakTrendTableData, MAX_ROWS_PER_SLIDE);
+        logger.info("Soak Trends slides creation complete.");
+    }
+
+    /**
+     * Splits the table over several slides, repeating the header row on each and numbering the titles.
+     */
+    private void addPaginatedTableSlides(XMLSlideShow ppt, String title, String[][] tableData, int rowsPerSlide) {
+        int pages = Math.max(1, (tableData.length - 1 + rowsPerSlide - 1) / rowsPerSlide);
+        for (int page = 0; page < pages; page++) {
+            int from = 1 + page * rowsPerSlide;
+            int to = Math.min(tableData.length, from + rowsPerSlide);
+            String[][] pageTableData = new String[to - from + 1][];
+            pageTableData[0] = tableData[0];
+            System.arraycopy(tableData, from, pageTableData, 1, to - from);
+
+            XSLFSlide slide = PPTXReportGenerator.initializeXSLFSlide(ppt);
+            String pageTitle = pages == 1 ? title : title + " (" + (page + 1) + "/" + pages + ")";
+            PPTXReportGenerator.createTextBox(slide, pageTitle, 24.0, Color.BLACK, 0, true);
+            addTableToSlide(slide, pageTableData, 60);
+        }
+    }
+
     private void addTableToSlide(XSLFSlide slide, String[][] tableData, int y) {
         XSLFTable table = createTable(slide, y);
         populateTableData(table, tableData);
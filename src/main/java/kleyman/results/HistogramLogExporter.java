@@ -0,0 +1,74 @@
+package kleyman.results;
+
+import kleyman.metrics.CouchbaseMetrics;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Streams the latency histogram of every sampling interval of a running scenario to a standard HdrHistogram
+ * interval log, readable with {@code HistogramLogReader}, HistogramLogAnalyzer or the HdrHistogram plotters.
+ * Values are in microseconds; the max column of the log is in milliseconds. Each interval is written as it is
+ * sampled, so the log needs no memory however long the scenario runs.
+ */
+public class HistogramLogExporter implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(HistogramLogExporter.class);
+    public static final String EXTENSION = ".hlog";
+    // Interval histograms hold microseconds, so the max column is written in milliseconds
+    private static final double MAX_VALUE_UNIT_RATIO = 1000.0;
+    private final CouchbaseMetrics couchbaseMetrics;
+    private final PrintStream output;
+    private final HistogramLogWriter writer;
+    private final long baseTimeMillis;
+
+    private HistogramLogExporter(CouchbaseMetrics couchbaseMetrics, PrintStream output) {
+        this.couchbaseMetrics = couchbaseMetrics;
+        this.output = output;
+        this.writer = new HistogramLogWriter(output);
+        this.baseTimeMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Starts writing the intervals of the given scenario to the given file, replacing it if it exists.
+     */
+    public static HistogramLogExporter start(CouchbaseMetrics couchbaseMetrics, Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        HistogramLogExporter exporter = new HistogramLogExporter(couchbaseMetrics,
+                new PrintStream(new BufferedOutputStream(Files.newOutputStream(file)), false));
+        exporter.writer.outputComment("Interval latencies of " + couchbaseMetrics.getScenarioId() + " in microseconds");
+        exporter.writer.outputLogFormatVersion();
+        exporter.writer.outputStartTime(exporter.baseTimeMillis);
+        exporter.writer.setBaseTime(exporter.baseTimeMillis);
+        exporter.writer.outputLegend();
+        couchbaseMetrics.getLatencyTimeline().setIntervalListener(exporter::write);
+        logger.info("Writing interval latencies of {} to {}", couchbaseMetrics.getScenarioId(), file);
+        return exporter;
+    }
+
+    private void write(Histogram interval) {
+        writer.outputIntervalHistogram((interval.getStartTimeStamp() - baseTimeMillis) / 1000.0,
+                (interval.getEndTimeStamp() - baseTimeMillis) / 1000.0, interval, MAX_VALUE_UNIT_RATIO);
+    }
+
+    /**
+     * Stops listening and closes the log. Close after the client resource sampler, so the last interval is included.
+     */
+    @Override
+    public void close() {
+        couchbaseMetrics.getLatencyTimeline().setIntervalListener(null);
+        output.close();
+        if (output.checkError()) {
+            logger.warn("Failed to write the interval latency log of {}", couchbaseMetrics.getScenarioId());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package kleyman.results;
+
+/**
+ * Change of one metric of a scenario between a baseline run and a candidate run.
+ *
+ * @param metric      name of the metric, with its unit
+ * @param baseline    value in the baseline run
+ * @param candidate   value in the candidate run
+ * @param significant whether the change is statistically significant at the 5% level
+ */
+public record MetricDelta(String metric, double baseline, double candidate, boolean significant) {
+
+    /**
+     * Returns the change relative to the baseline in percent.
+     */
+    public double changePercent() {
+        return baseline == 0 ? 0 : (candidate - baseline) / baseline * 100;
+    }
+}
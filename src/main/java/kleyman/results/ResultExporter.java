@@ -0,0 +1,180 @@
+package kleyman.results;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import kleyman.metrics.ClientResourceMetrics;
+import kleyman.metrics.CouchbaseMetrics;
+import kleyman.metrics.OperationMetrics;
+import kleyman.metrics.OperationType;
+import kleyman.metrics.TimelinePoint;
+import kleyman.util.OutputDirectoryUtils;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports the raw results of every scenario for analysis outside the report, at full precision:
+ * {@code scenario-N-summary.json} with counts, throughput and latency percentiles, and
+ * {@code scenario-N-timeline.csv} with throughput and latency per sampling interval. Later trials of a repeated
+ * scenario get a {@code -trial-K} suffix. Both files are written as a stream, row by row, without building the
+ * document in memory. The interval latency logs are written while the scenarios run, see {@link HistogramLogExporter}.
+ */
+public class ResultExporter {
+    private static final Logger logger = LoggerFactory.getLogger(ResultExporter.class);
+    public static final String EXPORT_DIRECTORY_PROPERTY = "load.test.export.directory";
+    static final String TIMELINE_CSV_HEADER = "elapsed_ms,interval_ms,throughput_ops,operations,p50_ms,p99_ms,max_ms";
+    private static final double[] SUMMARY_PERCENTILES = {50, 75, 90, 95, 99, 99.9, 99.99};
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * Exports every trial of every scenario to the directory set by {@code load.test.export.directory},
+     * or else next to the report. A scenario that fails to export is logged and skipped.
+     */
+    public static void exportAll(Map<String, List<CouchbaseMetrics>> trialsByScenario) {
+        Path directory = OutputDirectoryUtils.resolve(EXPORT_DIRECTORY_PROPERTY);
+        int exported = 0;
+        for (List<CouchbaseMetrics> trials : trialsByScenario.values()) {
+            for (int trial = 1; trial <= trials.size(); trial++) {
+                CouchbaseMetrics metrics = trials.get(trial - 1);
+                String baseName = baseName(metrics.getScenarioId(), trial);
+                try {
+                    Files.createDirectories(directory);
+                    try (OutputStream out = Files.newOutputStream(directory.resolve(baseName + "-summary.json"))) {
+                        writeSummary(metrics, trial, out);
+                    }
+                    try (Writer out = Files.newBufferedWriter(directory.resolve(baseName + "-timeline.csv"), StandardCharsets.UTF_8)) {
+                        writeTimeline(metrics.getLatencyTimeline().getPoints(), out);
+                    }
+                    exported++;
+                } catch (IOException e) {
+                    logger.error("Failed to export the results of {}", baseName, e);
+                }
+            }
+        }
+        logger.info("Exported the results of {} scenario runs to {}", exported, directory);
+    }
+
+    /**
+     * Returns the file name prefix of a scenario's exports, e.g. {@code scenario-3} or {@code scenario-3-trial-2}.
+     */
+    public static String baseName(String scenarioId, int trial) {
+        String baseName = scenarioId.toLowerCase().replace(' ', '-');
+        return trial > 1 ? baseName + "-trial-" + trial : baseName;
+    }
+
+    static void writeSummary(CouchbaseMetrics metrics, int trial, OutputStream out) throws IOException {
+        try (JsonGenerator json = jsonFactory.createGenerator(out, JsonEncoding.UTF8).useDefaultPrettyPrinter()) {
+            json.writeStartObject();
+            json.writeStringField("scenarioId", metrics.getScenarioId());
+            json.writeNumberField("trial", trial);
+            json.writeNumberField("threads", metrics.getThreadSize());
+            json.writeStringField("jsonSize", metrics.getJsonSize());
+            json.writeBooleanField("uniqueKeys", metrics.isUniqueKeys());
+            json.writeNumberField("elapsedSeconds", metrics.getElapsedSeconds());
+            json.writeNumberField("successfulOperations", metrics.getTotalSuccessfulOperations());
+            json.writeNumberField("failedOperations", metrics.getTotalFailedOperations());
+            json.writeNumberField("throughput", metrics.getThroughput());
+            json.writeNumberField("errorRatePercent", metrics.getTotalErrorRate());
+            writeLatency(json, metrics.getLatencyHistogram());
+            json.writeArrayFieldStart("operations");
+            writeOperation(json, "PUT", metrics.getPutSuccessCounter(), metrics.getPutFailureCounter(), metrics.getPutTimer());
+            writeOperation(json, "GET", metrics.getGetSuccessCounter(), metrics.getGetFailureCounter(), metrics.getGetTimer());
+            for (OperationType type : OperationType.values()) {
+                OperationMetrics operation = metrics.getOperationMetricsByType().get(type);
+                if (operation != null) {
+                    writeOperation(json, type.getDisplayName(), operation.getSuccessCounter(), operation.getFailureCounter(), operation.getTimer());
+                }
+            }
+            json.writeEndArray();
+            writeClientResources(json, metrics.getClientResourceMetrics());
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Writes the timeline as CSV, one row per sampling interval. Latencies are in milliseconds.
+     */
+    static void writeTimeline(List<TimelinePoint> points, Writer out) throws IOException {
+        out.write(TIMELINE_CSV_HEADER + "\n");
+        for (TimelinePoint point : points) {
+            out.write(point.elapsedMillis() + "," + point.intervalMillis() + "," + point.throughput() + ","
+                    + point.operations() + "," + point.p50Latency() + "," + point.p99Latency() + "," + point.maxLatency() + "\n");
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the distribution of all operation latencies, from the scenario's HdrHistogram.
+     */
+    private static void writeLatency(JsonGenerator json, Histogram histogram) throws IOException {
+        json.writeObjectFieldStart("latencyMillis");
+        json.writeNumberField("count", histogram.getTotalCount());
+        boolean empty = histogram.getTotalCount() == 0;
+        json.writeNumberField("min", empty ? 0 : histogram.getMinValue() / 1000.0);
+        json.writeNumberField("mean", histogram.getMean() / 1000.0);
+        json.writeNumberField("stdDev", histogram.getStdDeviation() / 1000.0);
+        json.writeNumberField("max", histogram.getMaxValue() / 1000.0);
+        for (double percentile : SUMMARY_PERCENTILES) {
+            json.writeNumberField("p" + formatPercentile(percentile), histogram.getValueAtPercentile(percentile) / 1000.0);
+        }
+        json.writeEndObject();
+    }
+
+    private static void writeOperation(JsonGenerator json, String name, Counter successes, Counter failures, Timer timer) throws IOException {
+        if (successes.count() == 0 && failures.count() == 0) {
+            return;
+        }
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        json.writeStartObject();
+        json.writeStringField("operation", name);
+        json.writeNumberField("successes", successes.count());
+        json.writeNumberField("failures", failures.count());
+        json.writeNumberField("meanLatencyMillis", snapshot.mean(TimeUnit.MILLISECONDS));
+        json.writeNumberField("maxLatencyMillis", snapshot.max(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            json.writeNumberField("p" + formatPercentile(value.percentile() * 100) + "LatencyMillis", value.value(TimeUnit.MILLISECONDS));
+        }
+        json.writeEndObject();
+    }
+
+    private static void writeClientResources(JsonGenerator json, ClientResourceMetrics resources) throws IOException {
+        if (resources == null || resources.getSamples().isEmpty()) {
+            return;
+        }
+        json.writeObjectFieldStart("clientResources");
+        json.writeNumberField("averageProcessCpuLoad", resources.getAverageProcessCpuLoad());
+        json.writeNumberField("maxProcessCpuLoad", resources.getMaxProcessCpuLoad());
+        json.writeNumberField("gcTimeRatio", resources.getGcTimeRatio());
+        json.writeNumberField("averageAllocationBytesPerSecond", resources.getAverageAllocationRate());
+        json.writeNumberField("maxBlockedThreads", resources.getMaxBlockedThreads());
+        json.writeArrayFieldStart("warnings");
+        for (String warning : resources.getWarnings()) {
+            json.writeString(warning);
+        }
+        json.writeEndArray();
+        json.writeEndObject();
+    }
+
+    /**
+     * Formats a percentile for a field name, e.g. 99 as {@code 99} and 99.9 as {@code 99_9}, keeping dots
+     * out of field names, which flattening tools use as separators.
+     */
+    static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile).replace('.', '_');
+    }
+}
@@ -0,0 +1,126 @@
+package kleyman.results;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compares the scenarios of two runs. Throughput is the mean over the trials of a scenario, and a throughput
+ * change is tested with Welch's t-test on the throughput of each trial, so scenarios run only once are never
+ * significant. Latency percentiles are read from the latency histograms of all trials together; a change is
+ * significant when the 95% confidence intervals of the percentile in both runs do not overlap. The intervals are
+ * read from the histograms at the ranks {@code n·q ± 1.96·sqrt(n·q·(1-q))}, which needs no assumption about the
+ * latency distribution.
+ */
+public class RunComparison {
+    static final double SIGNIFICANCE_LEVEL = 0.05;
+    private static final double Z_95 = 1.96;
+    private static final double[] PERCENTILES = {50, 95, 99};
+
+    /**
+     * Compares every scenario of the candidate run that also ran in the baseline run.
+     */
+    public static List<ScenarioComparison> compare(RunResult baseline, RunResult candidate) {
+        List<ScenarioComparison> comparisons = new ArrayList<>();
+        for (String scenarioId : new LinkedHashSet<>(candidate.scenarios().stream().map(ScenarioResult::scenarioId).toList())) {
+            List<ScenarioResult> baselineTrials = baseline.trials(scenarioId);
+            if (!baselineTrials.isEmpty()) {
+                comparisons.add(compare(baselineTrials, candidate.trials(scenarioId)));
+            }
+        }
+        return comparisons;
+    }
+
+    static ScenarioComparison compare(List<ScenarioResult> baseline, List<ScenarioResult> candidate) {
+        List<MetricDelta> deltas = new ArrayList<>();
+        double[] baselineThroughput = trialThroughput(baseline);
+        double[] candidateThroughput = trialThroughput(candidate);
+        deltas.add(new MetricDelta("Throughput (ops/s)", mean(baselineThroughput), mean(candidateThroughput),
+                isThroughputChangeSignificant(baselineThroughput, candidateThroughput)));
+        ScenarioResult baselineTrials = ScenarioResult.merge(baseline);
+        ScenarioResult candidateTrials = ScenarioResult.merge(candidate);
+        Histogram baselineLatency = baselineTrials.latencyHistogram();
+        Histogram candidateLatency = candidateTrials.latencyHistogram();
+        for (double percentile : PERCENTILES) {
+            deltas.add(new MetricDelta(String.format(Locale.ROOT, "p%.0f latency (ms)", percentile),
+                    baselineTrials.latencyPercentile(percentile), candidateTrials.latencyPercentile(percentile),
+                    isPercentileChangeSignificant(baselineLatency, candidateLatency, percentile / 100)));
+        }
+        deltas.add(new MetricDelta("Error rate (%)", baselineTrials.errorRate(), candidateTrials.errorRate(), false));
+        return new ScenarioComparison(candidate.get(0).scenarioId(), deltas);
+    }
+
+    /**
+     * Tests the throughput of the trials of both runs with Welch's t-test; needs at least two trials in each run.
+     */
+    static boolean isThroughputChangeSignificant(double[] baseline, double[] candidate) {
+        double pValue = TrialStatistics.welchPValue(baseline, candidate);
+        return !Double.isNaN(pValue) && pValue < SIGNIFICANCE_LEVEL;
+    }
+
+    private static double[] trialThroughput(List<ScenarioResult> trials) {
+        return trials.stream().mapToDouble(ScenarioResult::throughput).toArray();
+    }
+
+    private static double mean(double[] values) {
+        return Arrays.stream(values).average().orElse(0);
+    }
+
+    static boolean isPercentileChangeSignificant(Histogram baseline, Histogram candidate, double quantile) {
+        if (baseline.getTotalCount() == 0 || candidate.getTotalCount() == 0) {
+            return false;
+        }
+        long[] baselineInterval = confidenceInterval(baseline, quantile);
+        long[] candidateInterval = confidenceInterval(candidate, quantile);
+        return baselineInterval[1] < candidateInterval[0] || candidateInterval[1] < baselineInterval[0];
+    }
+
+    private static long[] confidenceInterval(Histogram histogram, double quantile) {
+        double count = histogram.getTotalCount();
+        double halfWidth = Z_95 * Math.sqrt(count * quantile * (1 - quantile));
+        double lowerRank = Math.max(0, count * quantile - halfWidth);
+        double upperRank = Math.min(count, count * quantile + halfWidth);
+        return new long[]{
+                histogram.lowestEquivalentValue(histogram.getValueAtPercentile(lowerRank / count * 100)),
+                histogram.highestEquivalentValue(histogram.getValueAtPercentile(upperRank / count * 100))};
+    }
+
+    /**
+     * Loads the result files and compares every run after the first with the first one.
+     *
+     * @return the comparisons as a plain-text table
+     */
+    public static String compareFiles(List<Path> files) throws IOException {
+        if (files.size() < 2) {
+            throw new IllegalArgumentException("At least two run result files are needed for a comparison");
+        }
+        RunResult baseline = RunResultFile.read(files.get(0));
+        StringBuilder text = new StringBuilder();
+        for (Path file : files.subList(1, files.size())) {
+            RunResult candidate = RunResultFile.read(file);
+            text.append(String.format(Locale.ROOT, "Baseline %s (%s) vs %s (%s)%n",
+                    files.get(0).getFileName(), baseline.createdAt(), file.getFileName(), candidate.createdAt()));
+            text.append(format(compare(baseline, candidate)));
+        }
+        return text.toString();
+    }
+
+    public static String format(List<ScenarioComparison> comparisons) {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.ROOT, "%-14s %-20s %12s %12s %9s  %s%n", "Scenario", "Metric", "Baseline", "Candidate", "Change", "Significant"));
+        for (ScenarioComparison comparison : comparisons) {
+            for (MetricDelta delta : comparison.deltas()) {
+                text.append(String.format(Locale.ROOT, "%-14s %-20s %12.2f %12.2f %+8.1f%%  %s%n",
+                        comparison.scenarioId(), delta.metric(), delta.baseline(), delta.candidate(),
+                        delta.changePercent(), delta.significant() ? "yes" : "no"));
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,51 @@
+package kleyman.results;
+
+import kleyman.metrics.CouchbaseMetrics;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Results of every trial of every scenario of one run, in scenario order; the trials of a scenario keep
+ * the order they completed in.
+ */
+public record RunResult(Instant createdAt, List<ScenarioResult> scenarios) {
+
+    public static RunResult from(Collection<CouchbaseMetrics> metrics) {
+        List<ScenarioResult> scenarios = metrics.stream()
+                .map(ScenarioResult::from)
+                .sorted(Comparator.comparingInt(scenario -> scenarioNumber(scenario.scenarioId())))
+                .toList();
+        return new RunResult(Instant.now(), scenarios);
+    }
+
+    /**
+     * Returns the last completed trial of the scenario.
+     */
+    public Optional<ScenarioResult> scenario(String scenarioId) {
+        List<ScenarioResult> trials = trials(scenarioId);
+        return trials.isEmpty() ? Optional.empty() : Optional.of(trials.get(trials.size() - 1));
+    }
+
+    /**
+     * Returns every trial of the scenario, empty if it did not run.
+     */
+    public List<ScenarioResult> trials(String scenarioId) {
+        return scenarios.stream().filter(scenario -> scenario.scenarioId().equals(scenarioId)).toList();
+    }
+
+    /**
+     * Returns the number of a scenario id such as {@code Scenario 12}, or {@link Integer#MAX_VALUE} for ids
+     * without a number, which therefore sort last.
+     */
+    public static int scenarioNumber(String scenarioId) {
+        try {
+            return Integer.parseInt(scenarioId.substring(scenarioId.lastIndexOf(' ') + 1));
+        } catch (NumberFormatException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+}
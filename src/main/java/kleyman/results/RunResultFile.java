@@ -0,0 +1,126 @@
+package kleyman.results;
+
+import kleyman.util.OutputDirectoryUtils;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes the binary run result file, which keeps the results of a run for comparison with later runs.
+ * <p>
+ * Layout, big-endian: the magic number {@code CBLR}, the format version as a short, the creation time in epoch
+ * milliseconds and the number of scenarios, followed by each scenario: id, thread count, JSON size, unique keys,
+ * elapsed seconds, successful and failed operations, the length-prefixed compressed HdrHistogram of latencies and
+ * the count-prefixed interval throughput series. Readers reject files with another magic number or a newer version.
+ */
+public class RunResultFile {
+    private static final Logger logger = LoggerFactory.getLogger(RunResultFile.class);
+    static final int MAGIC = 0x43424C52;
+    static final short FORMAT_VERSION = 1;
+    static final String EXTENSION = ".cblr";
+    private static final DateTimeFormatter FILE_NAME_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    /**
+     * Writes the run to {@code run-<UTC time>.cblr} in the directory set by {@code load.test.results.directory},
+     * or else next to the report.
+     */
+    public static Path save(RunResult run) throws IOException {
+        Path file = OutputDirectoryUtils.resolve("load.test.results.directory")
+                .resolve("run-" + FILE_NAME_TIME.format(run.createdAt()) + EXTENSION);
+        write(run, file);
+        logger.info("Run results of {} scenarios written to {}", run.scenarios().size(), file);
+        return file;
+    }
+
+    public static void write(RunResult run, Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            out.writeLong(run.createdAt().toEpochMilli());
+            out.writeInt(run.scenarios().size());
+            for (ScenarioResult scenario : run.scenarios()) {
+                writeScenario(out, scenario);
+            }
+        }
+    }
+
+    public static RunResult read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a run result file");
+            }
+            short version = in.readShort();
+            if (version > FORMAT_VERSION) {
+                throw new IOException(file + " has format version " + version + ", newest supported is " + FORMAT_VERSION);
+            }
+            Instant createdAt = Instant.ofEpochMilli(in.readLong());
+            int scenarioCount = in.readInt();
+            List<ScenarioResult> scenarios = new ArrayList<>(scenarioCount);
+            for (int i = 0; i < scenarioCount; i++) {
+                scenarios.add(readScenario(in));
+            }
+            return new RunResult(createdAt, scenarios);
+        }
+    }
+
+    private static void writeScenario(DataOutputStream out, ScenarioResult scenario) throws IOException {
+        out.writeUTF(scenario.scenarioId());
+        out.writeInt(scenario.threadCount());
+        out.writeUTF(scenario.jsonSize());
+        out.writeBoolean(scenario.uniqueKeys());
+        out.writeDouble(scenario.elapsedSeconds());
+        out.writeLong(scenario.successfulOperations());
+        out.writeLong(scenario.failedOperations());
+        Histogram histogram = scenario.latencyHistogram();
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        out.writeInt(length);
+        out.write(buffer.array(), 0, length);
+        out.writeInt(scenario.intervalThroughput().length);
+        for (double throughput : scenario.intervalThroughput()) {
+            out.writeDouble(throughput);
+        }
+    }
+
+    private static ScenarioResult readScenario(DataInputStream in) throws IOException {
+        String scenarioId = in.readUTF();
+        int threadCount = in.readInt();
+        String jsonSize = in.readUTF();
+        boolean uniqueKeys = in.readBoolean();
+        double elapsedSeconds = in.readDouble();
+        long successfulOperations = in.readLong();
+        long failedOperations = in.readLong();
+        byte[] encodedHistogram = new byte[in.readInt()];
+        in.readFully(encodedHistogram);
+        Histogram histogram;
+        try {
+            histogram = Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(encodedHistogram), 0);
+        } catch (Exception e) {
+            throw new IOException("Corrupt latency histogram of " + scenarioId, e);
+        }
+        double[] intervalThroughput = new double[in.readInt()];
+        for (int i = 0; i < intervalThroughput.length; i++) {
+            intervalThroughput[i] = in.readDouble();
+        }
+        return new ScenarioResult(scenarioId, threadCount, jsonSize, uniqueKeys, elapsedSeconds,
+                successfulOperations, failedOperations, histogram, intervalThroughput);
+    }
+}
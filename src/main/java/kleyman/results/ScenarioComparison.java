@@ -0,0 +1,9 @@
+package kleyman.results;
+
+import java.util.List;
+
+/**
+ * Changes of the throughput and latency percentiles of a scenario that ran in both compared runs.
+ */
+public record ScenarioComparison(String scenarioId, List<MetricDelta> deltas) {
+}
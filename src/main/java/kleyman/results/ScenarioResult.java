@@ -0,0 +1,86 @@
+package kleyman.results;
+
+import kleyman.metrics.ClientResourceMetrics;
+import kleyman.metrics.ClientResourceSample;
+import kleyman.metrics.CouchbaseMetrics;
+import org.HdrHistogram.Histogram;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Results of one scenario as stored in a run result file: the scenario's configuration, its operation counts,
+ * the latency histogram of all operations in microseconds and its throughput per sampling interval.
+ *
+ * @param scenarioId            scenario id
+ * @param threadCount           number of load threads
+ * @param jsonSize              path prefix of the JSON files uploaded by the scenario
+ * @param uniqueKeys            whether every operation used a new key
+ * @param elapsedSeconds        scenario wall-clock duration
+ * @param successfulOperations  successful operations of all types
+ * @param failedOperations      failed operations of all types
+ * @param latencyHistogram      latency of every operation in microseconds
+ * @param intervalThroughput    successful operations per second in each sampling interval
+ */
+public record ScenarioResult(String scenarioId, int threadCount, String jsonSize, boolean uniqueKeys,
+                             double elapsedSeconds, long successfulOperations, long failedOperations,
+                             Histogram latencyHistogram, double[] intervalThroughput) {
+
+    public static ScenarioResult from(CouchbaseMetrics metrics) {
+        ClientResourceMetrics resources = metrics.getClientResourceMetrics();
+        double[] intervalThroughput = resources == null ? new double[0] : resources.getSamples().stream()
+                .mapToDouble(ClientResourceSample::operationsPerSecond)
+                .toArray();
+        return new ScenarioResult(metrics.getScenarioId(), metrics.getThreadSize(), metrics.getJsonSize(), metrics.isUniqueKeys(),
+                metrics.getElapsedSeconds(), Math.round(metrics.getTotalSuccessfulOperations()),
+                Math.round(metrics.getTotalFailedOperations()), metrics.getLatencyHistogram().copy(), intervalThroughput);
+    }
+
+    /**
+     * Combines the trials of a scenario into one result: their counts and durations are added, their latency
+     * histograms merged and their interval series concatenated, so the throughput is that of all trials together.
+     */
+    public static ScenarioResult merge(List<ScenarioResult> trials) {
+        ScenarioResult first = trials.get(0);
+        if (trials.size() == 1) {
+            return first;
+        }
+        Histogram latencyHistogram = first.latencyHistogram().copy();
+        double elapsedSeconds = 0;
+        long successfulOperations = 0;
+        long failedOperations = 0;
+        for (ScenarioResult trial : trials) {
+            if (trial != first) {
+                latencyHistogram.add(trial.latencyHistogram());
+            }
+            elapsedSeconds += trial.elapsedSeconds();
+            successfulOperations += trial.successfulOperations();
+            failedOperations += trial.failedOperations();
+        }
+        double[] intervalThroughput = trials.stream().flatMapToDouble(trial -> Arrays.stream(trial.intervalThroughput())).toArray();
+        return new ScenarioResult(first.scenarioId(), first.threadCount(), first.jsonSize(), first.uniqueKeys(), elapsedSeconds,
+                successfulOperations, failedOperations, latencyHistogram, intervalThroughput);
+    }
+
+    /**
+     * Returns the successful operations per second of scenario wall-clock time.
+     */
+    public double throughput() {
+        return elapsedSeconds == 0 ? 0 : successfulOperations / elapsedSeconds;
+    }
+
+    /**
+     * Returns the failed operations in percent of all operations.
+     */
+    public double errorRate() {
+        long total = successfulOperations + failedOperations;
+        return total == 0 ? 0 : failedOperations * 100.0 / total;
+    }
+
+    /**
+     * Returns the latency in milliseconds at the given percentile, from 0 to 100.
+     */
+    public double latencyPercentile(double percentile) {
+        return latencyHistogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
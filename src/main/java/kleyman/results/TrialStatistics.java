@@ -0,0 +1,45 @@
+package kleyman.results;
+
+import org.apache.commons.math3.distribution.TDistribution;
+import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
+import org.apache.commons.math3.stat.inference.TTest;
+
+/**
+ * Mean and 95% confidence interval of a metric over the repeated trials of a scenario, using Student's t
+ * distribution since the number of trials is small.
+ *
+ * @param trials             number of trials
+ * @param mean               mean over the trials
+ * @param standardDeviation  sample standard deviation, zero for a single trial
+ * @param confidenceLow      lower bound of the 95% confidence interval of the mean
+ * @param confidenceHigh     upper bound of the 95% confidence interval of the mean
+ */
+public record TrialStatistics(int trials, double mean, double standardDeviation, double confidenceLow, double confidenceHigh) {
+    static final double CONFIDENCE_LEVEL = 0.95;
+
+    public static TrialStatistics of(double[] values) {
+        SummaryStatistics statistics = new SummaryStatistics();
+        for (double value : values) {
+            statistics.addValue(value);
+        }
+        double mean = statistics.getN() == 0 ? 0 : statistics.getMean();
+        if (statistics.getN() < 2) {
+            return new TrialStatistics(values.length, mean, 0, mean, mean);
+        }
+        double standardDeviation = statistics.getStandardDeviation();
+        double criticalValue = new TDistribution(statistics.getN() - 1).inverseCumulativeProbability(1 - (1 - CONFIDENCE_LEVEL) / 2);
+        double halfWidth = criticalValue * standardDeviation / Math.sqrt(statistics.getN());
+        return new TrialStatistics(values.length, mean, standardDeviation, mean - halfWidth, mean + halfWidth);
+    }
+
+    /**
+     * Returns the two-sided p-value of Welch's t-test for a difference between the means of two sets of trials,
+     * or {@code NaN} when either set has fewer than two trials.
+     */
+    public static double welchPValue(double[] first, double[] second) {
+        if (first.length < 2 || second.length < 2) {
+            return Double.NaN;
+        }
+        return new TTest().tTest(first, second);
+    }
+}
@@ -1,13 +1,37 @@
 package kleyman.service;
 
+import com.couchbase.client.core.error.CasMismatchException;
 import com.couchbase.client.core.error.CouchbaseException;
+import com.couchbase.client.core.msg.kv.DurabilityLevel;
+import com.couchbase.client.java.codec.DefaultJsonSerializer;
+import com.couchbase.client.java.codec.JsonSerializer;
+import com.couchbase.client.java.codec.RawBinaryTranscoder;
 import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.kv.DecrementOptions;
+import com.couchbase.client.java.kv.GetOptions;
+import com.couchbase.client.java.kv.GetReplicaResult;
+import com.couchbase.client.java.kv.GetResult;
+import com.couchbase.client.java.kv.IncrementOptions;
+import com.couchbase.client.java.kv.LookupInResult;
+import com.couchbase.client.java.kv.LookupInSpec;
+import com.couchbase.client.java.kv.MutateInResult;
+import com.couchbase.client.java.kv.MutateInSpec;
+import com.couchbase.client.java.kv.MutationResult;
+import com.couchbase.client.java.kv.ReplaceOptions;
+import com.couchbase.client.java.kv.UpsertOptions;
 import kleyman.config.CouchbaseConnectionManager;
+import kleyman.config.PartitionLocator;
 import kleyman.metrics.CouchbaseMetrics;
+import kleyman.metrics.OperationType;
+import kleyman.metrics.RequestPhase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Service class for interacting with Couchbase database.
@@ -15,6 +39,7 @@ import java.util.concurrent.TimeUnit;
 public class CouchbaseService implements DataBaseService<JsonObject, CouchbaseMetrics> {
     private final CouchbaseConnectionManager connectionManager;
     private static final Logger logger = LoggerFactory.getLogger(CouchbaseService.class);
+    private static final JsonSerializer serializer = DefaultJsonSerializer.create();
 
     /**
      * Constructs a CouchbaseService with the specified connection manager.
@@ -29,22 +54,56 @@ public class CouchbaseService implements DataBaseService<JsonObject, CouchbaseMe
      */
     @Override
     public void upload(String key, JsonObject jsonData, CouchbaseMetrics couchbaseMetrics) {
-        long startTime = System.nanoTime();
+        upload(key, jsonData, DurabilityLevel.NONE, couchbaseMetrics);
+    }
+
+    /**
+     * Uploads a JSON document to Couchbase using the specified key and synchronous durability level.
+     * The reported latency includes the time the server needs to replicate or persist the write.
+     */
+    @Override
+    public void upload(String key, JsonObject jsonData, DurabilityLevel durabilityLevel, CouchbaseMetrics couchbaseMetrics) {
+        upsert(key, jsonData, durabilityLevel, couchbaseMetrics);
+    }
+
+    /**
+     * Uploads a JSON document like {@link #upload(String, JsonObject, DurabilityLevel, CouchbaseMetrics)}
+     * and returns the CAS assigned to the write by the server.
+     */
+    @Override
+    public long uploadAndGetCas(String key, JsonObject jsonData, DurabilityLevel durabilityLevel, CouchbaseMetrics couchbaseMetrics) {
+        return upsert(key, jsonData, durabilityLevel, couchbaseMetrics).cas();
+    }
+
+    private MutationResult upsert(String key, JsonObject jsonData, DurabilityLevel durabilityLevel, CouchbaseMetrics couchbaseMetrics) {
+        long startTime = couchbaseMetrics.startOperation();
+        RuntimeException failure = null;
         try {
-            connectionManager.getCollection().upsert(key, jsonData);
+            MutationResult result;
+            if (durabilityLevel == DurabilityLevel.NONE) {
+                result = connectionManager.getCollection().upsert(key, jsonData);
+            } else {
+                result = connectionManager.getCollection().upsert(key, jsonData, UpsertOptions.upsertOptions().durability(durabilityLevel));
+            }
             logger.debug("Successfully inserted JSON document with key: {}", key);
             couchbaseMetrics.incrementPutSuccess();
+            return result;
         } catch (CouchbaseException e) {
             logger.error("Couchbase error inserting JSON document with key: {}", key, e);
             couchbaseMetrics.incrementPutFailure();
+            failure = e;
             throw e;
         } catch (Exception e) {
             logger.error("Unexpected error inserting JSON document with key: {}", key, e);
             couchbaseMetrics.incrementPutFailure();
-            throw new RuntimeException("Unexpected error inserting document with key: " + key, e);
+            failure = new RuntimeException("Unexpected error inserting document with key: " + key, e);
+            throw failure;
         } finally {
-            long duration = System.nanoTime() - startTime;
+            long duration = couchbaseMetrics.endOperation(startTime);
             couchbaseMetrics.recordPutLatency(duration, TimeUnit.NANOSECONDS);
+            recordPartition(key, duration, couchbaseMetrics);
+            SlowOperationCapture.captureIfSlow(couchbaseMetrics, SlowOperationCapture.PUT, key, duration, jsonData, failure,
+                    connectionManager.getPartitionLocator());
         }
     }
 
@@ -54,9 +113,11 @@ public class CouchbaseService implements DataBaseService<JsonObject, CouchbaseMe
      */
     @Override
     public JsonObject retrieve(String key, CouchbaseMetrics couchbaseMetrics) {
-        long startTime = System.nanoTime();
+        long startTime = couchbaseMetrics.startOperation();
+        JsonObject jsonObject = null;
+        RuntimeException failure = null;
         try {
-            JsonObject jsonObject = connectionManager.getCollection().get(key).contentAs(JsonObject.class);
+            jsonObject = decode(connectionManager.getCollection().get(key), couchbaseMetrics);
             if (jsonObject == null) {
                 throw new CouchbaseException("Document not found for key: " + key);
             }
@@ -66,17 +127,76 @@ public class CouchbaseService implements DataBaseService<JsonObject, CouchbaseMe
         } catch (CouchbaseException e) {
             logger.error("Couchbase error retrieving JSON document with key: {}", key, e);
             couchbaseMetrics.incrementGetFailure();
+            failure = e;
             throw e;
         } catch (Exception e) {
             logger.error("Unexpected error retrieving JSON document with key: {}", key, e);
             couchbaseMetrics.incrementGetFailure();
-            throw new RuntimeException("Unexpected error retrieving document with key: " + key, e);
+            failure = new RuntimeException("Unexpected error retrieving document with key: " + key, e);
+            throw failure;
         } finally {
-            long duration = System.nanoTime() - startTime;
+            long duration = couchbaseMetrics.endOperation(startTime);
             couchbaseMetrics.recordGetLatency(duration, TimeUnit.NANOSECONDS);
+            recordPartition(key, duration, couchbaseMetrics);
+            SlowOperationCapture.captureIfSlow(couchbaseMetrics, SlowOperationCapture.GET, key, duration, jsonObject, failure,
+                    connectionManager.getPartitionLocator());
         }
     }
 
+    /**
+     * Reads a JSON document together with its CAS for a read-modify-write update.
+     */
+    @Override
+    public VersionedDocument<JsonObject> retrieveWithCas(String key, CouchbaseMetrics couchbaseMetrics) {
+        return executeOperation(OperationType.CAS_GET, key, couchbaseMetrics, () -> {
+            GetResult result = connectionManager.getCollection().get(key);
+            return new VersionedDocument<>(decode(result, couchbaseMetrics), result.cas(), false);
+        });
+    }
+
+    /**
+     * Replaces a JSON document only if its CAS still matches the one read.
+     * A CAS mismatch is an expected outcome under contention: the operation itself is counted as successful
+     * and the mismatch is reported to the caller instead of being thrown.
+     */
+    @Override
+    public boolean replaceWithCas(String key, JsonObject jsonData, long cas, CouchbaseMetrics couchbaseMetrics) {
+        return executeOperation(OperationType.CAS_REPLACE, key, jsonData, couchbaseMetrics, () -> {
+            try {
+                connectionManager.getCollection().replace(key, jsonData, ReplaceOptions.replaceOptions().cas(cas));
+                return true;
+            } catch (CasMismatchException e) {
+                logger.debug("CAS mismatch replacing JSON document with key: {}", key);
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Reads a JSON document from whichever copy answers first, which may be the active node or a replica.
+     */
+    @Override
+    public VersionedDocument<JsonObject> retrieveFromAnyReplica(String key, CouchbaseMetrics couchbaseMetrics) {
+        return executeOperation(OperationType.REPLICA_GET_ANY, key, couchbaseMetrics, () -> {
+            GetReplicaResult result = connectionManager.getCollection().getAnyReplica(key);
+            return new VersionedDocument<>(decode(result, couchbaseMetrics), result.cas(), result.isReplica());
+        });
+    }
+
+    /**
+     * Reads a JSON document from the active node and all replicas that answer.
+     */
+    @Override
+    public List<VersionedDocument<JsonObject>> retrieveFromAllReplicas(String key, CouchbaseMetrics couchbaseMetrics) {
+        return executeOperation(OperationType.REPLICA_GET_ALL, key, couchbaseMetrics, () -> {
+            List<VersionedDocument<JsonObject>> copies = new ArrayList<>();
+            connectionManager.getCollection().getAllReplicas(key).forEach(result ->
+                    copies.add(new VersionedDocument<>(decode(result, couchbaseMetrics), result.cas(), result.isReplica())));
+            return copies;
+        });
+    }
+
+    @Override
     public void retrieveJsonThreeTimes(String key, CouchbaseMetrics couchbaseMetrics) {
         for (int i = 0; i < 3; i++) {
             try {
@@ -91,4 +211,216 @@ public class CouchbaseService implements DataBaseService<JsonObject, CouchbaseMe
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Reads the given paths of a JSON document with a single sub-document lookup.
+     * Payload bytes are the requested paths plus the returned fragments.
+     */
+    @Override
+    public JsonObject lookupIn(String key, List<String> paths, CouchbaseMetrics couchbaseMetrics) {
+        return executeOperation(OperationType.LOOKUP_IN, key, couchbaseMetrics, () -> {
+            List<LookupInSpec> specs = new ArrayList<>(paths.size());
+            for (String path : paths) {
+                specs.add(LookupInSpec.get(path));
+            }
+            LookupInResult result = connectionManager.getCollection().lookupIn(key, specs);
+            JsonObject fields = JsonObject.create();
+            long payloadBytes = pathBytes(paths);
+            for (int i = 0; i < paths.size(); i++) {
+                if (result.exists(i)) {
+                    payloadBytes += result.contentAsBytes(i).length;
+                    fields.put(paths.get(i), result.contentAs(i, Object.class));
+                }
+            }
+            couchbaseMetrics.recordPayloadBytes(OperationType.LOOKUP_IN, payloadBytes);
+            return fields;
+        });
+    }
+
+    /**
+     * Upserts individual fields of a JSON document with a single sub-document mutation.
+     * Payload bytes are the mutated paths plus their encoded values.
+     */
+    @Override
+    public void mutateIn(String key, Map<String, Object> fieldValues, CouchbaseMetrics couchbaseMetrics) {
+        executeOperation(OperationType.MUTATE_IN, key, couchbaseMetrics, () -> {
+            List<MutateInSpec> specs = new ArrayList<>(fieldValues.size());
+            long payloadBytes = 0;
+            for (Map.Entry<String, Object> field : fieldValues.entrySet()) {
+                specs.add(MutateInSpec.upsert(field.getKey(), field.getValue()).createPath());
+                payloadBytes += field.getKey().length() + serializer.serialize(field.getValue()).length;
+            }
+            connectionManager.getCollection().mutateIn(key, specs);
+            couchbaseMetrics.recordPayloadBytes(OperationType.MUTATE_IN, payloadBytes);
+            return null;
+        });
+    }
+
+    /**
+     * Increments a numeric field of a JSON document in place and returns its new value.
+     */
+    @Override
+    public long incrementField(String key, String path, long delta, CouchbaseMetrics couchbaseMetrics) {
+        return executeOperation(OperationType.SUBDOC_COUNTER, key, couchbaseMetrics, () -> {
+            MutateInResult result = connectionManager.getCollection()
+                    .mutateIn(key, List.of(MutateInSpec.increment(path, delta).createPath()));
+            Long value = result.contentAs(0, Long.class);
+            couchbaseMetrics.recordPayloadBytes(OperationType.SUBDOC_COUNTER,
+                    path.length() + Long.toString(delta).length() + Long.toString(value).length());
+            return value;
+        });
+    }
+
+    /**
+     * Appends a value to an array field of a JSON document, creating the array if needed.
+     */
+    @Override
+    public void appendToArray(String key, String path, Object value, CouchbaseMetrics couchbaseMetrics) {
+        executeOperation(OperationType.SUBDOC_ARRAY_APPEND, key, couchbaseMetrics, () -> {
+            connectionManager.getCollection()
+                    .mutateIn(key, List.of(MutateInSpec.arrayAppend(path, List.of(value)).createPath()));
+            couchbaseMetrics.recordPayloadBytes(OperationType.SUBDOC_ARRAY_APPEND,
+                    path.length() + serializer.serialize(value).length);
+            return null;
+        });
+    }
+
+    /**
+     * Increments a counter document with the binary KV API, creating it with {@code delta} if it is missing.
+     */
+    @Override
+    public long incrementCounter(String key, long delta, CouchbaseMetrics couchbaseMetrics) {
+        return executeOperation(OperationType.COUNTER_INCREMENT, key, couchbaseMetrics, () -> connectionManager.getCollection()
+                .binary().increment(key, IncrementOptions.incrementOptions().delta(delta).initial(delta)).content());
+    }
+
+    /**
+     * Decrements a counter document with the binary KV API, creating it with zero if it is missing.
+     */
+    @Override
+    public long decrementCounter(String key, long delta, CouchbaseMetrics couchbaseMetrics) {
+        return executeOperation(OperationType.COUNTER_DECREMENT, key, couchbaseMetrics, () -> connectionManager.getCollection()
+                .binary().decrement(key, DecrementOptions.decrementOptions().delta(delta).initial(0)).content());
+    }
+
+    /**
+     * Upserts raw bytes with the raw binary transcoder, so no JSON encoding is involved.
+     */
+    @Override
+    public void uploadBinary(String key, byte[] data, CouchbaseMetrics couchbaseMetrics) {
+        executeOperation(OperationType.BINARY_UPSERT, key, data, couchbaseMetrics, () -> {
+            connectionManager.getCollection().upsert(key, data, UpsertOptions.upsertOptions().transcoder(RawBinaryTranscoder.INSTANCE));
+            couchbaseMetrics.recordPayloadBytes(OperationType.BINARY_UPSERT, data.length);
+            return null;
+        });
+    }
+
+    /**
+     * Reads a document as raw bytes with the raw binary transcoder.
+     */
+    @Override
+    public byte[] retrieveBinary(String key, CouchbaseMetrics couchbaseMetrics) {
+        return executeOperation(OperationType.BINARY_GET, key, couchbaseMetrics, () -> {
+            byte[] content = connectionManager.getCollection()
+                    .get(key, GetOptions.getOptions().transcoder(RawBinaryTranscoder.INSTANCE))
+                    .contentAs(byte[].class);
+            couchbaseMetrics.recordPayloadBytes(OperationType.BINARY_GET, content.length);
+            return content;
+        });
+    }
+
+    /**
+     * Appends raw bytes to an existing binary document with the binary KV API.
+     */
+    @Override
+    public void appendBinary(String key, byte[] data, CouchbaseMetrics couchbaseMetrics) {
+        executeOperation(OperationType.BINARY_APPEND, key, data, couchbaseMetrics, () -> {
+            connectionManager.getCollection().binary().append(key, data);
+            couchbaseMetrics.recordPayloadBytes(OperationType.BINARY_APPEND, data.length);
+            return null;
+        });
+    }
+
+    /**
+     * Prepends raw bytes to an existing binary document with the binary KV API.
+     */
+    @Override
+    public void prependBinary(String key, byte[] data, CouchbaseMetrics couchbaseMetrics) {
+        executeOperation(OperationType.BINARY_PREPEND, key, data, couchbaseMetrics, () -> {
+            connectionManager.getCollection().binary().prepend(key, data);
+            couchbaseMetrics.recordPayloadBytes(OperationType.BINARY_PREPEND, data.length);
+            return null;
+        });
+    }
+
+    private <R> R executeOperation(OperationType operationType, String key, CouchbaseMetrics couchbaseMetrics, Supplier<R> operation) {
+        return executeOperation(operationType, key, null, couchbaseMetrics, operation);
+    }
+
+    /**
+     * Runs a single operation while tracking success, failure and latency for the given operation type.
+     * Errors are logged and rethrown the same way as for {@link #upload} and {@link #retrieve}.
+     *
+     * @param sent the document or bytes the operation sends, {@code null} to capture the size of what it returns when it is slow
+     */
+    private <R> R executeOperation(OperationType operationType, String key, Object sent, CouchbaseMetrics couchbaseMetrics,
+                                   Supplier<R> operation) {
+        long startTime = couchbaseMetrics.startOperation();
+        R result = null;
+        RuntimeException failure = null;
+        try {
+            result = operation.get();
+            logger.debug("Successfully executed {} for key: {}", operationType, key);
+            couchbaseMetrics.incrementSuccess(operationType);
+            return result;
+        } catch (CouchbaseException e) {
+            logger.error("Couchbase error executing {} for key: {}", operationType, key, e);
+            couchbaseMetrics.incrementFailure(operationType);
+            failure = e;
+            throw e;
+        } catch (Exception e) {
+            logger.error("Unexpected error executing {} for key: {}", operationType, key, e);
+            couchbaseMetrics.incrementFailure(operationType);
+            failure = new RuntimeException("Unexpected error executing " + operationType.getMetricName() + " for key: " + key, e);
+            throw failure;
+        } finally {
+            long duration = couchbaseMetrics.endOperation(startTime);
+            couchbaseMetrics.recordLatency(operationType, duration, TimeUnit.NANOSECONDS);
+            recordPartition(key, duration, couchbaseMetrics);
+            SlowOperationCapture.captureIfSlow(couchbaseMetrics, operationType.getMetricName(), key, duration,
+                    sent != null ? sent : result, failure, connectionManager.getPartitionLocator());
+        }
+    }
+
+    /**
+     * Attributes the operation to the vBucket of the key and to the node owning it in the current cluster config.
+     */
+    private void recordPartition(String key, long durationNanos, CouchbaseMetrics couchbaseMetrics) {
+        PartitionLocator partitionLocator = connectionManager.getPartitionLocator();
+        if (partitionLocator == null) {
+            return;
+        }
+        int partition = partitionLocator.partitionForKey(key);
+        couchbaseMetrics.recordPartitionOperation(partition, partitionLocator.numberOfPartitions(),
+                partitionLocator.nodeForPartition(partition), durationNanos);
+    }
+
+    /**
+     * Decodes the content of a read, recording the time as the decode phase of the request.
+     * The other phases are recorded by the request tracer of the cluster environment.
+     */
+    private static JsonObject decode(GetResult result, CouchbaseMetrics couchbaseMetrics) {
+        long startTime = System.nanoTime();
+        JsonObject content = result.contentAs(JsonObject.class);
+        couchbaseMetrics.recordRequestPhase(RequestPhase.DECODE, System.nanoTime() - startTime);
+        return content;
+    }
+
+    private static long pathBytes(List<String> paths) {
+        long bytes = 0;
+        for (String path : paths) {
+            bytes += path.length();
+        }
+        return bytes;
+    }
+}
@@ -1,5 +1,10 @@
 package kleyman.service;
 
+import com.couchbase.client.core.msg.kv.DurabilityLevel;
+
+import java.util.List;
+import java.util.Map;
+
 /**
  * Interface for database services.
  *
@@ -8,7 +13,104 @@ package kleyman.service;
  */
 public interface DataBaseService<T, M> {
 
-    void upload(String key, T data, M metrics);
+    /**
+     * Uploads the data without synchronous durability.
+     */
+    default void upload(String key, T data, M metrics) {
+        upload(key, data, DurabilityLevel.NONE, metrics);
+    }
+
+    /**
+     * Uploads the data and waits until the write satisfies the given durability level.
+     */
+    void upload(String key, T data, DurabilityLevel durabilityLevel, M metrics);
+
+    /**
+     * Uploads the data like {@link #upload(String, Object, DurabilityLevel, Object)} and returns the CAS of the write.
+     */
+    long uploadAndGetCas(String key, T data, DurabilityLevel durabilityLevel, M metrics);
 
     T retrieve(String key, M metrics);
+
+    /**
+     * Reads the document together with its CAS, as the first step of a read-modify-write update.
+     */
+    VersionedDocument<T> retrieveWithCas(String key, M metrics);
+
+    /**
+     * Replaces the document only if it still has the given CAS.
+     *
+     * @return {@code true} if the document was replaced, {@code false} if it was changed since it was read
+     */
+    boolean replaceWithCas(String key, T data, long cas, M metrics);
+
+    /**
+     * Reads the document from whichever copy, active or replica, answers first.
+     */
+    VersionedDocument<T> retrieveFromAnyReplica(String key, M metrics);
+
+    /**
+     * Reads the document from the active node and every replica.
+     */
+    List<VersionedDocument<T>> retrieveFromAllReplicas(String key, M metrics);
+
+    default void retrieveJsonThreeTimes(String key, M metrics) {
+        for (int i = 0; i < 3; i++) {
+            retrieve(key, metrics);
+        }
+    }
+
+    /**
+     * Reads only the given paths of the stored document instead of the whole document.
+     *
+     * @return an object holding the value of every path that exists, keyed by path
+     */
+    T lookupIn(String key, List<String> paths, M metrics);
+
+    /**
+     * Upserts individual fields of the stored document, creating intermediate paths if needed.
+     */
+    void mutateIn(String key, Map<String, Object> fieldValues, M metrics);
+
+    /**
+     * Atomically adds {@code delta} to the numeric field at {@code path} and returns the new value.
+     */
+    long incrementField(String key, String path, long delta, M metrics);
+
+    /**
+     * Appends a value to the array at {@code path}, creating the array if it does not exist.
+     */
+    void appendToArray(String key, String path, Object value, M metrics);
+
+    /**
+     * Atomically adds {@code delta} to the counter document, creating it with {@code delta} if it does not exist,
+     * and returns the new value.
+     */
+    long incrementCounter(String key, long delta, M metrics);
+
+    /**
+     * Atomically subtracts {@code delta} from the counter document, never going below zero,
+     * creating it with zero if it does not exist, and returns the new value.
+     */
+    long decrementCounter(String key, long delta, M metrics);
+
+    /**
+     * Uploads raw bytes without any JSON encoding.
+     */
+    void uploadBinary(String key, byte[] data, M metrics);
+
+    /**
+     * Reads a document as raw bytes without any JSON decoding.
+     */
+    byte[] retrieveBinary(String key, M metrics);
+
+    /**
+     * Appends raw bytes to the end of an existing binary document.
+     */
+    void appendBinary(String key, byte[] data, M metrics);
+
+    /**
+     * Prepends raw bytes to the beginning of an existing binary document.
+     */
+    void prependBinary(String key, byte[] data, M metrics);
 }
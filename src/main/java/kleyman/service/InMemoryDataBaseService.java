@@ -0,0 +1,506 @@
+package kleyman.service;
+
+import com.couchbase.client.core.error.CouchbaseException;
+import com.couchbase.client.core.msg.kv.DurabilityLevel;
+import com.couchbase.client.java.json.JsonArray;
+import com.couchbase.client.java.json.JsonObject;
+import kleyman.config.PartitionLocator;
+import kleyman.metrics.CouchbaseMetrics;
+import kleyman.metrics.OperationType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * In-memory implementation of {@link DataBaseService} for running scenarios offline.
+ * Documents are kept encoded, so every operation pays the JSON encoding and decoding cost a real client pays,
+ * and every operation waits for an emulated network round-trip.
+ *
+ * <p>Durable writes additionally wait for the round-trips the server would need before acknowledging them:
+ * <ul>
+ *     <li>{@code MAJORITY}: replication to a majority of replicas</li>
+ *     <li>{@code MAJORITY_AND_PERSIST_TO_ACTIVE}: replication and, in parallel, persistence on the active node</li>
+ *     <li>{@code PERSIST_TO_MAJORITY}: replication followed by persistence on the replicas</li>
+ * </ul>
+ *
+ * <p>Writes without durability are replicated asynchronously: replica {@code i} only sees a write
+ * {@code (i + 1)} replication round-trips after it was acknowledged and serves the previous version until then.
+ *
+ * <p>Counters are stored as their decimal digits and binary documents as the raw bytes, as the server stores them.
+ */
+public class InMemoryDataBaseService implements DataBaseService<JsonObject, CouchbaseMetrics> {
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryDataBaseService.class);
+    static final String IN_MEMORY_NODE = "in-memory";
+    private final Map<String, StoredDocument> documents = new ConcurrentHashMap<>();
+    private final AtomicLong casSequence = new AtomicLong();
+    private final long networkRoundTripNanos;
+    private final long replicationRoundTripNanos;
+    private final long persistenceNanos;
+    private final int replicaCount;
+    private final PartitionLocator partitionLocator = PartitionLocator.singleNode(PartitionLocator.DEFAULT_PARTITIONS, IN_MEMORY_NODE);
+
+    /**
+     * Constructs an in-memory service that answers without any emulated latency.
+     */
+    public InMemoryDataBaseService() {
+        this(Duration.ZERO, Duration.ZERO, Duration.ZERO);
+    }
+
+    /**
+     * Constructs an in-memory service with emulated latencies.
+     *
+     * @param networkRoundTrip     latency added to every operation
+     * @param replicationRoundTrip latency of replicating a write to a majority of replicas
+     * @param persistence          latency of persisting a write to disk on a single node
+     */
+    public InMemoryDataBaseService(Duration networkRoundTrip, Duration replicationRoundTrip, Duration persistence) {
+        this(networkRoundTrip, replicationRoundTrip, persistence, 1);
+    }
+
+    /**
+     * Constructs an in-memory service with emulated latencies and the given number of replicas.
+     *
+     * @param networkRoundTrip     latency added to every operation
+     * @param replicationRoundTrip latency of replicating a write to a majority of replicas
+     * @param persistence          latency of persisting a write to disk on a single node
+     * @param replicaCount         number of emulated replicas
+     */
+    public InMemoryDataBaseService(Duration networkRoundTrip, Duration replicationRoundTrip, Duration persistence, int replicaCount) {
+        this.networkRoundTripNanos = networkRoundTrip.toNanos();
+        this.replicationRoundTripNanos = replicationRoundTrip.toNanos();
+        this.persistenceNanos = persistence.toNanos();
+        this.replicaCount = replicaCount;
+    }
+
+    @Override
+    public void upload(String key, JsonObject jsonData, DurabilityLevel durabilityLevel, CouchbaseMetrics couchbaseMetrics) {
+        uploadAndGetCas(key, jsonData, durabilityLevel, couchbaseMetrics);
+    }
+
+    @Override
+    public long uploadAndGetCas(String key, JsonObject jsonData, DurabilityLevel durabilityLevel, CouchbaseMetrics couchbaseMetrics) {
+        long startTime = couchbaseMetrics.startOperation();
+        RuntimeException failure = null;
+        try {
+            validateKey(key);
+            byte[] content = jsonData.toBytes();
+            long cas = casSequence.incrementAndGet();
+            boolean replicated = durabilityLevel != DurabilityLevel.NONE;
+            documents.compute(key, (k, existing) -> new StoredDocument(content, cas, System.nanoTime(), replicated, previousOf(existing)));
+            emulateLatency(networkRoundTripNanos + durabilityNanos(durabilityLevel));
+            logger.debug("Stored JSON document with key: {} and durability: {}", key, durabilityLevel);
+            couchbaseMetrics.incrementPutSuccess();
+            return cas;
+        } catch (CouchbaseException e) {
+            couchbaseMetrics.incrementPutFailure();
+            failure = e;
+            throw e;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            long duration = couchbaseMetrics.endOperation(startTime);
+            couchbaseMetrics.recordPutLatency(duration, TimeUnit.NANOSECONDS);
+            recordPartition(key, duration, couchbaseMetrics);
+            SlowOperationCapture.captureIfSlow(couchbaseMetrics, SlowOperationCapture.PUT, key, duration, jsonData, failure, partitionLocator);
+        }
+    }
+
+    @Override
+    public JsonObject retrieve(String key, CouchbaseMetrics couchbaseMetrics) {
+        long startTime = couchbaseMetrics.startOperation();
+        JsonObject jsonObject = null;
+        RuntimeException failure = null;
+        try {
+            StoredDocument document = getDocument(key);
+            emulateLatency(networkRoundTripNanos);
+            couchbaseMetrics.incrementGetSuccess();
+            jsonObject = JsonObject.fromJson(document.content());
+            return jsonObject;
+        } catch (CouchbaseException e) {
+            couchbaseMetrics.incrementGetFailure();
+            failure = e;
+            throw e;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            long duration = couchbaseMetrics.endOperation(startTime);
+            couchbaseMetrics.recordGetLatency(duration, TimeUnit.NANOSECONDS);
+            recordPartition(key, duration, couchbaseMetrics);
+            SlowOperationCapture.captureIfSlow(couchbaseMetrics, SlowOperationCapture.GET, key, duration, jsonObject, failure, partitionLocator);
+        }
+    }
+
+    @Override
+    public VersionedDocument<JsonObject> retrieveWithCas(String key, CouchbaseMetrics couchbaseMetrics) {
+        return executeOperation(OperationType.CAS_GET, key, couchbaseMetrics, () -> {
+            StoredDocument document = getDocument(key);
+            return new VersionedDocument<>(JsonObject.fromJson(document.content()), document.cas(), false);
+        });
+    }
+
+    @Override
+    public boolean replaceWithCas(String key, JsonObject jsonData, long cas, CouchbaseMetrics couchbaseMetrics) {
+        return executeOperation(OperationType.CAS_REPLACE, key, jsonData, couchbaseMetrics, () -> {
+            getDocument(key);
+            byte[] content = jsonData.toBytes();
+            boolean[] replaced = new boolean[1];
+            documents.computeIfPresent(key, (k, existing) -> {
+                if (existing.cas() != cas) {
+                    return existing;
+                }
+                replaced[0] = true;
+                return new StoredDocument(content, casSequence.incrementAndGet(), System.nanoTime(), false, previousOf(existing));
+            });
+            return replaced[0];
+        });
+    }
+
+    @Override
+    public VersionedDocument<JsonObject> retrieveFromAnyReplica(String key, CouchbaseMetrics couchbaseMetrics) {
+        return executeOperation(OperationType.REPLICA_GET_ANY, key, couchbaseMetrics, () -> {
+            StoredDocument active = getDocument(key);
+            StoredDocument replica = active.versionOnReplica(0, replicationRoundTripNanos, System.nanoTime());
+            // The active copy answers when the replica has not received any version of the document yet
+            StoredDocument served = replica == null ? active : replica;
+            return new VersionedDocument<>(JsonObject.fromJson(served.content()), served.cas(), replica != null);
+        });
+    }
+
+    @Override
+    public List<VersionedDocument<JsonObject>> retrieveFromAllReplicas(String key, CouchbaseMetrics couchbaseMetrics) {
+        return executeOperation(OperationType.REPLICA_GET_ALL, key, couchbaseMetrics, () -> {
+            StoredDocument active = getDocument(key);
+            long now = System.nanoTime();
+            List<VersionedDocument<JsonObject>> copies = new ArrayList<>(replicaCount + 1);
+            copies.add(new VersionedDocument<>(JsonObject.fromJson(active.content()), active.cas(), false));
+            for (int i = 0; i < replicaCount; i++) {
+                StoredDocument replica = active.versionOnReplica(i, replicationRoundTripNanos, now);
+                if (replica != null) {
+                    copies.add(new VersionedDocument<>(JsonObject.fromJson(replica.content()), replica.cas(), true));
+                }
+            }
+            return copies;
+        });
+    }
+
+    @Override
+    public JsonObject lookupIn(String key, List<String> paths, CouchbaseMetrics couchbaseMetrics) {
+        return executeOperation(OperationType.LOOKUP_IN, key, couchbaseMetrics, () -> {
+            JsonObject document = JsonObject.fromJson(getDocument(key).content());
+            JsonObject fields = JsonObject.create();
+            long payloadBytes = 0;
+            for (String path : paths) {
+                Object value = resolvePath(document, path);
+                payloadBytes += path.length();
+                if (value != null) {
+                    fields.put(path, value);
+                    payloadBytes += String.valueOf(value).length();
+                }
+            }
+            couchbaseMetrics.recordPayloadBytes(OperationType.LOOKUP_IN, payloadBytes);
+            return fields;
+        });
+    }
+
+    @Override
+    public void mutateIn(String key, Map<String, Object> fieldValues, CouchbaseMetrics couchbaseMetrics) {
+        executeOperation(OperationType.MUTATE_IN, key, couchbaseMetrics, () -> {
+            mutateDocument(key, document -> {
+                for (Map.Entry<String, Object> field : fieldValues.entrySet()) {
+                    parentOf(document, field.getKey()).put(leafOf(field.getKey()), field.getValue());
+                }
+                return null;
+            });
+            long payloadBytes = 0;
+            for (Map.Entry<String, Object> field : fieldValues.entrySet()) {
+                payloadBytes += field.getKey().length() + String.valueOf(field.getValue()).length();
+            }
+            couchbaseMetrics.recordPayloadBytes(OperationType.MUTATE_IN, payloadBytes);
+            return null;
+        });
+    }
+
+    @Override
+    public long incrementField(String key, String path, long delta, CouchbaseMetrics couchbaseMetrics) {
+        return executeOperation(OperationType.SUBDOC_COUNTER, key, couchbaseMetrics, () -> {
+            long value = mutateDocument(key, document -> {
+                JsonObject parent = parentOf(document, path);
+                Long current = parent.getLong(leafOf(path));
+                long updated = (current == null ? 0 : current) + delta;
+                parent.put(leafOf(path), updated);
+                return updated;
+            });
+            couchbaseMetrics.recordPayloadBytes(OperationType.SUBDOC_COUNTER,
+                    path.length() + Long.toString(delta).length() + Long.toString(value).length());
+            return value;
+        });
+    }
+
+    @Override
+    public void appendToArray(String key, String path, Object value, CouchbaseMetrics couchbaseMetrics) {
+        executeOperation(OperationType.SUBDOC_ARRAY_APPEND, key, couchbaseMetrics, () -> {
+            mutateDocument(key, document -> {
+                JsonObject parent = parentOf(document, path);
+                JsonArray array = parent.getArray(leafOf(path));
+                if (array == null) {
+                    array = JsonArray.create();
+                    parent.put(leafOf(path), array);
+                }
+                array.add(value);
+                return null;
+            });
+            couchbaseMetrics.recordPayloadBytes(OperationType.SUBDOC_ARRAY_APPEND, path.length() + String.valueOf(value).length());
+            return null;
+        });
+    }
+
+    @Override
+    public long incrementCounter(String key, long delta, CouchbaseMetrics couchbaseMetrics) {
+        return executeOperation(OperationType.COUNTER_INCREMENT, key, couchbaseMetrics, () -> updateCounter(key, delta, delta));
+    }
+
+    @Override
+    public long decrementCounter(String key, long delta, CouchbaseMetrics couchbaseMetrics) {
+        return executeOperation(OperationType.COUNTER_DECREMENT, key, couchbaseMetrics, () -> updateCounter(key, -delta, 0));
+    }
+
+    @Override
+    public void uploadBinary(String key, byte[] data, CouchbaseMetrics couchbaseMetrics) {
+        executeOperation(OperationType.BINARY_UPSERT, key, data, couchbaseMetrics, () -> {
+            validateKey(key);
+            byte[] content = data.clone();
+            documents.compute(key, (k, existing) -> new StoredDocument(content, casSequence.incrementAndGet(), System.nanoTime(), false, previousOf(existing)));
+            couchbaseMetrics.recordPayloadBytes(OperationType.BINARY_UPSERT, data.length);
+            return null;
+        });
+    }
+
+    @Override
+    public byte[] retrieveBinary(String key, CouchbaseMetrics couchbaseMetrics) {
+        return executeOperation(OperationType.BINARY_GET, key, couchbaseMetrics, () -> {
+            byte[] content = getDocument(key).content().clone();
+            couchbaseMetrics.recordPayloadBytes(OperationType.BINARY_GET, content.length);
+            return content;
+        });
+    }
+
+    @Override
+    public void appendBinary(String key, byte[] data, CouchbaseMetrics couchbaseMetrics) {
+        executeOperation(OperationType.BINARY_APPEND, key, data, couchbaseMetrics, () -> {
+            concatenate(key, null, data);
+            couchbaseMetrics.recordPayloadBytes(OperationType.BINARY_APPEND, data.length);
+            return null;
+        });
+    }
+
+    @Override
+    public void prependBinary(String key, byte[] data, CouchbaseMetrics couchbaseMetrics) {
+        executeOperation(OperationType.BINARY_PREPEND, key, data, couchbaseMetrics, () -> {
+            concatenate(key, data, null);
+            couchbaseMetrics.recordPayloadBytes(OperationType.BINARY_PREPEND, data.length);
+            return null;
+        });
+    }
+
+    /**
+     * Returns the number of stored documents.
+     */
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * Returns the extra latency a write with the given durability level waits for before being acknowledged.
+     */
+    long durabilityNanos(DurabilityLevel durabilityLevel) {
+        return switch (durabilityLevel) {
+            case NONE -> 0;
+            case MAJORITY -> replicationRoundTripNanos;
+            case MAJORITY_AND_PERSIST_TO_ACTIVE -> Math.max(replicationRoundTripNanos, persistenceNanos);
+            case PERSIST_TO_MAJORITY -> replicationRoundTripNanos + persistenceNanos;
+        };
+    }
+
+    /**
+     * Attributes the operation to the vBucket of the key, all of which are owned by the single emulated node.
+     */
+    private void recordPartition(String key, long durationNanos, CouchbaseMetrics couchbaseMetrics) {
+        int partition = partitionLocator.partitionForKey(key);
+        couchbaseMetrics.recordPartitionOperation(partition, partitionLocator.numberOfPartitions(),
+                partitionLocator.nodeForPartition(partition), durationNanos);
+    }
+
+    private <R> R executeOperation(OperationType operationType, String key, CouchbaseMetrics couchbaseMetrics, Supplier<R> operation) {
+        return executeOperation(operationType, key, null, couchbaseMetrics, operation);
+    }
+
+    /**
+     * Runs a single operation after the emulated round-trip while tracking success, failure and latency.
+     *
+     * @param sent the document or bytes the operation sends, {@code null} to capture the size of what it returns when it is slow
+     */
+    private <R> R executeOperation(OperationType operationType, String key, Object sent, CouchbaseMetrics couchbaseMetrics,
+                                   Supplier<R> operation) {
+        long startTime = couchbaseMetrics.startOperation();
+        R result = null;
+        RuntimeException failure = null;
+        try {
+            result = operation.get();
+            emulateLatency(networkRoundTripNanos);
+            couchbaseMetrics.incrementSuccess(operationType);
+            return result;
+        } catch (CouchbaseException e) {
+            couchbaseMetrics.incrementFailure(operationType);
+            failure = e;
+            throw e;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            long duration = couchbaseMetrics.endOperation(startTime);
+            couchbaseMetrics.recordLatency(operationType, duration, TimeUnit.NANOSECONDS);
+            recordPartition(key, duration, couchbaseMetrics);
+            SlowOperationCapture.captureIfSlow(couchbaseMetrics, operationType.getMetricName(), key, duration,
+                    sent != null ? sent : result, failure, partitionLocator);
+        }
+    }
+
+    /**
+     * Adds {@code delta} to the counter stored under {@code key}, or creates it with {@code initial}.
+     * Like the server, counters never go below zero.
+     */
+    private long updateCounter(String key, long delta, long initial) {
+        validateKey(key);
+        long[] value = new long[1];
+        documents.compute(key, (k, existing) -> {
+            value[0] = existing == null
+                    ? initial
+                    : Math.max(0, Long.parseLong(new String(existing.content(), StandardCharsets.US_ASCII)) + delta);
+            byte[] content = Long.toString(value[0]).getBytes(StandardCharsets.US_ASCII);
+            return new StoredDocument(content, casSequence.incrementAndGet(), System.nanoTime(), false, previousOf(existing));
+        });
+        return value[0];
+    }
+
+    private void concatenate(String key, byte[] prefix, byte[] suffix) {
+        getDocument(key);
+        documents.computeIfPresent(key, (k, existing) -> {
+            byte[] head = prefix == null ? new byte[0] : prefix;
+            byte[] tail = suffix == null ? new byte[0] : suffix;
+            byte[] content = new byte[head.length + existing.content().length + tail.length];
+            System.arraycopy(head, 0, content, 0, head.length);
+            System.arraycopy(existing.content(), 0, content, head.length, existing.content().length);
+            System.arraycopy(tail, 0, content, head.length + existing.content().length, tail.length);
+            return new StoredDocument(content, casSequence.incrementAndGet(), System.nanoTime(), false, previousOf(existing));
+        });
+    }
+
+    private StoredDocument getDocument(String key) {
+        StoredDocument document = documents.get(key);
+        if (document == null) {
+            throw new CouchbaseException("Document not found for key: " + key);
+        }
+        return document;
+    }
+
+    /**
+     * Applies a mutation to the decoded document atomically with respect to other mutations of the same key.
+     */
+    private <R> R mutateDocument(String key, DocumentMutation<R> mutation) {
+        Object[] result = new Object[1];
+        documents.compute(key, (k, existing) -> {
+            if (existing == null) {
+                throw new CouchbaseException("Document not found for key: " + key);
+            }
+            JsonObject document = JsonObject.fromJson(existing.content());
+            result[0] = mutation.apply(document);
+            return new StoredDocument(document.toBytes(), casSequence.incrementAndGet(), System.nanoTime(), false, previousOf(existing));
+        });
+        @SuppressWarnings("unchecked")
+        R value = (R) result[0];
+        return value;
+    }
+
+    private static Object resolvePath(JsonObject document, String path) {
+        JsonObject current = document;
+        String[] segments = path.split("\\.");
+        for (int i = 0; i < segments.length - 1; i++) {
+            current = current.getObject(segments[i]);
+            if (current == null) {
+                return null;
+            }
+        }
+        return current.get(segments[segments.length - 1]);
+    }
+
+    private static JsonObject parentOf(JsonObject document, String path) {
+        JsonObject current = document;
+        String[] segments = path.split("\\.");
+        for (int i = 0; i < segments.length - 1; i++) {
+            JsonObject next = current.getObject(segments[i]);
+            if (next == null) {
+                next = JsonObject.create();
+                current.put(segments[i], next);
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    private static String leafOf(String path) {
+        return path.substring(path.lastIndexOf('.') + 1);
+    }
+
+    private static void validateKey(String key) {
+        if (key == null || key.isEmpty()) {
+            throw new CouchbaseException("Document key must not be empty");
+        }
+    }
+
+    private static void emulateLatency(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + nanos;
+        long remaining = nanos;
+        while (remaining > 0) {
+            LockSupport.parkNanos(remaining);
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
+    private static StoredDocument previousOf(StoredDocument existing) {
+        return existing == null ? null : new StoredDocument(existing.content(), existing.cas(), existing.writtenAtNanos(), true, null);
+    }
+
+    /**
+     * A stored version of a document together with the version it replaced,
+     * which replicas keep serving until the new version reaches them.
+     */
+    private record StoredDocument(byte[] content, long cas, long writtenAtNanos, boolean replicated, StoredDocument previous) {
+
+        StoredDocument versionOnReplica(int replicaIndex, long replicationRoundTripNanos, long nowNanos) {
+            if (replicated || nowNanos - writtenAtNanos >= replicationRoundTripNanos * (replicaIndex + 1)) {
+                return this;
+            }
+            return previous;
+        }
+    }
+
+    @FunctionalInterface
+    private interface DocumentMutation<R> {
+        R apply(JsonObject document);
+    }
+}
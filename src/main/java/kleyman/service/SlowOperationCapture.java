@@ -0,0 +1,59 @@
+package kleyman.service;
+
+import com.couchbase.client.java.json.JsonObject;
+import kleyman.config.PartitionLocator;
+import kleyman.metrics.CouchbaseMetrics;
+import kleyman.metrics.SlowOperation;
+import kleyman.metrics.SlowOperationLog;
+
+import java.util.List;
+
+/**
+ * Writes an operation whose latency reached the slow threshold of its kind to the {@link SlowOperationLog} of the
+ * scenario, with the key, the calling thread, the size of the document sent or received, the vBucket and the
+ * exception it failed with. The services call it with the latency they have just recorded, so a captured latency is
+ * exactly the one in the histograms. An operation below the threshold costs a lookup of the threshold of its kind and
+ * a clock read to see whether that threshold is due to be re-read; the size and the vBucket are only computed for
+ * slow operations.
+ */
+final class SlowOperationCapture {
+    static final String PUT = "put";
+    static final String GET = "get";
+
+    private SlowOperationCapture() {
+    }
+
+    /**
+     * Captures the operation if it was slow.
+     *
+     * @param document         the document or bytes the operation sent or returned, or {@code null}
+     * @param failure          the exception the operation failed with, or {@code null}
+     * @param partitionLocator the partition layout of the backend, or {@code null} if it is not known
+     */
+    static void captureIfSlow(CouchbaseMetrics metrics, String operation, String key, long latencyNanos, Object document,
+                              RuntimeException failure, PartitionLocator partitionLocator) {
+        SlowOperationLog slowOperations = metrics.getSlowOperationLog();
+        if (!slowOperations.isSlow(operation, latencyNanos)) {
+            return;
+        }
+        slowOperations.record(new SlowOperation(System.currentTimeMillis(), operation, key, Thread.currentThread().getName(),
+                latencyNanos, documentBytes(document), partitionLocator == null ? -1 : partitionLocator.partitionForKey(key),
+                failure == null ? null : failure.getClass().getSimpleName()));
+    }
+
+    private static long documentBytes(Object document) {
+        if (document instanceof JsonObject json) {
+            return json.toBytes().length;
+        }
+        if (document instanceof byte[] bytes) {
+            return bytes.length;
+        }
+        if (document instanceof VersionedDocument<?> versioned) {
+            return documentBytes(versioned.content());
+        }
+        if (document instanceof List<?> copies && !copies.isEmpty()) {
+            return documentBytes(copies.get(0));
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,12 @@
+package kleyman.service;
+
+/**
+ * A document read together with its CAS value, which changes on every mutation of the document.
+ *
+ * @param content the document content
+ * @param cas     the CAS value of the returned copy
+ * @param replica whether the copy was served by a replica rather than the active node
+ * @param <T>     the type of the document content
+ */
+public record VersionedDocument<T>(T content, long cas, boolean replica) {
+}
@@ -0,0 +1,14 @@
+package kleyman.slo;
+
+/**
+ * Outcome of one SLO assertion of a scenario, for example {@code p99 GET latency (ms) < 5}.
+ *
+ * @param scenarioId scenario id
+ * @param metric     name of the checked metric, with its unit
+ * @param operator   comparison the actual value must satisfy against the limit
+ * @param limit      threshold from the SLO file, or derived from the baseline run
+ * @param actual     measured value
+ * @param passed     whether the assertion holds
+ */
+public record SloCheck(String scenarioId, String metric, String operator, double limit, double actual, boolean passed) {
+}
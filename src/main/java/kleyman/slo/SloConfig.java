@@ -0,0 +1,22 @@
+package kleyman.slo;
+
+import java.util.Map;
+
+/**
+ * Contents of the SLO file, for example:
+ * <pre>
+ * {
+ *   "baseline": "results/run-20240101-120000.cblr",
+ *   "defaults": {"maxErrorRatePercent": 1, "maxRegressionPercent": 10},
+ *   "scenarios": {
+ *     "Scenario 1": {"maxGetP99LatencyMillis": 5, "minThroughput": 2000}
+ *   }
+ * }
+ * </pre>
+ *
+ * @param baseline  optional run result file the regression thresholds are checked against
+ * @param defaults  thresholds applied to every scenario that ran, unless the scenario overrides them
+ * @param scenarios thresholds of individual scenarios, by scenario id; a listed scenario must have run
+ */
+public record SloConfig(String baseline, SloThresholds defaults, Map<String, SloThresholds> scenarios) {
+}
@@ -0,0 +1,142 @@
+package kleyman.slo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import kleyman.metrics.CouchbaseMetrics;
+import kleyman.results.RunResult;
+import kleyman.results.RunResultFile;
+import kleyman.results.ScenarioResult;
+import kleyman.util.OutputDirectoryUtils;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Checks the scenarios of a finished run against the service level objectives of the SLO file set by
+ * {@code load.test.slo.file}, so a release pipeline can fail the build when performance regresses.
+ * The verdict is written as JSON to {@code slo-verdict.json} next to the run result file.
+ * Repeated trials of a scenario are checked together: latency percentiles over all their operations,
+ * throughput and error rate over their combined duration and operations.
+ */
+public class SloGate {
+    private static final Logger logger = LoggerFactory.getLogger(SloGate.class);
+    public static final String SLO_FILE_PROPERTY = "load.test.slo.file";
+    static final String VERDICT_FILE = "slo-verdict.json";
+    private static final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /**
+     * Evaluates the configured SLO file against the given scenario trials and writes the verdict.
+     *
+     * @return the verdict, or empty when no SLO file is configured
+     */
+    public static Optional<SloVerdict> evaluateConfigured(Collection<CouchbaseMetrics> scenarios) throws IOException {
+        String sloFile = System.getProperty(SLO_FILE_PROPERTY);
+        if (sloFile == null || sloFile.isEmpty()) {
+            return Optional.empty();
+        }
+        SloConfig config = objectMapper.readValue(Path.of(sloFile).toFile(), SloConfig.class);
+        RunResult baseline = config.baseline() == null ? null : RunResultFile.read(Path.of(config.baseline()));
+        SloVerdict verdict = evaluate(config, scenarios, baseline);
+        Path verdictFile = OutputDirectoryUtils.resolve("load.test.results.directory").resolve(VERDICT_FILE);
+        Files.createDirectories(verdictFile.toAbsolutePath().getParent());
+        objectMapper.writeValue(verdictFile.toFile(), verdict);
+        for (SloCheck check : verdict.checks()) {
+            if (!check.passed()) {
+                logger.error("SLO failed for {}: {} {} {}, was {}", check.scenarioId(), check.metric(), check.operator(),
+                        String.format("%.2f", check.limit()), String.format("%.2f", check.actual()));
+            }
+        }
+        logger.info("SLO gate {} with {} of {} checks failed, verdict written to {}",
+                verdict.passed() ? "passed" : "failed", verdict.failedChecks(), verdict.checks().size(), verdictFile);
+        return Optional.of(verdict);
+    }
+
+    /**
+     * Checks every scenario that ran against its own thresholds merged with the defaults, and fails
+     * every scenario listed in the SLO file that did not run.
+     *
+     * @param scenarios every trial of the scenarios that ran
+     * @param baseline  earlier run for the regression thresholds, or {@code null}
+     */
+    public static SloVerdict evaluate(SloConfig config, Collection<CouchbaseMetrics> scenarios, RunResult baseline) {
+        Map<String, SloThresholds> scenarioThresholds = config.scenarios() == null ? Map.of() : config.scenarios();
+        List<SloCheck> checks = new ArrayList<>();
+        Map<String, List<CouchbaseMetrics>> trialsByScenario = scenarios.stream()
+                .collect(Collectors.groupingBy(CouchbaseMetrics::getScenarioId, LinkedHashMap::new, Collectors.toList()));
+        for (Map.Entry<String, List<CouchbaseMetrics>> scenario : trialsByScenario.entrySet()) {
+            List<CouchbaseMetrics> trials = scenario.getValue();
+            SloThresholds thresholds = scenarioThresholds.getOrDefault(scenario.getKey(), SloThresholds.NONE)
+                    .withDefaults(config.defaults());
+            ScenarioResult result = ScenarioResult.merge(trials.stream().map(ScenarioResult::from).toList());
+            checkBelow(checks, result.scenarioId(), "p99 latency (ms)", thresholds.maxP99LatencyMillis(), result.latencyPercentile(99));
+            checkBelow(checks, result.scenarioId(), "p99 GET latency (ms)", thresholds.maxGetP99LatencyMillis(),
+                    p99LatencyMillis(trials, CouchbaseMetrics::getGetLatencyHistogram));
+            checkBelow(checks, result.scenarioId(), "p99 PUT latency (ms)", thresholds.maxPutP99LatencyMillis(),
+                    p99LatencyMillis(trials, CouchbaseMetrics::getPutLatencyHistogram));
+            checkAtLeast(checks, result.scenarioId(), "throughput (ops/s)", thresholds.minThroughput(), result.throughput());
+            checkBelow(checks, result.scenarioId(), "error rate (%)", thresholds.maxErrorRatePercent(), result.errorRate());
+            if (baseline != null && thresholds.maxRegressionPercent() != null) {
+                checkRegression(checks, result, baseline, thresholds.maxRegressionPercent());
+            }
+        }
+        for (String scenarioId : scenarioThresholds.keySet()) {
+            if (!trialsByScenario.containsKey(scenarioId)) {
+                checks.add(new SloCheck(scenarioId, "completed runs", ">=", 1, 0, false));
+            }
+        }
+        return SloVerdict.of(checks);
+    }
+
+    /**
+     * Returns the p99 latency in milliseconds over every trial, read from the given latency histogram in microseconds.
+     */
+    private static double p99LatencyMillis(List<CouchbaseMetrics> trials, Function<CouchbaseMetrics, Histogram> histogram) {
+        Histogram merged = histogram.apply(trials.get(0)).copy();
+        trials.stream().skip(1).forEach(trial -> merged.add(histogram.apply(trial)));
+        return merged.getTotalCount() == 0 ? 0 : merged.getValueAtPercentile(99) / 1000.0;
+    }
+
+    private static void checkRegression(List<SloCheck> checks, ScenarioResult result, RunResult baseline, double maxRegressionPercent) {
+        List<ScenarioResult> baseTrials = baseline.trials(result.scenarioId());
+        if (baseTrials.isEmpty()) {
+            logger.warn("{} is not in the baseline run, skipping its regression checks", result.scenarioId());
+            return;
+        }
+        ScenarioResult base = ScenarioResult.merge(baseTrials);
+        double factor = maxRegressionPercent / 100;
+        checkAtLeast(checks, result.scenarioId(), "throughput vs baseline (ops/s)",
+                base.throughput() * (1 - factor), result.throughput());
+        checkAtMost(checks, result.scenarioId(), "p99 latency vs baseline (ms)",
+                base.latencyPercentile(99) * (1 + factor), result.latencyPercentile(99));
+    }
+
+    private static void checkBelow(List<SloCheck> checks, String scenarioId, String metric, Double limit, double actual) {
+        if (limit != null) {
+            checks.add(new SloCheck(scenarioId, metric, "<", limit, actual, actual < limit));
+        }
+    }
+
+    private static void checkAtMost(List<SloCheck> checks, String scenarioId, String metric, Double limit, double actual) {
+        if (limit != null) {
+            checks.add(new SloCheck(scenarioId, metric, "<=", limit, actual, actual <= limit));
+        }
+    }
+
+    private static void checkAtLeast(List<SloCheck> checks, String scenarioId, String metric, Double limit, double actual) {
+        if (limit != null) {
+            checks.add(new SloCheck(scenarioId, metric, ">=", limit, actual, actual >= limit));
+        }
+    }
+}
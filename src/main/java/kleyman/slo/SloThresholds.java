@@ -0,0 +1,34 @@
+package kleyman.slo;
+
+/**
+ * Service level objectives of a scenario. Every threshold is optional; a {@code null} threshold is not checked.
+ * Latencies and the error rate must stay below their bounds, the throughput must reach its bound.
+ *
+ * @param maxP99LatencyMillis    bound of the p99 latency of all operations
+ * @param maxGetP99LatencyMillis bound of the p99 GET latency
+ * @param maxPutP99LatencyMillis bound of the p99 PUT latency
+ * @param minThroughput          bound of successful operations per second of wall-clock time
+ * @param maxErrorRatePercent    bound of failed operations in percent of all operations
+ * @param maxRegressionPercent   how much worse than the baseline run the throughput and p99 latency may be
+ */
+public record SloThresholds(Double maxP99LatencyMillis, Double maxGetP99LatencyMillis, Double maxPutP99LatencyMillis,
+                            Double minThroughput, Double maxErrorRatePercent, Double maxRegressionPercent) {
+
+    static final SloThresholds NONE = new SloThresholds(null, null, null, null, null, null);
+
+    /**
+     * Returns these thresholds with every missing one taken from the given defaults.
+     */
+    SloThresholds withDefaults(SloThresholds defaults) {
+        if (defaults == null) {
+            return this;
+        }
+        return new SloThresholds(
+                maxP99LatencyMillis != null ? maxP99LatencyMillis : defaults.maxP99LatencyMillis,
+                maxGetP99LatencyMillis != null ? maxGetP99LatencyMillis : defaults.maxGetP99LatencyMillis,
+                maxPutP99LatencyMillis != null ? maxPutP99LatencyMillis : defaults.maxPutP99LatencyMillis,
+                minThroughput != null ? minThroughput : defaults.minThroughput,
+                maxErrorRatePercent != null ? maxErrorRatePercent : defaults.maxErrorRatePercent,
+                maxRegressionPercent != null ? maxRegressionPercent : defaults.maxRegressionPercent);
+    }
+}
@@ -0,0 +1,14 @@
+package kleyman.slo;
+
+import java.util.List;
+
+/**
+ * Machine-readable result of the SLO gate: passed only when every check passed.
+ */
+public record SloVerdict(boolean passed, int failedChecks, List<SloCheck> checks) {
+
+    static SloVerdict of(List<SloCheck> checks) {
+        int failed = (int) checks.stream().filter(check -> !check.passed()).count();
+        return new SloVerdict(failed == 0, failed, checks);
+    }
+}
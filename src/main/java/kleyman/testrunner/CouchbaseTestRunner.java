@@ -2,73 +2,382 @@ package kleyman.testrunner;
 
 import io.micrometer.core.instrument.MeterRegistry;
 import kleyman.config.CouchbaseConnectionManager;
+import kleyman.control.RunController;
 import kleyman.loadtest.CouchbaseLoadTestScenarioProvider;
 import kleyman.loadtest.CouchbaseLoadTestExecutor;
+import kleyman.loadtest.ScenarioDefaults;
+import kleyman.metrics.CouchbaseMetrics;
+import kleyman.profiling.ScenarioProfiler;
 import kleyman.service.CouchbaseService;
+import kleyman.service.InMemoryDataBaseService;
+import kleyman.trace.TraceReplayer;
+import kleyman.util.OutputDirectoryUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
 /**
  * This class runs load tests on Couchbase by executing various connection
  * pool and thread pool scenarios while managing Couchbase connections.
+ * With {@code load.test.backend=in-memory} the scenarios run against an in-memory service instead,
+ * e.g. as a regression gate in a build pipeline without a cluster.
+ * Every scenario is reported to the {@link RunController}, through which the run can be stopped,
+ * scenarios skipped and their concurrency changed while they run.
+ * A {@link ScenarioStartBarrier} can hold back every scenario until it may start, which lets the agents
+ * of a distributed run start each scenario together.
  */
 
 public class CouchbaseTestRunner implements TestRunner {
     private static final Logger logger = LoggerFactory.getLogger(CouchbaseTestRunner.class);
+    // ISO-8601 duration, e.g. PT24H, that switches the runner to soak mode
+    static final String SOAK_DURATION_PROPERTY = "load.test.soak.duration";
+    static final String BACKEND_PROPERTY = "load.test.backend";
+    static final String IN_MEMORY_BACKEND = "in-memory";
+    static final String REPETITIONS_PROPERTY = "load.test.repetitions";
+    // Comma-separated thread counts, e.g. 1,2,4,8,16,32, of the optional concurrency sweep
+    static final String CONCURRENCY_SWEEP_PROPERTY = "load.test.concurrency.sweep";
+    // Operation trace that is replayed instead of the test matrix
+    static final String REPLAY_TRACE_PROPERTY = "load.test.replay.trace";
+    // KV access log that is replayed instead of the test matrix
+    static final String REPLAY_ACCESS_LOG_PROPERTY = "load.test.replay.accesslog";
+    static final String REPLAY_THREADS_PROPERTY = "load.test.replay.threads";
+    private static final int DEFAULT_REPLAY_THREADS = 16;
+    // Multiple of the recorded pace, e.g. 2 for twice as fast, or max
+    static final String REPLAY_SPEED_PROPERTY = "load.test.replay.speed";
+    private final String profilerSettings;
+    private final Path profilerDirectory = OutputDirectoryUtils.resolve("load.test.jfr.directory");
+    private final int repetitions = Math.max(1, Integer.getInteger(REPETITIONS_PROPERTY, 1));
+    private final Random random;
+    private final ScenarioStartBarrier startBarrier;
+    private final ScenarioDefaults scenarioDefaults;
+    // How often each scenario id has been run, to tell repeated trials apart at the start barrier
+    private final Map<String, Integer> scenarioRuns = new HashMap<>();
+    private final List<CouchbaseMetrics> completedScenarios = new ArrayList<>();
+    // Shared by all scenarios when running against the in-memory backend, null when running against Couchbase
+    private final InMemoryDataBaseService inMemoryService;
+    private final RunController runController = RunController.get();
+    // Set when scenarios could not run because the connection, the bucket or the in-memory service failed
+    private boolean failed;
     int numberOfTestRun = 0;
 
+    public CouchbaseTestRunner() {
+        this(RunConfiguration.fromProperties());
+    }
+
+    /**
+     * Creates a runner with the given configuration, which falls back to the system properties for every value
+     * it does not set.
+     */
+    public CouchbaseTestRunner(RunConfiguration configuration) {
+        this.startBarrier = configuration.getStartBarrier();
+        this.random = configuration.getRandom();
+        this.scenarioDefaults = configuration.getScenarioDefaults();
+        this.inMemoryService = configuration.getInMemoryService() != null
+                ? configuration.getInMemoryService()
+                : IN_MEMORY_BACKEND.equals(System.getProperty(BACKEND_PROPERTY)) ? new InMemoryDataBaseService() : null;
+        this.profilerSettings = configuration.getProfilerSettings() != null
+                ? configuration.getProfilerSettings()
+                : System.getProperty("load.test.jfr.settings", "profile");
+    }
+
     @Override
     public void runTests() {
+        runTests(EnumSet.allOf(ScenarioGroup.class));
+    }
+
+    /**
+     * Runs the scenarios of the given groups only, the soak scenario when {@code load.test.soak.duration} is set,
+     * the replay of an operation trace when {@code load.test.replay.trace} is set,
+     * or the replay of an access log when {@code load.test.replay.accesslog} is set.
+     */
+    public void runTests(Set<ScenarioGroup> groups) {
+        try {
+            runController.awaitStart();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting for the start request, no tests run");
+            return;
+        }
+        String soakDuration = System.getProperty(SOAK_DURATION_PROPERTY);
+        if (soakDuration != null) {
+            runSoakTest(Duration.parse(soakDuration));
+            return;
+        }
+        String replayTrace = System.getProperty(REPLAY_TRACE_PROPERTY);
+        if (replayTrace != null) {
+            runTraceReplay(Path.of(replayTrace), TraceReplayer.parseSpeed(System.getProperty(REPLAY_SPEED_PROPERTY, "1")));
+            return;
+        }
+        String replayAccessLog = System.getProperty(REPLAY_ACCESS_LOG_PROPERTY);
+        if (replayAccessLog != null) {
+            runAccessLogReplay(Path.of(replayAccessLog), Integer.getInteger(REPLAY_THREADS_PROPERTY, DEFAULT_REPLAY_THREADS),
+                    TraceReplayer.parseSpeed(System.getProperty(REPLAY_SPEED_PROPERTY, "1")));
+            return;
+        }
         logger.info("Starting Couchbase Load Tests");
-        runThreadPoolTest();
-        runConnectionPoolTest();
+        for (ScenarioGroup group : EnumSet.copyOf(groups)) {
+            switch (group) {
+                case THREAD_POOL -> runThreadPoolTest();
+                case CONNECTION_POOL -> runConnectionPoolTest();
+                case SUB_DOCUMENT -> runSubDocumentTest();
+                case DURABILITY -> runDurabilityTest();
+                case REPLICA_READ -> runReplicaReadTest();
+                case CAS_CONTENTION -> runCasContentionTest();
+                case COUNTER_AND_BINARY -> runCounterAndBinaryTest();
+                case CONCURRENCY_SWEEP -> runConcurrencySweep();
+            }
+        }
 
         logger.info("All {} load tests completed.", numberOfTestRun);
     }
 
-    private void runConnectionPoolTest() {
+    /**
+     * Returns the archived results of the scenarios this runner completed, in the order they completed.
+     */
+    public List<CouchbaseMetrics> getCompletedScenarios() {
+        return List.copyOf(completedScenarios);
+    }
 
-        for (int i = 0; i < CouchbaseLoadTestScenarioProvider.CONNECTION_POOL_SIZE.length; i++) {
-            int connectionPoolSize = CouchbaseLoadTestScenarioProvider.CONNECTION_POOL_SIZE[i];
-            try (CouchbaseConnectionManager connectionManager = createConnectionManager(connectionPoolSize)) {
-                if (initializeCouchbaseBucket(connectionManager)) {
-                    CouchbaseService couchbaseService = new CouchbaseService(connectionManager);
-                    CouchbaseLoadTestScenarioProvider scenarioProvider = new CouchbaseLoadTestScenarioProvider(couchbaseService);
-                    CouchbaseLoadTestExecutor connectionPoolTestExecutor = scenarioProvider.createConnectionPoolScenarios().get(i);
-                    executeSingleLoadTest(connectionPoolTestExecutor);
-                }
-            } catch (Exception e) {
-                logger.error("Error initializing Couchbase connection manager", e);
+    /**
+     * Returns whether some scenarios could not run because the connection, the bucket or the in-memory service
+     * failed, which the runner logs and continues after.
+     */
+    public boolean hasFailed() {
+        return failed;
+    }
+
+    /**
+     * Runs the single long-running soak scenario instead of the test matrix.
+     */
+    private void runSoakTest(Duration duration) {
+        logger.info("Starting Couchbase soak test for {}", duration);
+        runWithScenarioProvider(0, scenarioProvider -> executeSingleLoadTest(scenarioProvider.createSoakScenario(duration)));
+        logger.info("Soak test completed.");
+    }
+
+    /**
+     * Runs the replay of an operation trace instead of the test matrix.
+     */
+    private void runTraceReplay(Path trace, double speed) {
+        logger.info("Starting replay of operation trace {}", trace);
+        runWithScenarioProvider(0, scenarioProvider -> {
+            try {
+                executeSingleLoadTest(scenarioProvider.createTraceReplayScenario(trace, speed));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read operation trace " + trace, e);
             }
+        });
+        logger.info("Trace replay completed.");
+    }
+
+    /**
+     * Runs the replay of a KV access log instead of the test matrix.
+     */
+    private void runAccessLogReplay(Path accessLog, int threadCount, double speed) {
+        logger.info("Starting replay of access log {}", accessLog);
+        runWithScenarioProvider(0, scenarioProvider -> {
+            try {
+                executeSingleLoadTest(scenarioProvider.createAccessLogReplayScenario(accessLog, threadCount, speed));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read access log " + accessLog, e);
+            }
+        });
+        logger.info("Access log replay completed.");
+    }
+
+    private void runConnectionPoolTest() {
+
+        for (int scenarioIndex : createTrialOrder(CouchbaseLoadTestScenarioProvider.CONNECTION_POOL_SIZE.length)) {
+            runWithScenarioProvider(CouchbaseLoadTestScenarioProvider.CONNECTION_POOL_SIZE[scenarioIndex],
+                    scenarioProvider -> executeSingleLoadTest(scenarioProvider.createConnectionPoolScenario(scenarioIndex)));
         }
         logger.info("All connection pool tests completed.");
     }
 
     private void runThreadPoolTest() {
-        try (CouchbaseConnectionManager connectionManager = createConnectionManager(0)) {
+        runWithDefaultConnectionPool(CouchbaseLoadTestScenarioProvider::createThreadPoolScenarios);
+        logger.info("All thread pool tests completed.");
+    }
+
+    private void runSubDocumentTest() {
+        runWithDefaultConnectionPool(CouchbaseLoadTestScenarioProvider::createSubDocumentScenarios);
+        logger.info("All sub-document tests completed.");
+    }
+
+    private void runDurabilityTest() {
+        runWithDefaultConnectionPool(CouchbaseLoadTestScenarioProvider::createDurabilityScenarios);
+        logger.info("All durability tests completed.");
+    }
+
+    private void runReplicaReadTest() {
+        runWithDefaultConnectionPool(CouchbaseLoadTestScenarioProvider::createReplicaReadScenarios);
+        logger.info("All replica read tests completed.");
+    }
+
+    private void runCasContentionTest() {
+        runWithDefaultConnectionPool(CouchbaseLoadTestScenarioProvider::createCasContentionScenarios);
+        logger.info("All CAS contention tests completed.");
+    }
+
+    private void runCounterAndBinaryTest() {
+        runWithDefaultConnectionPool(CouchbaseLoadTestScenarioProvider::createCounterAndBinaryScenarios);
+        logger.info("All counter and binary tests completed.");
+    }
+
+    /**
+     * Runs the concurrency sweep scenarios, only when thread counts are set with {@code load.test.concurrency.sweep}.
+     */
+    private void runConcurrencySweep() {
+        String threadCounts = System.getProperty(CONCURRENCY_SWEEP_PROPERTY);
+        if (threadCounts == null || threadCounts.isBlank()) {
+            return;
+        }
+        int[] sweep = Arrays.stream(threadCounts.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+        runWithDefaultConnectionPool(scenarioProvider -> scenarioProvider.createConcurrencySweepScenarios(sweep));
+        logger.info("All concurrency sweep tests completed.");
+    }
+
+    /**
+     * Runs the scenarios created by the given provider method against a connection with the default pool size.
+     */
+    private void runWithDefaultConnectionPool(Function<CouchbaseLoadTestScenarioProvider, List<CouchbaseLoadTestExecutor>> scenarioFactory) {
+        runWithScenarioProvider(0, scenarioProvider -> executeLoadTests(scenarioFactory.apply(scenarioProvider)));
+    }
+
+    /**
+     * Hands a scenario provider for the configured backend to the given action: a provider bound to a new
+     * Couchbase connection with the given pool size, or to the shared in-memory service when
+     * {@code load.test.backend} is {@value #IN_MEMORY_BACKEND}, in which case the pool size does not apply.
+     */
+    private void runWithScenarioProvider(int connectionPoolSize, Consumer<CouchbaseLoadTestScenarioProvider> action) {
+        if (inMemoryService != null) {
+            try {
+                action.accept(new CouchbaseLoadTestScenarioProvider(inMemoryService, scenarioDefaults));
+            } catch (Exception e) {
+                logger.error("Error running scenarios against the in-memory service", e);
+                failed = true;
+            }
+            return;
+        }
+        try (CouchbaseConnectionManager connectionManager = createConnectionManager(connectionPoolSize)) {
             if (initializeCouchbaseBucket(connectionManager)) {
                 CouchbaseService couchbaseService = new CouchbaseService(connectionManager);
-                executeLoadTests(new CouchbaseLoadTestScenarioProvider(couchbaseService).createThreadPoolScenarios());
+                action.accept(new CouchbaseLoadTestScenarioProvider(couchbaseService, scenarioDefaults));
+            } else {
+                failed = true;
             }
         } catch (Exception e) {
             logger.error("Error initializing Couchbase connection manager", e);
+            failed = true;
         }
-        logger.info("All thread pool tests completed.");
     }
 
-    private void executeLoadTests(Iterable<CouchbaseLoadTestExecutor> scenarios) {
-        for (CouchbaseLoadTestExecutor scenario : scenarios) {
-            executeSingleLoadTest(scenario);
+    /**
+     * Runs every scenario {@code load.test.repetitions} times. Repeated trials run in random order,
+     * so slow drift of the cluster or the client does not always favour the same scenario.
+     */
+    private void executeLoadTests(List<CouchbaseLoadTestExecutor> scenarios) {
+        if (repetitions == 1) {
+            scenarios.forEach(this::executeSingleLoadTest);
+            return;
+        }
+        for (int scenarioIndex : createTrialOrder(scenarios.size())) {
+            executeSingleLoadTest(scenarios.get(scenarioIndex).newTrial());
+        }
+    }
+
+    /**
+     * Returns the scenario indices to run: each index once in order, or {@code load.test.repetitions} times shuffled.
+     */
+    private List<Integer> createTrialOrder(int scenarioCount) {
+        List<Integer> order = new ArrayList<>(scenarioCount * repetitions);
+        for (int trial = 0; trial < repetitions; trial++) {
+            for (int i = 0; i < scenarioCount; i++) {
+                order.add(i);
+            }
         }
+        if (repetitions > 1) {
+            Collections.shuffle(order, random);
+            logger.info("Running {} trials of {} scenarios in order {}", repetitions, scenarioCount, order);
+        }
+        return order;
     }
 
+    /**
+     * Runs a single scenario inside a JFR recording, which is saved next to the report once the scenario ends.
+     * Once the run has been stopped, or when the start barrier fails, the scenario is skipped instead;
+     * a scenario skipped because of the stop is reported to the barrier, so it does not hold back other runners.
+     */
     private void executeSingleLoadTest(CouchbaseLoadTestExecutor scenario) {
-        logger.info("Running scenario with {} threads and uniqueKeys: {}", scenario.getThreadCount(), scenario.isUseUniqueKeys());
-        scenario.executeLoadTest();
+        String scenarioId = scenario.getCouchbaseMetrics().getScenarioId();
+        String scenarioKey = scenarioId + "#" + (scenarioRuns.merge(scenarioId, 1, Integer::sum) - 1);
+        if (runController.isStopRequested()) {
+            logger.info("Run stopped, skipping {}", scenarioId);
+            skip(scenario);
+            skipAtBarrier(scenarioKey);
+            return;
+        }
+        try {
+            startBarrier.awaitStart(scenarioKey);
+        } catch (IOException e) {
+            logger.error("Start barrier failed, skipping {}", scenarioId, e);
+            skip(scenario);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted at the start barrier, skipping {}", scenarioId);
+            skip(scenario);
+            return;
+        }
+        logger.info("Running {} scenario with {} threads and uniqueKeys: {}", scenario.getSettings().getWorkloadType(), scenario.getThreadCount(), scenario.isUseUniqueKeys());
+        runController.scenarioStarted(scenario);
+        // Soak scenarios keep only the end of their recording, so a run of days does not fill the disk
+        try (ScenarioProfiler ignored = scenario.getSettings().isSoak()
+                ? ScenarioProfiler.startRolling(scenario.getCouchbaseMetrics(), scenario.currentTrial(), profilerSettings, profilerDirectory)
+                : ScenarioProfiler.start(scenario.getCouchbaseMetrics(), scenario.currentTrial(), profilerSettings, profilerDirectory)) {
+            scenario.executeLoadTest();
+        } finally {
+            runController.scenarioFinished(scenario);
+        }
+        if (scenario.getArchivedMetrics() != null) {
+            completedScenarios.add(scenario.getArchivedMetrics());
+        }
         logger.info("Scenario completed successfully.");
         numberOfTestRun++;
     }
 
+    private void skip(CouchbaseLoadTestExecutor scenario) {
+        runController.scenarioSkipped(scenario);
+        // Releases the live meters of the scenario that will not run
+        scenario.getCouchbaseMetrics().archive();
+    }
+
+    private void skipAtBarrier(String scenarioKey) {
+        try {
+            startBarrier.skip(scenarioKey);
+        } catch (IOException e) {
+            logger.error("Failed to report skipping {} to the start barrier", scenarioKey, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while reporting skipping {} to the start barrier", scenarioKey);
+        }
+    }
+
     private CouchbaseConnectionManager createConnectionManager(int connectionPoolSize) {
         try {
             return new CouchbaseConnectionManager(connectionPoolSize);
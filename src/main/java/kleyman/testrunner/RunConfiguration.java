@@ -0,0 +1,41 @@
+package kleyman.testrunner;
+
+import kleyman.loadtest.ScenarioDefaults;
+import kleyman.service.InMemoryDataBaseService;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Random;
+
+/**
+ * Inputs of a {@link CouchbaseTestRunner} that a caller can pass explicitly, e.g. an agent of a distributed run
+ * with the values its coordinator assigned. A value that is not set is read from its system property.
+ */
+@Getter
+@Builder(toBuilder = true)
+public class RunConfiguration {
+    /**
+     * Barrier every scenario awaits before it starts.
+     */
+    @Builder.Default
+    private final ScenarioStartBarrier startBarrier = ScenarioStartBarrier.NONE;
+    /**
+     * Random that shuffles repeated trials, so runners seeded alike run the trials in the same order.
+     */
+    @Builder.Default
+    private final Random random = new Random();
+    @Builder.Default
+    private final ScenarioDefaults scenarioDefaults = ScenarioDefaults.fromEnvironment();
+    /**
+     * In-memory service shared by all scenarios; when not set, {@code load.test.backend} chooses the backend.
+     */
+    private final InMemoryDataBaseService inMemoryService;
+    /**
+     * JFR settings of the scenario recordings, or {@code none}; when not set, {@code load.test.jfr.settings} applies.
+     */
+    private final String profilerSettings;
+
+    public static RunConfiguration fromProperties() {
+        return RunConfiguration.builder().build();
+    }
+}
@@ -0,0 +1,16 @@
+package kleyman.testrunner;
+
+/**
+ * Groups of scenarios of the test matrix, in the order the {@link CouchbaseTestRunner} runs them.
+ * A run, or an agent of a distributed run, can be limited to some of the groups.
+ */
+public enum ScenarioGroup {
+    THREAD_POOL,
+    CONNECTION_POOL,
+    SUB_DOCUMENT,
+    DURABILITY,
+    REPLICA_READ,
+    CAS_CONTENTION,
+    COUNTER_AND_BINARY,
+    CONCURRENCY_SWEEP
+}
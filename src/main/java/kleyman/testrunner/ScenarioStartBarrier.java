@@ -0,0 +1,28 @@
+package kleyman.testrunner;
+
+import java.io.IOException;
+
+/**
+ * Holds back every scenario of the {@link CouchbaseTestRunner} until it may start,
+ * e.g. until every agent of a distributed run is ready to start the same scenario.
+ */
+@FunctionalInterface
+public interface ScenarioStartBarrier {
+    ScenarioStartBarrier NONE = scenarioKey -> {
+    };
+
+    /**
+     * Blocks until the scenario may start.
+     *
+     * @param scenarioKey the scenario id and how often the scenario has run before, unique within the run
+     */
+    void awaitStart(String scenarioKey) throws IOException, InterruptedException;
+
+    /**
+     * Tells the barrier the scenario will not start here, so it does not wait for this runner.
+     *
+     * @param scenarioKey the key the scenario would have awaited its start with
+     */
+    default void skip(String scenarioKey) throws IOException, InterruptedException {
+    }
+}
@@ -0,0 +1,167 @@
+package kleyman.trace;
+
+import com.couchbase.client.core.msg.kv.DurabilityLevel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Reads an operation trace written by {@link OperationTraceWriter} through a read-only memory mapping, so the trace
+ * is paged in from disk as it is read instead of being loaded up front. Opening the trace scans it once to index
+ * the records of every worker; records are decoded only when they are read, and may be read from several threads.
+ */
+public class OperationTraceReader implements AutoCloseable {
+    private static final TracedOperation[] OPERATIONS = TracedOperation.values();
+    private static final TraceOutcome[] OUTCOMES = TraceOutcome.values();
+    private static final DurabilityLevel[] DURABILITY_LEVELS = DurabilityLevel.values();
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final TraceHeader header;
+    private final Map<Integer, int[]> recordOffsetsByWorker;
+    private final long recordCount;
+    private final long lastStartNanos;
+
+    private OperationTraceReader(FileChannel channel, MappedByteBuffer buffer, TraceHeader header,
+                                 Map<Integer, int[]> recordOffsetsByWorker, long recordCount, long lastStartNanos) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.header = header;
+        this.recordOffsetsByWorker = recordOffsetsByWorker;
+        this.recordCount = recordCount;
+        this.lastStartNanos = lastStartNanos;
+    }
+
+    public static OperationTraceReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Operation trace " + file + " is larger than 2 GB");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            ByteBuffer headerBuffer = buffer.duplicate();
+            if (headerBuffer.remaining() < OperationTraceWriter.RECORD_BYTES_OFFSET + Long.BYTES
+                    || headerBuffer.getInt() != OperationTraceWriter.MAGIC) {
+                throw new IOException("Not an operation trace: " + file);
+            }
+            short version = headerBuffer.getShort();
+            if (version != OperationTraceWriter.FORMAT_VERSION) {
+                throw new IOException("Unsupported operation trace format version " + version + " in " + file);
+            }
+            long startEpochMillis = headerBuffer.getLong();
+            long recordBytes = headerBuffer.getLong();
+            TraceHeader header = new TraceHeader(readUtf(headerBuffer), readUtf(headerBuffer), headerBuffer.get() != 0, startEpochMillis);
+            int dataStart = headerBuffer.position();
+            // A trace that was not closed has no record length, its records end where the zeros begin
+            int end = recordBytes > 0 ? (int) Math.min(buffer.capacity(), dataStart + recordBytes) : buffer.capacity();
+            Map<Integer, OffsetList> offsets = new HashMap<>();
+            long recordCount = 0;
+            long lastStartNanos = 0;
+            int offset = dataStart;
+            while (offset + Integer.BYTES <= end) {
+                int length = buffer.getInt(offset);
+                if (length < OperationTraceWriter.FIXED_RECORD_BYTES || offset + Integer.BYTES + length > end) {
+                    break;
+                }
+                int at = offset + Integer.BYTES;
+                offsets.computeIfAbsent(buffer.getInt(at + 16), worker -> new OffsetList()).add(offset);
+                lastStartNanos = Math.max(lastStartNanos, buffer.getLong(at));
+                recordCount++;
+                offset = at + length;
+            }
+            Map<Integer, int[]> recordOffsetsByWorker = new HashMap<>();
+            offsets.forEach((worker, list) -> recordOffsetsByWorker.put(worker, list.toArray()));
+            return new OperationTraceReader(channel, buffer, header, recordOffsetsByWorker, recordCount, lastStartNanos);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public TraceHeader getHeader() {
+        return header;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Returns the start of the last operation relative to the start of the recording.
+     */
+    public long getLastStartNanos() {
+        return lastStartNanos;
+    }
+
+    /**
+     * Returns the ids of the workers that issued operations, in ascending order.
+     */
+    public Set<Integer> getWorkerIds() {
+        return new TreeSet<>(recordOffsetsByWorker.keySet());
+    }
+
+    /**
+     * Returns the offsets of the records of the given worker, in the order the worker issued them.
+     */
+    public int[] getRecordOffsets(int workerId) {
+        return recordOffsetsByWorker.getOrDefault(workerId, new int[0]);
+    }
+
+    /**
+     * Decodes the record at the given offset.
+     */
+    public TraceRecord read(int offset) {
+        int at = offset + Integer.BYTES;
+        int keyLength = buffer.getChar(at + 27);
+        int argumentLength = buffer.getChar(at + 29 + keyLength);
+        return new TraceRecord(buffer.getLong(at), buffer.getLong(at + 8), buffer.getInt(at + 16),
+                OPERATIONS[buffer.get(at + 20)], OUTCOMES[buffer.get(at + 21)], DURABILITY_LEVELS[buffer.get(at + 22)],
+                buffer.getInt(at + 23), readString(at + 29, keyLength), readString(at + 31 + keyLength, argumentLength));
+    }
+
+    private String readString(int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String readUtf(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getChar()];
+        buffer.get(bytes);
+        // Written by DataOutput.writeUTF, which matches UTF-8 for the characters of scenario ids and paths
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Growable list of record offsets, which keeps the index of a long trace at four bytes per record.
+     */
+    private static final class OffsetList {
+        private int[] values = new int[64];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package kleyman.trace;
+
+import com.couchbase.client.core.msg.kv.DurabilityLevel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes an operation trace into a memory-mapped file of fixed capacity. Writers reserve the bytes of their record
+ * with a single atomic add and fill them in place, so recording takes no locks and no system calls; the operating
+ * system writes the pages back to disk. Operations that no longer fit are counted and dropped.
+ * <p>
+ * The file starts with a header: magic, format version, start time, the length of the records, filled in when the
+ * trace is closed, and the {@link TraceHeader}. Every record is its length followed by the fields of a
+ * {@link TraceRecord}; the length is written last, so a reader of a trace that was not closed stops at the first
+ * record still being written.
+ */
+public class OperationTraceWriter implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(OperationTraceWriter.class);
+    static final int MAGIC = 0x43425452;
+    static final short FORMAT_VERSION = 1;
+    public static final String EXTENSION = ".cbtr";
+    // Offset of the record length in the header: after the magic, the version and the start time
+    static final int RECORD_BYTES_OFFSET = 4 + 2 + 8;
+    // Fields of a record after its length, without the key and argument bytes
+    static final int FIXED_RECORD_BYTES = 8 + 8 + 4 + 1 + 1 + 1 + 4 + 2 + 2;
+    private static final byte[] NO_ARGUMENT = new byte[0];
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int dataStart;
+    private final long startNanos;
+    private final AtomicLong position;
+    private final LongAdder droppedOperations = new LongAdder();
+    private final LongAdder recordedOperations = new LongAdder();
+
+    private OperationTraceWriter(Path file, FileChannel channel, MappedByteBuffer buffer, int dataStart) {
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.dataStart = dataStart;
+        this.position = new AtomicLong(dataStart);
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Creates the trace file, replacing an existing one, and maps {@code capacityBytes} of it for the records.
+     */
+    public static OperationTraceWriter create(Path file, TraceHeader header, int capacityBytes) throws IOException {
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(headerBytes)) {
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            out.writeLong(header.startEpochMillis());
+            out.writeLong(0);
+            out.writeUTF(header.scenarioId());
+            out.writeUTF(header.jsonFilePath());
+            out.writeBoolean(header.uniqueKeys());
+        }
+        int dataStart = headerBytes.size();
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) dataStart + capacityBytes);
+            buffer.put(0, headerBytes.toByteArray());
+            logger.info("Recording operation trace of {} to {}", header.scenarioId(), file);
+            return new OperationTraceWriter(file, channel, buffer, dataStart);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Records an operation that started at {@code operationStartNanos}, a {@link System#nanoTime()} value.
+     */
+    public void record(int workerId, TracedOperation operation, TraceOutcome outcome, DurabilityLevel durabilityLevel,
+                       int payloadId, String key, String argument, long operationStartNanos, long latencyNanos) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] argumentBytes = argument == null ? NO_ARGUMENT : argument.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length > Character.MAX_VALUE || argumentBytes.length > Character.MAX_VALUE) {
+            droppedOperations.increment();
+            return;
+        }
+        int length = FIXED_RECORD_BYTES + keyBytes.length + argumentBytes.length;
+        long offset = position.getAndAdd(Integer.BYTES + length);
+        if (offset + Integer.BYTES + length > buffer.capacity()) {
+            droppedOperations.increment();
+            return;
+        }
+        int at = (int) offset + Integer.BYTES;
+        buffer.putLong(at, operationStartNanos - startNanos);
+        buffer.putLong(at + 8, latencyNanos);
+        buffer.putInt(at + 16, workerId);
+        buffer.put(at + 20, (byte) operation.ordinal());
+        buffer.put(at + 21, (byte) outcome.ordinal());
+        buffer.put(at + 22, (byte) durabilityLevel.ordinal());
+        buffer.putInt(at + 23, payloadId);
+        buffer.putChar(at + 27, (char) keyBytes.length);
+        buffer.put(at + 29, keyBytes);
+        buffer.putChar(at + 29 + keyBytes.length, (char) argumentBytes.length);
+        buffer.put(at + 31 + keyBytes.length, argumentBytes);
+        buffer.putInt((int) offset, length);
+        recordedOperations.increment();
+    }
+
+    public long getDroppedOperations() {
+        return droppedOperations.sum();
+    }
+
+    /**
+     * Completes the header, flushes the records and cuts the file to the recorded length.
+     * Every writer must have returned from {@link #record} before.
+     */
+    @Override
+    public void close() throws IOException {
+        long end = Math.min(position.get(), buffer.capacity());
+        // Reservations that did not fit leave zeros up to the capacity, where readers stop
+        long recordBytes = end - dataStart;
+        buffer.putLong(RECORD_BYTES_OFFSET, recordBytes);
+        buffer.force();
+        try {
+            channel.truncate(end);
+        } catch (IOException e) {
+            logger.warn("Could not cut operation trace {} to its recorded length", file, e);
+        }
+        channel.close();
+        if (droppedOperations.sum() > 0) {
+            logger.warn("Operation trace {} is full, {} operations were not recorded", file, droppedOperations.sum());
+        }
+        logger.info("Recorded {} operations to {}", recordedOperations.sum(), file);
+    }
+}
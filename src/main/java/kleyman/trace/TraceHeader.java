@@ -0,0 +1,12 @@
+package kleyman.trace;
+
+/**
+ * Describes the scenario an operation trace was recorded from.
+ *
+ * @param scenarioId       id of the recorded scenario, kept by its replay so both can be compared
+ * @param jsonFilePath     path prefix of the JSON files the uploaded documents were read from
+ * @param uniqueKeys       whether the recorded scenario used unique keys
+ * @param startEpochMillis wall-clock time the recording started
+ */
+public record TraceHeader(String scenarioId, String jsonFilePath, boolean uniqueKeys, long startEpochMillis) {
+}
@@ -0,0 +1,13 @@
+package kleyman.trace;
+
+/**
+ * Outcome of a traced operation.
+ */
+public enum TraceOutcome {
+    SUCCESS,
+    FAILURE,
+    /**
+     * A replace with CAS that was not applied because the document had changed since it was read.
+     */
+    CAS_MISMATCH
+}
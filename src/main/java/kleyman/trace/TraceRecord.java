@@ -0,0 +1,21 @@
+package kleyman.trace;
+
+import com.couchbase.client.core.msg.kv.DurabilityLevel;
+
+/**
+ * One operation of an operation trace.
+ *
+ * @param startNanos      start of the operation, relative to the start of the recording
+ * @param latencyNanos    latency of the operation
+ * @param workerId        worker thread that issued the operation, 0 for operations outside the workers such as seeding
+ * @param operation       the service call
+ * @param outcome         how the call ended
+ * @param durabilityLevel durability of writes, {@link DurabilityLevel#NONE} otherwise
+ * @param payloadId       identifies the payload: the JSON file number of uploaded documents, the size of binary data
+ *                        or the delta of counters, 0 when the operation has none
+ * @param key             document key
+ * @param argument        comma-separated sub-document paths, empty when the operation has none
+ */
+public record TraceRecord(long startNanos, long latencyNanos, int workerId, TracedOperation operation, TraceOutcome outcome,
+                          DurabilityLevel durabilityLevel, int payloadId, String key, String argument) {
+}
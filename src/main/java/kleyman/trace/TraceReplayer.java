@@ -0,0 +1,208 @@
+package kleyman.trace;
+
+import com.couchbase.client.java.json.JsonObject;
+import kleyman.loadtest.ReplaySource;
+import kleyman.metrics.CouchbaseMetrics;
+import kleyman.service.DataBaseService;
+import kleyman.service.VersionedDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Re-issues the operations of a trace against a service. Every worker of the recording is replayed by its own thread,
+ * in the recorded order and with the recorded keys, payloads and durability, at the recorded pace divided by the
+ * speed; at infinite speed every worker issues its next operation as soon as the previous one returns.
+ * Operations recorded outside the workers, such as the seeding of hot documents, are replayed first and, like in the
+ * recording, do not count towards the results.
+ * <p>
+ * Values that depend on the time of the call, such as the timestamps written by sub-document mutations, are
+ * generated afresh, and a replace with CAS writes back the document read by the preceding read with CAS of the key.
+ */
+public class TraceReplayer implements ReplaySource {
+    private static final Logger logger = LoggerFactory.getLogger(TraceReplayer.class);
+    private final OperationTraceReader trace;
+    private final DataBaseService<JsonObject, CouchbaseMetrics> service;
+    private final CouchbaseMetrics metrics;
+    private final IntFunction<JsonObject> documents;
+    private final double speed;
+    // Start of the first worker operation in the recording, which is replayed at the replay start
+    private final long recordedOriginNanos;
+    private volatile long replayStartNanos;
+
+    /**
+     * @param documents gives the document with the given payload id, the JSON file number, or {@code null} if unknown
+     * @param speed     how much faster than recorded to replay, {@link Double#POSITIVE_INFINITY} for maximum speed
+     */
+    public TraceReplayer(OperationTraceReader trace, DataBaseService<JsonObject, CouchbaseMetrics> service,
+                         CouchbaseMetrics metrics, IntFunction<JsonObject> documents, double speed) {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Replay speed must be positive, was " + speed);
+        }
+        this.trace = trace;
+        this.service = service;
+        this.metrics = metrics;
+        this.documents = documents;
+        this.speed = speed;
+        this.recordedOriginNanos = trace.getWorkerIds().stream()
+                .filter(workerId -> workerId > 0)
+                .map(trace::getRecordOffsets)
+                .filter(offsets -> offsets.length > 0)
+                .mapToLong(offsets -> trace.read(offsets[0]).startNanos())
+                .min()
+                .orElse(0);
+    }
+
+    /**
+     * Parses a replay speed: a multiple of the recorded pace, e.g. {@code 2} for twice as fast,
+     * or {@code max} to replay as fast as the service answers.
+     */
+    public static double parseSpeed(String speed) {
+        if ("max".equalsIgnoreCase(speed.trim())) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double multiple = Double.parseDouble(speed.trim());
+        if (!(multiple > 0)) {
+            throw new IllegalArgumentException("Replay speed must be positive or max, was " + speed);
+        }
+        return multiple;
+    }
+
+    /**
+     * Replays the operations recorded outside the workers at maximum speed, then starts the replay clock.
+     */
+    public void replaySetup() {
+        int[] setup = trace.getRecordOffsets(0);
+        if (setup.length > 0) {
+            logger.info("Replaying {} setup operations", setup.length);
+            // The recorded run keeps its setup out of the results, so the replay does too
+            Worker worker = new Worker(CouchbaseMetrics.detached(metrics.getScenarioId(), metrics.getThreadSize(),
+                    metrics.getJsonSize(), metrics.isUniqueKeys()));
+            for (int offset : setup) {
+                worker.issue(trace.read(offset));
+            }
+        }
+        replayStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Replays the operations of the given worker while it stays active.
+     *
+     * @return the number of operations replayed
+     */
+    @Override
+    public int replayWorker(int workerId, BooleanSupplier active) {
+        int[] offsets = trace.getRecordOffsets(workerId);
+        Worker worker = new Worker(metrics);
+        int replayed = 0;
+        for (int offset : offsets) {
+            if (!active.getAsBoolean()) {
+                break;
+            }
+            TraceRecord record = trace.read(offset);
+            awaitRecordedStart(record);
+            try {
+                worker.issue(record);
+            } catch (RuntimeException e) {
+                logger.debug("Worker {}: replayed {} of key {} failed", workerId, record.operation(), record.key(), e);
+            }
+            replayed++;
+        }
+        return replayed;
+    }
+
+    private void awaitRecordedStart(TraceRecord record) {
+        if (Double.isInfinite(speed)) {
+            return;
+        }
+        long target = replayStartNanos + (long) ((record.startNanos() - recordedOriginNanos) / speed);
+        long delay;
+        while ((delay = target - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(delay);
+        }
+    }
+
+    /**
+     * State of one replaying thread: the metrics it records to, the documents it read with CAS and the binary
+     * payloads it sends.
+     */
+    private final class Worker {
+        private final CouchbaseMetrics metrics;
+        private final Map<String, VersionedDocument<JsonObject>> readWithCas = new HashMap<>();
+        private final Map<Integer, byte[]> binaryPayloads = new HashMap<>();
+        private final Map<Integer, JsonObject> documentsById = new HashMap<>();
+        private final Map<Integer, Integer> documentBytes = new HashMap<>();
+
+        Worker(CouchbaseMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        void issue(TraceRecord record) {
+            String key = record.key();
+            switch (record.operation()) {
+                case UPLOAD -> {
+                    service.upload(key, document(record.payloadId()), record.durabilityLevel(), metrics);
+                    metrics.recordPutPayloadBytes(documentBytes.get(record.payloadId()));
+                }
+                case UPLOAD_AND_GET_CAS -> {
+                    service.uploadAndGetCas(key, document(record.payloadId()), record.durabilityLevel(), metrics);
+                    metrics.recordPutPayloadBytes(documentBytes.get(record.payloadId()));
+                }
+                case RETRIEVE -> metrics.recordGetPayloadBytes(service.retrieve(key, metrics).toBytes().length);
+                case RETRIEVE_WITH_CAS -> readWithCas.put(key, service.retrieveWithCas(key, metrics));
+                case REPLACE_WITH_CAS -> {
+                    VersionedDocument<JsonObject> read = readWithCas.remove(key);
+                    if (read != null) {
+                        metrics.recordCasAttempt(service.replaceWithCas(key, read.content(), read.cas(), metrics));
+                    }
+                }
+                case RETRIEVE_FROM_ANY_REPLICA -> service.retrieveFromAnyReplica(key, metrics);
+                case RETRIEVE_FROM_ALL_REPLICAS -> service.retrieveFromAllReplicas(key, metrics);
+                case LOOKUP_IN -> service.lookupIn(key, paths(record), metrics);
+                case MUTATE_IN -> {
+                    long now = System.currentTimeMillis();
+                    service.mutateIn(key, paths(record).stream().collect(Collectors.toMap(path -> path, path -> now)), metrics);
+                }
+                case INCREMENT_FIELD -> service.incrementField(key, record.argument(), record.payloadId(), metrics);
+                case APPEND_TO_ARRAY -> service.appendToArray(key, record.argument(), System.currentTimeMillis(), metrics);
+                case INCREMENT_COUNTER -> service.incrementCounter(key, record.payloadId(), metrics);
+                case DECREMENT_COUNTER -> service.decrementCounter(key, record.payloadId(), metrics);
+                case UPLOAD_BINARY -> service.uploadBinary(key, binaryPayload(record.payloadId()), metrics);
+                case RETRIEVE_BINARY -> service.retrieveBinary(key, metrics);
+                case APPEND_BINARY -> service.appendBinary(key, binaryPayload(record.payloadId()), metrics);
+                case PREPEND_BINARY -> service.prependBinary(key, binaryPayload(record.payloadId()), metrics);
+            }
+        }
+
+        private JsonObject document(int payloadId) {
+            return documentsById.computeIfAbsent(payloadId, id -> {
+                JsonObject document = id > 0 ? documents.apply(id) : null;
+                // Documents that were not read from a JSON file, such as seeded hot documents, are replayed as empty documents
+                JsonObject replayed = document != null ? document : JsonObject.create();
+                documentBytes.put(id, replayed.toBytes().length);
+                return replayed;
+            });
+        }
+
+        private byte[] binaryPayload(int size) {
+            return binaryPayloads.computeIfAbsent(size, length -> {
+                byte[] payload = new byte[length];
+                ThreadLocalRandom.current().nextBytes(payload);
+                return payload;
+            });
+        }
+
+        private List<String> paths(TraceRecord record) {
+            return Arrays.asList(record.argument().split(","));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package kleyman.trace;
+
+/**
+ * {@link kleyman.service.DataBaseService} calls recorded in an operation trace.
+ */
+public enum TracedOperation {
+    UPLOAD,
+    UPLOAD_AND_GET_CAS,
+    RETRIEVE,
+    RETRIEVE_WITH_CAS,
+    REPLACE_WITH_CAS,
+    RETRIEVE_FROM_ANY_REPLICA,
+    RETRIEVE_FROM_ALL_REPLICAS,
+    LOOKUP_IN,
+    MUTATE_IN,
+    INCREMENT_FIELD,
+    APPEND_TO_ARRAY,
+    INCREMENT_COUNTER,
+    DECREMENT_COUNTER,
+    UPLOAD_BINARY,
+    RETRIEVE_BINARY,
+    APPEND_BINARY,
+    PREPEND_BINARY
+}
@@ -0,0 +1,188 @@
+package kleyman.trace;
+
+import com.couchbase.client.core.msg.kv.DurabilityLevel;
+import com.couchbase.client.java.json.JsonObject;
+import kleyman.metrics.CouchbaseMetrics;
+import kleyman.service.DataBaseService;
+import kleyman.service.VersionedDocument;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Passes every call on to another service and, while a trace is being recorded, writes each call with its key,
+ * payload, latency and outcome to the {@link OperationTraceWriter}. Calls are attributed to the worker bound to the
+ * calling thread with {@link #bindWorker(int)}, so the trace keeps the order of operations of every worker.
+ */
+public class TracingDataBaseService implements DataBaseService<JsonObject, CouchbaseMetrics> {
+    private final DataBaseService<JsonObject, CouchbaseMetrics> delegate;
+    private final ToIntFunction<JsonObject> payloadIds;
+    private final ThreadLocal<Integer> workerIds = ThreadLocal.withInitial(() -> 0);
+    private volatile OperationTraceWriter writer;
+
+    /**
+     * @param delegate   the service that runs the calls
+     * @param payloadIds gives the id of an uploaded document, the number of the JSON file it was read from, or 0
+     */
+    public TracingDataBaseService(DataBaseService<JsonObject, CouchbaseMetrics> delegate, ToIntFunction<JsonObject> payloadIds) {
+        this.delegate = delegate;
+        this.payloadIds = payloadIds;
+    }
+
+    /**
+     * Records the calls from now on to the given writer, or stops recording when it is {@code null}.
+     */
+    public void setWriter(OperationTraceWriter writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Attributes the calls of the current thread to the given worker.
+     */
+    public void bindWorker(int workerId) {
+        workerIds.set(workerId);
+    }
+
+    @Override
+    public void upload(String key, JsonObject data, DurabilityLevel durabilityLevel, CouchbaseMetrics metrics) {
+        trace(TracedOperation.UPLOAD, key, null, payloadIds.applyAsInt(data), durabilityLevel, () -> {
+            delegate.upload(key, data, durabilityLevel, metrics);
+            return null;
+        });
+    }
+
+    @Override
+    public long uploadAndGetCas(String key, JsonObject data, DurabilityLevel durabilityLevel, CouchbaseMetrics metrics) {
+        return trace(TracedOperation.UPLOAD_AND_GET_CAS, key, null, payloadIds.applyAsInt(data), durabilityLevel,
+                () -> delegate.uploadAndGetCas(key, data, durabilityLevel, metrics));
+    }
+
+    @Override
+    public JsonObject retrieve(String key, CouchbaseMetrics metrics) {
+        return trace(TracedOperation.RETRIEVE, key, null, 0, DurabilityLevel.NONE, () -> delegate.retrieve(key, metrics));
+    }
+
+    @Override
+    public VersionedDocument<JsonObject> retrieveWithCas(String key, CouchbaseMetrics metrics) {
+        return trace(TracedOperation.RETRIEVE_WITH_CAS, key, null, 0, DurabilityLevel.NONE, () -> delegate.retrieveWithCas(key, metrics));
+    }
+
+    @Override
+    public boolean replaceWithCas(String key, JsonObject data, long cas, CouchbaseMetrics metrics) {
+        OperationTraceWriter traceWriter = writer;
+        if (traceWriter == null) {
+            return delegate.replaceWithCas(key, data, cas, metrics);
+        }
+        long start = System.nanoTime();
+        TraceOutcome outcome = TraceOutcome.FAILURE;
+        try {
+            boolean applied = delegate.replaceWithCas(key, data, cas, metrics);
+            outcome = applied ? TraceOutcome.SUCCESS : TraceOutcome.CAS_MISMATCH;
+            return applied;
+        } finally {
+            traceWriter.record(workerIds.get(), TracedOperation.REPLACE_WITH_CAS, outcome, DurabilityLevel.NONE,
+                    payloadIds.applyAsInt(data), key, null, start, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public VersionedDocument<JsonObject> retrieveFromAnyReplica(String key, CouchbaseMetrics metrics) {
+        return trace(TracedOperation.RETRIEVE_FROM_ANY_REPLICA, key, null, 0, DurabilityLevel.NONE,
+                () -> delegate.retrieveFromAnyReplica(key, metrics));
+    }
+
+    @Override
+    public List<VersionedDocument<JsonObject>> retrieveFromAllReplicas(String key, CouchbaseMetrics metrics) {
+        return trace(TracedOperation.RETRIEVE_FROM_ALL_REPLICAS, key, null, 0, DurabilityLevel.NONE,
+                () -> delegate.retrieveFromAllReplicas(key, metrics));
+    }
+
+    @Override
+    public JsonObject lookupIn(String key, List<String> paths, CouchbaseMetrics metrics) {
+        return trace(TracedOperation.LOOKUP_IN, key, String.join(",", paths), 0, DurabilityLevel.NONE,
+                () -> delegate.lookupIn(key, paths, metrics));
+    }
+
+    @Override
+    public void mutateIn(String key, Map<String, Object> fieldValues, CouchbaseMetrics metrics) {
+        trace(TracedOperation.MUTATE_IN, key, String.join(",", fieldValues.keySet()), 0, DurabilityLevel.NONE, () -> {
+            delegate.mutateIn(key, fieldValues, metrics);
+            return null;
+        });
+    }
+
+    @Override
+    public long incrementField(String key, String path, long delta, CouchbaseMetrics metrics) {
+        return trace(TracedOperation.INCREMENT_FIELD, key, path, (int) delta, DurabilityLevel.NONE,
+                () -> delegate.incrementField(key, path, delta, metrics));
+    }
+
+    @Override
+    public void appendToArray(String key, String path, Object value, CouchbaseMetrics metrics) {
+        trace(TracedOperation.APPEND_TO_ARRAY, key, path, 0, DurabilityLevel.NONE, () -> {
+            delegate.appendToArray(key, path, value, metrics);
+            return null;
+        });
+    }
+
+    @Override
+    public long incrementCounter(String key, long delta, CouchbaseMetrics metrics) {
+        return trace(TracedOperation.INCREMENT_COUNTER, key, null, (int) delta, DurabilityLevel.NONE,
+                () -> delegate.incrementCounter(key, delta, metrics));
+    }
+
+    @Override
+    public long decrementCounter(String key, long delta, CouchbaseMetrics metrics) {
+        return trace(TracedOperation.DECREMENT_COUNTER, key, null, (int) delta, DurabilityLevel.NONE,
+                () -> delegate.decrementCounter(key, delta, metrics));
+    }
+
+    @Override
+    public void uploadBinary(String key, byte[] data, CouchbaseMetrics metrics) {
+        trace(TracedOperation.UPLOAD_BINARY, key, null, data.length, DurabilityLevel.NONE, () -> {
+            delegate.uploadBinary(key, data, metrics);
+            return null;
+        });
+    }
+
+    @Override
+    public byte[] retrieveBinary(String key, CouchbaseMetrics metrics) {
+        return trace(TracedOperation.RETRIEVE_BINARY, key, null, 0, DurabilityLevel.NONE, () -> delegate.retrieveBinary(key, metrics));
+    }
+
+    @Override
+    public void appendBinary(String key, byte[] data, CouchbaseMetrics metrics) {
+        trace(TracedOperation.APPEND_BINARY, key, null, data.length, DurabilityLevel.NONE, () -> {
+            delegate.appendBinary(key, data, metrics);
+            return null;
+        });
+    }
+
+    @Override
+    public void prependBinary(String key, byte[] data, CouchbaseMetrics metrics) {
+        trace(TracedOperation.PREPEND_BINARY, key, null, data.length, DurabilityLevel.NONE, () -> {
+            delegate.prependBinary(key, data, metrics);
+            return null;
+        });
+    }
+
+    private <R> R trace(TracedOperation operation, String key, String argument, int payloadId, DurabilityLevel durabilityLevel,
+                        Supplier<R> call) {
+        OperationTraceWriter traceWriter = writer;
+        if (traceWriter == null) {
+            return call.get();
+        }
+        long start = System.nanoTime();
+        TraceOutcome outcome = TraceOutcome.FAILURE;
+        try {
+            R result = call.get();
+            outcome = TraceOutcome.SUCCESS;
+            return result;
+        } finally {
+            traceWriter.record(workerIds.get(), operation, outcome, durabilityLevel, payloadId, key, argument, start,
+                    System.nanoTime() - start);
+        }
+    }
+}
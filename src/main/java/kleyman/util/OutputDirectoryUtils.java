@@ -0,0 +1,23 @@
+package kleyman.util;
+
+import java.nio.file.Path;
+
+/**
+ * Utility class for resolving where files produced next to the report are written.
+ */
+public class OutputDirectoryUtils {
+
+    /**
+     * Returns the directory set by the given system property, or else the directory of the report,
+     * or else the working directory.
+     */
+    public static Path resolve(String systemProperty) {
+        String directory = System.getProperty(systemProperty);
+        if (directory != null && !directory.isEmpty()) {
+            return Path.of(directory);
+        }
+        String reportPath = System.getenv("COUCHBASE_REPORT_PATH");
+        Path reportDirectory = reportPath == null || reportPath.isEmpty() ? null : Path.of(reportPath).toAbsolutePath().getParent();
+        return reportDirectory == null ? Path.of(".") : reportDirectory;
+    }
+}
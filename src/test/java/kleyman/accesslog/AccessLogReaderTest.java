@@ -0,0 +1,58 @@
+package kleyman.accesslog;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccessLogReaderTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Test entries are parsed across chunk boundaries and unparseable lines are skipped and counted")
+    void GivenLogLargerThanChunk_WhenEntriesAreRead_ThenEveryLineIsParsedOnce() throws Exception {
+        // Given
+        Path file = directory.resolve("access.log");
+        Files.writeString(file, String.join("\n",
+                "# timestamp operation key bytes",
+                "2024-05-01T12:00:00.000125Z UPSERT user::1042 2048",
+                "1714564800.00031\tget\tuser::1042",
+                "1714564800001,incr,counter::ä",
+                "",
+                "1714564800002 delete user::1042",
+                "not-a-time get user::7",
+                "1714564800003 append blob::1 16 extra\r",
+                "1714564800003 decr counter::2 5",
+                "1714564800004 get"), StandardCharsets.UTF_8);
+        List<AccessLogEntry> entries = new ArrayList<>();
+
+        // When
+        try (AccessLogReader reader = AccessLogReader.open(file, 16)) {
+            AccessLogEntry entry;
+            while ((entry = reader.next()) != null) {
+                entries.add(entry);
+            }
+
+            // Then
+            assertEquals(List.of(
+                    new AccessLogEntry(1_714_564_800_000_125L, AccessLogOperation.UPSERT, "user::1042", 2048, 0),
+                    new AccessLogEntry(1_714_564_800_000_310L, AccessLogOperation.GET, "user::1042", 0, 0),
+                    new AccessLogEntry(1_714_564_800_001_000L, AccessLogOperation.INCREMENT, "counter::ä", 0, 1),
+                    new AccessLogEntry(1_714_564_800_003_000L, AccessLogOperation.APPEND, "blob::1", 16, 0),
+                    new AccessLogEntry(1_714_564_800_003_000L, AccessLogOperation.DECREMENT, "counter::2", 0, 5)),
+                    entries);
+            assertEquals(2, reader.getSkippedLines());
+            assertEquals(1, reader.getUnsupportedOperations());
+        }
+        assertEquals(Duration.ofNanos(2_875_000), AccessLogReader.timeSpan(file));
+    }
+}
@@ -0,0 +1,47 @@
+package kleyman.accesslog;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedSpscQueueTest {
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    @DisplayName("Test a consumer thread receives every element of a producer thread in order despite the bound")
+    void GivenProducerAndConsumerThreads_WhenElementsPassAFullQueue_ThenEveryElementArrivesInOrder() throws Exception {
+        // Given
+        BoundedSpscQueue<Integer> queue = new BoundedSpscQueue<>(6);
+        int elements = 5_000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < elements; i++) {
+                while (!queue.offer(i)) {
+                    // Yields rather than only spinning, so the consumer can drain the queue on a single CPU
+                    Thread.yield();
+                }
+            }
+        });
+
+        // When
+        producer.start();
+        int expected = 0;
+        while (expected < elements) {
+            Integer element = queue.poll();
+            if (element != null) {
+                // Then
+                assertEquals(expected++, element);
+            } else {
+                Thread.yield();
+            }
+        }
+        producer.join();
+
+        // Then
+        assertEquals(8, queue.capacity());
+        assertNull(queue.poll());
+    }
+}
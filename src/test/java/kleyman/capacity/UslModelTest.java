@@ -0,0 +1,100 @@
+package kleyman.capacity;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UslModelTest {
+
+    @Test
+    @DisplayName("Test the coefficients of a retrograde curve are recovered and its peak predicted")
+    void GivenRetrogradeThroughput_WhenFitted_ThenCoefficientsAndPeakAreRecovered() {
+        // Given
+        UslModel actual = new UslModel(1000, 0.05, 0.002);
+        double[] concurrency = {1, 2, 4, 8, 16, 32, 64};
+        double[] throughput = new double[concurrency.length];
+        for (int i = 0; i < concurrency.length; i++) {
+            throughput[i] = actual.throughputAt(concurrency[i]);
+        }
+
+        // When
+        UslModel model = UslModel.fit(concurrency, throughput);
+
+        // Then
+        assertNotNull(model);
+        assertEquals(1000, model.lambda(), 1e-6);
+        assertEquals(0.05, model.sigma(), 1e-9);
+        assertEquals(0.002, model.kappa(), 1e-9);
+        assertEquals(Math.sqrt(0.95 / 0.002), model.peakConcurrency(), 1e-6);
+        assertEquals(actual.throughputAt(model.peakConcurrency()), model.peakThroughput(), 1e-6);
+    }
+
+    @Test
+    @DisplayName("Test a curve that only levels off is fitted without coherency cost and has no peak")
+    void GivenSaturatingThroughput_WhenFitted_ThenCoherencyIsZeroAndPeakIsUnbounded() {
+        // Given
+        double[] concurrency = {5, 10, 15, 20};
+        double[] throughput = {3571, 5263, 6250, 6897};
+
+        // When
+        UslModel model = UslModel.fit(concurrency, throughput);
+
+        // Then
+        assertNotNull(model);
+        assertEquals(0, model.kappa());
+        assertTrue(model.sigma() > 0);
+        assertTrue(Double.isInfinite(model.peakConcurrency()));
+        assertEquals(model.lambda() / model.sigma(), model.peakThroughput(), 1e-6);
+    }
+
+    @Test
+    @DisplayName("Test a curve with coherency cost but no contention keeps its coherency coefficient")
+    void GivenThroughputWithoutContention_WhenFitted_ThenCoherencyIsKept() {
+        // Given
+        // Slightly better than linear at low concurrency, which fits a negative contention coefficient
+        UslModel actual = new UslModel(1000, -0.01, 0.002);
+        double[] concurrency = {1, 2, 4, 8, 16, 32};
+        double[] throughput = new double[concurrency.length];
+        for (int i = 0; i < concurrency.length; i++) {
+            throughput[i] = actual.throughputAt(concurrency[i]);
+        }
+
+        // When
+        UslModel model = UslModel.fit(concurrency, throughput);
+
+        // Then
+        assertNotNull(model);
+        assertEquals(0, model.sigma());
+        assertTrue(model.kappa() > 0);
+        assertFalse(Double.isInfinite(model.peakConcurrency()));
+    }
+
+    @Test
+    @DisplayName("Test three thread counts are too few to fit the three coefficients")
+    void GivenThreeThreadCounts_WhenFitted_ThenNoModelIsReturned() {
+        // Given
+        double[] concurrency = {5, 10, 15};
+        double[] throughput = {3571, 5263, 6400};
+
+        // When
+        UslModel model = UslModel.fit(concurrency, throughput);
+
+        // Then
+        assertNull(model);
+    }
+
+    @Test
+    @DisplayName("Test fewer than three thread counts cannot be fitted")
+    void GivenTwoThreadCounts_WhenFitted_ThenNoModelIsReturned() {
+        // Given
+        double[] concurrency = {5, 10, 10};
+        double[] throughput = {4000, 6000, 6100};
+
+        // When
+        UslModel model = UslModel.fit(concurrency, throughput);
+
+        // Then
+        assertNull(model);
+    }
+}
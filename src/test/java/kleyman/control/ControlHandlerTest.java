@@ -0,0 +1,127 @@
+package kleyman.control;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import kleyman.loadtest.CouchbaseLoadTestExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ControlHandlerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RunController controller = new RunController(true);
+    private HttpServer server;
+    private String baseUri;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(ControlHandler.CONTEXT_PATH, new ControlHandler(controller));
+        server.start();
+        baseUri = "http://localhost:" + server.getAddress().getPort() + ControlHandler.CONTEXT_PATH;
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("Test a waiting run is started once and reports its state in the status")
+    void GivenRunWaitingForStart_WhenStartIsPosted_ThenRunStartsOnce() throws Exception {
+        // Given
+        assertEquals("WAITING", objectMapper.readTree(send("GET", "/status").body()).get("state").asText());
+
+        // When
+        HttpResponse<String> started = send("POST", "/start");
+        HttpResponse<String> startedAgain = send("POST", "/start");
+
+        // Then
+        assertEquals(202, started.statusCode());
+        assertEquals("RUNNING", objectMapper.readTree(started.body()).get("state").asText());
+        assertEquals(409, startedAgain.statusCode());
+        controller.awaitStart();
+    }
+
+    @Test
+    @DisplayName("Test scenario actions are rejected between scenarios and with invalid requests")
+    void GivenNoRunningScenario_WhenActionsAreRequested_ThenTheyAreRejected() throws Exception {
+        // Given
+        // No scenario has started
+
+        // When
+        HttpResponse<String> skip = send("POST", "/skip");
+        HttpResponse<String> concurrency = send("POST", "/concurrency?threads=8");
+        HttpResponse<String> missingThreads = send("POST", "/concurrency");
+        HttpResponse<String> stopWithGet = send("GET", "/stop");
+        HttpResponse<String> unknown = send("POST", "/pause");
+
+        // Then
+        assertEquals(409, skip.statusCode());
+        assertEquals(409, concurrency.statusCode());
+        assertEquals(400, missingThreads.statusCode());
+        assertEquals(405, stopWithGet.statusCode());
+        assertEquals(404, unknown.statusCode());
+        assertTrue(objectMapper.readTree(unknown.body()).get("error").asText().contains("pause"));
+    }
+
+    @Test
+    @DisplayName("Test stopping the run marks it as stopping and lists no scenarios before any ran")
+    void GivenRunWaitingForStart_WhenStopIsPosted_ThenRunIsStoppingAndReleased() throws Exception {
+        // Given
+        // The run is waiting for a start request
+
+        // When
+        HttpResponse<String> stopped = send("POST", "/stop");
+
+        // Then
+        assertEquals(202, stopped.statusCode());
+        JsonNode status = objectMapper.readTree(stopped.body());
+        assertEquals("STOPPING", status.get("state").asText());
+        assertTrue(status.get("current").isNull());
+        assertTrue(controller.isStopRequested());
+        controller.awaitStart();
+        assertEquals(0, objectMapper.readTree(send("GET", "/scenarios").body()).size());
+    }
+
+    @Test
+    @DisplayName("Test actions requested with GET are rejected without changing the run")
+    void GivenWaitingRunWithRunningScenario_WhenActionsAreRequestedWithGet_ThenNothingChanges() throws Exception {
+        // Given
+        CouchbaseLoadTestExecutor scenario = mock(CouchbaseLoadTestExecutor.class);
+        controller.scenarioStarted(scenario);
+
+        // When
+        HttpResponse<String> startWithGet = send("GET", "/start");
+        HttpResponse<String> skipWithGet = send("GET", "/skip");
+        HttpResponse<String> concurrencyWithGet = send("GET", "/concurrency?threads=8");
+
+        // Then
+        assertEquals(405, startWithGet.statusCode());
+        assertEquals(405, skipWithGet.statusCode());
+        assertEquals(405, concurrencyWithGet.statusCode());
+        verify(scenario, never()).requestStop();
+        verify(scenario, never()).setConcurrency(anyInt());
+        assertTrue(controller.start());
+    }
+
+    private HttpResponse<String> send(String method, String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUri + path))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
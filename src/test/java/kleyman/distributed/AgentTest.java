@@ -0,0 +1,208 @@
+package kleyman.distributed;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kleyman.loadtest.ScenarioDefaults;
+import kleyman.metrics.CouchbaseMetrics;
+import kleyman.metrics.MetricManager;
+import kleyman.profiling.ScenarioProfiler;
+import kleyman.results.ResultExporter;
+import kleyman.service.InMemoryDataBaseService;
+import kleyman.testrunner.RunConfiguration;
+import kleyman.testrunner.ScenarioGroup;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgentTest {
+    private static final List<String> SUB_DOCUMENT_SCENARIOS = List.of("Scenario 16", "Scenario 17");
+    private static final String DURATION_PROPERTY = "load.test.duration.millis";
+    @TempDir
+    static Path exportDirectory;
+    private final InMemoryDataBaseService inMemoryService =
+            new InMemoryDataBaseService(Duration.ZERO, Duration.ofMillis(1), Duration.ofMillis(3));
+    private final ExecutorService agents = Executors.newFixedThreadPool(2);
+    private Coordinator coordinator;
+
+    @BeforeAll
+    static void redirectExports() {
+        // Keeps the interval latency logs of the executed scenarios out of the working directory
+        System.setProperty(ResultExporter.EXPORT_DIRECTORY_PROPERTY, exportDirectory.toString());
+    }
+
+    @AfterAll
+    static void clearExportDirectory() {
+        System.clearProperty(ResultExporter.EXPORT_DIRECTORY_PROPERTY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        agents.shutdownNow();
+        if (coordinator != null) {
+            coordinator.close();
+        }
+        SUB_DOCUMENT_SCENARIOS.forEach(scenarioId -> {
+            MetricManager.metricsMap.remove(scenarioId);
+            MetricManager.trialsMap.remove(scenarioId);
+        });
+    }
+
+    @Test
+    @DisplayName("Test two agents run the assigned groups together and their results are merged per scenario")
+    void GivenCoordinatorAndTwoAgents_WhenAgentsRun_ThenScenariosStartTogetherAndResultsAreMerged() throws Exception {
+        // Given
+        URI coordinatorUri = startCoordinator(List.of(ScenarioGroup.SUB_DOCUMENT));
+        String durationBefore = System.getProperty(DURATION_PROPERTY);
+        RecordingAgentClient firstClient = new RecordingAgentClient(coordinatorUri);
+        RecordingAgentClient secondClient = new RecordingAgentClient(coordinatorUri);
+
+        // When
+        Future<Boolean> first = agents.submit(() -> Agent.run(firstClient, configuration()));
+        Future<Boolean> second = agents.submit(() -> Agent.run(secondClient, configuration()));
+        boolean failed = first.get(1, TimeUnit.MINUTES) | second.get(1, TimeUnit.MINUTES);
+        List<CouchbaseMetrics> merged = coordinator.awaitResults();
+
+        // Then
+        assertFalse(failed);
+        assertEquals(durationBefore, System.getProperty(DURATION_PROPERTY));
+        assertEquals(0, firstClient.toLocalTime(0), 50);
+        assertEquals(0, secondClient.toLocalTime(0), 50);
+        assertEquals(Set.of("Scenario 16#0", "Scenario 17#0"), firstClient.startedAt.keySet());
+        assertEquals(firstClient.startedAt.keySet(), secondClient.startedAt.keySet());
+        firstClient.startedAt.forEach((scenarioKey, startedAt) ->
+                assertEquals(startedAt, secondClient.startedAt.get(scenarioKey), 100, scenarioKey));
+        assertEquals(SUB_DOCUMENT_SCENARIOS, merged.stream().map(CouchbaseMetrics::getScenarioId).sorted().toList());
+        for (CouchbaseMetrics metrics : merged) {
+            assertEquals(20, metrics.getThreadSize());
+            assertTrue(metrics.getLatencyHistogram().getTotalCount() > 0);
+        }
+    }
+
+    @Test
+    @DisplayName("Test an agent skipping a scenario does not hold back the other agent at its barrier")
+    void GivenAgentSkipsScenario_WhenOtherAgentAwaitsStart_ThenItStartsWithoutWaitingForTimeout() throws Exception {
+        // Given
+        URI coordinatorUri = startCoordinator(List.of(ScenarioGroup.THREAD_POOL));
+        AgentClient skipping = new AgentClient(coordinatorUri);
+        AgentClient running = new AgentClient(coordinatorUri);
+        skipping.register();
+        running.register();
+
+        // When
+        skipping.skip("Scenario 1#0");
+
+        // Then
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> running.awaitStart("Scenario 1#0"));
+    }
+
+    @Test
+    @DisplayName("Test an agent that has reported does not hold back the barriers of the scenarios it did not reach")
+    void GivenAgentReported_WhenOtherAgentAwaitsStart_ThenItStartsWithoutWaitingForTimeout() throws Exception {
+        // Given
+        URI coordinatorUri = startCoordinator(List.of(ScenarioGroup.THREAD_POOL));
+        AgentClient finished = new AgentClient(coordinatorUri);
+        AgentClient running = new AgentClient(coordinatorUri);
+        Assignment assignment = finished.register();
+        running.register();
+        Future<?> waiting = agents.submit(() -> {
+            running.awaitStart("Scenario 2#0");
+            return null;
+        });
+
+        // When
+        finished.submit(new AgentReport(assignment.agentId(), List.of()));
+
+        // Then
+        assertDoesNotThrow(() -> waiting.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Test an agent whose run fails reports its completed trials so the other agent is not held back")
+    void GivenAgentFailsBeforeSecondScenario_WhenAgentsRun_ThenOtherAgentFinishesAndResultsAreMerged() throws Exception {
+        // Given
+        URI coordinatorUri = startCoordinator(List.of(ScenarioGroup.SUB_DOCUMENT));
+        AgentClient crashing = new AgentClient(coordinatorUri) {
+            @Override
+            public void awaitStart(String scenarioKey) throws IOException, InterruptedException {
+                // The runner handles exceptions of a scenario group, so only an error ends the run early
+                if (scenarioKey.startsWith("Scenario 17")) {
+                    throw new OutOfMemoryError("Agent crashed");
+                }
+                super.awaitStart(scenarioKey);
+            }
+        };
+        AgentClient running = new AgentClient(coordinatorUri);
+
+        // When
+        Future<Boolean> crashed = agents.submit(() -> Agent.run(crashing, configuration()));
+        Future<Boolean> finished = agents.submit(() -> Agent.run(running, configuration()));
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> crashed.get(1, TimeUnit.MINUTES));
+        boolean failed = finished.get(1, TimeUnit.MINUTES);
+        List<CouchbaseMetrics> merged = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> coordinator.awaitResults());
+
+        // Then
+        assertInstanceOf(OutOfMemoryError.class, failure.getCause());
+        assertFalse(failed);
+        Map<String, Integer> threadsByScenario = merged.stream()
+                .collect(Collectors.toMap(CouchbaseMetrics::getScenarioId, CouchbaseMetrics::getThreadSize));
+        assertEquals(Map.of("Scenario 16", 20, "Scenario 17", 10), threadsByScenario);
+    }
+
+    private URI startCoordinator(List<ScenarioGroup> groups) throws IOException {
+        coordinator = new Coordinator(2, groups, 1000, 42, Duration.ofSeconds(30));
+        coordinator.start(0);
+        return URI.create("http://localhost:" + coordinator.getPort());
+    }
+
+    /**
+     * Configures an agent against the shared in-memory service with its own meters and without JFR recordings,
+     * without touching any system property.
+     */
+    private RunConfiguration configuration() {
+        return RunConfiguration.builder()
+                .inMemoryService(inMemoryService)
+                .profilerSettings(ScenarioProfiler.DISABLED)
+                .scenarioDefaults(ScenarioDefaults.builder()
+                        .jsonBigPath("json_test_files/json_big_")
+                        .jsonSmallPath("json_test_files/json_small_")
+                        .meterRegistry(new SimpleMeterRegistry())
+                        .build())
+                .build();
+    }
+
+    /**
+     * Records when every scenario was let through the start barrier.
+     */
+    private static final class RecordingAgentClient extends AgentClient {
+        private final Map<String, Long> startedAt = new ConcurrentHashMap<>();
+
+        RecordingAgentClient(URI coordinatorUri) {
+            super(coordinatorUri);
+        }
+
+        @Override
+        public void awaitStart(String scenarioKey) throws IOException, InterruptedException {
+            super.awaitStart(scenarioKey);
+            startedAt.put(scenarioKey, System.currentTimeMillis());
+        }
+    }
+}
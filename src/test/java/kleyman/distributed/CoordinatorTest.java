@@ -0,0 +1,128 @@
+package kleyman.distributed;
+
+import com.couchbase.client.java.json.JsonObject;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kleyman.metrics.CouchbaseMetrics;
+import kleyman.metrics.OperationType;
+import kleyman.service.InMemoryDataBaseService;
+import kleyman.testrunner.ScenarioGroup;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoordinatorTest {
+    private static final String SCENARIO_ID = "Scenario 1";
+    private final InMemoryDataBaseService inMemoryService =
+            new InMemoryDataBaseService(Duration.ZERO, Duration.ofMillis(1), Duration.ofMillis(3));
+    private final ExecutorService agents = Executors.newFixedThreadPool(2);
+    private Coordinator coordinator;
+    private URI coordinatorUri;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        coordinator = new Coordinator(2, List.of(ScenarioGroup.THREAD_POOL), 1000, 42, Duration.ofSeconds(30));
+        coordinator.start(0);
+        coordinatorUri = URI.create("http://localhost:" + coordinator.getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        agents.shutdownNow();
+        coordinator.close();
+    }
+
+    @Test
+    @DisplayName("Test agents on localhost start together and their results are merged without loss")
+    void GivenTwoAgentsOnLocalhost_WhenBothReport_ThenResultsAreMergedLosslessly() throws Exception {
+        // Given
+        List<Future<AgentRun>> runs = new ArrayList<>();
+        runs.add(agents.submit(agent(40)));
+        runs.add(agents.submit(agent(60)));
+        List<AgentRun> agentRuns = new ArrayList<>();
+        for (Future<AgentRun> run : runs) {
+            agentRuns.add(run.get());
+        }
+
+        // When
+        List<CouchbaseMetrics> merged = coordinator.awaitResults();
+
+        // Then
+        AgentRun first = agentRuns.get(0);
+        AgentRun second = agentRuns.get(1);
+        assertNotEquals(first.assignment().agentId(), second.assignment().agentId());
+        assertEquals(first.assignment().seed(), second.assignment().seed());
+        assertEquals(first.startedAt(), second.startedAt(), 100);
+        assertEquals(1, merged.size());
+        CouchbaseMetrics metrics = merged.get(0);
+        assertEquals(SCENARIO_ID, metrics.getScenarioId());
+        assertEquals(4, metrics.getThreadSize());
+        assertEquals(100, metrics.getPutSuccessCounter().count());
+        assertEquals(100, metrics.getGetSuccessCounter().count());
+        assertEquals(100, metrics.getSuccessfulOperations(OperationType.MUTATE_IN));
+        assertEquals(100, metrics.getPutTimer().count());
+        assertEquals(metrics.getPutLatencyHistogram().getMean() / 1000, metrics.getPutTimer().mean(TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(first.metrics().getPutLatencyHistogram().getTotalCount() + second.metrics().getPutLatencyHistogram().getTotalCount(),
+                metrics.getPutLatencyHistogram().getTotalCount());
+        assertEquals(Math.max(first.metrics().getLatencyHistogram().getMaxValue(), second.metrics().getLatencyHistogram().getMaxValue()),
+                metrics.getLatencyHistogram().getMaxValue());
+        assertEquals(300, metrics.getLatencyHistogram().getTotalCount());
+        assertEquals(Math.max(first.metrics().getElapsedSeconds(), second.metrics().getElapsedSeconds()), metrics.getElapsedSeconds(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Test registrations beyond the configured number of agents are rejected")
+    void GivenAllAgentsRegistered_WhenAnotherAgentRegisters_ThenItIsRejected() throws Exception {
+        // Given
+        new AgentClient(coordinatorUri).register();
+        new AgentClient(coordinatorUri).register();
+
+        // When
+        IOException rejected = assertThrows(IOException.class, () -> new AgentClient(coordinatorUri).register());
+
+        // Then
+        assertTrue(rejected.getMessage().contains("409"));
+    }
+
+    /**
+     * Registers an agent that waits at the start barrier and then runs the given number of operations
+     * of each kind against the in-memory service, like a runner with its own meters.
+     */
+    private Callable<AgentRun> agent(int operations) {
+        return () -> {
+            AgentClient client = new AgentClient(coordinatorUri);
+            Assignment assignment = client.register();
+            client.awaitStart(SCENARIO_ID + "#0");
+            long startedAt = System.currentTimeMillis();
+            CouchbaseMetrics live = new CouchbaseMetrics(new SimpleMeterRegistry(), SCENARIO_ID, 2, "json_small", true);
+            live.markScenarioStart();
+            for (int i = 0; i < operations; i++) {
+                String key = "agent-" + assignment.agentId() + "-" + i;
+                inMemoryService.upload(key, JsonObject.create().put("value", i), live);
+                inMemoryService.retrieve(key, live);
+                inMemoryService.mutateIn(key, Map.of("loadtest.updatedAt", i), live);
+            }
+            live.markScenarioEnd();
+            CouchbaseMetrics archived = live.archive();
+            client.submit(AgentReport.from(assignment.agentId(), List.of(archived)));
+            return new AgentRun(assignment, startedAt, archived);
+        };
+    }
+
+    private record AgentRun(Assignment assignment, long startedAt, CouchbaseMetrics metrics) {
+    }
+}
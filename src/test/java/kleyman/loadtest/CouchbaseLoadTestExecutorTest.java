@@ -1,19 +1,52 @@
 package kleyman.loadtest;
 
+import com.couchbase.client.core.msg.kv.DurabilityLevel;
 import com.couchbase.client.java.json.JsonObject;
+import kleyman.metrics.CasContentionMetrics;
+import kleyman.metrics.CouchbaseMetrics;
+import kleyman.metrics.MetricManager;
+import kleyman.metrics.MetricsSetup;
+import kleyman.metrics.OperationType;
+import kleyman.metrics.ScenarioContext;
+import kleyman.results.ResultExporter;
 import kleyman.service.CouchbaseService;
+import kleyman.service.InMemoryDataBaseService;
+import kleyman.trace.OperationTraceWriter;
 import kleyman.util.JsonFileReaderUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.MockedStatic;
+
 import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class CouchbaseLoadTestExecutorTest {
+    @TempDir
+    static Path exportDirectory;
     private CouchbaseLoadTestExecutor loadTestExecutor;
     private CouchbaseService couchbaseService;
 
+    @BeforeAll
+    static void redirectExports() {
+        // Keeps the interval latency logs of the executed scenarios out of the working directory
+        System.setProperty(ResultExporter.EXPORT_DIRECTORY_PROPERTY, exportDirectory.toString());
+    }
+
+    @AfterAll
+    static void clearExportDirectory() {
+        System.clearProperty(ResultExporter.EXPORT_DIRECTORY_PROPERTY);
+    }
+
     @BeforeEach
     void setUp() {
         couchbaseService = mock(CouchbaseService.class);
@@ -70,17 +103,233 @@ class CouchbaseLoadTestExecutorTest {
         JsonObject expectedJson = JsonObject.create().put("key", "value");
 
         // Mock static method
-        mockStatic(JsonFileReaderUtils.class);
-        when(JsonFileReaderUtils.readJsonFromFile(jsonFilePath)).thenReturn(expectedJson);
+        try (MockedStatic<JsonFileReaderUtils> mockedReader = mockStatic(JsonFileReaderUtils.class)) {
+            mockedReader.when(() -> JsonFileReaderUtils.readJsonFromFile(jsonFilePath)).thenReturn(expectedJson);
+
+            // Use reflection to access the private method
+            Method loadJsonDataMethod = CouchbaseLoadTestExecutor.class.getDeclaredMethod("loadJsonDataFromFile", String.class);
+            loadJsonDataMethod.setAccessible(true);
+
+            // When
+            JsonObject actualJson = (JsonObject) loadJsonDataMethod.invoke(loadTestExecutor, jsonFilePath);
+
+            // Then
+            assertEquals(expectedJson, actualJson);
+        }
+    }
 
-        // Use reflection to access the private method
-        Method loadJsonDataMethod = CouchbaseLoadTestExecutor.class.getDeclaredMethod("loadJsonDataFromFile", String.class);
-        loadJsonDataMethod.setAccessible(true);
+    @Test
+    @DisplayName("Test sub-document lookup paths are taken from the payload")
+    void GivenJsonPayload_WhenSelectingLookupPaths_ThenTopLevelFieldsAreReturned() {
+        // Given
+        JsonObject jsonData = JsonObject.create().put("name", "John").put("age", 28).put("email", "john@example.com");
+
+        // When
+        List<String> paths = CouchbaseLoadTestExecutor.selectLookupPaths(jsonData);
+
+        // Then
+        assertEquals(2, paths.size());
+        assertTrue(jsonData.getNames().containsAll(paths));
+    }
+
+    @Test
+    @DisplayName("Test durability scenario runs offline against the in-memory service")
+    void GivenInMemoryServiceWithReplicationLatency_WhenExecutingMajorityScenario_ThenPutPercentilesIncludeReplication() {
+        // Given
+        System.setProperty("load.test.duration.millis", "300");
+        InMemoryDataBaseService inMemoryService = new InMemoryDataBaseService(Duration.ZERO, Duration.ofMillis(2), Duration.ofMillis(5));
+        ScenarioSettings settings = ScenarioSettings.builder().durabilityLevel(DurabilityLevel.MAJORITY).build();
+        CouchbaseLoadTestExecutor executor;
+        try {
+            executor = new CouchbaseLoadTestExecutor(2, "json_test_files/json_small_", true, inMemoryService, "offline-durability", settings);
+        } finally {
+            System.clearProperty("load.test.duration.millis");
+        }
+
+        // When
+        executor.executeLoadTest();
+
+        // Then
+        CouchbaseMetrics metrics = MetricManager.metricsMap.get("offline-durability");
+        assertTrue(metrics.getPutSuccessCounter().count() > 0);
+        assertEquals(0.0, metrics.getTotalErrorRate());
+        assertTrue(metrics.getPutLatencyPercentile(0.5) >= 2.0, "PUT latency should include the replication round-trip");
+        assertTrue(metrics.getPutThroughput() > 0);
+    }
+
+    @Test
+    @DisplayName("Test replication lag polls do not count as replica reads of the workload")
+    void GivenAsynchronousReplication_WhenExecutingReplicaReadScenario_ThenOnlyFirstAnyReplicaReadIsCounted() {
+        // Given
+        InMemoryDataBaseService inMemoryService = new InMemoryDataBaseService(Duration.ZERO, Duration.ofMillis(2), Duration.ZERO);
+        ScenarioSettings settings = ScenarioSettings.builder().workloadType(WorkloadType.REPLICA_READ)
+                .testDuration(Duration.ofMillis(300)).build();
+        CouchbaseLoadTestExecutor executor = new CouchbaseLoadTestExecutor(2, "json_test_files/json_small_", true,
+                inMemoryService, "offline-replica-read", settings);
+
+        // When
+        executor.executeLoadTest();
+
+        // Then
+        CouchbaseMetrics metrics = MetricManager.metricsMap.get("offline-replica-read");
+        double anyReplicaReads = metrics.getSuccessfulOperations(OperationType.REPLICA_GET_ANY);
+        assertTrue(anyReplicaReads > 0);
+        assertEquals(metrics.getSuccessfulOperations(OperationType.REPLICA_GET_ALL), anyReplicaReads);
+        assertTrue(metrics.getReplicaConsistencyMetrics().getReplicationLagTimer().count() > 0);
+    }
+
+    @Test
+    @DisplayName("Test CAS contention scenario applies every counted update exactly once")
+    void GivenSingleHotDocument_WhenExecutingCasContentionScenario_ThenAppliedUpdatesMatchDocumentVersion() {
+        // Given
+        System.setProperty("load.test.duration.millis", "300");
+        InMemoryDataBaseService inMemoryService = new InMemoryDataBaseService();
+        ScenarioSettings settings = ScenarioSettings.builder().workloadType(WorkloadType.CAS_CONTENTION).hotSetSize(1).build();
+        CouchbaseLoadTestExecutor executor;
+        try {
+            executor = new CouchbaseLoadTestExecutor(4, "json_test_files/json_small_", false, inMemoryService, "offline-cas", settings);
+        } finally {
+            System.clearProperty("load.test.duration.millis");
+        }
 
         // When
-        JsonObject actualJson = (JsonObject) loadJsonDataMethod.invoke(loadTestExecutor, jsonFilePath);
+        executor.executeLoadTest();
 
         // Then
-        assertEquals(expectedJson, actualJson);
+        CouchbaseMetrics metrics = MetricManager.metricsMap.get("offline-cas");
+        CasContentionMetrics casMetrics = metrics.getCasContentionMetrics();
+        double updates = casMetrics.getUpdateCounter().count();
+        assertTrue(updates > 0);
+        assertEquals(casMetrics.getAttemptCounter().count(), updates + casMetrics.getMismatchCounter().count());
+        // Seeding the hot document is setup, so the workload itself issued no PUT
+        assertEquals(0, metrics.getPutLatencyHistogram().getTotalCount());
+        // The stored results are immutable, so the verification read is recorded separately
+        CouchbaseMetrics verificationMetrics = new CouchbaseMetrics(MetricsSetup.getPrometheusRegistry(), "offline-cas-verification", 1, " ", false);
+        long version = inMemoryService.retrieve("user::hot::0", verificationMetrics).getLong("loadtestVersion");
+        assertEquals((long) updates, version);
+    }
+
+    @Test
+    @DisplayName("Test a scenario whose workers cannot start still leaves the scenario context and keeps no results")
+    void GivenMissingJsonFile_WhenExecutingScenario_ThenScenarioIsCleanedUpWithoutResults() {
+        // Given
+        ScenarioSettings settings = ScenarioSettings.builder().testDuration(Duration.ofMinutes(5)).jsonFiles(1).build();
+        CouchbaseLoadTestExecutor executor = new CouchbaseLoadTestExecutor(1, "json_test_files/missing_", true,
+                new InMemoryDataBaseService(), "offline-missing-json", settings);
+
+        // When
+        executor.executeLoadTest();
+
+        // Then
+        assertNull(ScenarioContext.current());
+        assertNull(executor.getArchivedMetrics());
+        assertFalse(MetricManager.metricsMap.containsKey("offline-missing-json"));
+        assertTrue(executor.getCouchbaseMetrics().getElapsedSeconds() < 60);
+    }
+
+    @Test
+    @DisplayName("Test concurrency changes while the scenario runs and a stop ends it before its end time")
+    void GivenRunningScenario_WhenConcurrencyIsRaisedAndStopRequested_ThenWorkersFollowAndScenarioEndsEarly() throws Exception {
+        // Given
+        ScenarioSettings settings = ScenarioSettings.builder().testDuration(Duration.ofMinutes(5)).jsonFiles(1).build();
+        CouchbaseLoadTestExecutor executor = new CouchbaseLoadTestExecutor(1, "json_test_files/json_small_", true,
+                new InMemoryDataBaseService(), "offline-live-control", settings);
+        Thread scenarioThread = new Thread(executor::executeLoadTest);
+        scenarioThread.start();
+        awaitActiveWorkers(executor, 1);
+
+        // When
+        assertTrue(executor.setConcurrency(3));
+        awaitActiveWorkers(executor, 3);
+        assertTrue(executor.setConcurrency(2));
+        awaitActiveWorkers(executor, 2);
+        executor.requestStop();
+        scenarioThread.join(TimeUnit.SECONDS.toMillis(10));
+
+        // Then
+        assertFalse(scenarioThread.isAlive());
+        assertFalse(executor.setConcurrency(4));
+        CouchbaseMetrics metrics = MetricManager.metricsMap.get("offline-live-control");
+        assertTrue(metrics.getPutSuccessCounter().count() > 0);
+        assertTrue(metrics.getElapsedSeconds() < 60);
+        assertTrue(metrics.isConcurrencyChanged());
+        assertTrue(metrics.getAverageConcurrency() > 1 && metrics.getAverageConcurrency() <= 3);
+    }
+
+    @Test
+    @DisplayName("Test a traced scenario replayed at maximum speed re-issues every recorded operation")
+    void GivenTracedSubDocumentScenario_WhenTraceIsReplayedAtMaximumSpeed_ThenSameOperationsAreIssued() {
+        // Given
+        System.setProperty(CouchbaseLoadTestExecutor.TRACE_ENABLED_PROPERTY, "true");
+        System.setProperty(CouchbaseLoadTestExecutor.TRACE_DIRECTORY_PROPERTY, exportDirectory.toString());
+        try {
+            ScenarioSettings subDocument = ScenarioSettings.builder().workloadType(WorkloadType.SUB_DOCUMENT)
+                    .testDuration(Duration.ofMillis(300)).build();
+            new CouchbaseLoadTestExecutor(2, "json_test_files/json_small_", true, new InMemoryDataBaseService(),
+                    "offline-traced", subDocument).executeLoadTest();
+        } finally {
+            System.clearProperty(CouchbaseLoadTestExecutor.TRACE_ENABLED_PROPERTY);
+            System.clearProperty(CouchbaseLoadTestExecutor.TRACE_DIRECTORY_PROPERTY);
+        }
+        Path trace = exportDirectory.resolve(ResultExporter.baseName("offline-traced", 1) + OperationTraceWriter.EXTENSION);
+        ScenarioSettings replay = ScenarioSettings.builder().workloadType(WorkloadType.TRACE_REPLAY).replayTrace(trace)
+                .replaySpeed(Double.POSITIVE_INFINITY).testDuration(Duration.ofMinutes(1)).build();
+        CouchbaseLoadTestExecutor replayExecutor = new CouchbaseLoadTestExecutor(2, "json_test_files/json_small_", true,
+                new InMemoryDataBaseService(), "offline-replayed", replay);
+
+        // When
+        replayExecutor.executeLoadTest();
+
+        // Then
+        CouchbaseMetrics recorded = MetricManager.metricsMap.get("offline-traced");
+        CouchbaseMetrics replayed = MetricManager.metricsMap.get("offline-replayed");
+        assertTrue(recorded.getPutSuccessCounter().count() > 0);
+        assertEquals(recorded.getPutSuccessCounter().count(), replayed.getPutSuccessCounter().count());
+        assertEquals(recorded.getGetSuccessCounter().count(), replayed.getGetSuccessCounter().count());
+        assertEquals(recorded.getSuccessfulOperations(OperationType.MUTATE_IN), replayed.getSuccessfulOperations(OperationType.MUTATE_IN));
+        assertEquals(recorded.getSuccessfulOperations(OperationType.SUBDOC_ARRAY_APPEND),
+                replayed.getSuccessfulOperations(OperationType.SUBDOC_ARRAY_APPEND));
+        assertEquals(0.0, replayed.getTotalErrorRate());
+        assertTrue(replayed.getElapsedSeconds() < 30, "The replay should end once every operation has been replayed");
+    }
+
+    @Test
+    @DisplayName("Test an access log replayed at maximum speed issues every logged operation once")
+    void GivenAccessLog_WhenReplayedAtMaximumSpeed_ThenEveryEntryIsIssued() throws Exception {
+        // Given
+        Path accessLog = exportDirectory.resolve("access.log");
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            long timestamp = 1_714_564_800_000L + i;
+            lines.append(timestamp).append(" upsert user::").append(i).append(" 512\n")
+                    .append(timestamp).append(" get user::").append(i).append('\n')
+                    .append(timestamp).append(" incr counter::").append(i % 5).append('\n');
+        }
+        Files.writeString(accessLog, lines);
+        ScenarioSettings replay = ScenarioSettings.builder().workloadType(WorkloadType.ACCESS_LOG_REPLAY).accessLog(accessLog)
+                .replaySpeed(Double.POSITIVE_INFINITY).replayQueueCapacity(4).testDuration(Duration.ofMinutes(1)).build();
+        CouchbaseLoadTestExecutor replayExecutor = new CouchbaseLoadTestExecutor(3, "json_test_files/json_small_", false,
+                new InMemoryDataBaseService(), "offline-access-log", replay);
+
+        // When
+        replayExecutor.executeLoadTest();
+
+        // Then
+        CouchbaseMetrics replayed = MetricManager.metricsMap.get("offline-access-log");
+        assertEquals(50, replayed.getPutSuccessCounter().count());
+        assertEquals(50, replayed.getGetSuccessCounter().count());
+        assertEquals(50, replayed.getSuccessfulOperations(OperationType.COUNTER_INCREMENT));
+        assertEquals(512, replayed.getAveragePutPayloadBytes());
+        assertEquals(0.0, replayed.getTotalErrorRate());
+        assertTrue(replayed.getElapsedSeconds() < 30, "The replay should end once every entry has been replayed");
+        assertFalse(replayExecutor.setConcurrency(5));
+    }
+
+    private static void awaitActiveWorkers(CouchbaseLoadTestExecutor executor, int workers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (executor.getActiveWorkers() != workers && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(workers, executor.getActiveWorkers());
     }
 }
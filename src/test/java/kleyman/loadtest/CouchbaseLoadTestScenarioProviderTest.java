@@ -1,5 +1,7 @@
 package kleyman.loadtest;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import kleyman.service.CouchbaseService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -10,14 +12,20 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class CouchbaseLoadTestScenarioProviderTest {
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
     private CouchbaseLoadTestScenarioProvider scenarioProvider;
 
     @BeforeEach
     void setUp() {
         CouchbaseService couchbaseService = Mockito.mock(CouchbaseService.class);
-        scenarioProvider = new CouchbaseLoadTestScenarioProvider(couchbaseService);
+        scenarioProvider = new CouchbaseLoadTestScenarioProvider(couchbaseService, ScenarioDefaults.builder()
+                .jsonBigPath("json_test_files/json_big_")
+                .jsonSmallPath("json_test_files/json_small_")
+                .meterRegistry(meterRegistry)
+                .build());
     }
 
     @Test
@@ -48,4 +56,18 @@ class CouchbaseLoadTestScenarioProviderTest {
         assertEquals(3, scenarios.size(), "Expected 3 scenarios to be created");
     }
 
+    @Test
+    @DisplayName("Test a single connection pool scenario is created for its pool size")
+    void givenCouchbaseLoadTestScenarioProvider_whenConnectionPoolScenarioCreated_thenOnlyThatScenarioIsReturned() {
+        // Given
+        // A CouchbaseLoadTestScenarioProvider with a mocked CouchbaseService and its own meter registry
+
+        // When
+        CouchbaseLoadTestExecutor scenario = scenarioProvider.createConnectionPoolScenario(1);
+
+        // Then
+        assertEquals("Scenario 14", scenario.getCouchbaseMetrics().getScenarioId());
+        assertTrue(meterRegistry.getMeters().stream()
+                .allMatch(meter -> "Scenario 14".equals(meter.getId().getTag("scenario"))));
+    }
 }
@@ -0,0 +1,67 @@
+package kleyman.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientResourceSamplerTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Test closing the sampler records the last interval and exports it as gauges")
+    void GivenRunningSampler_WhenClosed_ThenSampleIsRecordedAndExported() throws InterruptedException {
+        // Given
+        CouchbaseMetrics metrics = new CouchbaseMetrics(registry, "sampler-test", 1, " ", true);
+        ClientResourceSampler sampler = ClientResourceSampler.start(metrics);
+        Thread.sleep(50);
+
+        // When
+        sampler.close();
+
+        // Then
+        List<ClientResourceSample> samples = metrics.getClientResourceMetrics().getSamples();
+        assertEquals(1, samples.size());
+        ClientResourceSample sample = samples.get(0);
+        assertTrue(sample.intervalMillis() >= 50);
+        assertTrue(sample.runnableThreads() >= 1);
+        assertTrue(sample.processCpuLoad() >= 0 && sample.processCpuLoad() <= 1);
+        assertEquals(sample.runnableThreads(), registry.get("couchbase.client.threads").tag("scenario", "sampler-test").tag("state", "runnable").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Test high client CPU and GC time are reported as warnings")
+    void GivenSaturatedClient_WhenCheckingWarnings_ThenCpuAndGcWarningsAreReturned() {
+        // Given
+        ClientResourceMetrics resources = new ClientResourceMetrics(registry, "saturated-test");
+        resources.record(new ClientResourceSample(1000, 1000, 0.95, 0.97, 80, 4, 100_000_000, 1000, 12, 3, 20));
+        resources.record(new ClientResourceSample(2000, 1000, 0.85, 0.90, 40, 2, 100_000_000, 900, 12, 1, 20));
+
+        // When
+        List<String> warnings = resources.getWarnings();
+
+        // Then
+        assertEquals(2, warnings.size());
+        assertEquals(0.9, resources.getAverageProcessCpuLoad(), 1e-9);
+        assertEquals(0.06, resources.getGcTimeRatio(), 1e-9);
+        assertEquals(100_000_000, resources.getAverageAllocationRate(), 1e-6);
+        assertEquals(3, resources.getMaxBlockedThreads());
+    }
+
+    @Test
+    @DisplayName("Test an idle client produces no warnings")
+    void GivenIdleClient_WhenCheckingWarnings_ThenNoWarningsAreReturned() {
+        // Given
+        ClientResourceMetrics resources = new ClientResourceMetrics(registry, "idle-test");
+        resources.record(new ClientResourceSample(1000, 1000, 0.2, 0.3, 5, 1, 1_000_000, 1000, 4, 0, 20));
+
+        // When
+        List<String> warnings = resources.getWarnings();
+
+        // Then
+        assertTrue(warnings.isEmpty());
+    }
+}
@@ -0,0 +1,63 @@
+package kleyman.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsoleDashboardTest {
+
+    @Test
+    @DisplayName("Test a dashboard frame shows the rolling rates and latencies since the previous frame")
+    void GivenOperationsBetweenFrames_WhenFrameIsTaken_ThenItShowsTheIntervalOnly() {
+        // Given
+        CouchbaseMetrics metrics = new CouchbaseMetrics(new SimpleMeterRegistry(), "Scenario 9", 4, " ", true);
+        metrics.markScenarioStart();
+        AtomicInteger activeWorkers = new AtomicInteger(4);
+        ConsoleDashboard dashboard = new ConsoleDashboard(new PrintStream(new ByteArrayOutputStream()), false, activeWorkers::get);
+        metrics.incrementGetSuccess();
+        ConsoleDashboard.Frame first = dashboard.takeFrame(metrics);
+        for (int i = 0; i < 9; i++) {
+            metrics.incrementPutSuccess();
+            metrics.recordPutLatency(4, TimeUnit.MILLISECONDS);
+        }
+        metrics.incrementPutFailure();
+        metrics.startOperation();
+        activeWorkers.set(6);
+
+        // When
+        ConsoleDashboard.Frame second = dashboard.takeFrame(metrics);
+
+        // Then
+        assertNull(first.put());
+        assertEquals(4, first.threads());
+        assertEquals(6, second.threads());
+        assertTrue(second.throughput() > 0);
+        assertEquals(10.0, second.errorRate(), 0.001);
+        assertEquals(1, second.inFlight());
+        assertEquals(4.0, second.put().p99(), 0.01);
+        assertEquals(0, second.get().operationsPerSecond());
+        String view = ConsoleDashboard.render(second);
+        assertTrue(view.startsWith("Couchbase load test: Scenario 9, 6 threads"));
+        assertTrue(view.contains("PUT"));
+    }
+
+    @Test
+    @DisplayName("Test the dashboard shows a waiting line between scenarios")
+    void GivenNoRunningScenario_WhenFrameIsRendered_ThenWaitingLineIsShown() {
+        // Given
+        ConsoleDashboard dashboard = new ConsoleDashboard(new PrintStream(new ByteArrayOutputStream()), false, () -> 0);
+
+        // When
+        String view = ConsoleDashboard.render(dashboard.takeFrame(null));
+
+        // Then
+        assertTrue(view.startsWith("Couchbase load test: waiting for the next scenario"));
+    }
+}
@@ -0,0 +1,62 @@
+package kleyman.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CouchbaseMetricsArchiveTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Test archiving keeps the scenario results and removes its live meters from the registry")
+    void GivenFinishedScenario_WhenArchived_ThenResultsAreKeptAndMetersRemoved() {
+        // Given
+        CouchbaseMetrics live = new CouchbaseMetrics(registry, "archive-test", 4, " ", true);
+        CouchbaseMetrics otherScenario = new CouchbaseMetrics(registry, "other-scenario", 1, " ", true);
+        live.markScenarioStart();
+        for (int i = 1; i <= 100; i++) {
+            live.incrementPutSuccess();
+            live.recordPutLatency(i, TimeUnit.MILLISECONDS);
+            live.incrementSuccess(OperationType.LOOKUP_IN);
+            live.recordLatency(OperationType.LOOKUP_IN, 2, TimeUnit.MILLISECONDS);
+        }
+        live.recordCasAttempt(false);
+        live.recordCasAttempt(true);
+        live.recordRequestPhase(RequestPhase.SERVER, 3_000_000);
+        live.recordPartitionOperation(7, 1024, "node-1", 1_000_000);
+        live.markScenarioEnd();
+        double putP99 = live.getPutLatencyPercentile(0.99);
+
+        // When
+        CouchbaseMetrics archived = live.archive();
+
+        // Then
+        assertTrue(registry.find("couchbase.put.success").tag("scenario", "archive-test").meters().isEmpty());
+        assertTrue(registry.find("couchbase.cas.attempts").tag("scenario", "archive-test").meters().isEmpty());
+        assertFalse(registry.find("couchbase.put.success").tag("scenario", "other-scenario").meters().isEmpty());
+        assertEquals(200, archived.getTotalSuccessfulOperations());
+        assertEquals(50.5, archived.getAveragePutLatency(), 0.01);
+        assertEquals(putP99, archived.getPutLatencyPercentile(0.99));
+        assertEquals(2.0, archived.getAverageLatency(OperationType.LOOKUP_IN), 0.01);
+        assertEquals(50, archived.getCasContentionMetrics().getMismatchRate(), 1e-9);
+        assertEquals(3.0, archived.getRequestPhaseMetrics().getAverage(RequestPhase.SERVER), 1e-9);
+        assertEquals(1, archived.getPartitionMetrics().getPartitionOperations(7));
+        assertEquals(live.getElapsedSeconds(), archived.getElapsedSeconds());
+        assertNotNull(otherScenario.getPutSuccessCounter());
+    }
+
+    @Test
+    @DisplayName("Test an archived scenario rejects new recordings")
+    void GivenArchivedScenario_WhenRecording_ThenIllegalStateExceptionIsThrown() {
+        // Given
+        CouchbaseMetrics archived = new CouchbaseMetrics(registry, "immutable-test", 1, " ", true).archive();
+
+        // When and Then
+        assertThrows(IllegalStateException.class, archived::incrementPutSuccess);
+        assertThrows(IllegalStateException.class, () -> archived.recordGetLatency(1, TimeUnit.MILLISECONDS));
+    }
+}
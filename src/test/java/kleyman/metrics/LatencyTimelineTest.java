@@ -0,0 +1,66 @@
+package kleyman.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyTimelineTest {
+
+    @Test
+    @DisplayName("Test sampling the timeline adds a point with the percentiles of the interval only")
+    void GivenLatenciesInTwoIntervals_WhenTimelineIsSampled_ThenEachPointCoversItsInterval() {
+        // Given
+        ScenarioLatencies latencies = new ScenarioLatencies();
+        ScenarioLatencies.OperationLatency get = latencies.operation("get");
+        LatencyTimeline timeline = new LatencyTimeline(latencies.newView());
+        for (int i = 0; i < 99; i++) {
+            get.record(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        get.record(TimeUnit.MILLISECONDS.toNanos(50));
+        timeline.sample(1000, 1000, 100);
+        get.record(TimeUnit.MILLISECONDS.toNanos(5));
+
+        // When
+        timeline.sample(2000, 1000, 1);
+
+        // Then
+        List<TimelinePoint> points = timeline.getPoints();
+        assertEquals(2, points.size());
+        assertEquals(100, points.get(0).operations());
+        assertEquals(1.0, points.get(0).p50Latency(), 0.01);
+        assertEquals(1.0, points.get(0).p99Latency(), 0.01);
+        assertEquals(50.0, points.get(0).maxLatency(), 0.1);
+        assertEquals(1, points.get(1).operations());
+        assertEquals(5.0, points.get(1).p99Latency(), 0.01);
+    }
+
+    @Test
+    @DisplayName("Test a full timeline halves its resolution and keeps the tail spikes")
+    void GivenFullTimeline_WhenSampledAgain_ThenPointsAreMergedAndSpikeIsKept() {
+        // Given
+        ScenarioLatencies latencies = new ScenarioLatencies();
+        ScenarioLatencies.OperationLatency get = latencies.operation("get");
+        LatencyTimeline timeline = new LatencyTimeline(latencies.newView());
+        for (int i = 0; i < LatencyTimeline.MAX_POINTS; i++) {
+            get.record(TimeUnit.MILLISECONDS.toNanos(i == 1 ? 200 : 2));
+            timeline.sample((i + 1) * 1000L, 1000, i % 2 == 0 ? 100 : 300);
+        }
+
+        // When
+        timeline.sample((LatencyTimeline.MAX_POINTS + 1) * 1000L, 1000, 100);
+
+        // Then
+        List<TimelinePoint> points = timeline.getPoints();
+        assertEquals(LatencyTimeline.MAX_POINTS / 2 + 1, points.size());
+        TimelinePoint first = points.get(0);
+        assertEquals(2000, first.elapsedMillis());
+        assertEquals(2000, first.intervalMillis());
+        assertEquals(200.0, first.throughput(), 0.01);
+        assertEquals(200.0, first.p99Latency(), 0.5);
+        assertEquals(2, first.operations());
+    }
+}
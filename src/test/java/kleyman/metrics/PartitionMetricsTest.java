@@ -0,0 +1,90 @@
+package kleyman.metrics;
+
+import com.couchbase.client.core.node.KeyValueLocator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kleyman.config.PartitionLocator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionMetricsTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Test keys are mapped to the same vBucket as the SDK computes")
+    void GivenKey_WhenLocatingPartition_ThenSdkPartitionIsReturned() {
+        // Given
+        PartitionLocator locator = PartitionLocator.singleNode(PartitionLocator.DEFAULT_PARTITIONS, "node-1");
+
+        // When
+        int partition = locator.partitionForKey("user::42");
+
+        // Then
+        assertEquals(KeyValueLocator.partitionForKey("user::42".getBytes(StandardCharsets.UTF_8), 1024), partition);
+        assertTrue(partition >= 0 && partition < 1024);
+        assertEquals("node-1", locator.nodeForPartition(partition));
+    }
+
+    @Test
+    @DisplayName("Test a partition receiving most operations is flagged as hot")
+    void GivenSkewedLoad_WhenFindingHotPartitions_ThenBusiestPartitionIsFlagged() {
+        // Given
+        PartitionMetrics metrics = new PartitionMetrics(registry, "partition-test", 1024);
+        for (int i = 0; i < 1024; i++) {
+            metrics.record(i, "node-1", 1_000_000);
+        }
+        for (int i = 0; i < 500; i++) {
+            metrics.record(7, "node-1", 3_000_000);
+        }
+
+        // When
+        List<Integer> hotPartitions = metrics.getHotPartitions();
+
+        // Then
+        assertEquals(List.of(7), hotPartitions);
+        assertEquals(501, metrics.getPartitionOperations(7));
+        assertEquals(1524, metrics.getTotalOperations());
+        assertFalse(metrics.isNodeLoadUneven());
+    }
+
+    @Test
+    @DisplayName("Test a short run is not flagged because of sampling noise")
+    void GivenFewOperations_WhenFindingHotPartitions_ThenNothingIsFlagged() {
+        // Given
+        PartitionMetrics metrics = new PartitionMetrics(registry, "partition-noise-test", 1024);
+        for (int i = 0; i < 50; i++) {
+            metrics.record(i % 3, "node-1", 1_000_000);
+        }
+
+        // When
+        List<Integer> hotPartitions = metrics.getHotPartitions();
+
+        // Then
+        assertTrue(hotPartitions.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test load concentrated on one node is reported as uneven")
+    void GivenUnevenNodes_WhenCheckingNodeLoad_ThenLoadIsUneven() {
+        // Given
+        PartitionMetrics metrics = new PartitionMetrics(registry, "node-test", 1024);
+        for (int i = 0; i < 80; i++) {
+            metrics.record(i, "node-1", 1_000_000);
+        }
+        for (int i = 0; i < 20; i++) {
+            metrics.record(512 + i, "node-2", 1_000_000);
+        }
+
+        // When
+        boolean uneven = metrics.isNodeLoadUneven();
+
+        // Then
+        assertTrue(uneven);
+        assertEquals(80.0, metrics.getBusiestNodeShare(), 1e-9);
+        assertEquals(2, metrics.getNodeTimers().size());
+    }
+}
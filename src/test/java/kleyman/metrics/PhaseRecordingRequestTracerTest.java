@@ -0,0 +1,64 @@
+package kleyman.metrics;
+
+import com.couchbase.client.core.cnc.RequestSpan;
+import com.couchbase.client.core.cnc.tracing.NoopRequestSpan;
+import com.couchbase.client.core.msg.RequestContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PhaseRecordingRequestTracerTest {
+    private final PhaseRecordingRequestTracer tracer = new PhaseRecordingRequestTracer();
+    private final CouchbaseMetrics couchbaseMetrics = new CouchbaseMetrics(MetricsSetup.getPrometheusRegistry(), "tracer-test", 1, " ", true);
+
+    @AfterEach
+    void tearDown() {
+        ScenarioContext.clear(couchbaseMetrics);
+    }
+
+    @Test
+    @DisplayName("Test child spans share the no-op span")
+    void GivenParentSpan_WhenRequestingChildSpan_ThenNoopSpanIsReturned() {
+        // Given
+        RequestSpan parent = tracer.requestSpan("get", null);
+
+        // When
+        RequestSpan child = tracer.requestSpan("dispatch_to_server", parent);
+
+        // Then
+        assertNotSame(NoopRequestSpan.INSTANCE, parent);
+        assertSame(NoopRequestSpan.INSTANCE, child);
+    }
+
+    @Test
+    @DisplayName("Test ending a top-level span records every phase for the running scenario")
+    void GivenCompletedRequest_WhenSpanEnds_ThenPhasesAreRecorded() {
+        // Given
+        RequestContext context = mock(RequestContext.class);
+        when(context.encodeLatency()).thenReturn(TimeUnit.MICROSECONDS.toNanos(50));
+        when(context.serverLatency()).thenReturn(300L);
+        when(context.dispatchLatency()).thenReturn(TimeUnit.MICROSECONDS.toNanos(800));
+        when(context.totalDispatchLatency()).thenReturn(TimeUnit.MICROSECONDS.toNanos(800));
+        when(context.logicallyCompletedAt()).thenReturn(1L);
+        when(context.logicalRequestLatency()).thenReturn(TimeUnit.MICROSECONDS.toNanos(1000));
+        ScenarioContext.activate(couchbaseMetrics);
+        RequestSpan span = tracer.requestSpan("get", null);
+        span.requestContext(context);
+
+        // When
+        span.end();
+
+        // Then
+        RequestPhaseMetrics phases = couchbaseMetrics.getRequestPhaseMetrics();
+        assertEquals(0.05, phases.getAverage(RequestPhase.ENCODE), 1e-9);
+        assertEquals(0.3, phases.getAverage(RequestPhase.SERVER), 1e-9);
+        assertEquals(0.5, phases.getAverage(RequestPhase.NETWORK), 1e-9);
+        assertEquals(0.15, phases.getAverage(RequestPhase.QUEUE), 1e-9);
+        assertEquals(0, phases.getTimer(RequestPhase.DECODE).count());
+    }
+}
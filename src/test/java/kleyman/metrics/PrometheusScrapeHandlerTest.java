@@ -0,0 +1,110 @@
+package kleyman.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrometheusScrapeHandlerTest {
+    private final PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+    private final HttpClient client = HttpClient.newHttpClient();
+    private HttpServer server;
+    private URI metricsUri;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/metrics", new PrometheusScrapeHandler(registry, Duration.ofMinutes(1)));
+        server.start();
+        metricsUri = URI.create("http://localhost:" + server.getAddress().getPort() + "/metrics");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("Test Content-Length counts UTF-8 bytes, not characters")
+    void GivenNonAsciiTag_WhenScraping_ThenContentLengthMatchesUtf8Bytes() throws Exception {
+        // Given
+        Counter.builder("scrape.test").tag("city", "Zürich").register(registry).increment();
+
+        // When
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(metricsUri).build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        // Then
+        assertEquals(200, response.statusCode());
+        assertEquals(response.body().length, Long.parseLong(response.headers().firstValue("Content-Length").orElseThrow()));
+        assertTrue(new String(response.body(), StandardCharsets.UTF_8).contains("city=\"Zürich\""));
+    }
+
+    @Test
+    @DisplayName("Test gzip is used when accepted and the snapshot is reused within the TTL")
+    void GivenGzipClient_WhenScrapingTwice_ThenCompressedCachedSnapshotIsServed() throws Exception {
+        // Given
+        Counter.builder("probe.first").register(registry).increment();
+        String plain = client.send(HttpRequest.newBuilder(metricsUri).build(), HttpResponse.BodyHandlers.ofString()).body();
+        Counter.builder("probe.second").register(registry).increment();
+
+        // When
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(metricsUri).header("Accept-Encoding", "gzip").build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+
+        // Then
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElseThrow());
+        String decompressed;
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            decompressed = new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertEquals(plain, decompressed);
+        assertFalse(decompressed.contains("probe.second"));
+        assertEquals(1, registry.get("couchbase.metrics.scrape").tag("cached", "true").timer().count());
+    }
+
+    @Test
+    @DisplayName("Test clients accepting OpenMetrics get their own snapshot in that format")
+    void GivenOpenMetricsClient_WhenScrapingAfterPlainScrape_ThenOpenMetricsSnapshotIsRendered() throws Exception {
+        // Given
+        Counter.builder("probe.format").register(registry).increment();
+        client.send(HttpRequest.newBuilder(metricsUri).build(), HttpResponse.BodyHandlers.ofString());
+
+        // When
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(metricsUri)
+                .header("Accept", "application/openmetrics-text; version=1.0.0,text/plain;version=0.0.4;q=0.5").build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertEquals(TextFormat.CONTENT_TYPE_OPENMETRICS_100, response.headers().firstValue("Content-Type").orElseThrow());
+        assertTrue(response.body().endsWith("# EOF\n"));
+        assertTrue(response.body().contains("probe_format_total 1.0"));
+    }
+
+    @Test
+    @DisplayName("Test gzip refused with q=0 is not used")
+    void GivenAcceptEncodingHeaders_WhenCheckingGzip_ThenQualityIsHonoured() {
+        // Given, When and Then
+        assertTrue(PrometheusScrapeHandler.acceptsGzip("deflate, gzip;q=1.0, *;q=0.5"));
+        assertFalse(PrometheusScrapeHandler.acceptsGzip("gzip;q=0"));
+        assertFalse(PrometheusScrapeHandler.acceptsGzip("identity"));
+        assertFalse(PrometheusScrapeHandler.acceptsGzip(null));
+    }
+}
@@ -0,0 +1,78 @@
+package kleyman.metrics;
+
+import com.couchbase.client.core.cnc.TracingIdentifiers;
+import com.couchbase.client.core.cnc.ValueRecorder;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrometheusSdkMeterTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PrometheusSdkMeter meter = new PrometheusSdkMeter(registry);
+    private final CouchbaseMetrics scenarioMetrics = new CouchbaseMetrics(MetricsSetup.getPrometheusRegistry(), "sdk-meter-test", 1, " ", true);
+
+    @AfterEach
+    void tearDown() {
+        ScenarioContext.clear(scenarioMetrics);
+    }
+
+    @Test
+    @DisplayName("Test SDK operation latency is recorded in microseconds and tagged with the running scenario")
+    void GivenRunningScenario_WhenSdkRecordsOperationLatency_ThenScenarioTaggedTimerIsUpdated() {
+        // Given
+        ValueRecorder recorder = meter.valueRecorder(TracingIdentifiers.METER_OPERATIONS, Map.of(TracingIdentifiers.ATTR_SERVICE, "kv"));
+        recorder.recordValue(100);
+        ScenarioContext.activate(scenarioMetrics);
+
+        // When
+        recorder.recordValue(1500);
+
+        // Then
+        Timer scenarioTimer = registry.get(TracingIdentifiers.METER_OPERATIONS).tag("scenario", "sdk-meter-test").timer();
+        Timer idleTimer = registry.get(TracingIdentifiers.METER_OPERATIONS).tag("scenario", PrometheusSdkMeter.NO_SCENARIO).timer();
+        assertEquals(1, scenarioTimer.count());
+        assertEquals(1.5, scenarioTimer.totalTime(TimeUnit.MILLISECONDS), 1e-9);
+        assertEquals(1, idleTimer.count());
+        assertEquals("kv", scenarioTimer.getId().getTag(TracingIdentifiers.ATTR_SERVICE));
+    }
+
+    @Test
+    @DisplayName("Test an SDK meter requested again reuses the bridged meter with the scenario timer settings")
+    void GivenBridgedValueRecorder_WhenRequestedAgainWithSameTags_ThenSameMeterIsReturned() {
+        // Given
+        ValueRecorder recorder = meter.valueRecorder(TracingIdentifiers.METER_OPERATIONS, Map.of(TracingIdentifiers.ATTR_SERVICE, "kv"));
+        ScenarioContext.activate(scenarioMetrics);
+
+        // When
+        ValueRecorder again = meter.valueRecorder(TracingIdentifiers.METER_OPERATIONS, Map.of(TracingIdentifiers.ATTR_SERVICE, "kv"));
+        again.recordValue(100);
+
+        // Then
+        assertSame(recorder, again);
+        Timer scenarioTimer = registry.get(TracingIdentifiers.METER_OPERATIONS).tag("scenario", "sdk-meter-test").timer();
+        assertEquals(CouchbaseMetrics.LATENCY_PERCENTILES.length, scenarioTimer.takeSnapshot().percentileValues().length);
+    }
+
+    @Test
+    @DisplayName("Test orphan counts are read per service from the structured orphan report")
+    void GivenOrphanReport_WhenReadingCounts_ThenCountPerServiceIsReturned() {
+        // Given
+        List<Map<String, Object>> orphans = List.of(
+                Map.of("service", "kv", "count", 3, "top", List.of()),
+                Map.of("service", "query", "count", 1L));
+
+        // When
+        Map<String, Long> counts = SdkHealthMonitor.orphanCounts(orphans);
+
+        // Then
+        assertEquals(Map.of("kv", 3L, "query", 1L), counts);
+    }
+}
@@ -0,0 +1,57 @@
+package kleyman.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScenarioLatenciesTest {
+
+    @Test
+    @DisplayName("Test a latency recorded once reaches the operation, scenario and every interval view")
+    void GivenViews_WhenLatencyIsRecordedOnce_ThenEveryHistogramAndViewHoldsIt() {
+        // Given
+        ScenarioLatencies latencies = new ScenarioLatencies();
+        ScenarioLatencies.OperationLatency put = latencies.operation("put");
+        ScenarioLatencies.OperationLatency get = latencies.operation("get");
+        IntervalLatencyRecorder allOperations = latencies.newView();
+        IntervalLatencyRecorder putOnly = put.newView();
+
+        // When
+        put.record(TimeUnit.MILLISECONDS.toNanos(2));
+        get.record(TimeUnit.MILLISECONDS.toNanos(5));
+        long allInFirstInterval = allOperations.takeIntervalHistogram().getTotalCount();
+        long putsInFirstInterval = putOnly.takeIntervalHistogram().getTotalCount();
+        get.record(TimeUnit.MILLISECONDS.toNanos(7));
+
+        // Then
+        assertEquals(2, allInFirstInterval);
+        assertEquals(1, putsInFirstInterval);
+        assertEquals(1, allOperations.takeIntervalHistogram().getTotalCount());
+        assertEquals(0, putOnly.takeIntervalHistogram().getTotalCount());
+        assertEquals(1, put.getHistogram().getTotalCount());
+        assertEquals(2, get.getHistogram().getTotalCount());
+        assertEquals(3, latencies.getTotal().getTotalCount());
+        assertEquals(7000, get.getHistogram().getMaxValue(), 10);
+    }
+
+    @Test
+    @DisplayName("Test the archived latencies keep every recorded operation and refuse new ones")
+    void GivenRecordedLatencies_WhenArchived_ThenCopyHoldsThemAndCannotRecord() {
+        // Given
+        ScenarioLatencies latencies = new ScenarioLatencies();
+        latencies.operation("lookup_in").record(TimeUnit.MILLISECONDS.toNanos(3));
+
+        // When
+        ScenarioLatencies archived = latencies.archive();
+        latencies.operation("lookup_in").record(TimeUnit.MILLISECONDS.toNanos(3));
+
+        // Then
+        assertEquals(1, archived.operation("lookup_in").getHistogram().getTotalCount());
+        assertEquals(1, archived.getTotal().getTotalCount());
+        assertThrows(IllegalStateException.class, () -> archived.operation("lookup_in").record(1));
+        assertEquals(2, latencies.getTotal().getTotalCount());
+    }
+}
@@ -0,0 +1,89 @@
+package kleyman.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlowOperationLogTest {
+
+    @Test
+    @DisplayName("Test the slow threshold of each operation follows the configured percentile of its own latencies")
+    void GivenRecordedLatencies_WhenCheckingOperations_ThenOnlyThoseAboveTheirOperationsPercentileAreSlow() {
+        // Given
+        ScenarioLatencies latencies = new ScenarioLatencies();
+        SlowOperationLog tooFewSamples = new SlowOperationLog(latencies, 16, 99.9, 0);
+        boolean slowWithoutThreshold = tooFewSamples.isSlow("get", Long.MAX_VALUE - 1);
+        for (int i = 0; i < SlowOperationLog.MIN_SAMPLES; i++) {
+            latencies.operation("get").record(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        for (int i = 0; i < 10; i++) {
+            latencies.operation("put").record(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        SlowOperationLog log = new SlowOperationLog(latencies, 16, 99.9, 0);
+
+        // When
+        boolean fastGetIsSlow = log.isSlow("get", 50_000);
+        boolean outlierGetIsSlow = log.isSlow("get", 200_000);
+        boolean putIsSlow = log.isSlow("put", Long.MAX_VALUE - 1);
+
+        // Then
+        assertFalse(slowWithoutThreshold);
+        assertEquals(Long.MAX_VALUE, tooFewSamples.getThresholdNanos("get"));
+        assertFalse(fastGetIsSlow);
+        assertTrue(outlierGetIsSlow);
+        assertFalse(putIsSlow);
+        assertEquals(100_000, log.getThresholdNanos("get"), 1_000);
+        assertEquals(Long.MAX_VALUE, log.getThresholdNanos("put"));
+        assertEquals(Map.of("get", log.getThresholdNanos("get")), log.getThresholds());
+    }
+
+    @Test
+    @DisplayName("Test nothing is captured when slow operation capture is disabled")
+    void GivenCaptureDisabled_WhenCheckingOperations_ThenNoneIsSlow() {
+        // Given
+        ScenarioLatencies latencies = new ScenarioLatencies();
+        for (int i = 0; i < SlowOperationLog.MIN_SAMPLES; i++) {
+            latencies.operation("get").record(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        System.setProperty(SlowOperationLog.ENABLED_PROPERTY, "false");
+        SlowOperationLog log;
+        try {
+            log = new SlowOperationLog(latencies);
+        } finally {
+            System.clearProperty(SlowOperationLog.ENABLED_PROPERTY);
+        }
+
+        // When
+        boolean outlierIsSlow = log.isSlow("get", Long.MAX_VALUE - 1);
+
+        // Then
+        assertFalse(outlierIsSlow);
+        assertEquals(Map.of(), log.getThresholds());
+    }
+
+    @Test
+    @DisplayName("Test a full ring buffer keeps the newest entries and the archive keeps them in order")
+    void GivenMoreEntriesThanCapacity_WhenArchived_ThenNewestEntriesAndAllCountsAreKept() {
+        // Given
+        SlowOperationLog log = new SlowOperationLog(new ScenarioLatencies(), 3, 99.9, 0);
+        for (int i = 1; i <= 6; i++) {
+            log.record(new SlowOperation(i, i % 2 == 0 ? "put" : "get", "user::" + i, "worker", i * 1_000_000L, 1024, 7, null));
+        }
+
+        // When
+        SlowOperationLog archived = log.archive();
+
+        // Then
+        assertEquals(List.of("user::3", "user::4", "user::5", "user::6"),
+                archived.getEntries().stream().map(SlowOperation::key).toList());
+        assertEquals(List.of("user::6", "user::5"), archived.getSlowest(2).stream().map(SlowOperation::key).toList());
+        assertEquals(6, archived.getCapturedCount());
+        assertEquals(Map.of("get", 3L, "put", 3L), archived.getCapturedByOperation());
+        assertFalse(archived.isSlow("get", Long.MAX_VALUE - 1));
+    }
+}
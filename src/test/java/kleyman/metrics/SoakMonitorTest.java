@@ -0,0 +1,48 @@
+package kleyman.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SoakMonitorTest {
+
+    @Test
+    @DisplayName("Test closing the monitor writes the last interval to disk and attaches the soak summary")
+    void GivenRecordedOperations_WhenMonitorIsClosed_ThenIntervalIsWrittenAndSummaryAttached(@TempDir Path directory) throws IOException {
+        // Given
+        CouchbaseMetrics metrics = new CouchbaseMetrics(new SimpleMeterRegistry(), "soak-test", 1, " ", true);
+        Path intervalFile = directory.resolve("soak-test-intervals.csv");
+        SoakMonitor monitor = SoakMonitor.start(metrics, Duration.ofHours(1), intervalFile);
+        for (int i = 0; i < 10; i++) {
+            metrics.incrementPutSuccess();
+            metrics.recordPutLatency(2, TimeUnit.MILLISECONDS);
+        }
+        metrics.incrementPutFailure();
+
+        // When
+        monitor.close();
+
+        // Then
+        List<String> lines = Files.readAllLines(intervalFile);
+        assertEquals(2, lines.size());
+        assertEquals(IntervalResult.CSV_HEADER, lines.get(0));
+        String[] columns = lines.get(1).split(",");
+        assertEquals("10", columns[2]);
+        assertEquals("1", columns[3]);
+        assertEquals(2.0, Double.parseDouble(columns[9]), 0.01);
+        SoakSummary summary = metrics.getSoakSummary();
+        assertNotNull(summary);
+        assertEquals(1, summary.intervals());
+        assertFalse(summary.hasDetectedTrends());
+    }
+}
@@ -0,0 +1,69 @@
+package kleyman.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrendDetectorTest {
+
+    @Test
+    @DisplayName("Test steadily rising latency and falling throughput are detected as trends")
+    void GivenDegradingIntervals_WhenGettingTrends_ThenDriftAndDecayAreDetected() {
+        // Given
+        TrendDetector detector = new TrendDetector();
+        for (int i = 0; i < 10; i++) {
+            detector.add(interval(i, 1000 - i * 20, 0, 10 + i));
+        }
+
+        // When
+        List<TrendResult> trends = detector.getTrends();
+
+        // Then
+        assertTrue(trends.get(0).detected());
+        assertEquals(90, trends.get(0).change(), 1e-6);
+        assertTrue(trends.get(1).detected());
+        assertEquals(-18, trends.get(1).change(), 1e-6);
+        assertFalse(trends.get(2).detected());
+    }
+
+    @Test
+    @DisplayName("Test noisy but flat intervals produce no trends")
+    void GivenFlatIntervals_WhenGettingTrends_ThenNothingIsDetected() {
+        // Given
+        TrendDetector detector = new TrendDetector();
+        for (int i = 0; i < 20; i++) {
+            detector.add(interval(i, i % 2 == 0 ? 990 : 1010, i % 2 == 0 ? 0.1 : 0.3, i % 2 == 0 ? 9 : 11));
+        }
+
+        // When
+        List<TrendResult> trends = detector.getTrends();
+
+        // Then
+        assertTrue(trends.stream().noneMatch(TrendResult::detected));
+    }
+
+    @Test
+    @DisplayName("Test a trend is not reported before enough intervals were seen")
+    void GivenTooFewIntervals_WhenGettingTrends_ThenNothingIsDetected() {
+        // Given
+        TrendDetector detector = new TrendDetector();
+        for (int i = 0; i < TrendDetector.MIN_INTERVALS - 1; i++) {
+            detector.add(interval(i, 1000, i * 5, 10 + i * 10));
+        }
+
+        // When
+        List<TrendResult> trends = detector.getTrends();
+
+        // Then
+        assertTrue(trends.stream().noneMatch(TrendResult::detected));
+        assertTrue(trends.get(2).change() > TrendDetector.ERROR_RATE_RISE_POINTS);
+    }
+
+    private static IntervalResult interval(int index, double throughput, double errorRate, double p99) {
+        return new IntervalResult(index, (index + 1) * 60_000L, Math.round(throughput * 60), 0, throughput,
+                errorRate, p99 / 2, p99 / 2, p99 * 0.9, p99, p99 * 2);
+    }
+}
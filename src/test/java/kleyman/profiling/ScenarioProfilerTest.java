@@ -0,0 +1,90 @@
+package kleyman.profiling;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import kleyman.metrics.CouchbaseMetrics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScenarioProfilerTest {
+    @TempDir
+    Path recordingDirectory;
+
+    @Test
+    @DisplayName("Test the recording is saved and its hot spots are attached to the scenario metrics")
+    void GivenProfiledScenario_WhenProfilerIsClosed_ThenRecordingIsSavedAndSummarized() {
+        // Given
+        CouchbaseMetrics metrics = new CouchbaseMetrics(new SimpleMeterRegistry(), "Scenario 99", 1, " ", true);
+        ScenarioProfiler profiler = ScenarioProfiler.start(metrics, 1, "profile", recordingDirectory);
+        burnCpuAndAllocate();
+
+        // When
+        profiler.close();
+
+        // Then
+        ProfileSummary summary = metrics.getProfileSummary();
+        assertNotNull(summary);
+        assertEquals(recordingDirectory.resolve("scenario-99.jfr"), summary.recording());
+        assertTrue(Files.exists(summary.recording()));
+        assertTrue(summary.cpuSamples() > 0);
+        assertFalse(summary.cpuFrames().isEmpty());
+        assertTrue(summary.cpuFrames().size() <= JfrProfileParser.TOP_HOT_SPOTS);
+    }
+
+    @Test
+    @DisplayName("Test a rolling recording keeps a bounded part of the scenario and is still saved and summarized")
+    void GivenSoakScenario_WhenRecordingRolling_ThenRecordingIsBoundedAndSaved() {
+        // Given
+        CouchbaseMetrics metrics = new CouchbaseMetrics(new SimpleMeterRegistry(), "Scenario 97", 1, " ", true);
+
+        // When
+        ScenarioProfiler profiler = ScenarioProfiler.startRolling(metrics, 1, "profile", recordingDirectory);
+        Recording recording = FlightRecorder.getFlightRecorder().getRecordings().stream()
+                .filter(running -> running.getName().equals("Scenario 97"))
+                .findFirst()
+                .orElseThrow();
+        burnCpuAndAllocate();
+        profiler.close();
+
+        // Then
+        assertEquals(ScenarioProfiler.ROLLING_MAX_AGE, recording.getMaxAge());
+        assertEquals(ScenarioProfiler.ROLLING_MAX_SIZE_BYTES, recording.getMaxSize());
+        assertNotNull(metrics.getProfileSummary());
+        assertTrue(Files.exists(recordingDirectory.resolve("scenario-97.jfr")));
+    }
+
+    @Test
+    @DisplayName("Test nothing is recorded when profiling is disabled")
+    void GivenDisabledProfiling_WhenProfilerIsClosed_ThenNoSummaryIsAttached() {
+        // Given
+        CouchbaseMetrics metrics = new CouchbaseMetrics(new SimpleMeterRegistry(), "Scenario 98", 1, " ", true);
+        ScenarioProfiler profiler = ScenarioProfiler.start(metrics, 2, ScenarioProfiler.DISABLED, recordingDirectory);
+
+        // When
+        profiler.close();
+
+        // Then
+        assertNull(metrics.getProfileSummary());
+        assertFalse(Files.exists(recordingDirectory.resolve("scenario-98-trial-2.jfr")));
+    }
+
+    private static void burnCpuAndAllocate() {
+        long deadline = System.nanoTime() + 500_000_000L;
+        List<String> retained = new ArrayList<>();
+        while (System.nanoTime() < deadline) {
+            retained.add(Long.toHexString(System.nanoTime()));
+            if (retained.size() > 10_000) {
+                retained.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package kleyman.results;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kleyman.metrics.ClientResourceSampler;
+import kleyman.metrics.CouchbaseMetrics;
+import kleyman.metrics.OperationType;
+import kleyman.metrics.TimelinePoint;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogReader;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultExporterTest {
+
+    @Test
+    @DisplayName("Test the scenario summary holds counts and full-precision latencies of every recorded operation")
+    void GivenRecordedOperations_WhenSummaryIsWritten_ThenJsonHoldsCountsAndLatencies() throws IOException {
+        // Given
+        CouchbaseMetrics metrics = new CouchbaseMetrics(new SimpleMeterRegistry(), "Scenario 3", 4, "json/small", true);
+        for (int i = 1; i <= 1000; i++) {
+            metrics.incrementPutSuccess();
+            metrics.recordPutLatency(i, TimeUnit.MICROSECONDS);
+        }
+        metrics.incrementFailure(OperationType.LOOKUP_IN);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        ResultExporter.writeSummary(metrics.archive(), 2, out);
+
+        // Then
+        JsonNode summary = new ObjectMapper().readTree(out.toByteArray());
+        assertEquals("Scenario 3", summary.get("scenarioId").asText());
+        assertEquals(2, summary.get("trial").asInt());
+        assertEquals(4, summary.get("threads").asInt());
+        assertEquals(1000, summary.get("successfulOperations").asLong());
+        assertEquals(1, summary.get("failedOperations").asLong());
+        JsonNode latency = summary.get("latencyMillis");
+        assertEquals(1000, latency.get("count").asLong());
+        assertEquals(0.5, latency.get("p50").asDouble(), 0.001);
+        assertEquals(0.999, latency.get("p99_9").asDouble(), 0.001);
+        JsonNode operations = summary.get("operations");
+        assertEquals(2, operations.size());
+        assertEquals("PUT", operations.get(0).get("operation").asText());
+        assertEquals(1000, operations.get(0).get("successes").asLong());
+        assertEquals(OperationType.LOOKUP_IN.getDisplayName(), operations.get(1).get("operation").asText());
+        assertEquals(1, operations.get(1).get("failures").asLong());
+    }
+
+    @Test
+    @DisplayName("Test the timeline is written as one CSV row per interval without rounding")
+    void GivenTimelinePoints_WhenTimelineIsWritten_ThenCsvHasOneRowPerPoint() throws IOException {
+        // Given
+        List<TimelinePoint> points = List.of(
+                new TimelinePoint(1000, 1000, 1234.5678, 1235, 0.512, 2.048, 7.5),
+                new TimelinePoint(2000, 1000, 987.654321, 988, 0.6, 3.1, 9.25));
+        StringWriter out = new StringWriter();
+
+        // When
+        ResultExporter.writeTimeline(points, out);
+
+        // Then
+        String[] lines = out.toString().split("\n");
+        assertEquals(3, lines.length);
+        assertEquals(ResultExporter.TIMELINE_CSV_HEADER, lines[0]);
+        assertEquals("1000,1000,1234.5678,1235,0.512,2.048,7.5", lines[1]);
+        assertEquals("2000,1000,987.654321,988,0.6,3.1,9.25", lines[2]);
+    }
+
+    @Test
+    @DisplayName("Test the interval log holds a readable histogram for every sampled interval")
+    void GivenRunningScenario_WhenHistogramLogIsClosed_ThenEveryIntervalCanBeRead(@TempDir Path directory) throws IOException {
+        // Given
+        CouchbaseMetrics metrics = new CouchbaseMetrics(new SimpleMeterRegistry(), "Scenario 5", 1, " ", true);
+        Path logFile = directory.resolve(ResultExporter.baseName("Scenario 5", 1) + HistogramLogExporter.EXTENSION);
+        HistogramLogExporter exporter = HistogramLogExporter.start(metrics, logFile);
+        ClientResourceSampler sampler = ClientResourceSampler.start(metrics);
+        for (int i = 0; i < 100; i++) {
+            metrics.incrementGetSuccess();
+            metrics.recordGetLatency(3, TimeUnit.MILLISECONDS);
+        }
+
+        // When
+        sampler.close();
+        exporter.close();
+
+        // Then
+        assertEquals("scenario-5.hlog", logFile.getFileName().toString());
+        HistogramLogReader reader = new HistogramLogReader(logFile.toFile());
+        long total = 0;
+        Histogram interval;
+        while ((interval = (Histogram) reader.nextIntervalHistogram()) != null) {
+            total += interval.getTotalCount();
+            assertTrue(interval.getMaxValue() >= 3000);
+        }
+        reader.close();
+        assertEquals(100, total);
+    }
+}
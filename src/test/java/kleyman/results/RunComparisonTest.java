@@ -0,0 +1,82 @@
+package kleyman.results;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunComparisonTest {
+
+    @Test
+    @DisplayName("Test slower latencies and lower throughput are reported as significant regressions")
+    void GivenRegressedCandidate_WhenCompared_ThenDeltasAreSignificant() {
+        // Given
+        List<ScenarioResult> baseline = List.of(scenario(1000, 0, 2000), scenario(1000, 1, 2000), scenario(1000, 2, 2000));
+        List<ScenarioResult> candidate = List.of(scenario(800, 3, 3000), scenario(800, 4, 3000), scenario(800, 5, 3000));
+
+        // When
+        ScenarioComparison comparison = RunComparison.compare(baseline, candidate);
+
+        // Then
+        MetricDelta throughput = comparison.deltas().get(0);
+        assertEquals(-20, throughput.changePercent(), 1);
+        assertTrue(throughput.significant());
+        MetricDelta p99 = comparison.deltas().get(3);
+        assertEquals("p99 latency (ms)", p99.metric());
+        assertEquals(50, p99.changePercent(), 1);
+        assertTrue(p99.significant());
+    }
+
+    @Test
+    @DisplayName("Test two runs of the same workload show no significant change")
+    void GivenEquivalentRuns_WhenCompared_ThenNothingIsSignificant() {
+        // Given
+        RunResult baseline = new RunResult(Instant.now(), List.of(scenario(1000, 1, 2000)));
+        RunResult candidate = new RunResult(Instant.now(), List.of(scenario(1000, 2, 2000)));
+
+        // When
+        List<ScenarioComparison> comparisons = RunComparison.compare(baseline, candidate);
+
+        // Then
+        assertEquals(1, comparisons.size());
+        assertTrue(comparisons.get(0).deltas().stream().noneMatch(MetricDelta::significant));
+    }
+
+    @Test
+    @DisplayName("Test a throughput change of scenarios run once is not significant, as there is only one trial mean")
+    void GivenSingleTrials_WhenCompared_ThenThroughputChangeIsNotSignificant() {
+        // Given
+        RunResult baseline = new RunResult(Instant.now(), List.of(scenario(1000, 1, 2000)));
+        RunResult candidate = new RunResult(Instant.now(), List.of(scenario(500, 2, 2000)));
+
+        // When
+        List<ScenarioComparison> comparisons = RunComparison.compare(baseline, candidate);
+
+        // Then
+        MetricDelta throughput = comparisons.get(0).deltas().get(0);
+        assertEquals(-50, throughput.changePercent(), 3);
+        assertFalse(throughput.significant());
+    }
+
+    /**
+     * Creates a scenario trial with a noisy throughput, noisy per-second throughput and uniform latencies up to the given maximum.
+     */
+    private static ScenarioResult scenario(double throughput, long seed, long maxLatencyMicros) {
+        Random random = new Random(seed);
+        double[] intervals = new double[30];
+        for (int i = 0; i < intervals.length; i++) {
+            intervals[i] = throughput + random.nextGaussian() * throughput * 0.02;
+        }
+        Histogram histogram = new Histogram(1, 3_600_000_000L, 3);
+        for (int i = 0; i < 10_000; i++) {
+            histogram.recordValue(1 + random.nextInt((int) maxLatencyMicros));
+        }
+        double trialThroughput = throughput + random.nextGaussian() * throughput * 0.01;
+        return new ScenarioResult("Scenario 1", 5, "/data/small", true, 30, Math.round(trialThroughput * 30), 0, histogram, intervals);
+    }
+}
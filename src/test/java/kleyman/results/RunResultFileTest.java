@@ -0,0 +1,61 @@
+package kleyman.results;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kleyman.metrics.CouchbaseMetrics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunResultFileTest {
+
+    @Test
+    @DisplayName("Test a run written to a result file is read back with its counts and latency histogram")
+    void GivenRecordedScenario_WhenWrittenAndRead_ThenResultsAreEqual(@TempDir Path directory) throws IOException {
+        // Given
+        CouchbaseMetrics metrics = new CouchbaseMetrics(new SimpleMeterRegistry(), "Scenario 1", 5, "/data/small", true);
+        metrics.markScenarioStart();
+        for (int i = 1; i <= 100; i++) {
+            metrics.incrementPutSuccess();
+            metrics.recordPutLatency(i, TimeUnit.MILLISECONDS);
+        }
+        metrics.incrementGetFailure();
+        metrics.markScenarioEnd();
+        RunResult run = RunResult.from(List.of(metrics.archive()));
+        Path file = directory.resolve("run.cblr");
+
+        // When
+        RunResultFile.write(run, file);
+        RunResult read = RunResultFile.read(file);
+
+        // Then
+        assertEquals(run.createdAt().toEpochMilli(), read.createdAt().toEpochMilli());
+        ScenarioResult scenario = read.scenario("Scenario 1").orElseThrow();
+        assertEquals(5, scenario.threadCount());
+        assertEquals("/data/small", scenario.jsonSize());
+        assertTrue(scenario.uniqueKeys());
+        assertEquals(100, scenario.successfulOperations());
+        assertEquals(1, scenario.failedOperations());
+        assertEquals(100, scenario.latencyHistogram().getTotalCount());
+        assertEquals(99, scenario.latencyPercentile(99), 0.1);
+        assertTrue(Files.size(file) < 2048);
+    }
+
+    @Test
+    @DisplayName("Test a file that is not a run result file is rejected")
+    void GivenForeignFile_WhenRead_ThenIOExceptionIsThrown(@TempDir Path directory) throws IOException {
+        // Given
+        Path file = directory.resolve("report.pptx");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6});
+
+        // When / Then
+        assertThrows(IOException.class, () -> RunResultFile.read(file));
+    }
+}
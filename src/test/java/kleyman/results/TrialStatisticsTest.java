@@ -0,0 +1,58 @@
+package kleyman.results;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrialStatisticsTest {
+
+    @Test
+    @DisplayName("Test the confidence interval of three trials uses the t distribution with two degrees of freedom")
+    void GivenThreeTrials_WhenSummarized_ThenConfidenceIntervalIsStudentT() {
+        // Given
+        double[] values = {10, 12, 14};
+
+        // When
+        TrialStatistics statistics = TrialStatistics.of(values);
+
+        // Then
+        assertEquals(3, statistics.trials());
+        assertEquals(12, statistics.mean(), 1e-9);
+        assertEquals(2, statistics.standardDeviation(), 1e-9);
+        assertEquals(12 - 4.969, statistics.confidenceLow(), 1e-3);
+        assertEquals(12 + 4.969, statistics.confidenceHigh(), 1e-3);
+    }
+
+    @Test
+    @DisplayName("Test a single trial has no interval and cannot be tested for significance")
+    void GivenSingleTrial_WhenSummarized_ThenIntervalCollapsesAndPValueIsNaN() {
+        // Given
+        double[] values = {100};
+
+        // When
+        TrialStatistics statistics = TrialStatistics.of(values);
+
+        // Then
+        assertEquals(100, statistics.confidenceLow());
+        assertEquals(100, statistics.confidenceHigh());
+        assertTrue(Double.isNaN(TrialStatistics.welchPValue(values, new double[]{90, 91})));
+    }
+
+    @Test
+    @DisplayName("Test clearly separated trials are significant and overlapping ones are not")
+    void GivenTwoSetsOfTrials_WhenTested_ThenOnlySeparatedSetsAreSignificant() {
+        // Given
+        double[] baseline = {1000, 1010, 990, 1005, 995};
+        double[] faster = {1200, 1210, 1190, 1205, 1195};
+        double[] noise = {1002, 1012, 985, 1000, 998};
+
+        // When
+        double separated = TrialStatistics.welchPValue(baseline, faster);
+        double overlapping = TrialStatistics.welchPValue(baseline, noise);
+
+        // Then
+        assertTrue(separated < 0.001);
+        assertTrue(overlapping > 0.05);
+    }
+}
@@ -2,16 +2,28 @@ package kleyman.service;
 
 import com.couchbase.client.core.error.CouchbaseException;
 import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.BinaryCollection;
+import com.couchbase.client.java.kv.CounterResult;
+import com.couchbase.client.java.kv.GetReplicaResult;
 import com.couchbase.client.java.kv.GetResult;
+import com.couchbase.client.java.kv.IncrementOptions;
+import com.couchbase.client.java.kv.LookupInResult;
+import com.couchbase.client.java.kv.MutateInResult;
 import kleyman.config.CouchbaseConnectionManager;
 import kleyman.metrics.CouchbaseMetrics;
 import kleyman.metrics.MetricsSetup;
+import kleyman.metrics.OperationType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -191,4 +203,150 @@ public class CouchbaseServiceTest {
         assertEquals("Unexpected error retrieving document with key: " + TEST_KEY, thrownException.getMessage());
         verify(mockCollection, times(1)).get(TEST_KEY); // Verify that it only tried once
     }
+
+    @Test
+    @DisplayName("Test lookupIn returns only the requested paths")
+    public void givenExistingPaths_whenLookupIn_thenRequestedFieldsAreReturned() {
+        // Given
+        var mockCollection = createMockCollection();
+        when(connectionManager.getCollection()).thenReturn(mockCollection);
+        LookupInResult mockLookupInResult = mock(LookupInResult.class);
+        when(mockCollection.lookupIn(eq(TEST_KEY), anyList())).thenReturn(mockLookupInResult);
+        when(mockLookupInResult.exists(0)).thenReturn(true);
+        when(mockLookupInResult.contentAsBytes(0)).thenReturn("\"value\"".getBytes());
+        when(mockLookupInResult.contentAs(0, Object.class)).thenReturn("value");
+
+        // When
+        JsonObject fields = couchbaseService.lookupIn(TEST_KEY, List.of("field"), couchbaseMetrics);
+
+        // Then
+        assertEquals("value", fields.getString("field"));
+        verify(mockCollection, times(1)).lookupIn(eq(TEST_KEY), anyList());
+    }
+
+    @Test
+    @DisplayName("Test mutateIn sends a single sub-document mutation")
+    public void givenFieldValues_whenMutateIn_thenSingleMutationIsSent() {
+        // Given
+        var mockCollection = createMockCollection();
+        when(connectionManager.getCollection()).thenReturn(mockCollection);
+
+        // When
+        couchbaseService.mutateIn(TEST_KEY, Map.of("loadtest.updatedAt", 1L), couchbaseMetrics);
+
+        // Then
+        verify(mockCollection, times(1)).mutateIn(eq(TEST_KEY), anyList());
+    }
+
+    @Test
+    @DisplayName("Test incrementField returns the new counter value")
+    public void givenCounterPath_whenIncrementField_thenNewValueIsReturned() {
+        // Given
+        var mockCollection = createMockCollection();
+        when(connectionManager.getCollection()).thenReturn(mockCollection);
+        MutateInResult mockMutateInResult = mock(MutateInResult.class);
+        when(mockCollection.mutateIn(eq(TEST_KEY), anyList())).thenReturn(mockMutateInResult);
+        when(mockMutateInResult.contentAs(0, Long.class)).thenReturn(5L);
+
+        // When
+        long value = couchbaseService.incrementField(TEST_KEY, "loadtest.counter", 1, couchbaseMetrics);
+
+        // Then
+        assertEquals(5L, value);
+    }
+
+    @Test
+    @DisplayName("Test sub-document failure is counted and rethrown")
+    public void givenCouchbaseException_whenAppendToArray_thenFailureIsCountedAndRethrown() {
+        // Given
+        CouchbaseMetrics metrics = new CouchbaseMetrics(MetricsSetup.getPrometheusRegistry(), "subdoc-failure", 1, " ", true);
+        var mockCollection = createMockCollection();
+        when(connectionManager.getCollection()).thenReturn(mockCollection);
+        when(mockCollection.mutateIn(eq(TEST_KEY), anyList())).thenThrow(new CouchbaseException(CONNECTION_FAILED_MESSAGE));
+
+        // When
+        CouchbaseException thrownException = assertThrows(CouchbaseException.class,
+                () -> couchbaseService.appendToArray(TEST_KEY, "loadtest.events", 1L, metrics));
+
+        // Then
+        assertEquals(CONNECTION_FAILED_MESSAGE, thrownException.getMessage());
+        assertEquals(1.0, metrics.getOperationMetrics(OperationType.SUBDOC_ARRAY_APPEND).getFailureCounter().count());
+    }
+
+    @Test
+    @DisplayName("Test retrieveFromAnyReplica returns content, CAS and the answering copy")
+    public void givenReplicaAnswers_whenRetrieveFromAnyReplica_thenVersionedDocumentIsReturned() {
+        // Given
+        var mockCollection = createMockCollection();
+        when(connectionManager.getCollection()).thenReturn(mockCollection);
+        GetReplicaResult mockReplicaResult = mock(GetReplicaResult.class);
+        when(mockCollection.getAnyReplica(TEST_KEY)).thenReturn(mockReplicaResult);
+        when(mockReplicaResult.contentAs(JsonObject.class)).thenReturn(jsonData);
+        when(mockReplicaResult.cas()).thenReturn(42L);
+        when(mockReplicaResult.isReplica()).thenReturn(true);
+
+        // When
+        VersionedDocument<JsonObject> document = couchbaseService.retrieveFromAnyReplica(TEST_KEY, couchbaseMetrics);
+
+        // Then
+        assertEquals(jsonData, document.content());
+        assertEquals(42L, document.cas());
+        assertTrue(document.replica());
+    }
+
+    @Test
+    @DisplayName("Test retrieveFromAllReplicas returns every copy that answers")
+    public void givenActiveAndReplica_whenRetrieveFromAllReplicas_thenAllCopiesAreReturned() {
+        // Given
+        var mockCollection = createMockCollection();
+        when(connectionManager.getCollection()).thenReturn(mockCollection);
+        GetReplicaResult active = mock(GetReplicaResult.class);
+        GetReplicaResult replica = mock(GetReplicaResult.class);
+        when(replica.isReplica()).thenReturn(true);
+        when(mockCollection.getAllReplicas(TEST_KEY)).thenReturn(Stream.of(active, replica));
+
+        // When
+        List<VersionedDocument<JsonObject>> copies = couchbaseService.retrieveFromAllReplicas(TEST_KEY, couchbaseMetrics);
+
+        // Then
+        assertEquals(2, copies.size());
+        assertTrue(copies.get(1).replica());
+    }
+
+    @Test
+    @DisplayName("Test incrementCounter uses the binary API and returns the counter value")
+    public void givenCounterKey_whenIncrementCounter_thenBinaryIncrementIsUsed() {
+        // Given
+        var mockCollection = createMockCollection();
+        BinaryCollection mockBinaryCollection = mock(BinaryCollection.class);
+        CounterResult mockCounterResult = mock(CounterResult.class);
+        when(connectionManager.getCollection()).thenReturn(mockCollection);
+        when(mockCollection.binary()).thenReturn(mockBinaryCollection);
+        when(mockBinaryCollection.increment(eq(TEST_KEY), any(IncrementOptions.class))).thenReturn(mockCounterResult);
+        when(mockCounterResult.content()).thenReturn(3L);
+
+        // When
+        long value = couchbaseService.incrementCounter(TEST_KEY, 1, couchbaseMetrics);
+
+        // Then
+        assertEquals(3L, value);
+        verify(mockBinaryCollection, times(1)).increment(eq(TEST_KEY), any(IncrementOptions.class));
+    }
+
+    @Test
+    @DisplayName("Test appendBinary sends the raw bytes")
+    public void givenBinaryDocument_whenAppendBinary_thenRawBytesAreAppended() {
+        // Given
+        var mockCollection = createMockCollection();
+        BinaryCollection mockBinaryCollection = mock(BinaryCollection.class);
+        when(connectionManager.getCollection()).thenReturn(mockCollection);
+        when(mockCollection.binary()).thenReturn(mockBinaryCollection);
+        byte[] chunk = {1, 2, 3};
+
+        // When
+        couchbaseService.appendBinary(TEST_KEY, chunk, couchbaseMetrics);
+
+        // Then
+        verify(mockBinaryCollection, times(1)).append(TEST_KEY, chunk);
+    }
 }
@@ -0,0 +1,200 @@
+package kleyman.service;
+
+import com.couchbase.client.core.error.CouchbaseException;
+import com.couchbase.client.core.msg.kv.DurabilityLevel;
+import com.couchbase.client.java.json.JsonObject;
+import kleyman.config.PartitionLocator;
+import kleyman.metrics.CouchbaseMetrics;
+import kleyman.metrics.MetricsSetup;
+import kleyman.metrics.OperationType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryDataBaseServiceTest {
+    private static final String TEST_KEY = "testKey";
+    private final CouchbaseMetrics couchbaseMetrics = new CouchbaseMetrics(MetricsSetup.getPrometheusRegistry(), "in-memory", 1, " ", true);
+    private InMemoryDataBaseService inMemoryService;
+    private JsonObject jsonData;
+
+    @BeforeEach
+    void setUp() {
+        inMemoryService = new InMemoryDataBaseService(Duration.ZERO, Duration.ofMillis(2), Duration.ofMillis(5));
+        jsonData = JsonObject.create().put("name", "John").put("address", JsonObject.create().put("city", "Springfield"));
+    }
+
+    @Test
+    @DisplayName("Test uploaded document is retrieved unchanged")
+    void givenUploadedDocument_whenRetrieve_thenSameDocumentIsReturned() {
+        // Given
+        inMemoryService.upload(TEST_KEY, jsonData, couchbaseMetrics);
+
+        // When
+        JsonObject retrieved = inMemoryService.retrieve(TEST_KEY, couchbaseMetrics);
+
+        // Then
+        assertEquals(jsonData, retrieved);
+        assertEquals(1, inMemoryService.size());
+    }
+
+    @Test
+    @DisplayName("Test retrieve throws CouchbaseException when document is missing")
+    void givenMissingDocument_whenRetrieve_thenThrowsCouchbaseException() {
+        // When & Then
+        assertThrows(CouchbaseException.class, () -> inMemoryService.retrieve("missing", couchbaseMetrics));
+    }
+
+    @Test
+    @DisplayName("Test durability levels wait for the emulated replication and persistence")
+    void givenDurabilityLevels_whenComputingExtraLatency_thenReplicationAndPersistenceAreEmulated() {
+        // Then
+        assertEquals(0, inMemoryService.durabilityNanos(DurabilityLevel.NONE));
+        assertEquals(Duration.ofMillis(2).toNanos(), inMemoryService.durabilityNanos(DurabilityLevel.MAJORITY));
+        assertEquals(Duration.ofMillis(5).toNanos(), inMemoryService.durabilityNanos(DurabilityLevel.MAJORITY_AND_PERSIST_TO_ACTIVE));
+        assertEquals(Duration.ofMillis(7).toNanos(), inMemoryService.durabilityNanos(DurabilityLevel.PERSIST_TO_MAJORITY));
+    }
+
+    @Test
+    @DisplayName("Test durable upload takes at least the emulated round-trips")
+    void givenPersistToMajority_whenUpload_thenLatencyIncludesReplicationAndPersistence() {
+        // When
+        long startTime = System.nanoTime();
+        inMemoryService.upload(TEST_KEY, jsonData, DurabilityLevel.PERSIST_TO_MAJORITY, couchbaseMetrics);
+        long duration = System.nanoTime() - startTime;
+
+        // Then
+        assertTrue(duration >= Duration.ofMillis(7).toNanos());
+    }
+
+    @Test
+    @DisplayName("Test sub-document operations update individual fields")
+    void givenUploadedDocument_whenSubDocumentOperations_thenFieldsAreUpdated() {
+        // Given
+        inMemoryService.upload(TEST_KEY, jsonData, couchbaseMetrics);
+
+        // When
+        inMemoryService.mutateIn(TEST_KEY, Map.of("loadtest.updatedAt", 10L), couchbaseMetrics);
+        inMemoryService.incrementField(TEST_KEY, "loadtest.counter", 1, couchbaseMetrics);
+        long counter = inMemoryService.incrementField(TEST_KEY, "loadtest.counter", 2, couchbaseMetrics);
+        inMemoryService.appendToArray(TEST_KEY, "loadtest.events", 10L, couchbaseMetrics);
+        JsonObject fields = inMemoryService.lookupIn(TEST_KEY, List.of("name", "address.city", "missing"), couchbaseMetrics);
+
+        // Then
+        assertEquals(3L, counter);
+        assertEquals("John", fields.getString("name"));
+        assertEquals("Springfield", fields.getString("address.city"));
+        assertFalse(fields.containsKey("missing"));
+        JsonObject stored = inMemoryService.retrieve(TEST_KEY, couchbaseMetrics);
+        assertEquals(10L, stored.getObject("loadtest").getLong("updatedAt"));
+        assertEquals(1, stored.getObject("loadtest").getArray("events").size());
+        assertTrue(couchbaseMetrics.getSuccessfulOperations(OperationType.SUBDOC_COUNTER) >= 2);
+    }
+
+    @Test
+    @DisplayName("Test replica serves the previous version until the write is replicated")
+    void givenNonDurableOverwrite_whenReadFromReplicas_thenPreviousVersionIsServedUntilReplicated() throws InterruptedException {
+        // Given
+        InMemoryDataBaseService laggingService = new InMemoryDataBaseService(Duration.ZERO, Duration.ofMillis(200), Duration.ZERO, 2);
+        long firstCas = laggingService.uploadAndGetCas(TEST_KEY, jsonData, DurabilityLevel.NONE, couchbaseMetrics);
+        Thread.sleep(450);
+        long secondCas = laggingService.uploadAndGetCas(TEST_KEY, JsonObject.create().put("name", "Jane"), DurabilityLevel.NONE, couchbaseMetrics);
+
+        // When
+        VersionedDocument<JsonObject> anyReplica = laggingService.retrieveFromAnyReplica(TEST_KEY, couchbaseMetrics);
+        List<VersionedDocument<JsonObject>> copies = laggingService.retrieveFromAllReplicas(TEST_KEY, couchbaseMetrics);
+
+        // Then
+        assertTrue(anyReplica.replica());
+        assertEquals(firstCas, anyReplica.cas());
+        assertEquals(3, copies.size());
+        assertEquals(secondCas, copies.get(0).cas());
+        assertEquals(firstCas, copies.get(2).cas());
+    }
+
+    @Test
+    @DisplayName("Test durable write is visible on replicas immediately")
+    void givenDurableWrite_whenReadFromAnyReplica_thenLatestVersionIsServed() {
+        // Given
+        long cas = inMemoryService.uploadAndGetCas(TEST_KEY, jsonData, DurabilityLevel.MAJORITY, couchbaseMetrics);
+
+        // When
+        VersionedDocument<JsonObject> anyReplica = inMemoryService.retrieveFromAnyReplica(TEST_KEY, couchbaseMetrics);
+
+        // Then
+        assertTrue(anyReplica.replica());
+        assertEquals(cas, anyReplica.cas());
+    }
+
+    @Test
+    @DisplayName("Test replace with a stale CAS is rejected")
+    void givenDocumentChangedSinceRead_whenReplaceWithCas_thenReplaceIsRejected() {
+        // Given
+        inMemoryService.upload(TEST_KEY, jsonData, couchbaseMetrics);
+        VersionedDocument<JsonObject> read = inMemoryService.retrieveWithCas(TEST_KEY, couchbaseMetrics);
+        inMemoryService.upload(TEST_KEY, JsonObject.create().put("name", "Jane"), couchbaseMetrics);
+
+        // When
+        boolean staleReplace = inMemoryService.replaceWithCas(TEST_KEY, read.content(), read.cas(), couchbaseMetrics);
+        VersionedDocument<JsonObject> current = inMemoryService.retrieveWithCas(TEST_KEY, couchbaseMetrics);
+        boolean freshReplace = inMemoryService.replaceWithCas(TEST_KEY, jsonData, current.cas(), couchbaseMetrics);
+
+        // Then
+        assertFalse(staleReplace);
+        assertTrue(freshReplace);
+        assertEquals(jsonData, inMemoryService.retrieve(TEST_KEY, couchbaseMetrics));
+    }
+
+    @Test
+    @DisplayName("Test counters are created on first use and never go below zero")
+    void givenMissingCounter_whenIncrementAndDecrement_thenValueStartsAtDeltaAndStopsAtZero() {
+        // When
+        long afterIncrement = inMemoryService.incrementCounter("counter", 5, couchbaseMetrics);
+        long afterSecondIncrement = inMemoryService.incrementCounter("counter", 2, couchbaseMetrics);
+        long afterDecrement = inMemoryService.decrementCounter("counter", 10, couchbaseMetrics);
+
+        // Then
+        assertEquals(5, afterIncrement);
+        assertEquals(7, afterSecondIncrement);
+        assertEquals(0, afterDecrement);
+        assertEquals(0, inMemoryService.decrementCounter("other", 1, couchbaseMetrics));
+    }
+
+    @Test
+    @DisplayName("Test binary append and prepend concatenate raw bytes")
+    void givenBinaryDocument_whenAppendAndPrepend_thenBytesAreConcatenated() {
+        // Given
+        inMemoryService.uploadBinary("blob", new byte[]{2, 3}, couchbaseMetrics);
+
+        // When
+        inMemoryService.appendBinary("blob", new byte[]{4}, couchbaseMetrics);
+        inMemoryService.prependBinary("blob", new byte[]{1}, couchbaseMetrics);
+
+        // Then
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, inMemoryService.retrieveBinary("blob", couchbaseMetrics));
+        assertThrows(CouchbaseException.class, () -> inMemoryService.appendBinary("missing", new byte[]{1}, couchbaseMetrics));
+    }
+
+    @Test
+    @DisplayName("Test repeated operations on one key flag its vBucket as hot")
+    void givenSingleHotKey_whenOperating_thenItsPartitionIsHot() {
+        // Given
+        CouchbaseMetrics hotKeyMetrics = new CouchbaseMetrics(MetricsSetup.getPrometheusRegistry(), "in-memory-hot-partition", 1, " ", false);
+        inMemoryService.upload(TEST_KEY, jsonData, hotKeyMetrics);
+
+        // When
+        for (int i = 0; i < 200; i++) {
+            inMemoryService.retrieve(TEST_KEY, hotKeyMetrics);
+        }
+
+        // Then
+        int partition = PartitionLocator.singleNode(PartitionLocator.DEFAULT_PARTITIONS, InMemoryDataBaseService.IN_MEMORY_NODE).partitionForKey(TEST_KEY);
+        assertEquals(List.of(partition), hotKeyMetrics.getPartitionMetrics().getHotPartitions());
+        assertEquals(201, hotKeyMetrics.getPartitionMetrics().getPartitionOperations(partition));
+    }
+}
@@ -0,0 +1,69 @@
+package kleyman.service;
+
+import com.couchbase.client.core.error.CouchbaseException;
+import com.couchbase.client.java.json.JsonObject;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+import kleyman.metrics.CouchbaseMetrics;
+import kleyman.metrics.ScenarioContext;
+import kleyman.metrics.SlowOperation;
+import kleyman.metrics.SlowOperationCollector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlowOperationCaptureTest {
+
+    @Test
+    @DisplayName("Test slow calls are captured by the service with key, size and error and exposed as OpenMetrics exemplars")
+    void GivenLowSlowThresholds_WhenCallsAreMade_ThenTheyAreCapturedAndExposedAsExemplars() throws Exception {
+        // Given
+        CouchbaseMetrics metrics = new CouchbaseMetrics(new SimpleMeterRegistry(), "slow-capture", 1, "json_small_", true);
+        for (int i = 0; i < 1000; i++) {
+            metrics.recordPutLatency(1, TimeUnit.MICROSECONDS);
+            metrics.recordGetLatency(1, TimeUnit.MICROSECONDS);
+        }
+        InMemoryDataBaseService service = new InMemoryDataBaseService(Duration.ofMillis(1), Duration.ZERO, Duration.ZERO);
+        JsonObject document = JsonObject.create().put("name", "slow");
+        CollectorRegistry collectorRegistry = new CollectorRegistry();
+        new SlowOperationCollector().register(collectorRegistry);
+
+        // When
+        service.upload("user::slow", document, metrics);
+        assertThrows(CouchbaseException.class, () -> service.retrieve("user::missing", metrics));
+        service.incrementCounter("counter::slow", 1, metrics);
+        StringWriter exposition = new StringWriter();
+        ScenarioContext.activate(metrics);
+        try {
+            TextFormat.writeOpenMetrics100(exposition, collectorRegistry.metricFamilySamples());
+        } finally {
+            ScenarioContext.clear(metrics);
+        }
+
+        // Then
+        // The counter has too few latencies of its own for a threshold, so it is not captured
+        List<SlowOperation> captured = metrics.getSlowOperationLog().getEntries();
+        assertEquals(2, captured.size());
+        SlowOperation upload = captured.get(0);
+        assertEquals("put", upload.operation());
+        assertEquals("user::slow", upload.key());
+        assertEquals(document.toBytes().length, upload.documentBytes());
+        assertEquals(Thread.currentThread().getName(), upload.thread());
+        assertTrue(upload.partition() >= 0);
+        assertNull(upload.error());
+        SlowOperation failedGet = captured.get(1);
+        assertEquals("get", failedGet.operation());
+        assertEquals(-1, failedGet.documentBytes());
+        assertEquals("CouchbaseException", failedGet.error());
+        assertTrue(exposition.toString().contains(
+                "couchbase_slow_operations_total{scenario=\"slow-capture\",operation=\"put\"} 1.0 # {key=\"user::slow\""),
+                exposition.toString());
+    }
+}
@@ -0,0 +1,138 @@
+package kleyman.slo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kleyman.metrics.CouchbaseMetrics;
+import kleyman.results.RunResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SloGateTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty(SloGate.SLO_FILE_PROPERTY);
+        System.clearProperty("load.test.results.directory");
+    }
+
+    @Test
+    @DisplayName("Test a scenario within its thresholds passes and one over its p99 GET latency fails")
+    void GivenScenarioThresholds_WhenEvaluated_ThenOnlyViolatedScenarioFails() {
+        // Given
+        CouchbaseMetrics fast = scenario("Scenario 1", 2);
+        CouchbaseMetrics slow = scenario("Scenario 2", 20);
+        SloThresholds getLatency = new SloThresholds(null, 10.0, null, null, null, null);
+        SloConfig config = new SloConfig(null, new SloThresholds(null, null, null, null, 1.0, null),
+                Map.of("Scenario 1", getLatency, "Scenario 2", getLatency));
+
+        // When
+        SloVerdict verdict = SloGate.evaluate(config, List.of(fast, slow), null);
+
+        // Then
+        assertFalse(verdict.passed());
+        assertEquals(1, verdict.failedChecks());
+        assertEquals(4, verdict.checks().size());
+        SloCheck failed = verdict.checks().stream().filter(check -> !check.passed()).findFirst().orElseThrow();
+        assertEquals("Scenario 2", failed.scenarioId());
+        assertEquals("p99 GET latency (ms)", failed.metric());
+    }
+
+    @Test
+    @DisplayName("Test the trials of a scenario are checked together, so a slow earlier trial fails the gate")
+    void GivenRepeatedScenario_WhenEarlierTrialWasSlow_ThenGateFails() {
+        // Given
+        CouchbaseMetrics slowTrial = scenario("Scenario 1", 20).archive();
+        CouchbaseMetrics fastTrial = scenario("Scenario 1", 2).archive();
+        SloConfig config = new SloConfig(null, new SloThresholds(null, 10.0, null, null, null, null), null);
+
+        // When
+        SloVerdict verdict = SloGate.evaluate(config, List.of(slowTrial, fastTrial), null);
+
+        // Then
+        assertFalse(verdict.passed());
+        assertEquals(1, verdict.checks().size());
+        assertEquals(20, verdict.checks().get(0).actual(), 0.1);
+    }
+
+    @Test
+    @DisplayName("Test a scenario listed in the SLO file that did not run fails the gate")
+    void GivenMissingScenario_WhenEvaluated_ThenGateFails() {
+        // Given
+        SloConfig config = new SloConfig(null, null, Map.of("Scenario 7", new SloThresholds(null, null, null, 1.0, null, null)));
+
+        // When
+        SloVerdict verdict = SloGate.evaluate(config, List.of(scenario("Scenario 1", 2)), null);
+
+        // Then
+        assertFalse(verdict.passed());
+        assertEquals("Scenario 7", verdict.checks().get(0).scenarioId());
+    }
+
+    @Test
+    @DisplayName("Test a p99 latency more than the allowed percentage above the baseline fails the gate")
+    void GivenBaselineRun_WhenLatencyRegressed_ThenRegressionCheckFails() {
+        // Given
+        RunResult baseline = RunResult.from(List.of(scenario("Scenario 1", 2).archive()));
+        CouchbaseMetrics regressed = new CouchbaseMetrics(new SimpleMeterRegistry(), "Scenario 1", 1, " ", true);
+        record(regressed, 4);
+        SloConfig config = new SloConfig("baseline.cblr", new SloThresholds(null, null, null, null, null, 10.0), null);
+
+        // When
+        SloVerdict verdict = SloGate.evaluate(config, List.of(regressed), baseline);
+
+        // Then
+        SloCheck latency = verdict.checks().stream()
+                .filter(check -> check.metric().equals("p99 latency vs baseline (ms)"))
+                .findFirst().orElseThrow();
+        assertFalse(latency.passed());
+        assertEquals(2.2, latency.limit(), 0.01);
+    }
+
+    @Test
+    @DisplayName("Test the configured SLO file is evaluated and the verdict is written as JSON")
+    void GivenSloFile_WhenEvaluatingConfigured_ThenVerdictFileIsWritten(@TempDir Path directory) throws IOException {
+        // Given
+        Path sloFile = directory.resolve("slo.json");
+        Files.writeString(sloFile, "{\"defaults\": {\"maxP99LatencyMillis\": 50, \"maxErrorRatePercent\": 1}}");
+        System.setProperty(SloGate.SLO_FILE_PROPERTY, sloFile.toString());
+        System.setProperty("load.test.results.directory", directory.toString());
+
+        // When
+        Optional<SloVerdict> verdict = SloGate.evaluateConfigured(List.of(scenario("Scenario 1", 2)));
+
+        // Then
+        assertTrue(verdict.orElseThrow().passed());
+        JsonNode written = new ObjectMapper().readTree(directory.resolve(SloGate.VERDICT_FILE).toFile());
+        assertTrue(written.get("passed").asBoolean());
+        assertEquals(2, written.get("checks").size());
+    }
+
+    private CouchbaseMetrics scenario(String scenarioId, long latencyMillis) {
+        CouchbaseMetrics metrics = new CouchbaseMetrics(registry, scenarioId, 1, " ", true);
+        record(metrics, latencyMillis);
+        return metrics;
+    }
+
+    private static void record(CouchbaseMetrics metrics, long latencyMillis) {
+        metrics.markScenarioStart();
+        for (int i = 0; i < 100; i++) {
+            metrics.incrementGetSuccess();
+            metrics.recordGetLatency(latencyMillis, TimeUnit.MILLISECONDS);
+        }
+        metrics.markScenarioEnd();
+    }
+}
@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.mockito.Mockito.*;
 
 class CouchbaseTestRunnerTest {
@@ -40,6 +41,19 @@ class CouchbaseTestRunnerTest {
         assertEquals(0, testRunner.numberOfTestRun, "Number of tests run should be zero since runThreadPoolTest and runConnectionPoolTest are not called.");
     }
 
+    @Test
+    @DisplayName("Test the runner reports a failure when the backend cannot be connected")
+    void GivenUnconfiguredCouchbase_WhenRunTestsCalled_ThenRunnerHasFailed() {
+        // Given
+        assumeTrue(System.getenv("COUCHBASE_HOST") == null, "Couchbase is configured");
+
+        // When
+        testRunner.runTests();
+
+        // Then
+        assertTrue(testRunner.hasFailed(), "Scenarios that could not connect should fail the run.");
+    }
+
     @Test
     @DisplayName("Test handles initialization exception gracefully")
     void GivenConnectionManager_WhenCreating_ThenShouldHandleInitializationException() {
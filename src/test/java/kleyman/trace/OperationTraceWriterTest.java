@@ -0,0 +1,73 @@
+package kleyman.trace;
+
+import com.couchbase.client.core.msg.kv.DurabilityLevel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OperationTraceWriterTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Test recorded operations are read back per worker in the order they were issued")
+    void GivenRecordedOperations_WhenTraceIsRead_ThenRecordsMatchPerWorker() throws Exception {
+        // Given
+        Path file = directory.resolve("scenario-1" + OperationTraceWriter.EXTENSION);
+        TraceHeader header = new TraceHeader("Scenario 1", "json_test_files/json_small_", true, 1_700_000_000_000L);
+        long start = System.nanoTime();
+        try (OperationTraceWriter writer = OperationTraceWriter.create(file, header, 1 << 20)) {
+            writer.record(0, TracedOperation.UPLOAD, TraceOutcome.SUCCESS, DurabilityLevel.NONE, 1, "user::hot::0", null, start, 1_000);
+            writer.record(1, TracedOperation.UPLOAD, TraceOutcome.SUCCESS, DurabilityLevel.MAJORITY, 3, "user::1::ä", null, start + 10, 2_000);
+            writer.record(2, TracedOperation.REPLACE_WITH_CAS, TraceOutcome.CAS_MISMATCH, DurabilityLevel.NONE, 0, "user::hot::0", null, start + 20, 3_000);
+            writer.record(1, TracedOperation.LOOKUP_IN, TraceOutcome.FAILURE, DurabilityLevel.NONE, 0, "user::1::ä", "name,address", start + 30, 4_000);
+        }
+
+        // When
+        try (OperationTraceReader reader = OperationTraceReader.open(file)) {
+
+            // Then
+            assertEquals(header, reader.getHeader());
+            assertEquals(4, reader.getRecordCount());
+            assertEquals(Set.of(0, 1, 2), reader.getWorkerIds());
+            List<TraceRecord> worker = Arrays.stream(reader.getRecordOffsets(1)).mapToObj(reader::read).toList();
+            long uploadStart = worker.get(0).startNanos();
+            assertEquals(List.of(
+                    new TraceRecord(uploadStart, 2_000, 1, TracedOperation.UPLOAD, TraceOutcome.SUCCESS, DurabilityLevel.MAJORITY, 3, "user::1::ä", ""),
+                    new TraceRecord(uploadStart + 20, 4_000, 1, TracedOperation.LOOKUP_IN, TraceOutcome.FAILURE, DurabilityLevel.NONE, 0, "user::1::ä", "name,address")),
+                    worker);
+            assertEquals(TraceOutcome.CAS_MISMATCH, reader.read(reader.getRecordOffsets(2)[0]).outcome());
+        }
+    }
+
+    @Test
+    @DisplayName("Test operations that no longer fit into the trace are dropped and counted")
+    void GivenFullTrace_WhenMoreOperationsAreRecorded_ThenTheyAreDroppedAndTheTraceStaysReadable() throws Exception {
+        // Given
+        Path file = directory.resolve("full" + OperationTraceWriter.EXTENSION);
+        int recordBytes = Integer.BYTES + OperationTraceWriter.FIXED_RECORD_BYTES + "key-0".length();
+        long dropped;
+
+        // When
+        try (OperationTraceWriter writer = OperationTraceWriter.create(file, new TraceHeader("full", "", false, 0), 3 * recordBytes + 5)) {
+            for (int i = 0; i < 5; i++) {
+                writer.record(1, TracedOperation.RETRIEVE, TraceOutcome.SUCCESS, DurabilityLevel.NONE, 0, "key-" + i, null, System.nanoTime(), 1);
+            }
+            dropped = writer.getDroppedOperations();
+        }
+
+        // Then
+        assertEquals(2, dropped);
+        try (OperationTraceReader reader = OperationTraceReader.open(file)) {
+            assertEquals(3, reader.getRecordCount());
+            assertEquals("key-2", reader.read(reader.getRecordOffsets(1)[2]).key());
+        }
+    }
+}
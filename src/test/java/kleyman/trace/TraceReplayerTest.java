@@ -0,0 +1,48 @@
+package kleyman.trace;
+
+import com.couchbase.client.core.msg.kv.DurabilityLevel;
+import com.couchbase.client.java.json.JsonObject;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kleyman.metrics.CouchbaseMetrics;
+import kleyman.service.InMemoryDataBaseService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TraceReplayerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Test a replayed trace records the payload of its reads and keeps its setup out of the results")
+    void GivenTraceWithSetupAndReads_WhenReplayed_ThenGetPayloadIsRecordedAndSetupIsNotCounted() throws Exception {
+        // Given
+        Path file = directory.resolve("scenario-1" + OperationTraceWriter.EXTENSION);
+        long start = System.nanoTime();
+        try (OperationTraceWriter writer = OperationTraceWriter.create(file, new TraceHeader("Scenario 1", "", true, 0), 1 << 16)) {
+            writer.record(0, TracedOperation.UPLOAD, TraceOutcome.SUCCESS, DurabilityLevel.NONE, 1, "user::hot::0", null, start, 1_000);
+            writer.record(1, TracedOperation.RETRIEVE, TraceOutcome.SUCCESS, DurabilityLevel.NONE, 0, "user::hot::0", null, start + 10, 1_000);
+            writer.record(1, TracedOperation.RETRIEVE, TraceOutcome.SUCCESS, DurabilityLevel.NONE, 0, "user::hot::0", null, start + 20, 1_000);
+        }
+        JsonObject document = JsonObject.create().put("name", "replayed");
+        CouchbaseMetrics metrics = new CouchbaseMetrics(new SimpleMeterRegistry(), "Scenario 1", 1, "", true);
+
+        // When
+        try (OperationTraceReader reader = OperationTraceReader.open(file)) {
+            TraceReplayer replayer = new TraceReplayer(reader, new InMemoryDataBaseService(), metrics, id -> document,
+                    Double.POSITIVE_INFINITY);
+            replayer.replaySetup();
+            replayer.replayWorker(1, () -> true);
+        }
+
+        // Then
+        assertEquals(2, metrics.getGetPayloadBytes().count());
+        assertEquals(2.0 * document.toBytes().length, metrics.getGetPayloadBytes().totalAmount());
+        assertEquals(0, metrics.getPutPayloadBytes().count());
+        assertEquals(0, metrics.getPutLatencyHistogram().getTotalCount());
+    }
+}